@@ -6,8 +6,13 @@ import org.ioc.contex.ApplicationContext;
 import org.nampython.config.ConfigCenter;
 import org.nampython.config.ConfigValue;
 import org.nampython.core.BaseServer;
+import org.nampython.core.BufferPool;
 import org.nampython.core.InitLoadingRequest;
 import org.nampython.core.ServerImplement;
+import org.nampython.core.ServerTransport;
+import org.nampython.core.ShutdownReport;
+import org.nampython.core.cache.StaticResourceCache;
+import org.nampython.core.nio.NioServerImplement;
 import org.nampython.creation.BeanCenter;
 import org.nampython.support.IocCenter;
 import org.nampython.support.Logger;
@@ -18,6 +23,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 public class StartServer {
+    private static final String SHUTDOWN_THREAD_NAME = "server-shutdown";
 
     /**
      * Run the application by calling this function.
@@ -61,10 +67,13 @@ public class StartServer {
             loadRequestHandlers(applicationContext.getBean(InitLoadingRequest.class));
             loggingService = applicationContext.getBean(Logger.class);
 
-            final BaseServer server = new ServerImplement(
+            final BaseServer server = createServer(
                     applicationContext.getBean(InitLoadingRequest.class),
-                    applicationContext.getBean(ConfigCenter.class).getConfigValue(ConfigValue.SERVER_PORT, int.class)
+                    applicationContext.getBean(ConfigCenter.class),
+                    loggingService
             );
+            registerShutdownHook(server, applicationContext.getBean(ConfigCenter.class), applicationContext.getBean(StaticResourceCache.class),
+                    applicationContext.getBean(BufferPool.class), loggingService);
             if (onServerLoadedEvent != null) {
                 onServerLoadedEvent.run();
             }
@@ -79,6 +88,50 @@ public class StartServer {
         }
     }
 
+    /**
+     * Creates the server for the configured {@link ConfigValue#SERVER_TRANSPORT}.
+     *
+     * @param initLoadingRequest holds the loaded request handlers
+     * @param configCenter the server configuration
+     * @param loggingService the logger
+     * @return the server
+     */
+    private static BaseServer createServer(InitLoadingRequest initLoadingRequest, ConfigCenter configCenter, Logger loggingService) {
+        final ServerTransport transport = ServerTransport.fromValue(configCenter.getConfigParamString(ConfigValue.SERVER_TRANSPORT));
+        if (transport == ServerTransport.NIO) {
+            return new NioServerImplement(initLoadingRequest, configCenter, loggingService);
+        }
+        return new ServerImplement(initLoadingRequest, configCenter, loggingService);
+    }
+
+    /**
+     * Stops the server gracefully when the JVM is asked to exit (SIGTERM, Ctrl+C or System.exit),
+     * the outcome is logged before the logger is flushed.
+     *
+     * @param server the server
+     * @param configCenter the server configuration
+     * @param staticResourceCache the static resource cache, its statistics are logged
+     * @param bufferPool the buffer pool, its statistics are logged
+     * @param loggingService the logger
+     */
+    private static void registerShutdownHook(BaseServer server, ConfigCenter configCenter, StaticResourceCache staticResourceCache,
+                                             BufferPool bufferPool, Logger loggingService) {
+        final long timeoutMilliseconds = configCenter.getConfigValue(ConfigValue.SHUTDOWN_TIMEOUT_MILLISECONDS, int.class);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            final ShutdownReport report = server.shutdown(timeoutMilliseconds);
+            if (report.isClean()) {
+                loggingService.info("%s", report);
+            } else {
+                loggingService.warning("%s", report);
+            }
+            if (staticResourceCache.isEnabled()) {
+                loggingService.info("%s", staticResourceCache.getStats());
+            }
+            loggingService.info("%s", bufferPool.getStats());
+            loggingService.flush();
+        }, SHUTDOWN_THREAD_NAME));
+    }
+
     /**
      *
      * @param applicationContext {@link ApplicationContext} Contains all Services
@@ -43,6 +43,11 @@ public class HttpRequestImpl implements HttpRequest {
         this.request.setRequestURL(requestUrl);
     }
 
+    @Override
+    public void setProtocol(String protocol) {
+        this.request.setProtocol(protocol);
+    }
+
     @Override
     public void setContentLength(int contentLength) {
         this.request.setContentLength(contentLength);
@@ -58,6 +63,16 @@ public class HttpRequestImpl implements HttpRequest {
         this.request.addHeader(header, value);
     }
 
+    @Override
+    public void setQueryString(String queryString) {
+        this.request.setQueryString(queryString);
+    }
+
+    @Override
+    public void setFormBody(String formBody) {
+        this.request.setFormBody(formBody);
+    }
+
     @Override
     public void addBodyParameter(String parameter, String value) {
         this.request.addBodyParameter(parameter, value);
@@ -88,6 +103,11 @@ public class HttpRequestImpl implements HttpRequest {
         return this.request.getRequestURL();
     }
 
+    @Override
+    public String getProtocol() {
+        return this.request.getProtocol();
+    }
+
     @Override
     public String getHost() {
         return this.request.getHost();
@@ -108,6 +128,11 @@ public class HttpRequestImpl implements HttpRequest {
         return this.request.getQueryParam(paramName);
     }
 
+    @Override
+    public String getQueryString() {
+        return this.request.getQueryString();
+    }
+
     @Override
     public String getBodyParam(String paramName) {
         return this.request.getBodyParam(paramName);
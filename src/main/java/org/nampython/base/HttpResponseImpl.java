@@ -1,6 +1,7 @@
 package org.nampython.base;
 
 import org.nampython.base.api.BaseHttpResponse;
+import org.nampython.base.api.ContentEncoding;
 import org.nampython.base.api.HttpCookie;
 import org.nampython.base.api.HttpStatus;
 
@@ -52,6 +53,11 @@ public class HttpResponseImpl implements HttpResponse {
         this.response.addCookie(cookie);
     }
 
+    @Override
+    public void setContentEncoding(ContentEncoding contentEncoding) {
+        this.response.setContentEncoding(contentEncoding);
+    }
+
     @Override
     public String getResponse() {
         return this.response.getResponse();
@@ -72,6 +78,11 @@ public class HttpResponseImpl implements HttpResponse {
         return this.response.getBytes();
     }
 
+    @Override
+    public byte[] getHeaderBytes() {
+        return this.response.getHeaderBytes();
+    }
+
     @Override
     public Map<String, String> getHeaders() {
         return this.response.getHeaders();
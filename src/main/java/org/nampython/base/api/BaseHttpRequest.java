@@ -8,12 +8,24 @@ public interface BaseHttpRequest {
 
     void setRequestURL(String requestUrl);
 
+    void setProtocol(String protocol);
+
     void setContentLength(int contentLength);
 
     void setSession(HttpSession session);
 
     void addHeader(String header, String value);
 
+    /**
+     * @param queryString - the raw query of the request target or null, it is parsed on first access.
+     */
+    void setQueryString(String queryString);
+
+    /**
+     * @param formBody - the raw application/x-www-form-urlencoded body, it is parsed on first access.
+     */
+    void setFormBody(String formBody);
+
     void addBodyParameter(String parameter, String value);
 
     void addMultipartFile(MultipartFile multipartFile);
@@ -26,12 +38,16 @@ public interface BaseHttpRequest {
 
     String getRequestURL();
 
+    String getProtocol();
+
     String getHost();
 
     String getRequestURI();
 
     String getContentType();
 
+    String getQueryString();
+
     String getQueryParam(String paramName);
 
     String getBodyParam(String paramName);
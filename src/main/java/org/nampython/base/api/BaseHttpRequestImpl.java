@@ -1,29 +1,42 @@
 package org.nampython.base.api;
 
+import org.nampython.support.UrlDecoding;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
+/**
+ * Query parameters, cookies and form body parameters are kept as the raw query, Cookie header and body,
+ * they are split and decoded the first time any of them is asked for. Requests for static resources never ask.
+ */
 public class BaseHttpRequestImpl implements BaseHttpRequest {
     private String method;
     private String requestURL;
+    private String protocol;
     private HttpSession session;
     private int contentLength;
     private final List<MultipartFile> multipartFiles;
-    private final Map<String, String> headers;
-    private final Map<String, String> queryParameters;
-    private final Map<String, String> bodyParameters;
-    private final Map<String, List<String>> bodyParametersAsList;
-    private final Map<String, HttpCookie> cookies;
+    private final HttpHeaders headers;
+    private String queryString;
+    private String formBody;
+    private Map<String, String> queryParameters;
+    private Map<String, String> bodyParameters;
+    private Map<String, List<String>> bodyParametersAsList;
+    private Map<String, HttpCookie> cookies;
 
     public BaseHttpRequestImpl() {
+        this(0);
+    }
+
+    /**
+     * @param headerCount - number of headers the request has, the header table is sized for them.
+     */
+    public BaseHttpRequestImpl(int headerCount) {
         this.multipartFiles = new ArrayList<>();
-        this.headers = new HashMap<>();
-        this.queryParameters = new HashMap<>();
-        this.bodyParameters = new HashMap<>();
-        this.bodyParametersAsList = new HashMap<>();
-        this.cookies = new HashMap<>();
+        this.headers = new HttpHeaders(headerCount);
     }
 
     @Override
@@ -36,6 +49,11 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
         this.requestURL = requestUrl;
     }
 
+    @Override
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
     @Override
     public void setContentLength(int contentLength) {
         this.contentLength = contentLength;
@@ -51,6 +69,19 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
         this.headers.put(header, value);
     }
 
+    @Override
+    public void setQueryString(String queryString) {
+        this.queryString = queryString;
+        this.queryParameters = null;
+    }
+
+    @Override
+    public void setFormBody(String formBody) {
+        this.formBody = formBody;
+        this.bodyParameters = null;
+        this.bodyParametersAsList = null;
+    }
+
     /**
      * Store body parameters after parsing http request from the client.
      * @param parameter
@@ -58,6 +89,7 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
      */
     @Override
     public void addBodyParameter(String parameter, String value) {
+        this.materializeBodyParameters();
         this.bodyParameters.put(parameter, value);
         if (!this.bodyParametersAsList.containsKey(parameter)) {
             this.bodyParametersAsList.put(parameter, new ArrayList<>());
@@ -90,9 +122,15 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
         return this.requestURL;
     }
 
+    @Override
+    public String getProtocol() {
+        return this.protocol;
+    }
+
     @Override
     public String getHost() {
-        return this.getHeaders().getOrDefault("Host", "");
+        final String host = this.headers.get(KnownHeader.HOST);
+        return host != null ? host : "";
     }
 
     @Override
@@ -102,17 +140,22 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
 
     @Override
     public String getContentType() {
-        return this.getHeader("Content-Type");
+        return this.headers.get(KnownHeader.CONTENT_TYPE);
+    }
+
+    @Override
+    public String getQueryString() {
+        return this.queryString;
     }
 
     @Override
     public String getQueryParam(String paramName) {
-        return this.queryParameters.get(paramName);
+        return this.getQueryParameters().get(paramName);
     }
 
     @Override
     public String getBodyParam(String paramName) {
-        return this.bodyParameters.get(paramName);
+        return this.getBodyParameters().get(paramName);
     }
 
     @Override
@@ -138,7 +181,7 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
 
     @Override
     public HttpCookie getCookie(String cookieName) {
-        return this.cookies.get(cookieName);
+        return this.getCookies().get(cookieName);
     }
 
     @Override
@@ -153,37 +196,98 @@ public class BaseHttpRequestImpl implements BaseHttpRequest {
 
     @Override
     public Map<String, String> getQueryParameters() {
+        if (this.queryParameters == null) {
+            this.queryParameters = new HashMap<>();
+            parsePairs(this.queryString, '&', this.queryParameters::put);
+        }
         return this.queryParameters;
     }
 
     @Override
     public Map<String, String> getBodyParameters() {
+        this.materializeBodyParameters();
         return this.bodyParameters;
     }
 
     @Override
     public Map<String, List<String>> getBodyParametersAsList() {
+        this.materializeBodyParameters();
         return this.bodyParametersAsList;
     }
 
+    /**
+     * The cookies are read from the Cookie header as it is at the first call.
+     */
     @Override
     public Map<String, HttpCookie> getCookies() {
+        if (this.cookies == null) {
+            this.cookies = new HashMap<>();
+            parsePairs(this.headers.get(KnownHeader.COOKIE), ';',
+                    (name, value) -> this.cookies.put(name, new HttpCookieImpl(name, value)));
+        }
         return this.cookies;
     }
 
+    private void materializeBodyParameters() {
+        if (this.bodyParameters != null) {
+            return;
+        }
+        this.bodyParameters = new HashMap<>();
+        this.bodyParametersAsList = new HashMap<>();
+        if (this.formBody != null && !this.formBody.trim().isEmpty()) {
+            parsePairs(this.formBody, '&', this::addBodyParameter);
+        }
+        this.formBody = null;
+    }
+
+    /**
+     * Splits name=value pairs without regular expressions and decodes both parts.
+     * A pair without '=' has a null value, empty pairs and the spaces before a pair are skipped.
+     *
+     * @param pairs     - the pairs or null.
+     * @param separator - separator between the pairs.
+     * @param consumer  - receives the decoded name and value of every pair.
+     */
+    private static void parsePairs(String pairs, char separator, BiConsumer<String, String> consumer) {
+        if (pairs == null) {
+            return;
+        }
+        int pairStart = 0;
+        while (pairStart <= pairs.length()) {
+            while (pairStart < pairs.length() && pairs.charAt(pairStart) == ' ') {
+                pairStart++;
+            }
+            int pairEnd = pairs.indexOf(separator, pairStart);
+            if (pairEnd < 0) {
+                pairEnd = pairs.length();
+            }
+            if (pairEnd > pairStart) {
+                final int equals = pairs.indexOf('=', pairStart);
+                if (equals < 0 || equals > pairEnd) {
+                    consumer.accept(UrlDecoding.decode(pairs.substring(pairStart, pairEnd)), null);
+                } else {
+                    consumer.accept(UrlDecoding.decode(pairs.substring(pairStart, equals)),
+                            UrlDecoding.decode(pairs.substring(equals + 1, pairEnd)));
+                }
+            }
+            pairStart = pairEnd + 1;
+        }
+    }
+
     @Override
     public String toString() {
         final StringBuffer sb = new StringBuffer("HttpRequestImpl{");
         sb.append("method='").append(method).append('\'');
         sb.append(", requestURL='").append(requestURL).append('\'');
+        sb.append(", protocol='").append(protocol).append('\'');
         sb.append(", session=").append(session);
         sb.append(", contentLength=").append(contentLength);
         sb.append(", multipartFiles=").append(multipartFiles);
         sb.append(", headers=").append(headers);
-        sb.append(", queryParameters=").append(queryParameters);
-        sb.append(", bodyParameters=").append(bodyParameters);
-        sb.append(", bodyParametersAsList=").append(bodyParametersAsList);
-        sb.append(", cookies=").append(cookies);
+        sb.append(", queryParameters=").append(getQueryParameters());
+        sb.append(", bodyParameters=").append(getBodyParameters());
+        sb.append(", bodyParametersAsList=").append(getBodyParametersAsList());
+        sb.append(", cookies=").append(getCookies());
         sb.append('}');
         return sb.toString();
     }
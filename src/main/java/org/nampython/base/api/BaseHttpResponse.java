@@ -9,9 +9,18 @@ public interface BaseHttpResponse {
     void addHeader(String header, String value);
     void addCookie(String name, String value);
     void addCookie(HttpCookie cookie);
+    void setContentEncoding(ContentEncoding contentEncoding);
     String getResponse();
     HttpStatus getStatusCode();
     byte[] getContent();
     byte[] getBytes();
+
+    /**
+     * Serializes the status line and the headers, applying the content encoding first.
+     * The body to send after them is {@link #getContent()}.
+     *
+     * @return - the header section, followed by the empty line.
+     */
+    byte[] getHeaderBytes();
     Map<String, String> getHeaders();
 }
@@ -1,23 +1,52 @@
 package org.nampython.base.api;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.zip.Deflater;
 
 import static org.nampython.base.api.Constants.LINE_SEPARATOR;
 
 
 public class BaseHttpResponseImpl implements BaseHttpResponse {
     private static final String CONTENT_TYPE = "Content-Type";
+    private static final String CONTENT_LENGTH = "Content-Length";
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String SET_COOKIE = "Set-Cookie";
+    private static final String SERVER = "Server";
+    private static final String SERVER_NAME = "Javache";
+    private static final String DEFAULT_CONTENT_TYPE = "text/html; charset=utf8";
+    private static final byte[] HEADER_SEPARATOR_BYTES = ": ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINE_SEPARATOR_BYTES = LINE_SEPARATOR.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SERVER_LINE_BYTES = (SERVER + ": " + SERVER_NAME + LINE_SEPARATOR).getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Separator and line end of a header.
+     */
+    private static final int HEADER_OVERHEAD = 4;
+    /**
+     * Names of the headers almost every response has, encoded together with their separator.
+     */
+    private static final Map<String, byte[]> PRE_ENCODED_NAMES;
+
+    static {
+        PRE_ENCODED_NAMES = new HashMap<>();
+        for (String name : new String[]{CONTENT_TYPE, CONTENT_LENGTH, CONTENT_ENCODING, SET_COOKIE, "Connection", "Cache-Control",
+                "Date", "Server", "ETag", "Last-Modified", "Vary", "Accept-Ranges", "Content-Range", "Location"}) {
+            PRE_ENCODED_NAMES.put(name, (name + ": ").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
     private HttpStatus statusCode;
     private byte[] content;
-    private final Map<String, String> headers;
+    private ContentEncoding contentEncoding;
+    private final HttpHeaders headers;
     private final Map<String, HttpCookie> cookies;
 
     public BaseHttpResponseImpl() {
         this.setContent(new byte[0]);
-        this.headers = new HashMap<>();
+        this.headers = new HttpHeaders();
         this.cookies = new HashMap<>();
     }
 
@@ -51,9 +80,19 @@ public class BaseHttpResponseImpl implements BaseHttpResponse {
         this.cookies.put(cookie.getName(), cookie);
     }
 
+    /**
+     * The content is encoded once, when the response is serialized, so it can still be replaced until then.
+     *
+     * @param contentEncoding - encoding of the body or null to send it as it is.
+     */
+    @Override
+    public void setContentEncoding(ContentEncoding contentEncoding) {
+        this.contentEncoding = contentEncoding;
+    }
+
     @Override
     public String getResponse() {
-        return this.getHeaderString() + new String(this.getContent(), StandardCharsets.UTF_8);
+        return new String(this.getHeaderBytes(), StandardCharsets.UTF_8) + new String(this.getContent(), StandardCharsets.UTF_8);
     }
 
     @Override
@@ -67,46 +106,188 @@ public class BaseHttpResponseImpl implements BaseHttpResponse {
     }
 
     /**
-     * @return
+     * Prefer {@link #getHeaderBytes()} followed by {@link #getContent()}, this copies the content behind the headers.
+     *
+     * @return - the whole response.
      */
     @Override
     public byte[] getBytes() {
-        final byte[] headers = this.getHeaderString().getBytes();
-        final byte[] result = new byte[headers.length + this.getContent().length];
-        System.arraycopy(headers, 0, result, 0, headers.length);
-        System.arraycopy(this.getContent(), 0, result, headers.length, this.getContent().length);
+        final byte[] headers = this.getHeaderBytes();
+        if (this.content.length == 0) {
+            return headers;
+        }
+        final byte[] result = Arrays.copyOf(headers, headers.length + this.content.length);
+        System.arraycopy(this.content, 0, result, headers.length, this.content.length);
         return result;
     }
 
+    /**
+     * Writes the status line and the headers straight into one array, sized for ASCII headers up front.
+     * Content-Type and Content-Length are completed while writing, the header map is not changed for that.
+     * Content-Length is taken from the content if it was not set, the client needs it to know where the response
+     * ends when the connection is kept alive. A 304 response has no body, it only gets the headers that were set.
+     * Server and Date are added unless they were set, the Date line comes from {@link HttpDateClock}.
+     *
+     * @return headers, followed by the empty line.
+     */
+    @Override
+    public byte[] getHeaderBytes() {
+        return this.serializeHeaders(true);
+    }
+
+    /**
+     * For a header section serialized once and sent many times. The Date header and the empty line are left out,
+     * {@link HttpDateClock#getDateLineAndEnd()} completes the section when it is sent.
+     *
+     * @return headers without Date and without the empty line.
+     */
+    public byte[] getHeaderBytesWithoutDate() {
+        return this.serializeHeaders(false);
+    }
+
     @Override
     public Map<String, String> getHeaders() {
         return this.headers;
     }
 
+    private byte[] serializeHeaders(boolean complete) {
+        this.encodeContent();
+        final HttpStatus status = Objects.requireNonNullElse(this.getStatusCode(), HttpStatus.OK);
+        final boolean withEntityHeaders = status != HttpStatus.NOT_MODIFIED;
+        final String contentType = withEntityHeaders ? this.resolveCharset(this.headers.get(KnownHeader.CONTENT_TYPE)) : null;
+        final String contentLength = withEntityHeaders && this.headers.get(KnownHeader.CONTENT_LENGTH) == null
+                ? Integer.toString(this.content.length) : null;
+        final String[] cookies = new String[this.cookies.size()];
+        final byte[] dateLine = complete && this.headers.get(KnownHeader.DATE) == null ? HttpDateClock.getDateLine() : null;
+        final boolean withServer = this.headers.get(KnownHeader.SERVER) == null;
+        int estimatedLength = status.getResponseLineBytes().length;
+        if (dateLine != null) {
+            estimatedLength += dateLine.length;
+        }
+        if (withServer) {
+            estimatedLength += SERVER_LINE_BYTES.length;
+        }
+        if (complete) {
+            estimatedLength += LINE_SEPARATOR_BYTES.length;
+        }
+        for (Map.Entry<String, String> header : this.headers.entrySet()) {
+            estimatedLength += header.getKey().length() + header.getValue().length() + HEADER_OVERHEAD;
+        }
+        if (contentType != null && this.headers.get(KnownHeader.CONTENT_TYPE) == null) {
+            estimatedLength += CONTENT_TYPE.length() + contentType.length() + HEADER_OVERHEAD;
+        }
+        if (contentLength != null) {
+            estimatedLength += CONTENT_LENGTH.length() + contentLength.length() + HEADER_OVERHEAD;
+        }
+        int cookieIndex = 0;
+        for (HttpCookie cookie : this.cookies.values()) {
+            cookies[cookieIndex] = cookie.toRFCString();
+            estimatedLength += SET_COOKIE.length() + cookies[cookieIndex++].length() + HEADER_OVERHEAD;
+        }
+
+        final HeaderWriter writer = new HeaderWriter(estimatedLength);
+        writer.write(status.getResponseLineBytes());
+        for (Map.Entry<String, String> header : this.headers.entrySet()) {
+            writer.writeHeader(header.getKey(), CONTENT_TYPE.equals(header.getKey()) && contentType != null ? contentType : header.getValue());
+        }
+        if (contentType != null && this.headers.get(KnownHeader.CONTENT_TYPE) == null) {
+            writer.writeHeader(CONTENT_TYPE, contentType);
+        }
+        if (contentLength != null) {
+            writer.writeHeader(CONTENT_LENGTH, contentLength);
+        }
+        for (String cookie : cookies) {
+            writer.writeHeader(SET_COOKIE, cookie);
+        }
+        if (withServer) {
+            writer.write(SERVER_LINE_BYTES);
+        }
+        if (dateLine != null) {
+            writer.write(dateLine);
+        }
+        if (complete) {
+            writer.write(LINE_SEPARATOR_BYTES);
+        }
+        return writer.toByteArray();
+    }
+
     /**
-     * Appends all headers to form a valid HTTP header section.
-     *
-     * @return headers.
+     * Replaces the content with its encoded form and announces the encoding, a Content-Length set for the
+     * original content no longer applies.
      */
-    private String getHeaderString() {
-        final StringBuilder result = new StringBuilder()
-                .append(HttpStatus.getResponseLine(Objects.requireNonNullElse(this.getStatusCode(), HttpStatus.OK).getStatusCode()))
-                .append(LINE_SEPARATOR);
-        this.headers.put(CONTENT_TYPE, this.resolveCharset(this.headers.getOrDefault(CONTENT_TYPE, "text/html")));
-
-        for (Map.Entry<String, String> next : this.getHeaders().entrySet()) {
-            result.append(next.getKey()).append(": ").append(next.getValue()).append(LINE_SEPARATOR);
-        }
-        if (!this.cookies.isEmpty()) {
-            for (HttpCookie cookie : this.cookies.values()) {
-                result.append("Set-Cookie: ").append(cookie.toRFCString()).append(LINE_SEPARATOR);
-            }
+    private void encodeContent() {
+        if (this.contentEncoding == null) {
+            return;
         }
-        result.append(LINE_SEPARATOR);
-        return result.toString();
+        this.content = this.contentEncoding.encode(this.content, Deflater.DEFAULT_COMPRESSION);
+        this.headers.put(KnownHeader.CONTENT_ENCODING, this.contentEncoding.getToken());
+        this.headers.put(KnownHeader.CONTENT_LENGTH, this.content.length + "");
+        this.contentEncoding = null;
     }
 
+    /**
+     * @param contentType - the Content-Type header or null if it was not set.
+     * @return - the Content-Type with a charset.
+     */
     private String resolveCharset(String contentType) {
-        return contentType != null && !contentType.contains("charset") ? contentType + "; charset=utf8" : contentType;
+        if (contentType == null) {
+            return DEFAULT_CONTENT_TYPE;
+        }
+        return !contentType.contains("charset") ? contentType + "; charset=utf8" : contentType;
+    }
+
+    /**
+     * Collects the header section. Names, values and separators are ASCII almost always and copied char by char,
+     * other values are encoded as UTF-8.
+     */
+    private static final class HeaderWriter {
+        private byte[] bytes;
+        private int length;
+
+        private HeaderWriter(int estimatedLength) {
+            this.bytes = new byte[estimatedLength];
+        }
+
+        private void writeHeader(String name, String value) {
+            final byte[] preEncodedName = PRE_ENCODED_NAMES.get(name);
+            if (preEncodedName != null) {
+                this.write(preEncodedName);
+            } else {
+                this.write(name);
+                this.write(HEADER_SEPARATOR_BYTES);
+            }
+            this.write(value);
+            this.write(LINE_SEPARATOR_BYTES);
+        }
+
+        private void write(byte[] source) {
+            this.ensureCapacity(source.length);
+            System.arraycopy(source, 0, this.bytes, this.length, source.length);
+            this.length += source.length;
+        }
+
+        private void write(String value) {
+            this.ensureCapacity(value.length());
+            final int start = this.length;
+            for (int i = 0; i < value.length(); i++) {
+                final char c = value.charAt(i);
+                if (c >= 0x80) {
+                    this.length = start;
+                    this.write(value.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                this.bytes[this.length++] = (byte) c;
+            }
+        }
+
+        private void ensureCapacity(int additional) {
+            if (this.length + additional > this.bytes.length) {
+                this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.length + additional));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return this.length == this.bytes.length ? this.bytes : Arrays.copyOf(this.bytes, this.length);
+        }
     }
 }
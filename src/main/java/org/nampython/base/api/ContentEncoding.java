@@ -0,0 +1,105 @@
+package org.nampython.base.api;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content codings the server can apply to a response body, named by their Content-Encoding token.
+ */
+public enum ContentEncoding {
+    GZIP("gzip") {
+        @Override
+        DeflaterOutputStream open(OutputStream outputStream, int level) throws IOException {
+            return new GZIPOutputStream(outputStream, CHUNK_SIZE) {
+                {
+                    this.def.setLevel(level);
+                }
+            };
+        }
+    },
+
+    /**
+     * The zlib format, which is what HTTP means by deflate.
+     */
+    DEFLATE("deflate") {
+        @Override
+        DeflaterOutputStream open(OutputStream outputStream, int level) {
+            return new DeflaterOutputStream(outputStream, new Deflater(level), CHUNK_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    this.def.end();
+                }
+            };
+        }
+    };
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * @return - the value of the Content-Encoding header.
+     */
+    public String getToken() {
+        return this.token;
+    }
+
+    /**
+     * @param content - the body to encode.
+     * @param level   - compression level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     * @return - the encoded body.
+     */
+    public byte[] encode(byte[] content, int level) {
+        return this.encode(ByteBuffer.wrap(content), level);
+    }
+
+    /**
+     * @param content - the body to encode, read from its position to its limit.
+     * @param level   - compression level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     * @return - the encoded body.
+     */
+    public byte[] encode(ByteBuffer content, int level) {
+        final ByteArrayOutputStream encoded = new ByteArrayOutputStream(Math.max(64, content.remaining() / 3));
+        try (DeflaterOutputStream outputStream = this.open(encoded, level)) {
+            if (content.hasArray()) {
+                outputStream.write(content.array(), content.arrayOffset() + content.position(), content.remaining());
+            } else {
+                final byte[] chunk = new byte[Math.min(CHUNK_SIZE, content.remaining())];
+                while (content.hasRemaining()) {
+                    final int length = Math.min(chunk.length, content.remaining());
+                    content.get(chunk, 0, length);
+                    outputStream.write(chunk, 0, length);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return encoded.toByteArray();
+    }
+
+    abstract DeflaterOutputStream open(OutputStream outputStream, int level) throws IOException;
+
+    /**
+     * @param token - a content coding token.
+     * @return - the matching encoding or null if the server does not support it.
+     */
+    public static ContentEncoding fromToken(String token) {
+        for (ContentEncoding encoding : values()) {
+            if (encoding.token.equalsIgnoreCase(token)) {
+                return encoding;
+            }
+        }
+        return null;
+    }
+}
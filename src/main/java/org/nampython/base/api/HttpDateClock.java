@@ -0,0 +1,108 @@
+package org.nampython.base.api;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * The current time as an IMF-fixdate, the format of HTTP date headers, formatted once per second.
+ * Every response carries a Date header and most carry the same one, so the first response of a second formats it
+ * and encodes the header line, the others reuse them. Cookie expiry dates relative to now are cached the same way.
+ */
+public final class HttpDateClock {
+    public static final String DATE_HEADER_NAME;
+    private static final DateTimeFormatter HTTP_DATE_FORMATTER;
+
+    static {
+        DATE_HEADER_NAME = "Date";
+        HTTP_DATE_FORMATTER = DateTimeFormatter.ofPattern("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).withZone(ZoneOffset.UTC);
+    }
+
+    private static volatile Snapshot snapshot = new Snapshot(Long.MIN_VALUE, null);
+    private static volatile Expiry expiry = new Expiry(Long.MIN_VALUE, 0, null);
+
+    private HttpDateClock() {
+    }
+
+    /**
+     * @return - the current time as an IMF-fixdate.
+     */
+    public static String getDate() {
+        return currentSnapshot().date;
+    }
+
+    /**
+     * @return - the encoded Date header line of the current second, it must not be changed.
+     */
+    public static byte[] getDateLine() {
+        return currentSnapshot().dateLine;
+    }
+
+    /**
+     * @return - the encoded Date header line followed by the empty line ending the headers, it must not be changed.
+     */
+    public static byte[] getDateLineAndEnd() {
+        return currentSnapshot().dateLineAndEnd;
+    }
+
+    /**
+     * @param seconds - how far the date is from now.
+     * @return - the IMF-fixdate that many seconds from now, e.g. for the expires attribute of a cookie.
+     */
+    public static String getDateAfter(long seconds) {
+        final long second = System.currentTimeMillis() / 1000;
+        Expiry current = expiry;
+        if (current.second != second || current.offsetSeconds != seconds) {
+            current = new Expiry(second, seconds, format((second + seconds) * 1000));
+            expiry = current;
+        }
+        return current.date;
+    }
+
+    /**
+     * @param millis - a time in milliseconds.
+     * @return - the time as an IMF-fixdate.
+     */
+    public static String format(long millis) {
+        return HTTP_DATE_FORMATTER.format(Instant.ofEpochMilli(millis));
+    }
+
+    private static Snapshot currentSnapshot() {
+        final long second = System.currentTimeMillis() / 1000;
+        Snapshot current = snapshot;
+        if (current.second != second) {
+            current = new Snapshot(second, format(second * 1000));
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+        private final long second;
+        private final String date;
+        private final byte[] dateLine;
+        private final byte[] dateLineAndEnd;
+
+        private Snapshot(long second, String date) {
+            this.second = second;
+            this.date = date;
+            final String dateLine = DATE_HEADER_NAME + ": " + date + Constants.LINE_SEPARATOR;
+            this.dateLine = dateLine.getBytes(StandardCharsets.US_ASCII);
+            this.dateLineAndEnd = (dateLine + Constants.LINE_SEPARATOR).getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private static final class Expiry {
+        private final long second;
+        private final long offsetSeconds;
+        private final String date;
+
+        private Expiry(long second, long offsetSeconds, String date) {
+            this.second = second;
+            this.offsetSeconds = offsetSeconds;
+            this.date = date;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package org.nampython.base.api;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Header map with case insensitive names, as HTTP wants them.
+ * The value of a {@link KnownHeader} is kept in a slot of an array indexed by the enum, whatever case the name
+ * was given in, and it is listed under its canonical name. Other headers go to a small open-addressed table which
+ * keeps the name as it was first put. Known headers are listed first, in the order of the enum.
+ * The table hashes only a few characters of a name, names made to collide are bounded by the header limit of
+ * {@link org.nampython.core.RequestHeadParser}.
+ * Null names and values are not allowed. Not thread safe.
+ */
+public class HttpHeaders extends AbstractMap<String, String> {
+    private static final KnownHeader[] KNOWN_HEADERS;
+    private static final int MIN_CAPACITY;
+    /**
+     * Marks the slot of a removed header, lookups probe past it.
+     */
+    private static final String DELETED;
+
+    static {
+        KNOWN_HEADERS = KnownHeader.values();
+        MIN_CAPACITY = 8;
+        DELETED = new String("");
+    }
+
+    private final String[] knownValues;
+    private int knownCount;
+    private final int expectedHeaders;
+    private String[] names;
+    private String[] values;
+    private int[] hashes;
+    private int otherCount;
+    private int deletedCount;
+    private Set<Map.Entry<String, String>> entrySet;
+
+    public HttpHeaders() {
+        this(0);
+    }
+
+    /**
+     * @param expectedHeaders - how many headers are expected, the table for headers that are not known is
+     *                        allocated when the first of them is put, for the expected headers not known so far.
+     */
+    public HttpHeaders(int expectedHeaders) {
+        this.knownValues = new String[KNOWN_HEADERS.length];
+        this.expectedHeaders = expectedHeaders;
+    }
+
+    public String get(KnownHeader header) {
+        return this.knownValues[header.ordinal()];
+    }
+
+    public String put(KnownHeader header, String value) {
+        Objects.requireNonNull(value);
+        final String previous = this.knownValues[header.ordinal()];
+        if (previous == null) {
+            this.knownCount++;
+        }
+        this.knownValues[header.ordinal()] = value;
+        return previous;
+    }
+
+    public String remove(KnownHeader header) {
+        final String previous = this.knownValues[header.ordinal()];
+        if (previous != null) {
+            this.knownCount--;
+            this.knownValues[header.ordinal()] = null;
+        }
+        return previous;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final String name = (String) key;
+        final KnownHeader known = KnownHeader.lookup(name);
+        if (known != null) {
+            return this.get(known);
+        }
+        final int hash = hashIgnoreCase(name);
+        final int slot = this.findSlot(name, hash);
+        return slot < 0 ? null : this.values[slot];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public String put(String name, String value) {
+        Objects.requireNonNull(value);
+        final KnownHeader known = KnownHeader.lookup(name);
+        if (known != null) {
+            return this.put(known, value);
+        }
+        final int hash = hashIgnoreCase(name);
+        final int existing = this.findSlot(name, hash);
+        if (existing >= 0) {
+            final String previous = this.values[existing];
+            this.values[existing] = value;
+            return previous;
+        }
+        if (this.names == null) {
+            this.allocate(capacityFor(this.expectedHeaders - this.knownCount));
+        } else if ((this.otherCount + this.deletedCount + 1) * 2 > this.names.length) {
+            this.rehash(capacityFor(this.otherCount + 1));
+        }
+        this.insert(name, value, hash);
+        return null;
+    }
+
+    @Override
+    public String remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final String name = (String) key;
+        final KnownHeader known = KnownHeader.lookup(name);
+        if (known != null) {
+            return this.remove(known);
+        }
+        final int hash = hashIgnoreCase(name);
+        final int slot = this.findSlot(name, hash);
+        return slot < 0 ? null : this.removeSlot(slot);
+    }
+
+    @Override
+    public int size() {
+        return this.knownCount + this.otherCount;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < this.knownValues.length; i++) {
+            this.knownValues[i] = null;
+        }
+        this.knownCount = 0;
+        if (this.names != null) {
+            this.allocate(this.names.length);
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new EntrySet();
+        }
+        return this.entrySet;
+    }
+
+    private int findSlot(String name, int hash) {
+        if (this.names == null) {
+            return -1;
+        }
+        final int mask = this.names.length - 1;
+        int slot = hash & mask;
+        String slotName;
+        while ((slotName = this.names[slot]) != null) {
+            if (slotName != DELETED && this.hashes[slot] == hash && equalsIgnoreCase(slotName, name)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void insert(String name, String value, int hash) {
+        final int mask = this.names.length - 1;
+        int slot = hash & mask;
+        while (this.names[slot] != null && this.names[slot] != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        if (this.names[slot] == DELETED) {
+            this.deletedCount--;
+        }
+        this.names[slot] = name;
+        this.values[slot] = value;
+        this.hashes[slot] = hash;
+        this.otherCount++;
+    }
+
+    private String removeSlot(int slot) {
+        final String previous = this.values[slot];
+        this.names[slot] = DELETED;
+        this.values[slot] = null;
+        this.otherCount--;
+        this.deletedCount++;
+        return previous;
+    }
+
+    private void allocate(int capacity) {
+        this.names = new String[capacity];
+        this.values = new String[capacity];
+        this.hashes = new int[capacity];
+        this.otherCount = 0;
+        this.deletedCount = 0;
+    }
+
+    private void rehash(int capacity) {
+        final String[] oldNames = this.names;
+        final String[] oldValues = this.values;
+        final int[] oldHashes = this.hashes;
+        this.allocate(capacity);
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] != null && oldNames[i] != DELETED) {
+                this.insert(oldNames[i], oldValues[i], oldHashes[i]);
+            }
+        }
+    }
+
+    /**
+     * @return - a power of two holding that many headers at most half full.
+     */
+    private static int capacityFor(int headers) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < headers * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Hashes the length and five letters spread over the name, that tells header names apart well enough and
+     * does not walk long names. Setting the 0x20 bit turns ASCII upper case letters to lower case without a branch,
+     * the few other characters it folds together only make names collide, {@link #equalsIgnoreCase} tells them apart.
+     */
+    static int hashIgnoreCase(String name) {
+        final int length = name.length();
+        if (length == 0) {
+            return 0;
+        }
+        int hash = length;
+        hash = 31 * hash + (name.charAt(0) | 0x20);
+        hash = 31 * hash + (name.charAt(length >> 2) | 0x20);
+        hash = 31 * hash + (name.charAt(length >> 1) | 0x20);
+        hash = 31 * hash + (name.charAt(length - 1 - (length >> 2)) | 0x20);
+        hash = 31 * hash + (name.charAt(length - 1) | 0x20);
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Header names are ASCII tokens, only ASCII letters are folded.
+     */
+    static boolean equalsIgnoreCase(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            if (toLowerCase(a.charAt(i)) != toLowerCase(b.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, String>> {
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return HttpHeaders.this.size();
+        }
+
+        @Override
+        public void clear() {
+            HttpHeaders.this.clear();
+        }
+    }
+
+    /**
+     * Walks the known slots, then the table. A removed header only leaves a marker in the table,
+     * so removing while iterating does not move the others.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<String, String>> {
+        private int knownIndex;
+        private int slot;
+        private String lastName;
+
+        private EntryIterator() {
+            this.knownIndex = -1;
+            this.slot = -1;
+            this.advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.knownIndex < KNOWN_HEADERS.length || (HttpHeaders.this.names != null && this.slot < HttpHeaders.this.names.length);
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final Map.Entry<String, String> entry;
+            if (this.knownIndex < KNOWN_HEADERS.length) {
+                entry = new Entry(KNOWN_HEADERS[this.knownIndex].getName(), HttpHeaders.this.knownValues[this.knownIndex]);
+            } else {
+                entry = new Entry(HttpHeaders.this.names[this.slot], HttpHeaders.this.values[this.slot]);
+            }
+            this.lastName = entry.getKey();
+            this.advance();
+            return entry;
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastName == null) {
+                throw new IllegalStateException();
+            }
+            HttpHeaders.this.remove(this.lastName);
+            this.lastName = null;
+        }
+
+        private void advance() {
+            if (this.knownIndex < KNOWN_HEADERS.length) {
+                do {
+                    this.knownIndex++;
+                } while (this.knownIndex < KNOWN_HEADERS.length && HttpHeaders.this.knownValues[this.knownIndex] == null);
+                if (this.knownIndex < KNOWN_HEADERS.length) {
+                    return;
+                }
+            }
+            final String[] names = HttpHeaders.this.names;
+            if (names == null) {
+                return;
+            }
+            do {
+                this.slot++;
+            } while (this.slot < names.length && (names[this.slot] == null || names[this.slot] == DELETED));
+        }
+    }
+
+    /**
+     * Entry writing its value through to the headers.
+     */
+    private final class Entry extends AbstractMap.SimpleEntry<String, String> {
+        private Entry(String name, String value) {
+            super(name, value);
+        }
+
+        @Override
+        public String setValue(String value) {
+            HttpHeaders.this.put(this.getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package org.nampython.base.api;
 
-import java.util.Arrays;
+import java.nio.charset.StandardCharsets;
 
 public enum HttpStatus {
     OK(200, "OK"),
@@ -11,11 +11,15 @@ public enum HttpStatus {
 
     NO_CONTENT(204, "No Content"),
 
+    PARTIAL_CONTENT(206, "Partial Content"),
+
     MOVED_PERMANENTLY(301, "Moved Permanently"),
 
     FOUND(302, "Found"),
     SEE_OTHER(303, "See Other"),
 
+    NOT_MODIFIED(304, "Not Modified"),
+
     BAD_REQUEST(400, "Bad Request"),
 
     UNAUTHORIZED(401, "Unauthorized"),
@@ -32,17 +36,39 @@ public enum HttpStatus {
 
     UNSUPPORTED_MEDIA_TYPE(415, "Unsupported Media Type"),
 
+    RANGE_NOT_SATISFIABLE(416, "Range Not Satisfiable"),
+
     INTERNAL_SERVER_ERROR(500, "Internal Server Error"),
 
-    NOT_IMPLEMENTED(501, "Not Implemented");
+    NOT_IMPLEMENTED(501, "Not Implemented"),
+
+    SERVICE_UNAVAILABLE(503, "Service Unavailable");
+
+    private static final HttpStatus[] BY_STATUS_CODE;
+
+    static {
+        BY_STATUS_CODE = new HttpStatus[600];
+        for (HttpStatus httpStatus : values()) {
+            BY_STATUS_CODE[httpStatus.statusCode] = httpStatus;
+        }
+    }
 
     private final int statusCode;
 
     private final String statusPhrase;
 
+    private final String responseLine;
+
+    /**
+     * The status line with its line separator, encoded once since every response starts with it.
+     */
+    private final byte[] responseLineBytes;
+
     HttpStatus(int statusCode, String statusPhrase) {
         this.statusCode = statusCode;
         this.statusPhrase = statusPhrase;
+        this.responseLine = Constants.SERVER_HTTP_VERSION + " " + statusCode + " " + statusPhrase;
+        this.responseLineBytes = (this.responseLine + Constants.LINE_SEPARATOR).getBytes(StandardCharsets.US_ASCII);
     }
 
     public int getStatusCode() {
@@ -57,14 +83,22 @@ public enum HttpStatus {
      * @return Http status in Http format.
      */
     public static String getResponseLine(int statusCode) {
-        final HttpStatus httpStatus = Arrays.stream(values())
-                .filter(sc -> sc.statusCode == statusCode)
-                .findFirst()
-                .orElse(INTERNAL_SERVER_ERROR);
-        return Constants.SERVER_HTTP_VERSION
-                + " "
-                + httpStatus.getStatusCode()
-                + " "
-                + httpStatus.getStatusPhrase();
+        return valueOf(statusCode).responseLine;
+    }
+
+    /**
+     * @param statusCode - a status code.
+     * @return - the status with the code, {@link #INTERNAL_SERVER_ERROR} if there is none.
+     */
+    public static HttpStatus valueOf(int statusCode) {
+        final HttpStatus httpStatus = statusCode >= 0 && statusCode < BY_STATUS_CODE.length ? BY_STATUS_CODE[statusCode] : null;
+        return httpStatus != null ? httpStatus : INTERNAL_SERVER_ERROR;
+    }
+
+    /**
+     * @return - the shared bytes of the status line, they must not be changed.
+     */
+    byte[] getResponseLineBytes() {
+        return this.responseLineBytes;
     }
 }
@@ -0,0 +1,113 @@
+package org.nampython.base.api;
+
+/**
+ * Header names common enough to get a fixed slot in {@link HttpHeaders}.
+ * A name is found by {@link #lookup(String)} whatever its case, so the "content-length" of a client and the
+ * "Content-Length" of the server end up in the same slot.
+ */
+public enum KnownHeader {
+    ACCEPT("Accept"),
+    ACCEPT_CHARSET("Accept-Charset"),
+    ACCEPT_ENCODING("Accept-Encoding"),
+    ACCEPT_LANGUAGE("Accept-Language"),
+    ACCEPT_RANGES("Accept-Ranges"),
+    AUTHORIZATION("Authorization"),
+    CACHE_CONTROL("Cache-Control"),
+    CONNECTION("Connection"),
+    CONTENT_DISPOSITION("Content-Disposition"),
+    CONTENT_ENCODING("Content-Encoding"),
+    CONTENT_LENGTH("Content-Length"),
+    CONTENT_RANGE("Content-Range"),
+    CONTENT_TYPE("Content-Type"),
+    COOKIE("Cookie"),
+    DATE("Date"),
+    ETAG("ETag"),
+    EXPIRES("Expires"),
+    HOST("Host"),
+    IF_MODIFIED_SINCE("If-Modified-Since"),
+    IF_NONE_MATCH("If-None-Match"),
+    IF_RANGE("If-Range"),
+    LAST_MODIFIED("Last-Modified"),
+    LOCATION("Location"),
+    ORIGIN("Origin"),
+    PRAGMA("Pragma"),
+    RANGE("Range"),
+    REFERER("Referer"),
+    RETRY_AFTER("Retry-After"),
+    SERVER("Server"),
+    TRANSFER_ENCODING("Transfer-Encoding"),
+    UPGRADE("Upgrade"),
+    USER_AGENT("User-Agent"),
+    VARY("Vary"),
+    ;
+
+    /**
+     * Open-addressed by the string hash of the name, which constants and the names shared by the request parser
+     * have cached.
+     */
+    private static final KnownHeader[] BY_NAME;
+    /**
+     * Open-addressed by {@link HttpHeaders#hashIgnoreCase(String)} of the name.
+     */
+    private static final KnownHeader[] BY_NAME_IGNORE_CASE;
+    private static final int TABLE_MASK;
+
+    static {
+        final KnownHeader[] headers = values();
+        BY_NAME = new KnownHeader[Integer.highestOneBit(headers.length * 4)];
+        BY_NAME_IGNORE_CASE = new KnownHeader[BY_NAME.length];
+        TABLE_MASK = BY_NAME.length - 1;
+        for (KnownHeader header : headers) {
+            insert(BY_NAME, spread(header.name.hashCode()), header);
+            insert(BY_NAME_IGNORE_CASE, HttpHeaders.hashIgnoreCase(header.name), header);
+        }
+    }
+
+    private final String name;
+
+    KnownHeader(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return - the name as it is written in responses.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @param name - header name in any case.
+     * @return - the known header or null.
+     */
+    public static KnownHeader lookup(String name) {
+        int slot = spread(name.hashCode()) & TABLE_MASK;
+        KnownHeader header;
+        while ((header = BY_NAME[slot]) != null) {
+            if (header.name == name || header.name.equals(name)) {
+                return header;
+            }
+            slot = (slot + 1) & TABLE_MASK;
+        }
+        slot = HttpHeaders.hashIgnoreCase(name) & TABLE_MASK;
+        while ((header = BY_NAME_IGNORE_CASE[slot]) != null) {
+            if (HttpHeaders.equalsIgnoreCase(header.name, name)) {
+                return header;
+            }
+            slot = (slot + 1) & TABLE_MASK;
+        }
+        return null;
+    }
+
+    private static void insert(KnownHeader[] table, int hash, KnownHeader header) {
+        int slot = hash & TABLE_MASK;
+        while (table[slot] != null) {
+            slot = (slot + 1) & TABLE_MASK;
+        }
+        table[slot] = header;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -70,6 +70,54 @@ public class ConfigHandler implements ConfigCenter {
         this.configParameters.put(ConfigValue.DISPATCHER_ORDER.name(), 2);
         this.configParameters.put(ConfigValue.ENABLE_RESOURCE_CACHING.name(), true);
         this.configParameters.put(ConfigValue.RESOURCE_CACHING_EXPRESSION.name(), ConstantsPool.DEFAULT_CACHING_EXPRESSION);
+        this.configParameters.put(ConfigValue.WORKER_CORE_POOL_SIZE.name(), ConstantsPool.DEFAULT_WORKER_CORE_POOL_SIZE);
+        this.configParameters.put(ConfigValue.WORKER_MAX_POOL_SIZE.name(), ConstantsPool.DEFAULT_WORKER_MAX_POOL_SIZE);
+        this.configParameters.put(ConfigValue.WORKER_QUEUE_CAPACITY.name(), ConstantsPool.DEFAULT_WORKER_QUEUE_CAPACITY);
+        this.configParameters.put(ConfigValue.WORKER_KEEP_ALIVE_SECONDS.name(), 60);
+        this.configParameters.put(ConfigValue.CONNECTION_EXECUTION_MODE.name(), "PLATFORM");
+        this.configParameters.put(ConfigValue.VIRTUAL_THREAD_TRACE_PINNING.name(), "");
+        this.configParameters.put(ConfigValue.SERVER_TRANSPORT.name(), "BLOCKING");
+        this.configParameters.put(ConfigValue.KEEP_ALIVE_TIMEOUT_MILLISECONDS.name(), 5000);
+        this.configParameters.put(ConfigValue.KEEP_ALIVE_MAX_REQUESTS.name(), 100);
+        this.configParameters.put(ConfigValue.ACCEPT_BACKLOG.name(), 1024);
+        this.configParameters.put(ConfigValue.ACCEPTOR_THREADS.name(), 1);
+        this.configParameters.put(ConfigValue.ENABLE_REUSE_PORT.name(), false);
+        this.configParameters.put(ConfigValue.MAX_IN_FLIGHT_CONNECTIONS.name(), 10000);
+        this.configParameters.put(ConfigValue.MAX_QUEUED_CONNECTIONS.name(), 1000);
+        this.configParameters.put(ConfigValue.MAX_QUEUE_WAIT_MILLISECONDS.name(), 10000);
+        this.configParameters.put(ConfigValue.RETRY_AFTER_SECONDS.name(), 5);
+        this.configParameters.put(ConfigValue.HEADER_READ_TIMEOUT_MILLISECONDS.name(), 20000);
+        this.configParameters.put(ConfigValue.BODY_READ_TIMEOUT_MILLISECONDS.name(), 60000);
+        this.configParameters.put(ConfigValue.HANDLER_TIMEOUT_MILLISECONDS.name(), 60000);
+        this.configParameters.put(ConfigValue.RESPONSE_WRITE_TIMEOUT_MILLISECONDS.name(), 60000);
+        this.configParameters.put(ConfigValue.SHUTDOWN_TIMEOUT_MILLISECONDS.name(), 30000);
+        this.configParameters.put(ConfigValue.TLS_ENABLED.name(), false);
+        this.configParameters.put(ConfigValue.TLS_KEYSTORE_PATH.name(), "");
+        this.configParameters.put(ConfigValue.TLS_KEYSTORE_PASSWORD.name(), "");
+        this.configParameters.put(ConfigValue.TLS_KEYSTORE_TYPE.name(), "PKCS12");
+        this.configParameters.put(ConfigValue.TLS_PROTOCOLS.name(), "TLSv1.3,TLSv1.2");
+        this.configParameters.put(ConfigValue.TLS_SESSION_CACHE_SIZE.name(), 20000);
+        this.configParameters.put(ConfigValue.TLS_SESSION_TIMEOUT_SECONDS.name(), 86400);
+        this.configParameters.put(ConfigValue.TLS_SESSION_TICKETS.name(), true);
+        this.configParameters.put(ConfigValue.TLS_APPLICATION_PROTOCOLS.name(), "http/1.1");
+        this.configParameters.put(ConfigValue.HTTP2_ENABLED.name(), true);
+        this.configParameters.put(ConfigValue.HTTP2_MAX_CONCURRENT_STREAMS.name(), 100);
+        this.configParameters.put(ConfigValue.HTTP2_INITIAL_WINDOW_SIZE.name(), 1048576);
+        this.configParameters.put(ConfigValue.FILE_TRANSFER_THRESHOLD_BYTES.name(), 65536);
+        this.configParameters.put(ConfigValue.ENABLE_STATIC_RESOURCE_CACHE.name(), true);
+        this.configParameters.put(ConfigValue.STATIC_RESOURCE_CACHE_MAX_BYTES.name(), 67108864);
+        this.configParameters.put(ConfigValue.STATIC_RESOURCE_CACHE_MAX_FILE_BYTES.name(), 1048576);
+        this.configParameters.put(ConfigValue.STATIC_RESOURCE_CACHE_REVALIDATE_MILLISECONDS.name(), 1000);
+        this.configParameters.put(ConfigValue.ENABLE_RESPONSE_COMPRESSION.name(), true);
+        this.configParameters.put(ConfigValue.RESPONSE_COMPRESSION_MIN_BYTES.name(), 1024);
+        this.configParameters.put(ConfigValue.RESPONSE_COMPRESSION_MEDIA_TYPES.name(), ConstantsPool.DEFAULT_COMPRESSION_MEDIA_TYPES);
+        this.configParameters.put(ConfigValue.MEDIA_TYPE_MAPPINGS.name(), "");
+        this.configParameters.put(ConfigValue.RESOURCE_RESOLUTION_CACHE_MILLISECONDS.name(), 5000);
+        this.configParameters.put(ConfigValue.RESOURCE_NEGATIVE_CACHE_MILLISECONDS.name(), 1000);
+        this.configParameters.put(ConfigValue.ENABLE_RESOURCE_WATCHER.name(), true);
+        this.configParameters.put(ConfigValue.WATCHED_CACHE_REVALIDATE_MILLISECONDS.name(), 60000);
+        this.configParameters.put(ConfigValue.BUFFER_POOL_BUFFERS_PER_SIZE.name(), 64);
+        this.configParameters.put(ConfigValue.ENABLE_BUFFER_LEAK_DETECTION.name(), false);
 
     }
 
@@ -118,4 +118,272 @@ public enum ConfigValue {
      * Format - media/type1, media/type2 @ header-value & media/type3 @ header-value
      */
     RESOURCE_CACHING_EXPRESSION,
+
+    /**
+     * Specify the number of worker threads started with the server, defaults to twice the number of cores.
+     * The pool starts a thread for every connection up to WORKER_MAX_POOL_SIZE before queueing any.
+     */
+    WORKER_CORE_POOL_SIZE,
+
+    /**
+     * Specify the max number of worker threads that can handle connections at the same time, defaults to 200.
+     */
+    WORKER_MAX_POOL_SIZE,
+
+    /**
+     * Specify how many accepted connections can wait for a free worker, defaults to 1000.
+     * Connections accepted while the queue is full are answered with 503 Service Unavailable.
+     */
+    WORKER_QUEUE_CAPACITY,
+
+    /**
+     * Specify for how many seconds a worker is kept alive without work, defaults to 60.
+     */
+    WORKER_KEEP_ALIVE_SECONDS,
+
+    /**
+     * Specify on what kind of threads the connections are handled, defaults to PLATFORM.
+     * PLATFORM - bounded pool of platform threads configured by the WORKER_* settings.
+     * VIRTUAL - one virtual thread per connection, requires JDK 21 or newer, otherwise PLATFORM is used.
+     */
+    CONNECTION_EXECUTION_MODE,
+
+    /**
+     * Specify how virtual threads that block while pinned to their carrier thread are reported, defaults to empty (off).
+     * Accepted values are short and full, see the jdk.tracePinnedThreads system property.
+     */
+    VIRTUAL_THREAD_TRACE_PINNING,
+
+    /**
+     * Specify how connections are accepted and read, defaults to BLOCKING.
+     * BLOCKING - every connection is read and written by one worker thread.
+     * NIO - a selector event loop reads requests without blocking and dispatches only complete requests to the workers.
+     */
+    SERVER_TRANSPORT,
+
+    /**
+     * Specify for how long an idle persistent connection waits for the next request before it is closed, defaults to 5000.
+     */
+    KEEP_ALIVE_TIMEOUT_MILLISECONDS,
+
+    /**
+     * Specify how many requests can be sent over one persistent connection, defaults to 100.
+     * Setting to 1 disables persistent connections.
+     */
+    KEEP_ALIVE_MAX_REQUESTS,
+
+    /**
+     * Specify the max number of pending connections the operating system queues before the server accepts them,
+     * defaults to 1024.
+     */
+    ACCEPT_BACKLOG,
+
+    /**
+     * Specify the number of threads accepting connections, defaults to 1.
+     */
+    ACCEPTOR_THREADS,
+
+    /**
+     * Setting to true will open one listening socket per acceptor thread on the same port with SO_REUSEPORT,
+     * so the kernel spreads new connections across them. Ignored if the platform does not support SO_REUSEPORT.
+     */
+    ENABLE_REUSE_PORT,
+
+    /**
+     * Specify the max number of connections (requests for the NIO transport) that are accepted and not finished yet,
+     * defaults to 10000. Anything over the limit is answered with 503 Service Unavailable.
+     */
+    MAX_IN_FLIGHT_CONNECTIONS,
+
+    /**
+     * Specify the max number of accepted connections waiting for a worker, defaults to 1000.
+     * Anything over the limit is answered with 503 Service Unavailable.
+     */
+    MAX_QUEUED_CONNECTIONS,
+
+    /**
+     * Specify for how long an accepted connection may wait for a worker before it is answered with
+     * 503 Service Unavailable instead of being handled, defaults to 10000. Setting to 0 disables the limit.
+     */
+    MAX_QUEUE_WAIT_MILLISECONDS,
+
+    /**
+     * Specify the value of the Retry-After header sent with 503 Service Unavailable, defaults to 5.
+     */
+    RETRY_AFTER_SECONDS,
+
+    /**
+     * Specify for how long a client may take to send the headers of a request, counted from its first byte
+     * (from the accept for the first request of a connection), defaults to 20000.
+     */
+    HEADER_READ_TIMEOUT_MILLISECONDS,
+
+    /**
+     * Specify for how long a client may take to send the body of a request once the headers are received,
+     * defaults to 60000.
+     */
+    BODY_READ_TIMEOUT_MILLISECONDS,
+
+    /**
+     * Specify for how long the request handlers may run for one request before the connection is closed,
+     * defaults to 60000.
+     */
+    HANDLER_TIMEOUT_MILLISECONDS,
+
+    /**
+     * Specify for how long a single write of the response may wait for the client to read, defaults to 60000.
+     */
+    RESPONSE_WRITE_TIMEOUT_MILLISECONDS,
+
+    /**
+     * Specify for how long a stopping server waits for the requests being handled before they are aborted,
+     * defaults to 30000.
+     */
+    SHUTDOWN_TIMEOUT_MILLISECONDS,
+
+    /**
+     * Setting to true makes the server speak HTTPS only, with the key of {@link #TLS_KEYSTORE_PATH}.
+     */
+    TLS_ENABLED,
+
+    /**
+     * Specify the keystore holding the private key and certificate chain of the server,
+     * a relative path is resolved against the working directory.
+     */
+    TLS_KEYSTORE_PATH,
+
+    /**
+     * Specify the password of the keystore and its key.
+     */
+    TLS_KEYSTORE_PASSWORD,
+
+    /**
+     * Specify the type of the keystore, defaults to PKCS12.
+     */
+    TLS_KEYSTORE_TYPE,
+
+    /**
+     * Specify the comma separated TLS versions the server accepts, defaults to TLSv1.3,TLSv1.2.
+     */
+    TLS_PROTOCOLS,
+
+    /**
+     * Specify the max number of TLS sessions kept for resumption, defaults to 20000.
+     */
+    TLS_SESSION_CACHE_SIZE,
+
+    /**
+     * Specify for how long a TLS session can be resumed, defaults to 86400.
+     */
+    TLS_SESSION_TIMEOUT_SECONDS,
+
+    /**
+     * Setting to true hands out stateless session tickets so resumption does not depend on the session cache,
+     * defaults to true.
+     */
+    TLS_SESSION_TICKETS,
+
+    /**
+     * Specify the comma separated ALPN protocols the server speaks, most preferred first, defaults to http/1.1.
+     */
+    TLS_APPLICATION_PROTOCOLS,
+
+    /**
+     * Setting to true accepts HTTP/2 connections, with prior knowledge on plain text and through ALPN with TLS,
+     * defaults to true.
+     */
+    HTTP2_ENABLED,
+
+    /**
+     * Specify the max number of streams a client can have open on one HTTP/2 connection, defaults to 100.
+     */
+    HTTP2_MAX_CONCURRENT_STREAMS,
+
+    /**
+     * Specify the HTTP/2 flow control window of the request bodies, in bytes, defaults to 1048576.
+     */
+    HTTP2_INITIAL_WINDOW_SIZE,
+
+    /**
+     * Specify the size in bytes from which static files are sent with FileChannel.transferTo instead of being copied
+     * through the heap, -1 disables it, defaults to 65536.
+     */
+    FILE_TRANSFER_THRESHOLD_BYTES,
+
+    /**
+     * Setting to true keeps the responses of popular static files in memory, defaults to true.
+     */
+    ENABLE_STATIC_RESOURCE_CACHE,
+
+    /**
+     * Specify the memory budget of the static resource cache in bytes, defaults to 67108864.
+     */
+    STATIC_RESOURCE_CACHE_MAX_BYTES,
+
+    /**
+     * Specify the size in bytes up to which a static file is cached, larger ones are sent from the disk,
+     * defaults to 1048576.
+     */
+    STATIC_RESOURCE_CACHE_MAX_FILE_BYTES,
+
+    /**
+     * Specify how often a cached file is checked for changes of its modification time, defaults to 1000.
+     */
+    STATIC_RESOURCE_CACHE_REVALIDATE_MILLISECONDS,
+
+    /**
+     * Setting to true compresses text responses with gzip or deflate when the client accepts it, static files are
+     * served from a .gz file next to them when there is one, defaults to true.
+     */
+    ENABLE_RESPONSE_COMPRESSION,
+
+    /**
+     * Specify the size in bytes from which a response body is compressed, defaults to 1024.
+     */
+    RESPONSE_COMPRESSION_MIN_BYTES,
+
+    /**
+     * Specify the comma separated media types that are compressed, text/* matches every text type,
+     * defaults to text/*, application/javascript, application/json, application/xml, image/svg+xml.
+     */
+    RESPONSE_COMPRESSION_MEDIA_TYPES,
+
+    /**
+     * Specify extension to media type mappings for static files as ext=type pairs separated by commas, they are
+     * added to the built-in ones, defaults to empty.
+     */
+    MEDIA_TYPE_MAPPINGS,
+
+    /**
+     * Specify how long the file a static request url resolved to is remembered, 0 disables it, defaults to 5000.
+     */
+    RESOURCE_RESOLUTION_CACHE_MILLISECONDS,
+
+    /**
+     * Specify how long a url that resolved to no static file is remembered, 0 disables it, defaults to 1000.
+     */
+    RESOURCE_NEGATIVE_CACHE_MILLISECONDS,
+
+    /**
+     * Setting to true watches the webapps and assets directories and invalidates the static resource caches when a
+     * file changes, defaults to true.
+     */
+    ENABLE_RESOURCE_WATCHER,
+
+    /**
+     * Specify how often the static resource caches still check their files while the directories are watched, as a
+     * safety net for missed events, defaults to 60000.
+     */
+    WATCHED_CACHE_REVALIDATE_MILLISECONDS,
+
+    /**
+     * Specify how many free buffers of each size the buffer pool keeps, defaults to 64.
+     */
+    BUFFER_POOL_BUFFERS_PER_SIZE,
+
+    /**
+     * Setting to true tracks every leased buffer and reports the ones a request did not return, it is meant for
+     * debugging, defaults to false.
+     */
+    ENABLE_BUFFER_LEAK_DETECTION,
 }
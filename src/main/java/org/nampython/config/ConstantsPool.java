@@ -32,6 +32,23 @@ public class ConstantsPool {
     public static final String DEFAULT_CACHING_EXPRESSION = "image/png, image/gif, image/jpeg @ max-age=120 " +
             "& text/css @ max-age=84600, public " +
             "& application/javascript @ max-age=7200";
+    /**
+     *
+     */
+    public static final String DEFAULT_COMPRESSION_MEDIA_TYPES = "text/*, application/javascript, application/json, " +
+            "application/xml, image/svg+xml";
+    /**
+     *
+     */
+    public static final int DEFAULT_WORKER_CORE_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+    /**
+     *
+     */
+    public static final int DEFAULT_WORKER_MAX_POOL_SIZE = 200;
+    /**
+     *
+     */
+    public static final int DEFAULT_WORKER_QUEUE_CAPACITY = 1000;
 
 
     static {
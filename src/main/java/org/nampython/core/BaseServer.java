@@ -1,10 +1,79 @@
 package org.nampython.core;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 public abstract  class BaseServer {
+    /**
+     * How long accepting pauses when the process is out of file descriptors, retrying right away would only fail again.
+     */
+    protected static final long ACCEPT_BACKOFF_MILLISECONDS;
+    protected static final String ACCEPT_FAILED_MESSAGE_FORMAT;
+    private static final String TOO_MANY_OPEN_FILES_MESSAGE;
+
+    static {
+        ACCEPT_BACKOFF_MILLISECONDS = 100;
+        ACCEPT_FAILED_MESSAGE_FORMAT = "Accepting a connection failed: %s";
+        TOO_MANY_OPEN_FILES_MESSAGE = "Too many open files";
+    }
+
     /**
      *
      */
     public abstract  void run() throws IOException;
+
+    /**
+     * Stops the server gracefully: no new connection is accepted, the requests being handled may finish within
+     * the timeout, idle persistent connections are closed and whatever is left at the timeout is aborted.
+     * Calling it again returns the report of the first call.
+     *
+     * @param timeoutMilliseconds - max time to wait for the requests being handled.
+     * @return - how many requests were drained and how many were aborted.
+     */
+    public abstract ShutdownReport shutdown(long timeoutMilliseconds);
+
+    /**
+     * The JDK reports EMFILE and ENFILE only through the message, "Too many open files" and
+     * "Too many open files in system".
+     *
+     * @param ex - failure of accept.
+     * @return - true if the process or the system ran out of file descriptors.
+     */
+    protected static boolean isOutOfFileDescriptors(IOException ex) {
+        final String message = ex.getMessage();
+        return message != null && message.contains(TOO_MANY_OPEN_FILES_MESSAGE);
+    }
+
+    /**
+     * Common part of {@link #shutdown(long)} once the transport stopped accepting.
+     *
+     * @param startNanos          - when the shutdown started.
+     * @param timeoutMilliseconds - max time to wait for the requests being handled.
+     * @param connectionTracker   - the connections of the server, already draining.
+     * @param connectionGovernor  - admission control of the server.
+     * @param workerPool          - pool handling the connections.
+     * @return - the report.
+     */
+    protected ShutdownReport drain(long startNanos, long timeoutMilliseconds, ConnectionTracker connectionTracker,
+                                   ConnectionGovernor connectionGovernor, ExecutorService workerPool) {
+        final int closedIdleConnections = connectionTracker.awaitDrained(timeoutMilliseconds);
+        final List<Runnable> queued = workerPool.shutdownNow();
+        for (Runnable runnable : queued) {
+            if (runnable instanceof RejectableConnection) {
+                ((RejectableConnection) runnable).reject(connectionGovernor.getServiceUnavailableResponse());
+            }
+        }
+        final int abortedRequests = connectionTracker.getActiveRequests();
+        final int abortedConnections = connectionTracker.abortConnections();
+        return new ShutdownReport(
+                (System.nanoTime() - startNanos) / 1000000,
+                connectionTracker.getDrainedRequests(),
+                abortedRequests,
+                closedIdleConnections,
+                abortedConnections,
+                queued.size(),
+                connectionGovernor
+        );
+    }
 }
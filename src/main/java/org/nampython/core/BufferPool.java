@@ -0,0 +1,175 @@
+package org.nampython.core;
+
+import org.ioc.stereotype.Autowired;
+import org.ioc.stereotype.Service;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+import org.nampython.support.Logger;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of heap buffers in a few sizes, for the copies made while a request is handled: reading a form body,
+ * copying a static file through the response stream, printing an error page.
+ * Free buffers are kept in a lock-free queue per size, at most {@link ConfigValue#BUFFER_POOL_BUFFERS_PER_SIZE} of
+ * them. A lease bigger than the largest size gets a buffer of its own which is not kept when it is released.
+ * The pool does not use thread locals since connections may be served by virtual threads.
+ * With {@link ConfigValue#ENABLE_BUFFER_LEAK_DETECTION} every lease is recorded for the leasing thread and
+ * {@link RequestDestroyHandler} reports the buffers a request did not release.
+ */
+@Service
+public class BufferPool {
+    private static final int[] BUFFER_SIZES;
+    private static final String LEAK_MESSAGE_FORMAT;
+
+    static {
+        BUFFER_SIZES = new int[]{2048, 8192, 65536};
+        LEAK_MESSAGE_FORMAT = "Buffer of %d bytes was not released, it was leased at:%n%s";
+    }
+
+    private final List<Queue<byte[]>> freeBuffers;
+    private final AtomicInteger[] freeCounts;
+    private final int buffersPerSize;
+    private final boolean leakDetection;
+    private final ThreadLocal<Map<byte[], Throwable>> outstandingLeases;
+    private final LongAdder leases;
+    private final LongAdder allocations;
+    private final LongAdder discards;
+    private final LongAdder leaks;
+    private final Logger logger;
+
+    @Autowired
+    public BufferPool(ConfigCenter configCenter, Logger logger) {
+        this.buffersPerSize = configCenter.getConfigValue(ConfigValue.BUFFER_POOL_BUFFERS_PER_SIZE, int.class);
+        this.leakDetection = configCenter.getConfigValue(ConfigValue.ENABLE_BUFFER_LEAK_DETECTION, boolean.class);
+        this.freeBuffers = new ArrayList<>(BUFFER_SIZES.length);
+        this.freeCounts = new AtomicInteger[BUFFER_SIZES.length];
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            this.freeBuffers.add(new ConcurrentLinkedQueue<>());
+            this.freeCounts[i] = new AtomicInteger();
+        }
+        this.outstandingLeases = this.leakDetection ? ThreadLocal.withInitial(IdentityHashMap::new) : null;
+        this.leases = new LongAdder();
+        this.allocations = new LongAdder();
+        this.discards = new LongAdder();
+        this.leaks = new LongAdder();
+        this.logger = logger;
+    }
+
+    /**
+     * @param minimumSize - the number of bytes needed.
+     * @return - a buffer of at least that size, its content is undefined. It has to be passed to
+     * {@link #release(byte[])} once it is no longer used, and must not be kept by anything after that.
+     */
+    public byte[] lease(int minimumSize) {
+        this.leases.increment();
+        final int sizeIndex = sizeIndex(minimumSize);
+        byte[] buffer = null;
+        if (sizeIndex >= 0) {
+            buffer = this.freeBuffers.get(sizeIndex).poll();
+            if (buffer != null) {
+                this.freeCounts[sizeIndex].decrementAndGet();
+            }
+        }
+        if (buffer == null) {
+            this.allocations.increment();
+            buffer = new byte[sizeIndex >= 0 ? BUFFER_SIZES[sizeIndex] : minimumSize];
+        }
+        if (this.leakDetection) {
+            this.outstandingLeases.get().put(buffer, new Throwable());
+        }
+        return buffer;
+    }
+
+    /**
+     * @param buffer - a buffer returned by {@link #lease(int)}, null is ignored.
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null) {
+            return;
+        }
+        if (this.leakDetection) {
+            this.outstandingLeases.get().remove(buffer);
+        }
+        final int sizeIndex = exactSizeIndex(buffer.length);
+        if (sizeIndex < 0 || this.freeCounts[sizeIndex].incrementAndGet() > this.buffersPerSize) {
+            if (sizeIndex >= 0) {
+                this.freeCounts[sizeIndex].decrementAndGet();
+            }
+            this.discards.increment();
+            return;
+        }
+        this.freeBuffers.get(sizeIndex).offer(buffer);
+    }
+
+    public boolean isLeakDetectionEnabled() {
+        return this.leakDetection;
+    }
+
+    /**
+     * Reports the buffers the current thread leased and did not release, and forgets them.
+     * Only works with leak detection enabled, otherwise nothing is recorded.
+     *
+     * @return - the number of leaked buffers.
+     */
+    public int checkLeaks() {
+        if (!this.leakDetection) {
+            return 0;
+        }
+        final Map<byte[], Throwable> outstanding = this.outstandingLeases.get();
+        if (outstanding.isEmpty()) {
+            return 0;
+        }
+        final int leaked = outstanding.size();
+        for (Map.Entry<byte[], Throwable> lease : outstanding.entrySet()) {
+            final StringWriter stackTrace = new StringWriter();
+            lease.getValue().printStackTrace(new PrintWriter(stackTrace));
+            this.logger.warning(LEAK_MESSAGE_FORMAT, lease.getKey().length, stackTrace);
+        }
+        outstanding.clear();
+        this.leaks.add(leaked);
+        return leaked;
+    }
+
+    public BufferPoolStats getStats() {
+        int freeBuffers = 0;
+        long freeBytes = 0;
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            final int count = this.freeCounts[i].get();
+            freeBuffers += count;
+            freeBytes += (long) count * BUFFER_SIZES[i];
+        }
+        return new BufferPoolStats(this.leases.sum(), this.allocations.sum(), this.discards.sum(), this.leaks.sum(),
+                freeBuffers, freeBytes);
+    }
+
+    /**
+     * @return - index of the smallest size holding that many bytes or -1 if they do not fit the largest.
+     */
+    private static int sizeIndex(int minimumSize) {
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            if (minimumSize <= BUFFER_SIZES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int exactSizeIndex(int length) {
+        for (int i = 0; i < BUFFER_SIZES.length; i++) {
+            if (length == BUFFER_SIZES[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,68 @@
+package org.nampython.core;
+
+/**
+ * Snapshot of the counters of the {@link BufferPool}.
+ */
+public class BufferPoolStats {
+    private static final String FORMAT = "Buffer pool: %d leases, %d allocations (%.1f%% reused), %d discarded, "
+            + "%d leaked, %d free buffers holding %d bytes.";
+
+    private final long leases;
+    private final long allocations;
+    private final long discards;
+    private final long leaks;
+    private final int freeBuffers;
+    private final long freeBytes;
+
+    BufferPoolStats(long leases, long allocations, long discards, long leaks, int freeBuffers, long freeBytes) {
+        this.leases = leases;
+        this.allocations = allocations;
+        this.discards = discards;
+        this.leaks = leaks;
+        this.freeBuffers = freeBuffers;
+        this.freeBytes = freeBytes;
+    }
+
+    public long getLeases() {
+        return this.leases;
+    }
+
+    /**
+     * @return - leases that found no free buffer and allocated one.
+     */
+    public long getAllocations() {
+        return this.allocations;
+    }
+
+    /**
+     * @return - released buffers that were not kept, because the pool was full or the buffer had no pooled size.
+     */
+    public long getDiscards() {
+        return this.discards;
+    }
+
+    /**
+     * @return - buffers reported as not released, counted only with leak detection enabled.
+     */
+    public long getLeaks() {
+        return this.leaks;
+    }
+
+    public int getFreeBuffers() {
+        return this.freeBuffers;
+    }
+
+    public long getFreeBytes() {
+        return this.freeBytes;
+    }
+
+    public double getReuseRate() {
+        return this.leases == 0 ? 0 : (double) (this.leases - this.allocations) / this.leases;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(FORMAT, this.leases, this.allocations, this.getReuseRate() * 100, this.discards,
+                this.leaks, this.freeBuffers, this.freeBytes);
+    }
+}
@@ -0,0 +1,21 @@
+package org.nampython.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Implemented by the response streams of the transports that can send buffers, e.g. direct ones held by a cache,
+ * without copying them into the heap first. Handlers copy the buffers through the stream when it is missing
+ * or declines them.
+ */
+public interface ByteBufferOutput {
+    /**
+     * Sends the remaining bytes of the buffers in order, after the bytes written to the stream before.
+     * The buffers must not be changed by the caller afterwards.
+     *
+     * @param buffers - the buffers.
+     * @return - false if nothing was sent and the caller has to write the bytes itself.
+     * @throws IOException - if the connection failed.
+     */
+    boolean writeBuffers(ByteBuffer... buffers) throws IOException;
+}
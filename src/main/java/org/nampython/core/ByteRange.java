@@ -0,0 +1,149 @@
+package org.nampython.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * An inclusive range of bytes of a static resource, requested with the Range header.
+ */
+public final class ByteRange {
+    public static final String RANGE_HEADER_NAME;
+    public static final String CONTENT_RANGE_HEADER_NAME;
+    public static final String ACCEPT_RANGES_HEADER_NAME;
+    public static final String BYTES_UNIT;
+    /**
+     * A request for more ranges than this, after overlapping ones are merged, is answered with the whole file.
+     */
+    private static final int MAX_RANGES;
+
+    static {
+        RANGE_HEADER_NAME = "Range";
+        CONTENT_RANGE_HEADER_NAME = "Content-Range";
+        ACCEPT_RANGES_HEADER_NAME = "Accept-Ranges";
+        BYTES_UNIT = "bytes";
+        MAX_RANGES = 32;
+    }
+
+    private final long start;
+    private final long end;
+
+    private ByteRange(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return this.start;
+    }
+
+    /**
+     * @return - position of the last byte of the range.
+     */
+    public long getEnd() {
+        return this.end;
+    }
+
+    public long getLength() {
+        return this.end - this.start + 1;
+    }
+
+    /**
+     * @param totalLength - size of the whole resource.
+     * @return - the value of the Content-Range header of this range.
+     */
+    public String toContentRange(long totalLength) {
+        return BYTES_UNIT + " " + this.start + "-" + this.end + "/" + totalLength;
+    }
+
+    /**
+     * @param totalLength - size of the whole resource.
+     * @return - the value of the Content-Range header of a 416 response.
+     */
+    public static String unsatisfiedContentRange(long totalLength) {
+        return BYTES_UNIT + " */" + totalLength;
+    }
+
+    /**
+     * Parses a Range header of the bytes unit. Suffix ranges (-500) and open ranges (9500-) are resolved against the
+     * length and ranges reaching past the end are cut. Overlapping and adjacent ranges are merged, in ascending order.
+     *
+     * @param rangeHeader - value of the Range header.
+     * @param totalLength - size of the resource.
+     * @return - null if the header is malformed, of another unit or asks for too many ranges, so it is ignored and
+     * the whole resource is sent; an empty list if no range overlaps the resource.
+     */
+    public static List<ByteRange> parse(String rangeHeader, long totalLength) {
+        final int equals = rangeHeader.indexOf('=');
+        if (equals < 0 || !BYTES_UNIT.equalsIgnoreCase(rangeHeader.substring(0, equals).trim())) {
+            return null;
+        }
+        final List<ByteRange> ranges = new ArrayList<>();
+        for (String spec : rangeHeader.substring(equals + 1).split(",")) {
+            spec = spec.trim();
+            if (spec.isEmpty()) {
+                continue;
+            }
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            final long first = parsePosition(spec.substring(0, dash));
+            final long last = parsePosition(spec.substring(dash + 1));
+            if (first == -1) {
+                if (last < 0) {
+                    return null;
+                }
+                if (last > 0 && totalLength > 0) {
+                    ranges.add(new ByteRange(Math.max(0, totalLength - last), totalLength - 1));
+                }
+            } else if (first < 0 || last < -1 || last >= 0 && last < first) {
+                return null;
+            } else if (first < totalLength) {
+                ranges.add(new ByteRange(first, last == -1 ? totalLength - 1 : Math.min(last, totalLength - 1)));
+            }
+        }
+        final List<ByteRange> merged = merge(ranges);
+        return merged.size() > MAX_RANGES ? null : merged;
+    }
+
+    private static List<ByteRange> merge(List<ByteRange> ranges) {
+        if (ranges.size() < 2) {
+            return ranges;
+        }
+        ranges.sort(Comparator.comparingLong(ByteRange::getStart));
+        final List<ByteRange> merged = new ArrayList<>(ranges.size());
+        ByteRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            final ByteRange next = ranges.get(i);
+            if (next.start <= current.end + 1) {
+                current = new ByteRange(current.start, Math.max(current.end, next.end));
+            } else {
+                merged.add(current);
+                current = next;
+            }
+        }
+        merged.add(current);
+        return merged;
+    }
+
+    /**
+     * @return - the position, -1 if it is empty or -2 if it is not a number.
+     */
+    private static long parsePosition(String value) {
+        value = value.trim();
+        if (value.isEmpty()) {
+            return -1;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) < '0' || value.charAt(i) > '9') {
+                return -2;
+            }
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -2;
+        }
+    }
+}
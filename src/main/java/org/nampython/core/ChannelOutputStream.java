@@ -0,0 +1,70 @@
+package org.nampython.core;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Buffered response stream of {@link ConnectionHandler}. On a plain connection files go straight from the
+ * page cache to the socket with sendfile and buffers are sent with one gathering write, the buffered bytes are
+ * flushed first to keep the order.
+ * With TLS there is no socket channel to write to, the files and buffers are copied through the stream.
+ */
+class ChannelOutputStream extends BufferedOutputStream implements FileTransferOutput, ByteBufferOutput {
+    private final GatheringByteChannel channel;
+    private final ConnectionDeadline deadline;
+
+    /**
+     * @param out      - stream of the connection.
+     * @param channel  - channel of the same connection or null if files cannot be transferred to it.
+     * @param deadline - moved to the write phase as the file makes progress.
+     */
+    ChannelOutputStream(OutputStream out, GatheringByteChannel channel, ConnectionDeadline deadline) {
+        super(out);
+        this.channel = channel;
+        this.deadline = deadline;
+    }
+
+    @Override
+    public boolean transferFile(Path file, long position, long count) throws IOException {
+        if (this.channel == null) {
+            return false;
+        }
+        this.flush();
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long transferred = 0;
+            while (transferred < count) {
+                this.deadline.restart(ConnectionPhase.RESPONSE_WRITE);
+                final long sent = fileChannel.transferTo(position + transferred, count - transferred, this.channel);
+                if (sent <= 0 && position + transferred >= fileChannel.size()) {
+                    throw new EOFException("File " + file + " was truncated while it was sent.");
+                }
+                transferred += sent;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean writeBuffers(ByteBuffer... buffers) throws IOException {
+        if (this.channel == null) {
+            return false;
+        }
+        this.flush();
+        long remaining = 0;
+        for (ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0) {
+            this.deadline.restart(ConnectionPhase.RESPONSE_WRITE);
+            remaining -= this.channel.write(buffers);
+        }
+        return true;
+    }
+}
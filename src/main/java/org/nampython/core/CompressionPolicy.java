@@ -0,0 +1,173 @@
+package org.nampython.core;
+
+import org.ioc.stereotype.Autowired;
+import org.ioc.stereotype.Service;
+import org.nampython.base.api.BaseHttpRequest;
+import org.nampython.base.api.BaseHttpResponse;
+import org.nampython.base.api.ContentEncoding;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Decides which responses are compressed and with which encoding.
+ * Only media types listed in {@link ConfigValue#RESPONSE_COMPRESSION_MEDIA_TYPES} (text/* style wildcards allowed)
+ * with a body of at least {@link ConfigValue#RESPONSE_COMPRESSION_MIN_BYTES} are compressed, images, archives and
+ * tiny bodies gain nothing from it. The encoding is negotiated from the Accept-Encoding header of the request.
+ */
+@Service
+public class CompressionPolicy {
+    public static final String ACCEPT_ENCODING_HEADER_NAME;
+    public static final String CONTENT_ENCODING_HEADER_NAME;
+    public static final String VARY_HEADER_NAME;
+    private static final String CONTENT_TYPE_HEADER_NAME;
+    private static final String DEFAULT_CONTENT_TYPE;
+
+    static {
+        ACCEPT_ENCODING_HEADER_NAME = "Accept-Encoding";
+        CONTENT_ENCODING_HEADER_NAME = "Content-Encoding";
+        VARY_HEADER_NAME = "Vary";
+        CONTENT_TYPE_HEADER_NAME = "Content-Type";
+        DEFAULT_CONTENT_TYPE = "text/html";
+    }
+
+    private final boolean enabled;
+    private final int minBytes;
+    private final Set<String> mediaTypes;
+    private final Set<String> mediaTypeFamilies;
+
+    @Autowired
+    public CompressionPolicy(ConfigCenter configCenter) {
+        this.enabled = configCenter.getConfigValue(ConfigValue.ENABLE_RESPONSE_COMPRESSION, boolean.class);
+        this.minBytes = configCenter.getConfigValue(ConfigValue.RESPONSE_COMPRESSION_MIN_BYTES, int.class);
+        this.mediaTypes = new HashSet<>();
+        this.mediaTypeFamilies = new HashSet<>();
+        final String mediaTypes = configCenter.getConfigValue(ConfigValue.RESPONSE_COMPRESSION_MEDIA_TYPES);
+        for (String mediaType : mediaTypes.split(",")) {
+            mediaType = mediaType.trim().toLowerCase(Locale.ROOT);
+            if (mediaType.endsWith("/*")) {
+                this.mediaTypeFamilies.add(mediaType.substring(0, mediaType.length() - 1));
+            } else if (!mediaType.isEmpty()) {
+                this.mediaTypes.add(mediaType);
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param mediaType - media type of the body, parameters such as charset are ignored.
+     * @param length    - size of the uncompressed body.
+     * @return - true if a body like this is worth compressing.
+     */
+    public boolean isCompressible(String mediaType, long length) {
+        if (!this.enabled || mediaType == null || length < this.minBytes) {
+            return false;
+        }
+        final int parametersStart = mediaType.indexOf(';');
+        final String type = (parametersStart < 0 ? mediaType : mediaType.substring(0, parametersStart)).trim().toLowerCase(Locale.ROOT);
+        final int slash = type.indexOf('/');
+        return this.mediaTypes.contains(type) || slash > 0 && this.mediaTypeFamilies.contains(type.substring(0, slash + 1));
+    }
+
+    /**
+     * Picks the supported encoding with the highest quality value, gzip wins a tie.
+     *
+     * @param acceptEncoding - Accept-Encoding header of the request, may be null.
+     * @return - the encoding to use or null if the body should be sent as it is.
+     */
+    public ContentEncoding negotiate(String acceptEncoding) {
+        if (!this.enabled || acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        ContentEncoding selected = null;
+        double selectedQuality = 0;
+        double wildcardQuality = -1;
+        final double[] qualities = new double[ContentEncoding.values().length];
+        Arrays.fill(qualities, -1);
+        for (String element : acceptEncoding.split(",")) {
+            final String[] parts = element.split(";");
+            final String token = parts[0].trim();
+            final double quality = parseQuality(parts);
+            if ("*".equals(token)) {
+                wildcardQuality = quality;
+                continue;
+            }
+            final ContentEncoding encoding = ContentEncoding.fromToken(token);
+            if (encoding != null) {
+                qualities[encoding.ordinal()] = quality;
+            }
+        }
+        for (ContentEncoding encoding : ContentEncoding.values()) {
+            final double quality = qualities[encoding.ordinal()] < 0 ? wildcardQuality : qualities[encoding.ordinal()];
+            if (quality > selectedQuality) {
+                selected = encoding;
+                selectedQuality = quality;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Marks a generated response for compression, {@link BaseHttpResponse#setContentEncoding(ContentEncoding)}
+     * encodes the body when the response is serialized.
+     * Responses which already carry a Content-Encoding header are left alone.
+     *
+     * @param request  - current request.
+     * @param response - the response, with its content and Content-Type set.
+     */
+    public void applyTo(BaseHttpRequest request, BaseHttpResponse response) {
+        if (!this.enabled || response.getHeaders().containsKey(CONTENT_ENCODING_HEADER_NAME)) {
+            return;
+        }
+        final String mediaType = response.getHeaders().getOrDefault(CONTENT_TYPE_HEADER_NAME, DEFAULT_CONTENT_TYPE);
+        if (!this.isCompressible(mediaType, response.getContent().length)) {
+            return;
+        }
+        varyOnAcceptEncoding(response);
+        final ContentEncoding encoding = this.negotiate(request.getHeader(ACCEPT_ENCODING_HEADER_NAME));
+        if (encoding != null) {
+            response.setContentEncoding(encoding);
+        }
+    }
+
+    /**
+     * Adds Accept-Encoding to the Vary header, keeping the fields a handler already listed there.
+     *
+     * @param response - response whose body depends on the Accept-Encoding header of the request.
+     */
+    public static void varyOnAcceptEncoding(BaseHttpResponse response) {
+        final String vary = response.getHeaders().get(VARY_HEADER_NAME);
+        if (vary == null || vary.isBlank()) {
+            response.addHeader(VARY_HEADER_NAME, ACCEPT_ENCODING_HEADER_NAME);
+            return;
+        }
+        for (String field : vary.split(",")) {
+            final String name = field.trim();
+            if ("*".equals(name) || ACCEPT_ENCODING_HEADER_NAME.equalsIgnoreCase(name)) {
+                return;
+            }
+        }
+        response.addHeader(VARY_HEADER_NAME, vary + ", " + ACCEPT_ENCODING_HEADER_NAME);
+    }
+
+    private static double parseQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            final String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
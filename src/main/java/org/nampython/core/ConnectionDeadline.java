@@ -0,0 +1,113 @@
+package org.nampython.core;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of one connection. The connection is closed by the timer wheel if it stays in a phase past the timeout
+ * of that phase.
+ * Within one request, every phase is measured from the first time it was entered, so a client trickling its
+ * headers byte by byte cannot extend the header deadline. {@link #restart(ConnectionPhase)} measures from now,
+ * it is used for writes where every completed write is progress.
+ */
+public class ConnectionDeadline {
+    private final ConnectionTimeouts connectionTimeouts;
+    private final Runnable onExpire;
+    private final long[] phaseDeadlinesNanos;
+    private ConnectionPhase phase;
+    private HashedTimerWheel.Timeout timeout;
+
+    ConnectionDeadline(ConnectionTimeouts connectionTimeouts, Runnable onExpire) {
+        this.connectionTimeouts = connectionTimeouts;
+        this.onExpire = onExpire;
+        this.phaseDeadlinesNanos = new long[ConnectionPhase.values().length];
+    }
+
+    /**
+     * Starts the phases of a new request.
+     *
+     * @param phase - first phase of the request.
+     */
+    public synchronized void startRequest(ConnectionPhase phase) {
+        this.startRequest(phase, this.now());
+    }
+
+    /**
+     * Starts the phases of a new request whose first phase began before the deadline existed,
+     * e.g. when the connection was accepted and then waited for a worker.
+     *
+     * @param phase      - first phase of the request.
+     * @param startNanos - {@link System#nanoTime()} when the phase began.
+     */
+    public synchronized void startRequest(ConnectionPhase phase, long startNanos) {
+        Arrays.fill(this.phaseDeadlinesNanos, 0);
+        this.phase = phase;
+        this.phaseDeadlinesNanos[phase.ordinal()] = startNanos + this.timeoutNanos(phase);
+        this.schedule(this.phaseDeadlinesNanos[phase.ordinal()]);
+    }
+
+    /**
+     * Moves the connection to the given phase, does nothing if it already is in it.
+     *
+     * @param phase - new phase.
+     */
+    public synchronized void enter(ConnectionPhase phase) {
+        if (this.phase == phase) {
+            return;
+        }
+        this.phase = phase;
+        if (this.phaseDeadlinesNanos[phase.ordinal()] == 0) {
+            this.phaseDeadlinesNanos[phase.ordinal()] = this.now() + this.timeoutNanos(phase);
+        }
+        this.schedule(this.phaseDeadlinesNanos[phase.ordinal()]);
+    }
+
+    /**
+     * Moves the connection to the given phase with a full timeout from now.
+     *
+     * @param phase - new phase.
+     */
+    public synchronized void restart(ConnectionPhase phase) {
+        this.phase = phase;
+        this.phaseDeadlinesNanos[phase.ordinal()] = this.now() + this.timeoutNanos(phase);
+        this.schedule(this.phaseDeadlinesNanos[phase.ordinal()]);
+    }
+
+    public synchronized ConnectionPhase getPhase() {
+        return this.phase;
+    }
+
+    /**
+     * Cancels the deadline, used when the connection is closed.
+     */
+    public synchronized void cancel() {
+        this.phase = null;
+        if (this.timeout != null) {
+            this.timeout.cancel();
+            this.timeout = null;
+        }
+    }
+
+    /**
+     * Closes the connection right away through the expiry action, used when the server stops.
+     */
+    public void expireNow() {
+        this.cancel();
+        this.onExpire.run();
+    }
+
+    private void schedule(long deadlineNanos) {
+        if (this.timeout != null) {
+            this.timeout.cancel();
+        }
+        this.timeout = this.connectionTimeouts.getTimerWheel().schedule(this.onExpire, deadlineNanos - this.now(), TimeUnit.NANOSECONDS);
+    }
+
+    private long timeoutNanos(ConnectionPhase phase) {
+        return TimeUnit.MILLISECONDS.toNanos(this.connectionTimeouts.getTimeoutMilliseconds(phase));
+    }
+
+    private long now() {
+        return System.nanoTime();
+    }
+}
@@ -0,0 +1,31 @@
+package org.nampython.core;
+
+/**
+ * The kind of threads on which {@link ConnectionHandler} instances are run.
+ */
+public enum ConnectionExecutionMode {
+    /**
+     * Bounded pool of platform threads.
+     */
+    PLATFORM,
+
+    /**
+     * One virtual thread per connection.
+     */
+    VIRTUAL;
+
+    /**
+     * @param value - the configured value, case-insensitive.
+     * @return - the matching mode, {@link #PLATFORM} if the value is empty or unknown.
+     */
+    public static ConnectionExecutionMode fromValue(String value) {
+        if (value != null) {
+            for (ConnectionExecutionMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+        }
+        return PLATFORM;
+    }
+}
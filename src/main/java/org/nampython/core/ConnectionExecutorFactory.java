@@ -0,0 +1,127 @@
+package org.nampython.core;
+
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+import org.nampython.support.Logger;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the {@link ExecutorService} on which every accepted connection is handled.
+ * In {@link ConnectionExecutionMode#PLATFORM} mode the capacity of the server is decided by {@link ConfigValue#WORKER_CORE_POOL_SIZE}, {@link ConfigValue#WORKER_MAX_POOL_SIZE}
+ * and {@link ConfigValue#WORKER_QUEUE_CAPACITY} instead of creating a new thread for each connection.
+ */
+public class ConnectionExecutorFactory {
+    private static final String WORKER_THREAD_NAME_FORMAT = "worker-%d";
+    private static final String VIRTUAL_THREAD_EXECUTOR_METHOD = "newVirtualThreadPerTaskExecutor";
+    private static final String TRACE_PINNED_THREADS_PROPERTY = "jdk.tracePinnedThreads";
+    private static final String VIRTUAL_THREADS_NOT_SUPPORTED_MESSAGE =
+            "Virtual threads are not supported by this JVM, falling back to the platform worker pool.";
+
+    private final ConfigCenter configCenter;
+    private final ConnectionGovernor connectionGovernor;
+    private final Logger logger;
+
+    public ConnectionExecutorFactory(ConfigCenter configCenter, ConnectionGovernor connectionGovernor, Logger logger) {
+        this.configCenter = configCenter;
+        this.connectionGovernor = connectionGovernor;
+        this.logger = logger;
+    }
+
+    /**
+     * Creates the executor for the configured {@link ConfigValue#CONNECTION_EXECUTION_MODE}.
+     *
+     * @return - the executor on which connections are handled.
+     */
+    public ExecutorService createExecutor() {
+        final ConnectionExecutionMode mode = ConnectionExecutionMode.fromValue(
+                this.configCenter.getConfigParamString(ConfigValue.CONNECTION_EXECUTION_MODE)
+        );
+        if (mode == ConnectionExecutionMode.VIRTUAL) {
+            final ExecutorService virtualThreadExecutor = this.createVirtualThreadExecutor();
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+            this.logger.warning(VIRTUAL_THREADS_NOT_SUPPORTED_MESSAGE);
+        }
+        return this.createWorkerPool();
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for every connection.
+     * The whole request pipeline is blocking I/O, so a connection waiting on a slow client only parks its
+     * virtual thread and the carrier thread is free to run other connections.
+     * <p>
+     * The executor is looked up reflectively since the server is compiled for JDK 11.
+     * If {@link ConfigValue#VIRTUAL_THREAD_TRACE_PINNING} is set, the JVM prints a stack trace every time
+     * a virtual thread blocks while pinned (e.g. inside a synchronized block).
+     *
+     * @return - the executor or null if virtual threads are not supported.
+     */
+    public ExecutorService createVirtualThreadExecutor() {
+        final String tracePinning = this.configCenter.getConfigParamString(ConfigValue.VIRTUAL_THREAD_TRACE_PINNING);
+        if (tracePinning != null && !tracePinning.isBlank()) {
+            System.setProperty(TRACE_PINNED_THREADS_PROPERTY, tracePinning.trim());
+        }
+        try {
+            final Method method = Executors.class.getMethod(VIRTUAL_THREAD_EXECUTOR_METHOD);
+            return (ExecutorService) method.invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a bounded pool of platform threads.
+     * A blocking connection keeps its worker while it idles between keep-alive requests, so a pool growing past its
+     * core size only once the hand-off queue is full would queue new connections behind idle ones and shed them with
+     * 503 while far fewer than the max threads run. The core size is therefore the max size: a thread is started for
+     * every connection up to the max before any is queued, and idle threads time out so the pool shrinks again.
+     * The configured core size is the number of threads started up front.
+     * Once threads and queue are exhausted the connection is passed to {@link ConnectionRejectionHandler}.
+     *
+     * @return - the worker pool.
+     */
+    public ExecutorService createWorkerPool() {
+        final int corePoolSize = this.configCenter.getConfigValue(ConfigValue.WORKER_CORE_POOL_SIZE, int.class);
+        final int maxPoolSize = Math.max(corePoolSize, this.configCenter.getConfigValue(ConfigValue.WORKER_MAX_POOL_SIZE, int.class));
+        final int queueCapacity = this.configCenter.getConfigValue(ConfigValue.WORKER_QUEUE_CAPACITY, int.class);
+        final int keepAliveSeconds = this.configCenter.getConfigValue(ConfigValue.WORKER_KEEP_ALIVE_SECONDS, int.class);
+        final ThreadPoolExecutor workerPool = new ThreadPoolExecutor(
+                maxPoolSize,
+                maxPoolSize,
+                Math.max(1, keepAliveSeconds),
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                new WorkerThreadFactory(),
+                new ConnectionRejectionHandler(this.connectionGovernor)
+        );
+        workerPool.allowCoreThreadTimeOut(true);
+        for (int i = 0; i < corePoolSize; i++) {
+            workerPool.prestartCoreThread();
+        }
+        return workerPool;
+    }
+
+    /**
+     * Names the worker threads so they can be told apart in thread dumps and logs.
+     */
+    static class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, String.format(WORKER_THREAD_NAME_FORMAT, this.threadNumber.getAndIncrement()));
+            thread.setDaemon(false);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package org.nampython.core;
+
+import org.nampython.base.api.HttpStatus;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of the {@link RequestHandlerChain}.
+ * Tracks the work that was accepted but is not finished (in flight), the part of it that still waits for a worker
+ * (queued) and for how long it waited. Work over the limits is not accepted and is answered with a precomputed
+ * 503 Service Unavailable and Retry-After instead, so under overload the server sheds the excess predictably
+ * rather than slowing down every request.
+ * <p>
+ * Lifecycle of admitted work: {@link #tryAcquire()} on arrival, then either {@link #onRejected()} if the worker pool
+ * refused it, or {@link #onStart(long)} when a worker picks it up followed by {@link #onFinish()}.
+ */
+public class ConnectionGovernor {
+    private static final String SERVICE_UNAVAILABLE_MESSAGE = "The server is too busy to handle the request, please try again later.";
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final long maxQueueWaitNanos;
+    private final byte[] serviceUnavailableResponse;
+    private final AtomicInteger inFlight;
+    private final AtomicInteger queued;
+    private final AtomicLong admitted;
+    private final AtomicLong started;
+    private final AtomicLong completed;
+    private final AtomicLong rejected;
+    private final AtomicLong shed;
+    private final AtomicLong totalQueueWaitNanos;
+    private final AtomicLong maxQueueWaitObservedNanos;
+
+    public ConnectionGovernor(ConfigCenter configCenter) {
+        this.maxInFlight = configCenter.getConfigValue(ConfigValue.MAX_IN_FLIGHT_CONNECTIONS, int.class);
+        this.maxQueued = configCenter.getConfigValue(ConfigValue.MAX_QUEUED_CONNECTIONS, int.class);
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(
+                configCenter.getConfigValue(ConfigValue.MAX_QUEUE_WAIT_MILLISECONDS, int.class)
+        );
+        this.serviceUnavailableResponse = PrecomputedResponses.create(
+                HttpStatus.SERVICE_UNAVAILABLE,
+                SERVICE_UNAVAILABLE_MESSAGE,
+                Map.of(RETRY_AFTER_HEADER, configCenter.getConfigParamString(ConfigValue.RETRY_AFTER_SECONDS))
+        );
+        this.inFlight = new AtomicInteger();
+        this.queued = new AtomicInteger();
+        this.admitted = new AtomicLong();
+        this.started = new AtomicLong();
+        this.completed = new AtomicLong();
+        this.rejected = new AtomicLong();
+        this.shed = new AtomicLong();
+        this.totalQueueWaitNanos = new AtomicLong();
+        this.maxQueueWaitObservedNanos = new AtomicLong();
+    }
+
+    /**
+     * @return - true if the work is admitted, false if it has to be answered with {@link #getServiceUnavailableResponse()}.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            final int current = this.inFlight.get();
+            if (current >= this.maxInFlight || this.queued.get() >= this.maxQueued) {
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                this.queued.incrementAndGet();
+                this.admitted.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Called when a worker picks up admitted work.
+     *
+     * @param enqueuedNanos - {@link System#nanoTime()} when the work was admitted.
+     * @return - false if the work waited longer than {@link ConfigValue#MAX_QUEUE_WAIT_MILLISECONDS} and has to be shed,
+     * the client most likely gave up already.
+     */
+    public boolean onStart(long enqueuedNanos) {
+        this.queued.decrementAndGet();
+        this.started.incrementAndGet();
+        final long waited = System.nanoTime() - enqueuedNanos;
+        this.totalQueueWaitNanos.addAndGet(waited);
+        this.maxQueueWaitObservedNanos.accumulateAndGet(waited, Math::max);
+        if (this.maxQueueWaitNanos > 0 && waited > this.maxQueueWaitNanos) {
+            this.inFlight.decrementAndGet();
+            this.shed.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called when started work is finished.
+     */
+    public void onFinish() {
+        this.inFlight.decrementAndGet();
+        this.completed.incrementAndGet();
+    }
+
+    /**
+     * Called when admitted work was refused by the worker pool before it started.
+     */
+    public void onRejected() {
+        this.queued.decrementAndGet();
+        this.inFlight.decrementAndGet();
+        this.rejected.incrementAndGet();
+    }
+
+    /**
+     * @return - the 503 response with Retry-After, the same bytes for every rejection.
+     */
+    public byte[] getServiceUnavailableResponse() {
+        return this.serviceUnavailableResponse;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public int getQueued() {
+        return this.queued.get();
+    }
+
+    public long getAdmitted() {
+        return this.admitted.get();
+    }
+
+    public long getCompleted() {
+        return this.completed.get();
+    }
+
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    public long getShed() {
+        return this.shed.get();
+    }
+
+    /**
+     * @return - average time admitted work waited for a worker, in milliseconds.
+     */
+    public double getAverageQueueWaitMilliseconds() {
+        final long started = this.started.get();
+        if (started == 0) {
+            return 0;
+        }
+        return this.totalQueueWaitNanos.get() / (double) started / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return - the longest time admitted work waited for a worker, in milliseconds.
+     */
+    public long getMaxQueueWaitMilliseconds() {
+        return TimeUnit.NANOSECONDS.toMillis(this.maxQueueWaitObservedNanos.get());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "in-flight=%d, queued=%d, admitted=%d, completed=%d, rejected=%d, shed=%d, avg-queue-wait=%.2fms, max-queue-wait=%dms",
+                this.getInFlight(), this.getQueued(), this.getAdmitted(), this.getCompleted(), this.getRejected(),
+                this.getShed(), this.getAverageQueueWaitMilliseconds(), this.getMaxQueueWaitMilliseconds()
+        );
+    }
+}
@@ -1,59 +1,211 @@
 package org.nampython.core;
 
+import org.nampython.core.http2.Http2OutputStreamSink;
+import org.nampython.core.http2.Http2Protocol;
+import org.nampython.core.tls.TlsChannel;
+import org.nampython.core.tls.TlsContext;
+
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.util.List;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
 
 /**
- *
+ * Handles all requests sent over one client connection.
+ * The connection is persistent: after a response, the next request is read from the same socket until the client
+ * or the {@link KeepAlivePolicy} asks to close it.
+ * The socket has no read timeout, it is closed by its {@link ConnectionDeadline} when a phase of a request takes too long.
+ * With TLS the handshake runs on the worker as the first request is read, within the header deadline.
+ * A connection starting with the HTTP/2 preface is served by an {@link org.nampython.core.http2.Http2Connection}
+ * on this worker, its streams are handled on the pool of the {@link Http2Protocol}.
  */
-public class ConnectionHandler implements Runnable {
+public class ConnectionHandler implements RejectableConnection {
     private final Socket socketClient;
-    private final List<RequestHandler> requestHandlers;
-    private final List<RequestDestroy> requestDestroys;
+    private final RequestHandlerChain requestHandlerChain;
+    private final KeepAlivePolicy keepAlivePolicy;
+    private final ConnectionGovernor connectionGovernor;
+    private final ConnectionTimeouts connectionTimeouts;
+    private final ConnectionTracker connectionTracker;
+    private final TlsContext tlsContext;
+    private final Http2Protocol http2Protocol;
+    private final long enqueuedNanos;
 
-    public ConnectionHandler(Socket socketClient, List<RequestHandler> requestHandlers, List<RequestDestroy> requestDestroys) {
+    /**
+     * @param socketClient            - accepted connection, already admitted by the connectionGovernor.
+     * @param requestHandlerChain     - handlers the requests are run through.
+     * @param keepAlivePolicy         - limits of the persistent connection.
+     * @param connectionGovernor      - admission control the connection is reported to.
+     * @param connectionTimeouts      - creates the deadline of the connection.
+     * @param connectionTracker       - open connections of the server, waited for when it stops.
+     * @param tlsContext              - TLS configuration or null for plain HTTP.
+     * @param http2Protocol           - HTTP/2 support or null if it is disabled.
+     */
+    public ConnectionHandler(Socket socketClient, RequestHandlerChain requestHandlerChain, KeepAlivePolicy keepAlivePolicy,
+                             ConnectionGovernor connectionGovernor, ConnectionTimeouts connectionTimeouts,
+                             ConnectionTracker connectionTracker, TlsContext tlsContext, Http2Protocol http2Protocol) {
         this.socketClient = socketClient;
-        this.requestHandlers = requestHandlers;
-        this.requestDestroys = requestDestroys;
+        this.requestHandlerChain = requestHandlerChain;
+        this.keepAlivePolicy = keepAlivePolicy;
+        this.connectionGovernor = connectionGovernor;
+        this.connectionTimeouts = connectionTimeouts;
+        this.connectionTracker = connectionTracker;
+        this.tlsContext = tlsContext;
+        this.http2Protocol = http2Protocol;
+        this.enqueuedNanos = System.nanoTime();
     }
 
     /**
      * Override run method from {@link Runnable}
+     * A connection that waited too long for a worker is answered with 503 instead of being handled.
      */
     @Override
     public void run() {
-        try {
-            this.handlerRequest();
-            socketClient.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+        if (!this.connectionGovernor.onStart(this.enqueuedNanos)) {
+            this.refuse(this.connectionGovernor.getServiceUnavailableResponse());
+            return;
+        }
+        final ConnectionDeadline deadline = this.connectionTimeouts.newDeadline(this::closeQuietly);
+        this.connectionTracker.register(deadline);
+        try (this.socketClient) {
+            this.handlerRequests(deadline);
+        } catch (IOException ignored) {
+        } finally {
+            deadline.cancel();
+            this.connectionTracker.unregister(deadline);
+            this.connectionGovernor.onFinish();
+        }
+    }
+
+    /**
+     * Used when there is no free worker to handle the connection.
+     *
+     * @param response - the raw bytes of the response.
+     */
+    @Override
+    public void reject(byte[] response) {
+        this.connectionGovernor.onRejected();
+        this.refuse(response);
+    }
+
+    /**
+     * A TLS connection is closed without an answer, the plain response would not be understood.
+     *
+     * @param response - the raw bytes of the response.
+     */
+    private void refuse(byte[] response) {
+        if (this.tlsContext != null) {
+            this.closeQuietly();
+        } else {
+            writeAndClose(this.socketClient, response);
+        }
+    }
+
+    /**
+     * Answers a connection that is not handled and closes it.
+     *
+     * @param socket   - client connection.
+     * @param response - the raw bytes of the response.
+     */
+    public static void writeAndClose(Socket socket, byte[] response) {
+        try (socket) {
+            socket.getOutputStream().write(response);
+        } catch (IOException ignored) {
         }
     }
 
     /**
      * Each class that implement {@link RequestHandler} store handleRequest method.
+     * The streams are buffered once per connection so bytes read ahead for one request are not lost for the next,
+     * every request gets its own {@link RequestHandlerShareData} and {@link RequestDestroy} pass.
+     * Pipelined requests are handled one after another, so their responses are written in the order of the requests.
+     * While the next request is already buffered the response is not flushed, the responses are sent together.
+     * Once the server is stopping no further request is read.
+     * @param deadline - deadline of the connection, shared with {@link org.nampython.core.engine.RequestProcessor}
+     *                 to move it to the body and handler phases.
      * @throws IOException -  if an I/O error occurs when creating the input stream, the socket is closed, the socket is not connected,
      * or the socket input has been shutdown using shutdownInput()
      */
-    private void handlerRequest() throws IOException {
-        RequestHandlerShareData sharedData = new RequestHandlerShareData();
-        for (RequestHandler requestHandler : this.requestHandlers) {
-            boolean isRequestHandler = requestHandler.handleRequest(this.socketClient.getInputStream(), this.socketClient.getOutputStream(), sharedData);
-            if (isRequestHandler) {
-                break;
+    private void handlerRequests(ConnectionDeadline deadline) throws IOException {
+        if (this.tlsContext == null) {
+            this.handlerRequests(deadline, this.socketClient.getInputStream(), this.socketClient.getOutputStream(), this.socketClient.getChannel());
+            return;
+        }
+        try (TlsChannel tlsChannel = this.tlsContext.wrap(this.socketClient)) {
+            this.handlerRequests(deadline, Channels.newInputStream(tlsChannel), Channels.newOutputStream(tlsChannel), null);
+        }
+    }
+
+    /**
+     * @param deadline           - deadline of the connection.
+     * @param socketInputStream  - plain text input of the connection.
+     * @param socketOutputStream - plain text output of the connection.
+     * @param socketChannel      - channel files and buffers are sent to, null if they have to be copied through the stream.
+     * @throws IOException - if the connection failed.
+     */
+    private void handlerRequests(ConnectionDeadline deadline, InputStream socketInputStream, OutputStream socketOutputStream,
+                                 GatheringByteChannel socketChannel) throws IOException {
+        final InputStream inputStream = new BufferedInputStream(socketInputStream);
+        final OutputStream outputStream = new ChannelOutputStream(new DeadlineOutputStream(socketOutputStream, deadline), socketChannel, deadline);
+        int handledRequests = 0;
+        boolean keepAlive = true;
+        while (keepAlive && !this.connectionTracker.isDraining() && this.awaitRequest(inputStream, handledRequests, deadline)) {
+            if (handledRequests == 0 && this.http2Protocol != null && Http2Protocol.startsWithPreface(inputStream)) {
+                this.http2Protocol.newConnection(new Http2OutputStreamSink(socketOutputStream, this.socketClient), deadline)
+                        .serve(inputStream);
+                return;
+            }
+            handledRequests++;
+            final RequestHandlerShareData sharedData = this.keepAlivePolicy.createSharedData(handledRequests);
+            sharedData.addObject(RequestHandlerShareData.CONNECTION_DEADLINE, deadline);
+            this.connectionTracker.requestStarted();
+            try {
+                this.requestHandlerChain.process(inputStream, outputStream, sharedData);
+            } finally {
+                this.connectionTracker.requestFinished();
+            }
+            keepAlive = KeepAlivePolicy.isKeepAlive(sharedData);
+            if (!keepAlive || inputStream.available() == 0) {
+                outputStream.flush();
             }
         }
-        this.handlerDestroy(sharedData);
     }
 
     /**
+     * Waits for the first byte of the next request. On an idle persistent connection the wait is limited by the
+     * keep-alive timeout, the first request of a connection is limited by the header timeout from the accept,
+     * the time the connection waited in the queue of the worker pool included.
      *
-     * @param shareData
+     * @param inputStream     - buffered connection stream, the byte is not consumed.
+     * @param handledRequests - number of requests already handled on the connection.
+     * @param deadline        - deadline of the connection.
+     * @return - false if the client closed the connection.
+     * @throws IOException - if reading fails, also when the socket was closed by the deadline.
      */
-    private void handlerDestroy(RequestHandlerShareData shareData) {
-        for (RequestDestroy requestDestroy : this.requestDestroys) {
-            requestDestroy.destroy(shareData);
+    private boolean awaitRequest(InputStream inputStream, int handledRequests, ConnectionDeadline deadline) throws IOException {
+        if (handledRequests > 0) {
+            deadline.startRequest(ConnectionPhase.KEEP_ALIVE_IDLE);
+        } else {
+            deadline.startRequest(ConnectionPhase.HEADER_READ, this.enqueuedNanos);
+        }
+        inputStream.mark(1);
+        if (inputStream.read() < 0) {
+            return false;
+        }
+        inputStream.reset();
+        deadline.enter(ConnectionPhase.HEADER_READ);
+        return true;
+    }
+
+    /**
+     * Runs on the timer wheel thread, a blocked read or write of the worker fails once the socket is closed.
+     */
+    private void closeQuietly() {
+        try {
+            this.socketClient.close();
+        } catch (IOException ignored) {
         }
     }
 }
@@ -0,0 +1,43 @@
+package org.nampython.core;
+
+import org.nampython.config.ConfigValue;
+
+/**
+ * The phases a connection goes through for every request, each with its own deadline.
+ */
+public enum ConnectionPhase {
+    /**
+     * From the first byte of a request until its headers are complete.
+     */
+    HEADER_READ(ConfigValue.HEADER_READ_TIMEOUT_MILLISECONDS),
+
+    /**
+     * Until the Content-Length bytes of the body are received.
+     */
+    BODY_READ(ConfigValue.BODY_READ_TIMEOUT_MILLISECONDS),
+
+    /**
+     * While the {@link RequestHandler} chain runs.
+     */
+    HANDLER(ConfigValue.HANDLER_TIMEOUT_MILLISECONDS),
+
+    /**
+     * While a write of the response to the client does not complete.
+     */
+    RESPONSE_WRITE(ConfigValue.RESPONSE_WRITE_TIMEOUT_MILLISECONDS),
+
+    /**
+     * While a persistent connection waits for the next request.
+     */
+    KEEP_ALIVE_IDLE(ConfigValue.KEEP_ALIVE_TIMEOUT_MILLISECONDS);
+
+    private final ConfigValue timeoutConfigValue;
+
+    ConnectionPhase(ConfigValue timeoutConfigValue) {
+        this.timeoutConfigValue = timeoutConfigValue;
+    }
+
+    public ConfigValue getTimeoutConfigValue() {
+        return this.timeoutConfigValue;
+    }
+}
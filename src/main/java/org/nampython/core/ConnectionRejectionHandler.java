@@ -0,0 +1,26 @@
+package org.nampython.core;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Called when the worker pool and its queue are full.
+ * Instead of blocking the accepting thread, the connection is answered right away with the precomputed
+ * 503 Service Unavailable response of the {@link ConnectionGovernor} and closed.
+ */
+public class ConnectionRejectionHandler implements RejectedExecutionHandler {
+    private final ConnectionGovernor connectionGovernor;
+
+    public ConnectionRejectionHandler(ConnectionGovernor connectionGovernor) {
+        this.connectionGovernor = connectionGovernor;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+        if (!(runnable instanceof RejectableConnection)) {
+            throw new RejectedExecutionException("Task " + runnable + " rejected from " + executor);
+        }
+        ((RejectableConnection) runnable).reject(this.connectionGovernor.getServiceUnavailableResponse());
+    }
+}
@@ -0,0 +1,52 @@
+package org.nampython.core;
+
+import org.nampython.config.ConfigCenter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates the {@link ConnectionDeadline} of every connection. All deadlines share one {@link HashedTimerWheel},
+ * so there is no thread and no blocking socket timeout per connection.
+ */
+public class ConnectionTimeouts {
+    private static final int TICK_MILLISECONDS = 100;
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final HashedTimerWheel timerWheel;
+    private final long[] phaseTimeoutsMilliseconds;
+
+    public ConnectionTimeouts(ConfigCenter configCenter) {
+        this.timerWheel = new HashedTimerWheel(TICK_MILLISECONDS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+        this.phaseTimeoutsMilliseconds = new long[ConnectionPhase.values().length];
+        for (ConnectionPhase phase : ConnectionPhase.values()) {
+            this.phaseTimeoutsMilliseconds[phase.ordinal()] = configCenter.getConfigValue(phase.getTimeoutConfigValue(), int.class);
+        }
+    }
+
+    /**
+     * @param onExpire - closes the connection, runs on the timer wheel thread.
+     * @return - deadline of a new connection, no phase is entered yet.
+     */
+    public ConnectionDeadline newDeadline(Runnable onExpire) {
+        return new ConnectionDeadline(this, onExpire);
+    }
+
+    /**
+     * @param phase - connection phase.
+     * @return - the configured timeout of the phase in milliseconds.
+     */
+    public long getTimeoutMilliseconds(ConnectionPhase phase) {
+        return this.phaseTimeoutsMilliseconds[phase.ordinal()];
+    }
+
+    HashedTimerWheel getTimerWheel() {
+        return this.timerWheel;
+    }
+
+    /**
+     * Stops the timer wheel, pending deadlines do not fire anymore.
+     */
+    public void stop() {
+        this.timerWheel.stop();
+    }
+}
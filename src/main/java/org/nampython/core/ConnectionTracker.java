@@ -0,0 +1,124 @@
+package org.nampython.core;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the open connections and the requests being handled, so a stopping server can wait for them.
+ * Connections are registered by their {@link ConnectionDeadline}, which knows the phase of the connection
+ * and how to close it from any thread.
+ */
+public class ConnectionTracker {
+    private static final long DRAIN_POLL_MILLISECONDS = 50;
+
+    private final Set<ConnectionDeadline> connections;
+    private final AtomicInteger activeRequests;
+    private final AtomicLong drainedRequests;
+    private volatile boolean draining;
+
+    public ConnectionTracker() {
+        this.connections = ConcurrentHashMap.newKeySet();
+        this.activeRequests = new AtomicInteger();
+        this.drainedRequests = new AtomicLong();
+    }
+
+    public void register(ConnectionDeadline deadline) {
+        this.connections.add(deadline);
+    }
+
+    public void unregister(ConnectionDeadline deadline) {
+        this.connections.remove(deadline);
+    }
+
+    public void requestStarted() {
+        this.activeRequests.incrementAndGet();
+    }
+
+    /**
+     * Requests that finish once the server is stopping are counted as drained.
+     */
+    public void requestFinished() {
+        this.activeRequests.decrementAndGet();
+        if (this.draining) {
+            this.drainedRequests.incrementAndGet();
+        }
+    }
+
+    public void startDraining() {
+        this.draining = true;
+    }
+
+    /**
+     * @return - true once the server is stopping, no further request should be read from a connection.
+     */
+    public boolean isDraining() {
+        return this.draining;
+    }
+
+    /**
+     * Waits for all connections to close. Connections that become idle in the meantime are closed
+     * instead of waiting for their next request.
+     *
+     * @param timeoutMilliseconds - max time to wait.
+     * @return - the number of idle connections closed.
+     */
+    public int awaitDrained(long timeoutMilliseconds) {
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMilliseconds);
+        int closedIdleConnections = this.closeIdleConnections();
+        while (!this.connections.isEmpty() && System.nanoTime() < deadlineNanos) {
+            try {
+                Thread.sleep(DRAIN_POLL_MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            closedIdleConnections += this.closeIdleConnections();
+        }
+        return closedIdleConnections;
+    }
+
+    /**
+     * @return - the number of persistent connections closed while waiting for their next request.
+     */
+    public int closeIdleConnections() {
+        int closed = 0;
+        for (ConnectionDeadline deadline : this.connections) {
+            if (deadline.getPhase() == ConnectionPhase.KEEP_ALIVE_IDLE && this.connections.remove(deadline)) {
+                deadline.expireNow();
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Closes every connection that is still open.
+     *
+     * @return - the number of connections closed.
+     */
+    public int abortConnections() {
+        int aborted = 0;
+        for (ConnectionDeadline deadline : this.connections) {
+            if (this.connections.remove(deadline)) {
+                deadline.expireNow();
+                aborted++;
+            }
+        }
+        return aborted;
+    }
+
+    public int getConnectionCount() {
+        return this.connections.size();
+    }
+
+    public int getActiveRequests() {
+        return this.activeRequests.get();
+    }
+
+    public long getDrainedRequests() {
+        return this.drainedRequests.get();
+    }
+}
@@ -0,0 +1,31 @@
+package org.nampython.core;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Socket output stream of {@link ConnectionHandler}. Every write moves the connection to the
+ * {@link ConnectionPhase#RESPONSE_WRITE} phase with a full timeout, so a long download that keeps making progress
+ * is not cut while a client that stopped reading is.
+ */
+class DeadlineOutputStream extends FilterOutputStream {
+    private final ConnectionDeadline deadline;
+
+    DeadlineOutputStream(OutputStream out, ConnectionDeadline deadline) {
+        super(out);
+        this.deadline = deadline;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.deadline.restart(ConnectionPhase.RESPONSE_WRITE);
+        this.out.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        this.deadline.restart(ConnectionPhase.RESPONSE_WRITE);
+        this.out.write(b, off, len);
+    }
+}
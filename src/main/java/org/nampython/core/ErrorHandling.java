@@ -7,7 +7,6 @@ import org.nampython.base.api.HttpStatus;
 import org.nampython.config.ConfigCenter;
 import org.nampython.config.ConfigValue;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
@@ -17,12 +16,19 @@ import java.io.PrintStream;
  */
 @Service
 public class ErrorHandling{
+    private static final int STACK_TRACE_INITIAL_BYTES;
+
+    static {
+        STACK_TRACE_INITIAL_BYTES = 8192;
+    }
 
     private boolean printStackTrace;
+    private final BufferPool bufferPool;
 
     @Autowired
-    public ErrorHandling(ConfigCenter configCenter) {
+    public ErrorHandling(ConfigCenter configCenter, BufferPool bufferPool) {
         this.printStackTrace = configCenter.getConfigValue(ConfigValue.PRINT_EXCEPTIONS, boolean.class);
+        this.bufferPool = bufferPool;
     }
 
     /**
@@ -84,9 +90,13 @@ public class ErrorHandling{
      */
     private void writeException(OutputStream outputStream,
                                 Throwable throwable, BaseHttpResponse response) throws IOException {
-        final ByteArrayOutputStream byteOutputStream = new ByteArrayOutputStream();
-        throwable.printStackTrace(new PrintStream(byteOutputStream));
-        response.setContent(byteOutputStream.toByteArray());
-        outputStream.write(response.getBytes());
+        try (PooledByteArrayOutputStream byteOutputStream =
+                     new PooledByteArrayOutputStream(this.bufferPool, STACK_TRACE_INITIAL_BYTES)) {
+            final PrintStream printStream = new PrintStream(byteOutputStream);
+            throwable.printStackTrace(printStream);
+            printStream.flush();
+            response.setContent(byteOutputStream.toByteArray());
+        }
+        ResponseWriter.write(response, outputStream);
     }
 }
@@ -0,0 +1,22 @@
+package org.nampython.core;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Implemented by the response streams of the transports that can send a file without copying it through the heap,
+ * with {@link java.nio.channels.FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}.
+ * Handlers check for it and copy the file through the stream when it is missing or declines the transfer.
+ */
+public interface FileTransferOutput {
+    /**
+     * Sends a part of the file after the bytes written to the stream before.
+     *
+     * @param file     - the file.
+     * @param position - offset of the first byte to send.
+     * @param count    - number of bytes to send.
+     * @return - false if nothing was sent and the caller has to write the bytes itself.
+     * @throws IOException - if the file cannot be read or the connection failed.
+     */
+    boolean transferFile(Path file, long position, long count) throws IOException;
+}
@@ -1,13 +1,12 @@
 package org.nampython.core;
 
+import org.ioc.stereotype.Autowired;
 import org.ioc.stereotype.Service;
 import org.nampython.base.api.BaseHttpRequest;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.Objects;
 
 /**
  *
@@ -16,6 +15,13 @@ import java.util.Objects;
 public class FormDataParserDefault implements FormDataParser {
     public static final String RAW_BODY_PARAM_NAME = "rawBodyText";
 
+    private final BufferPool bufferPool;
+
+    @Autowired
+    public FormDataParserDefault(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     /**
      * @param inputStream - request's input stream, read to the point where the body starts.
      * @param request     - current request.
@@ -23,13 +29,15 @@ public class FormDataParserDefault implements FormDataParser {
     @Override
     public void parseBodyParams(InputStream inputStream, BaseHttpRequest request) throws CannotParseRequestException {
         try {
-            this.setBodyParameters(this.readBody(inputStream, request), request);
+            request.setFormBody(this.readBody(inputStream, request));
         } catch (IOException var4) {
             throw new CannotParseRequestException(var4.getMessage(), var4);
         }
     }
 
     /**
+     * Reads the body into a pooled buffer, the only copy kept is the decoded string.
+     *
      * @param inputStream
      * @param request
      * @return
@@ -37,44 +45,19 @@ public class FormDataParserDefault implements FormDataParser {
      */
     private String readBody(InputStream inputStream, BaseHttpRequest request) throws IOException {
         final int contentLength = request.getContentLength();
-        final byte[] bytes = inputStream.readNBytes(contentLength);
-        final String body = new String(bytes, StandardCharsets.UTF_8);
+        if (contentLength == 0) {
+            return "";
+        }
+        final byte[] buffer = this.bufferPool.lease(contentLength);
+        try {
+            final int read = inputStream.readNBytes(buffer, 0, contentLength);
+            final String body = new String(buffer, 0, read, StandardCharsets.UTF_8);
 //        if (this.showRequestLog) {
 //            this.loggingService.info(body);
 //        }
-        return body;
-    }
-
-
-    /**
-     * @param requestBody
-     * @param request
-     */
-    private void setBodyParameters(String requestBody, BaseHttpRequest request) {
-        if (requestBody != null && !Objects.requireNonNull(requestBody).isEmpty() && !requestBody.trim().isEmpty()) {
-            String[] bodyParamPairs = requestBody.split("&");
-            for (String bodyParamPair : bodyParamPairs) {
-                String[] tokens = bodyParamPair.split("=");
-                final String paramKey = decode(tokens[0]);
-                final String value = tokens.length > 1 ? decode(tokens[1]) : null;
-                request.addBodyParameter(paramKey, value);
-            }
-//            request.addBodyParameter(RAW_BODY_PARAM_NAME, requestBody);
-//            final String[] bodyParamPairs = requestBody.split("&");
-//            for (String bodyParamPair : bodyParamPairs) {
-//                final String[] tokens = bodyParamPair.split("=");
-//                final String paramKey = decode(tokens[0]);
-//                final String value = tokens.length > 1 ? decode(tokens[1]) : null;
-//                request.addBodyParameter(paramKey, value);
-//            }
+            return body;
+        } finally {
+            this.bufferPool.release(buffer);
         }
     }
-
-    /**
-     * @param str
-     * @return
-     */
-    private static String decode(String str) {
-        return URLDecoder.decode(str, StandardCharsets.UTF_8);
-    }
 }
@@ -0,0 +1,239 @@
+package org.nampython.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks after a delay using one thread for all of them.
+ * Time is divided into ticks and the timeouts are hashed into a ring of buckets by the tick they expire in,
+ * so scheduling and cancelling are O(1) and every tick only looks at one bucket. A timeout further away than
+ * one turn of the wheel waits in its bucket for the remaining number of rounds.
+ * Precision is one tick, which is enough for connection deadlines.
+ * <p>
+ * Buckets are owned by the wheel thread; other threads only add to the pending and cancelled queues.
+ * Expired tasks run on the wheel thread, so they must be short and must not block.
+ */
+public class HashedTimerWheel {
+    private static final String WHEEL_THREAD_NAME = "timer-wheel";
+    private static final int MAX_TRANSFERS_PER_TICK = 100000;
+
+    private final long tickNanos;
+    private final Bucket[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pendingTimeouts;
+    private final Queue<Timeout> cancelledTimeouts;
+    private final Thread wheelThread;
+    private final long startNanos;
+    private volatile boolean running;
+    private long tick;
+
+    /**
+     * @param tickDuration - duration of one tick.
+     * @param unit         - unit of the tick duration.
+     * @param ticksPerWheel - number of buckets, rounded up to a power of two.
+     */
+    public HashedTimerWheel(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        this.tickNanos = Math.max(1, unit.toNanos(tickDuration));
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.pendingTimeouts = new ConcurrentLinkedQueue<>();
+        this.cancelledTimeouts = new ConcurrentLinkedQueue<>();
+        this.startNanos = System.nanoTime();
+        this.running = true;
+        this.wheelThread = new Thread(this::runWheel, WHEEL_THREAD_NAME);
+        this.wheelThread.setDaemon(true);
+        this.wheelThread.start();
+    }
+
+    /**
+     * @param task  - runs on the wheel thread once the delay elapsed, unless the timeout is cancelled before.
+     * @param delay - delay.
+     * @param unit  - unit of the delay.
+     * @return - handle to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() + unit.toNanos(Math.max(0, delay)));
+        this.pendingTimeouts.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Stops the wheel thread, timeouts that did not expire yet are dropped.
+     */
+    public void stop() {
+        this.running = false;
+        this.wheelThread.interrupt();
+    }
+
+    private void runWheel() {
+        while (this.running) {
+            if (!this.waitForNextTick()) {
+                return;
+            }
+            this.removeCancelledTimeouts();
+            this.transferPendingTimeouts();
+            this.wheel[(int) (this.tick & this.mask)].expire();
+            this.tick++;
+        }
+    }
+
+    /**
+     * @return - false if the wheel was stopped while waiting.
+     */
+    private boolean waitForNextTick() {
+        final long tickDeadline = this.startNanos + (this.tick + 1) * this.tickNanos;
+        long sleepNanos;
+        while ((sleepNanos = tickDeadline - System.nanoTime()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!this.running) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void transferPendingTimeouts() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            final Timeout timeout = this.pendingTimeouts.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            final long expiryTick = Math.max(0, (timeout.deadlineNanos - this.startNanos + this.tickNanos - 1) / this.tickNanos);
+            timeout.remainingRounds = (expiryTick - this.tick) / this.wheel.length;
+            final long bucketTick = Math.max(expiryTick, this.tick);
+            this.wheel[(int) (bucketTick & this.mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelledTimeouts() {
+        Timeout timeout;
+        while ((timeout = this.cancelledTimeouts.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+    }
+
+    /**
+     * Handle of a scheduled task.
+     */
+    public static final class Timeout {
+        private static final int STATE_INIT = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+
+        private final HashedTimerWheel timerWheel;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private final AtomicInteger state;
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout next;
+        private Timeout prev;
+
+        private Timeout(HashedTimerWheel timerWheel, Runnable task, long deadlineNanos) {
+            this.timerWheel = timerWheel;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+            this.state = new AtomicInteger(STATE_INIT);
+        }
+
+        /**
+         * @return - true if the task will not run because of this call.
+         */
+        public boolean cancel() {
+            if (!this.state.compareAndSet(STATE_INIT, STATE_CANCELLED)) {
+                return false;
+            }
+            this.timerWheel.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return this.state.get() == STATE_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return this.state.get() == STATE_EXPIRED;
+        }
+
+        private void expire() {
+            if (!this.state.compareAndSet(STATE_INIT, STATE_EXPIRED)) {
+                return;
+            }
+            try {
+                this.task.run();
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Doubly linked list of the timeouts hashed to one tick of the wheel.
+     */
+    private static final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        void expire() {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds <= 0) {
+                    this.remove(timeout);
+                    timeout.expire();
+                } else if (timeout.isCancelled()) {
+                    this.remove(timeout);
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.bucket != this) {
+                return;
+            }
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                this.head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                this.tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.nampython.core;
+
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+/**
+ * Limits of a persistent (keep-alive) connection, shared by all transports.
+ * The idle timeout is the {@link ConnectionPhase#KEEP_ALIVE_IDLE} deadline of {@link ConnectionTimeouts}.
+ */
+public class KeepAlivePolicy {
+    private final int maxRequests;
+    private volatile boolean disabled;
+
+    public KeepAlivePolicy(ConfigCenter configCenter) {
+        this.maxRequests = configCenter.getConfigValue(ConfigValue.KEEP_ALIVE_MAX_REQUESTS, int.class);
+    }
+
+    /**
+     * @param handledRequests - number of requests handled on the connection, including the current one.
+     * @return - true if the connection may stay open after the current request.
+     */
+    public boolean allowsAnotherRequest(int handledRequests) {
+        return !this.disabled && handledRequests < this.maxRequests;
+    }
+
+    /**
+     * Used when the server stops, every following response asks the client to close the connection.
+     */
+    public void disable() {
+        this.disabled = true;
+    }
+
+    /**
+     * Creates the shared data for the next request on a connection.
+     *
+     * @param handledRequests - number of requests handled on the connection, including the one the data is for.
+     * @return - shared data telling {@link org.nampython.core.engine.RequestProcessor} whether keep-alive is allowed.
+     */
+    public RequestHandlerShareData createSharedData(int handledRequests) {
+        final RequestHandlerShareData sharedData = new RequestHandlerShareData();
+        sharedData.addObject(RequestHandlerShareData.KEEP_ALIVE_ALLOWED, this.allowsAnotherRequest(handledRequests));
+        return sharedData;
+    }
+
+    /**
+     * @param sharedData - data of the request that was just handled.
+     * @return - true if the connection stays open for another request.
+     */
+    public static boolean isKeepAlive(RequestHandlerShareData sharedData) {
+        return Boolean.TRUE.equals(sharedData.getObject(RequestHandlerShareData.KEEP_ALIVE));
+    }
+}
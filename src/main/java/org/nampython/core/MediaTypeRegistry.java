@@ -0,0 +1,181 @@
+package org.nampython.core;
+
+import org.ioc.stereotype.Autowired;
+import org.ioc.stereotype.Service;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+import org.nampython.core.cache.FileDerivedCache;
+import org.nampython.core.cache.ResourceWatcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the media type of a static file from its extension, without touching the file.
+ * Only files whose extension is not registered are sniffed with {@link TikaBase}, the result is cached by path and
+ * modification time so an unchanged file is sniffed once. While {@link ResourceWatcher} reports the changes the
+ * modification time is not checked.
+ * The built-in table uses the names Tika gives these extensions, {@link ConfigValue#MEDIA_TYPE_MAPPINGS} adds to it.
+ */
+@Service
+public class MediaTypeRegistry implements FileDerivedCache {
+    private static final int MAX_DETECTED_ENTRIES = 4096;
+    private static final Map<String, String> DEFAULT_MEDIA_TYPES;
+
+    static {
+        DEFAULT_MEDIA_TYPES = new HashMap<>();
+        register(DEFAULT_MEDIA_TYPES, "text/html", "html", "htm");
+        register(DEFAULT_MEDIA_TYPES, "application/xhtml+xml", "xhtml");
+        register(DEFAULT_MEDIA_TYPES, "text/css", "css");
+        register(DEFAULT_MEDIA_TYPES, "application/javascript", "js", "mjs");
+        register(DEFAULT_MEDIA_TYPES, "application/json", "json", "map");
+        register(DEFAULT_MEDIA_TYPES, "application/manifest+json", "webmanifest");
+        register(DEFAULT_MEDIA_TYPES, "application/xml", "xml");
+        register(DEFAULT_MEDIA_TYPES, "application/rss+xml", "rss");
+        register(DEFAULT_MEDIA_TYPES, "application/atom+xml", "atom");
+        register(DEFAULT_MEDIA_TYPES, "text/plain", "txt");
+        register(DEFAULT_MEDIA_TYPES, "text/csv", "csv");
+        register(DEFAULT_MEDIA_TYPES, "text/x-web-markdown", "md");
+        register(DEFAULT_MEDIA_TYPES, "text/x-yaml", "yaml", "yml");
+        register(DEFAULT_MEDIA_TYPES, "image/svg+xml", "svg");
+        register(DEFAULT_MEDIA_TYPES, "image/png", "png");
+        register(DEFAULT_MEDIA_TYPES, "image/jpeg", "jpg", "jpeg");
+        register(DEFAULT_MEDIA_TYPES, "image/gif", "gif");
+        register(DEFAULT_MEDIA_TYPES, "image/webp", "webp");
+        register(DEFAULT_MEDIA_TYPES, "image/avif", "avif");
+        register(DEFAULT_MEDIA_TYPES, "image/bmp", "bmp");
+        register(DEFAULT_MEDIA_TYPES, "image/vnd.microsoft.icon", "ico");
+        register(DEFAULT_MEDIA_TYPES, "image/tiff", "tif", "tiff");
+        register(DEFAULT_MEDIA_TYPES, "font/woff", "woff");
+        register(DEFAULT_MEDIA_TYPES, "font/woff2", "woff2");
+        register(DEFAULT_MEDIA_TYPES, "application/x-font-ttf", "ttf");
+        register(DEFAULT_MEDIA_TYPES, "application/x-font-otf", "otf");
+        register(DEFAULT_MEDIA_TYPES, "application/vnd.ms-fontobject", "eot");
+        register(DEFAULT_MEDIA_TYPES, "video/mp4", "mp4");
+        register(DEFAULT_MEDIA_TYPES, "video/webm", "webm");
+        register(DEFAULT_MEDIA_TYPES, "video/ogg", "ogv");
+        register(DEFAULT_MEDIA_TYPES, "video/quicktime", "mov");
+        register(DEFAULT_MEDIA_TYPES, "video/x-msvideo", "avi");
+        register(DEFAULT_MEDIA_TYPES, "video/x-matroska", "mkv");
+        register(DEFAULT_MEDIA_TYPES, "audio/mpeg", "mp3");
+        register(DEFAULT_MEDIA_TYPES, "audio/ogg", "oga");
+        register(DEFAULT_MEDIA_TYPES, "audio/vorbis", "ogg");
+        register(DEFAULT_MEDIA_TYPES, "audio/vnd.wave", "wav");
+        register(DEFAULT_MEDIA_TYPES, "audio/x-flac", "flac");
+        register(DEFAULT_MEDIA_TYPES, "audio/mp4", "m4a");
+        register(DEFAULT_MEDIA_TYPES, "audio/x-aac", "aac");
+        register(DEFAULT_MEDIA_TYPES, "application/pdf", "pdf");
+        register(DEFAULT_MEDIA_TYPES, "application/zip", "zip");
+        register(DEFAULT_MEDIA_TYPES, "application/gzip", "gz", "tgz");
+        register(DEFAULT_MEDIA_TYPES, "application/x-tar", "tar");
+        register(DEFAULT_MEDIA_TYPES, "application/x-bzip2", "bz2");
+        register(DEFAULT_MEDIA_TYPES, "application/x-7z-compressed", "7z");
+        register(DEFAULT_MEDIA_TYPES, "application/x-rar-compressed", "rar");
+        register(DEFAULT_MEDIA_TYPES, "application/java-archive", "jar");
+        register(DEFAULT_MEDIA_TYPES, "application/wasm", "wasm");
+        register(DEFAULT_MEDIA_TYPES, "application/rtf", "rtf");
+        register(DEFAULT_MEDIA_TYPES, "application/epub+zip", "epub");
+        register(DEFAULT_MEDIA_TYPES, "application/octet-stream", "bin", "exe", "iso", "dmg");
+    }
+
+    private final TikaBase tikaBase;
+    private final Map<String, String> mediaTypes;
+    private final Map<String, DetectedMediaType> detectedMediaTypes;
+    private volatile boolean watched;
+
+    @Autowired
+    public MediaTypeRegistry(ConfigCenter configCenter, TikaBase tikaBase) {
+        this.tikaBase = tikaBase;
+        this.mediaTypes = new HashMap<>(DEFAULT_MEDIA_TYPES);
+        this.detectedMediaTypes = new ConcurrentHashMap<>();
+        this.parseMappings(configCenter.getConfigValue(ConfigValue.MEDIA_TYPE_MAPPINGS));
+    }
+
+    /**
+     * @param file - a static file.
+     * @return - the media type of the file.
+     * @throws IOException - if the file has to be sniffed and cannot be read.
+     */
+    public String detect(File file) throws IOException {
+        final String mediaType = this.mediaTypes.get(getExtension(file.getName()));
+        if (mediaType != null) {
+            return mediaType;
+        }
+        final DetectedMediaType detected = this.detectedMediaTypes.get(file.getPath());
+        if (detected != null && this.watched) {
+            return detected.mediaType;
+        }
+        final long lastModified = file.lastModified();
+        if (detected != null && detected.lastModified == lastModified) {
+            return detected.mediaType;
+        }
+        final String sniffed = this.tikaBase.detect(file);
+        if (this.detectedMediaTypes.size() >= MAX_DETECTED_ENTRIES) {
+            this.detectedMediaTypes.clear();
+        }
+        this.detectedMediaTypes.put(file.getPath(), new DetectedMediaType(lastModified, sniffed));
+        return sniffed;
+    }
+
+    @Override
+    public void invalidate(File file) {
+        this.detectedMediaTypes.remove(file.getPath());
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.detectedMediaTypes.clear();
+    }
+
+    @Override
+    public void setWatched(boolean watched) {
+        this.watched = watched;
+    }
+
+    /**
+     * @param mappings - pairs like "ext=type", separated by commas.
+     */
+    private void parseMappings(String mappings) {
+        if (mappings == null || mappings.isBlank()) {
+            return;
+        }
+        for (String mapping : mappings.split(",")) {
+            final String[] tokens = mapping.split("=");
+            if (tokens.length != 2 || tokens[0].isBlank() || tokens[1].isBlank()) {
+                throw new CannotParseExpressionException(
+                        String.format("Cannot parse media type mapping '%s', expected ext=type.", mapping.trim()));
+            }
+            this.mediaTypes.put(trimExtension(tokens[0]), tokens[1].trim());
+        }
+    }
+
+    private static String getExtension(String fileName) {
+        final int dot = fileName.lastIndexOf('.');
+        return dot < 0 ? "" : fileName.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static String trimExtension(String extension) {
+        extension = extension.trim().toLowerCase(Locale.ROOT);
+        return extension.startsWith(".") ? extension.substring(1) : extension;
+    }
+
+    private static void register(Map<String, String> mediaTypes, String mediaType, String... extensions) {
+        for (String extension : extensions) {
+            mediaTypes.put(extension, mediaType);
+        }
+    }
+
+    private static final class DetectedMediaType {
+        private final long lastModified;
+        private final String mediaType;
+
+        private DetectedMediaType(long lastModified, String mediaType) {
+            this.lastModified = lastModified;
+            this.mediaType = mediaType;
+        }
+    }
+}
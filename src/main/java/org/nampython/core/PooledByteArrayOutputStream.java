@@ -0,0 +1,66 @@
+package org.nampython.core;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Byte array output stream writing into buffers leased from the {@link BufferPool}.
+ * When the buffer is full, a bigger one is leased and the old one is released, so the intermediate arrays of a
+ * growing {@link java.io.ByteArrayOutputStream} are not left to the garbage collector.
+ * {@link #close()} releases the buffer, the stream cannot be used after that.
+ */
+public class PooledByteArrayOutputStream extends OutputStream {
+    private final BufferPool bufferPool;
+    private byte[] buffer;
+    private int count;
+
+    /**
+     * @param bufferPool  - pool the buffers are leased from.
+     * @param initialSize - expected number of bytes.
+     */
+    public PooledByteArrayOutputStream(BufferPool bufferPool, int initialSize) {
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.lease(initialSize);
+    }
+
+    @Override
+    public void write(int b) {
+        this.ensureCapacity(this.count + 1);
+        this.buffer[this.count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        this.ensureCapacity(this.count + length);
+        System.arraycopy(bytes, offset, this.buffer, this.count, length);
+        this.count += length;
+    }
+
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * @return - a copy of the written bytes, it stays valid after the stream is closed.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buffer, this.count);
+    }
+
+    @Override
+    public void close() {
+        final byte[] buffer = this.buffer;
+        this.buffer = null;
+        this.bufferPool.release(buffer);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= this.buffer.length) {
+            return;
+        }
+        final byte[] grown = this.bufferPool.lease(Math.max(capacity, this.buffer.length * 2));
+        System.arraycopy(this.buffer, 0, grown, 0, this.count);
+        this.bufferPool.release(this.buffer);
+        this.buffer = grown;
+    }
+}
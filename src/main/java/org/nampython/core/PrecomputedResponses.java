@@ -0,0 +1,50 @@
+package org.nampython.core;
+
+import org.nampython.base.api.BaseHttpResponseImpl;
+import org.nampython.base.api.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Builds responses that are the same for every connection, so they can be serialized once and written
+ * without going through the {@link RequestHandler} chain. They carry no Date header, it would be stale.
+ */
+public final class PrecomputedResponses {
+    private static final byte[] END_OF_HEADERS = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private PrecomputedResponses() {
+    }
+
+    /**
+     * @param status  - response status.
+     * @param message - plain text body.
+     * @return - the response bytes, the connection is closed after they are sent.
+     */
+    public static byte[] create(HttpStatus status, String message) {
+        return create(status, message, Collections.emptyMap());
+    }
+
+    /**
+     * @param status  - response status.
+     * @param message - plain text body.
+     * @param headers - additional headers.
+     * @return - the response bytes, the connection is closed after they are sent.
+     */
+    public static byte[] create(HttpStatus status, String message, Map<String, String> headers) {
+        final BaseHttpResponseImpl response = new BaseHttpResponseImpl();
+        response.setStatusCode(status);
+        headers.forEach(response::addHeader);
+        response.setContent(message);
+        response.addHeader("Content-Type", "text/plain");
+        response.addHeader("Content-Length", response.getContent().length + "");
+        response.addHeader("Connection", "close");
+        final byte[] headerSection = response.getHeaderBytesWithoutDate();
+        final byte[] result = Arrays.copyOf(headerSection, headerSection.length + END_OF_HEADERS.length + response.getContent().length);
+        System.arraycopy(END_OF_HEADERS, 0, result, headerSection.length, END_OF_HEADERS.length);
+        System.arraycopy(response.getContent(), 0, result, headerSection.length + END_OF_HEADERS.length, response.getContent().length);
+        return result;
+    }
+}
@@ -0,0 +1,14 @@
+package org.nampython.core;
+
+/**
+ * Work submitted to the worker pool on behalf of a client connection.
+ * When the pool cannot accept more work, the connection is answered right away instead.
+ */
+public interface RejectableConnection extends Runnable {
+    /**
+     * Answers the connection with the given response without running the {@link RequestHandler} chain and closes it.
+     *
+     * @param response - the raw bytes of the response.
+     */
+    void reject(byte[] response);
+}
@@ -0,0 +1,71 @@
+package org.nampython.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Exposes exactly Content-Length bytes of the connection stream as the request body.
+ * On a persistent connection the bytes after the body belong to the next (possibly pipelined) request,
+ * so body parsers must never read past the body and the unread rest of the body must be skipped.
+ */
+public class RequestBodyInputStream extends InputStream {
+    private final InputStream inputStream;
+    private long remaining;
+
+    public RequestBodyInputStream(InputStream inputStream, long contentLength) {
+        this.inputStream = inputStream;
+        this.remaining = contentLength;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.remaining <= 0) {
+            return -1;
+        }
+        final int b = this.inputStream.read();
+        if (b >= 0) {
+            this.remaining--;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (this.remaining <= 0) {
+            return -1;
+        }
+        final int read = this.inputStream.read(b, off, (int) Math.min(len, this.remaining));
+        if (read > 0) {
+            this.remaining -= read;
+        }
+        return read;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(this.inputStream.available(), this.remaining);
+    }
+
+    /**
+     * Skips the part of the body that was not read, so the connection stream is positioned at the next request.
+     *
+     * @throws IOException - if the stream ends before the whole body was received.
+     */
+    public void drain() throws IOException {
+        while (this.remaining > 0) {
+            final long skipped = this.inputStream.skip(this.remaining);
+            if (skipped > 0) {
+                this.remaining -= skipped;
+            } else if (this.read() < 0) {
+                throw new IOException("Connection closed before the request body was received.");
+            }
+        }
+    }
+
+    /**
+     * The connection stream stays open, it is closed together with the connection.
+     */
+    @Override
+    public void close() {
+    }
+}
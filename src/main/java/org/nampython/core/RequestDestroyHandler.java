@@ -1,5 +1,6 @@
 package org.nampython.core;
 
+import org.ioc.stereotype.Autowired;
 import org.ioc.stereotype.Service;
 import org.nampython.base.api.BaseHttpRequest;
 import org.nampython.base.api.MultipartFile;
@@ -10,11 +11,20 @@ import java.io.IOException;
 /**
  * Request handler called always after every request.
  * The purpose is to clear or dispose any left out resource to avoid memory leaks.
+ * With leak detection enabled it also reports the pooled buffers the request did not release.
  */
 @Service
 public class RequestDestroyHandler implements RequestDestroy {
+    private final BufferPool bufferPool;
+
+    @Autowired
+    public RequestDestroyHandler(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     @Override
     public void destroy(RequestHandlerShareData sharedData) {
+        this.bufferPool.checkLeaks();
         final BaseHttpRequest request = sharedData.getObject(RequestHandlerShareData.HTTP_REQUEST, BaseHttpRequest.class);
         if (request == null || request.getMultipartFiles() == null) {
             return;
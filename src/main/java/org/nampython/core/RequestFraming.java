@@ -0,0 +1,93 @@
+package org.nampython.core;
+
+/**
+ * Decides where the body of a HTTP/1.1 request ends. The NIO framer and the {@link RequestHeadParser} based
+ * processor both go through {@link #applyHeader}, so they can never disagree on the length of a request.
+ * Transfer-Encoding is not supported, a request using it is answered with 501 and the connection is closed.
+ * A Content-Length given more than once, even with the same value, or that is not a plain number is rejected,
+ * since a proxy in front of the server might have picked another one of the values.
+ */
+public final class RequestFraming {
+    public static final String CONTENT_LENGTH;
+    public static final String TRANSFER_ENCODING;
+    /**
+     * Content length of a request whose headers had no Content-Length.
+     */
+    public static final int NO_CONTENT_LENGTH;
+    private static final String DUPLICATE_CONTENT_LENGTH_MSG;
+    private static final String INVALID_CONTENT_LENGTH_MSG;
+    private static final String TRANSFER_ENCODING_MSG;
+    private static final String REQUEST_TOO_BIG_MSG;
+
+    static {
+        CONTENT_LENGTH = "Content-Length";
+        TRANSFER_ENCODING = "Transfer-Encoding";
+        NO_CONTENT_LENGTH = -1;
+        DUPLICATE_CONTENT_LENGTH_MSG = "Duplicate Content-Length header.";
+        INVALID_CONTENT_LENGTH_MSG = "Invalid Content-Length header.";
+        TRANSFER_ENCODING_MSG = "Transfer-Encoding is not supported.";
+        REQUEST_TOO_BIG_MSG = "Request too big.";
+    }
+
+    private RequestFraming() {
+    }
+
+    /**
+     * @param name - header name in any case.
+     * @return - true if the header takes part in framing the request and has to be given to {@link #applyHeader}.
+     */
+    public static boolean isFramingHeader(String name) {
+        return CONTENT_LENGTH.equalsIgnoreCase(name) || TRANSFER_ENCODING.equalsIgnoreCase(name);
+    }
+
+    /**
+     * Called for every header of a request in order, headers that are not framing headers are ignored.
+     *
+     * @param name          - header name in any case.
+     * @param value         - header value, optional white space around it is allowed.
+     * @param contentLength - the result for the previous headers, {@link #NO_CONTENT_LENGTH} for the first one.
+     * @return - the content length declared by the headers so far or {@link #NO_CONTENT_LENGTH}.
+     * @throws TransferEncodingNotSupportedException - if the header is Transfer-Encoding.
+     * @throws CannotParseRequestException           - if Content-Length is repeated or is not a non-negative number.
+     * @throws RequestTooBigException                - if Content-Length does not fit an int.
+     */
+    public static int applyHeader(String name, String value, int contentLength) {
+        if (TRANSFER_ENCODING.equalsIgnoreCase(name)) {
+            throw new TransferEncodingNotSupportedException(TRANSFER_ENCODING_MSG);
+        }
+        if (!CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            return contentLength;
+        }
+        if (contentLength != NO_CONTENT_LENGTH) {
+            throw new CannotParseRequestException(DUPLICATE_CONTENT_LENGTH_MSG);
+        }
+        return parseContentLength(value);
+    }
+
+    /**
+     * @param contentLength - the result of the last {@link #applyHeader} call.
+     * @return - the number of body bytes, 0 if there was no Content-Length.
+     */
+    public static int bodyLength(int contentLength) {
+        return contentLength == NO_CONTENT_LENGTH ? 0 : contentLength;
+    }
+
+    private static int parseContentLength(String value) {
+        final String digits = value.trim();
+        if (digits.isEmpty()) {
+            throw new CannotParseRequestException(INVALID_CONTENT_LENGTH_MSG);
+        }
+        long result = 0;
+        for (int i = 0; i < digits.length(); i++) {
+            final char c = digits.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new CannotParseRequestException(INVALID_CONTENT_LENGTH_MSG);
+            }
+            result = result * 10 + (c - '0');
+            if (result > Integer.MAX_VALUE) {
+                throw new RequestTooBigException(REQUEST_TOO_BIG_MSG, Integer.MAX_VALUE);
+            }
+        }
+        return (int) result;
+    }
+}
@@ -0,0 +1,65 @@
+package org.nampython.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Runs one request through the {@link RequestHandler} implementations in their order until one of them
+ * intercepts it, then calls every {@link RequestDestroy} with the same {@link RequestHandlerShareData}.
+ * Shared by all transports so a request is handled the same way no matter how its bytes were received.
+ */
+public class RequestHandlerChain {
+    private final List<RequestHandler> requestHandlers;
+    private final List<RequestDestroy> requestDestroys;
+
+    public RequestHandlerChain(List<RequestHandler> requestHandlers, List<RequestDestroy> requestDestroys) {
+        this.requestHandlers = requestHandlers;
+        this.requestDestroys = requestDestroys;
+    }
+
+    public RequestHandlerChain(InitLoadingRequest initLoadingRequest) {
+        this(initLoadingRequest.getRequestHandlers(), initLoadingRequest.getRequestDestroyHandlers());
+    }
+
+    /**
+     * @param inputStream  - stream positioned at the start of the request.
+     * @param outputStream - stream the response is written to.
+     * @return - the data shared between the handlers while processing the request.
+     * @throws IOException - if reading the request or writing the response fails.
+     */
+    public RequestHandlerShareData process(InputStream inputStream, OutputStream outputStream) throws IOException {
+        return this.process(inputStream, outputStream, new RequestHandlerShareData());
+    }
+
+    /**
+     * @param inputStream  - stream positioned at the start of the request.
+     * @param outputStream - stream the response is written to.
+     * @param sharedData   - fresh data for this request, possibly holding values set by the transport.
+     * @return - the given shared data.
+     * @throws IOException - if reading the request or writing the response fails.
+     */
+    public RequestHandlerShareData process(InputStream inputStream, OutputStream outputStream, RequestHandlerShareData sharedData)
+            throws IOException {
+        try {
+            for (RequestHandler requestHandler : this.requestHandlers) {
+                if (requestHandler.handleRequest(inputStream, outputStream, sharedData)) {
+                    break;
+                }
+            }
+        } finally {
+            this.destroy(sharedData);
+        }
+        return sharedData;
+    }
+
+    /**
+     * @param sharedData - data of the request that was just handled.
+     */
+    private void destroy(RequestHandlerShareData sharedData) {
+        for (RequestDestroy requestDestroy : this.requestDestroys) {
+            requestDestroy.destroy(sharedData);
+        }
+    }
+}
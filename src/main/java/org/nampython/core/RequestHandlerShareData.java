@@ -9,6 +9,18 @@ import java.util.Map;
 public class RequestHandlerShareData {
     public static final String HTTP_REQUEST = "HTTP_REQUEST";
     public static final String HTTP_RESPONSE = "HTTP_RESPONSE";
+    /**
+     * Set by the transport, true if the connection may be kept open for another request.
+     */
+    public static final String KEEP_ALIVE_ALLOWED = "KEEP_ALIVE_ALLOWED";
+    /**
+     * Set once the request is parsed, true if the connection is kept open after the response.
+     */
+    public static final String KEEP_ALIVE = "KEEP_ALIVE";
+    /**
+     * Set by the blocking transport, the {@link ConnectionDeadline} moved to the next phase as the request is read.
+     */
+    public static final String CONNECTION_DEADLINE = "CONNECTION_DEADLINE";
     private final Map<String, Object> storage;
     public RequestHandlerShareData() {
         this.storage = new HashMap<>();
@@ -0,0 +1,394 @@
+package org.nampython.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses the request line and the header section of a HTTP/1.x request into a reusable buffer.
+ * The bytes are read in chunks and scanned once by a small state machine which only records where the method,
+ * target, protocol and every header name and value start and end. Strings are created when they are read, and
+ * common methods, protocols and header names are not created at all but taken from a table.
+ * With a stream supporting {@link InputStream#mark(int)} the bytes read past the empty line are pushed back, so
+ * the body and pipelined requests stay in the stream, other streams are read byte by byte.
+ * An instance is not thread safe. Given a {@link BufferPool}, the buffer is leased for each parse and has to be
+ * given back with {@link #release()} once the request line and headers were read, otherwise the parser keeps a
+ * buffer of its own and is meant to be reused for the requests of one thread.
+ */
+public class RequestHeadParser {
+    private static final String HEADERS_TOO_BIG_MSG;
+    private static final String TOO_MANY_HEADERS_MSG;
+    private static final String REQUEST_EMPTY_MSG;
+    private static final String MALFORMED_REQUEST_LINE_MSG;
+    private static final String MALFORMED_HEADER_MSG_FORMAT;
+    private static final String ILLEGAL_RETURN_MSG_FORMAT;
+    private static final String ILLEGAL_NEW_LINE_MSG_FORMAT;
+    private static final int INITIAL_BUFFER_SIZE;
+    private static final int RETAINED_BUFFER_SIZE;
+    private static final int MAX_HEAD_SIZE;
+    private static final int INITIAL_HEADER_CAPACITY;
+    /**
+     * Bounds the work of the header table of a request, whatever names a client makes up.
+     */
+    private static final int MAX_HEADER_COUNT;
+    private static final String[] KNOWN_TOKENS;
+
+    static {
+        HEADERS_TOO_BIG_MSG = "Request headers too big.";
+        TOO_MANY_HEADERS_MSG = "Too many request headers.";
+        REQUEST_EMPTY_MSG = "Request is empty";
+        MALFORMED_REQUEST_LINE_MSG = "Malformed request line.";
+        MALFORMED_HEADER_MSG_FORMAT = "Malformed header on line %d.";
+        ILLEGAL_RETURN_MSG_FORMAT = "Illegal character after return on line %d.";
+        ILLEGAL_NEW_LINE_MSG_FORMAT = "Illegal new-line character without preceding return on line %d.";
+        INITIAL_BUFFER_SIZE = 2048;
+        RETAINED_BUFFER_SIZE = 16 * 1024;
+        MAX_HEAD_SIZE = 64 * 1024;
+        INITIAL_HEADER_CAPACITY = 16;
+        MAX_HEADER_COUNT = 100;
+        KNOWN_TOKENS = new String[]{
+                "GET", "HEAD", "POST", "PUT", "DELETE", "OPTIONS", "PATCH",
+                "HTTP/1.1", "HTTP/1.0",
+                "Host", "Connection", "Accept", "Accept-Encoding", "Accept-Language", "Accept-Charset", "User-Agent",
+                "Cookie", "Cache-Control", "Pragma", "Content-Length", "Content-Type", "Referer", "Origin",
+                "Authorization", "If-None-Match", "If-Modified-Since", "If-Range", "Range", "Upgrade",
+                "Upgrade-Insecure-Requests", "X-Requested-With", "X-Forwarded-For", "DNT", "TE", "Priority",
+                "Sec-Fetch-Site", "Sec-Fetch-Mode", "Sec-Fetch-Dest", "Sec-Fetch-User",
+                "Sec-CH-UA", "Sec-CH-UA-Mobile", "Sec-CH-UA-Platform",
+        };
+    }
+
+    private final BufferPool bufferPool;
+    private byte[] buffer;
+    private int length;
+    private int scanOffset;
+    private int lineStart;
+    private int lineNumber;
+    private boolean returnSeen;
+    private boolean requestLineParsed;
+    private boolean complete;
+
+    private int methodStart;
+    private int methodEnd;
+    private int targetStart;
+    private int queryStart;
+    private int targetEnd;
+    private int protocolStart;
+    private int protocolEnd;
+    /**
+     * Name start, name end, value start and value end of every header.
+     */
+    private int[] headerOffsets;
+    private int headerCount;
+
+    public RequestHeadParser() {
+        this(null);
+    }
+
+    /**
+     * @param bufferPool - pool the buffer is leased from for each parse, null to keep a buffer of its own.
+     */
+    public RequestHeadParser(BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool == null ? new byte[INITIAL_BUFFER_SIZE] : null;
+        this.headerOffsets = new int[INITIAL_HEADER_CAPACITY * 4];
+    }
+
+    /**
+     * Reads the request line and the headers, up to and including the empty line.
+     *
+     * @param inputStream - stream of the connection, positioned at the start of a request.
+     * @throws CannotParseRequestException - if the request is empty or malformed.
+     * @throws RequestTooBigException      - if the header section is bigger than 64 KB or has more than 100 headers.
+     * @throws IOException                 - if reading fails.
+     */
+    public void parse(InputStream inputStream) throws IOException {
+        this.reset();
+        final boolean pushBack = inputStream.markSupported();
+        while (!this.complete) {
+            if (this.length == this.buffer.length) {
+                this.growBuffer();
+            }
+            final int read;
+            if (pushBack) {
+                inputStream.mark(this.buffer.length - this.length);
+                read = inputStream.read(this.buffer, this.length, this.buffer.length - this.length);
+            } else {
+                final int b = inputStream.read();
+                if (b >= 0) {
+                    this.buffer[this.length] = (byte) b;
+                }
+                read = b < 0 ? -1 : 1;
+            }
+            if (read < 0) {
+                this.finishTruncated();
+                return;
+            }
+            final int readStart = this.length;
+            this.length += read;
+            this.scan();
+            if (this.complete && pushBack && this.scanOffset < this.length) {
+                inputStream.reset();
+                skipFully(inputStream, this.scanOffset - readStart);
+            }
+        }
+    }
+
+    /**
+     * Gives the leased buffer back to the pool, the request line and headers cannot be read after it.
+     * Does nothing for a parser without a pool.
+     */
+    public void release() {
+        if (this.bufferPool != null && this.buffer != null) {
+            this.bufferPool.release(this.buffer);
+            this.buffer = null;
+        }
+    }
+
+    public String getMethod() {
+        return this.token(this.methodStart, this.methodEnd);
+    }
+
+    /**
+     * @return - the request target without the query, not decoded.
+     */
+    public String getPath() {
+        return this.string(this.targetStart, this.queryStart < 0 ? this.targetEnd : this.queryStart);
+    }
+
+    /**
+     * @return - the query after the '?' of the request target, not decoded, or null if there is none.
+     */
+    public String getQuery() {
+        return this.queryStart < 0 ? null : this.string(this.queryStart + 1, this.targetEnd);
+    }
+
+    /**
+     * @return - the protocol of the request line or null if it has none, as in HTTP/0.9 style requests.
+     */
+    public String getProtocol() {
+        return this.protocolStart == this.protocolEnd ? null : this.token(this.protocolStart, this.protocolEnd);
+    }
+
+    public int getHeaderCount() {
+        return this.headerCount;
+    }
+
+    /**
+     * @param index - index of the header, in the order they were sent.
+     * @return - name of the header as it was sent.
+     */
+    public String getHeaderName(int index) {
+        return this.token(this.headerOffsets[index * 4], this.headerOffsets[index * 4 + 1]);
+    }
+
+    /**
+     * @param index - index of the header, in the order they were sent.
+     * @return - value of the header without surrounding whitespace.
+     */
+    public String getHeaderValue(int index) {
+        return this.string(this.headerOffsets[index * 4 + 2], this.headerOffsets[index * 4 + 3]);
+    }
+
+    private void reset() {
+        if (this.bufferPool != null) {
+            this.release();
+            this.buffer = this.bufferPool.lease(INITIAL_BUFFER_SIZE);
+        } else if (this.buffer.length > RETAINED_BUFFER_SIZE) {
+            this.buffer = new byte[INITIAL_BUFFER_SIZE];
+        }
+        this.length = 0;
+        this.scanOffset = 0;
+        this.lineStart = 0;
+        this.lineNumber = 1;
+        this.returnSeen = false;
+        this.requestLineParsed = false;
+        this.complete = false;
+        this.headerCount = 0;
+    }
+
+    /**
+     * Scans the bytes read since the last call, lines end with CRLF.
+     */
+    private void scan() {
+        final byte[] buffer = this.buffer;
+        for (int i = this.scanOffset; i < this.length; i++) {
+            final byte b = buffer[i];
+            if (this.returnSeen) {
+                if (b != '\n') {
+                    throw new CannotParseRequestException(String.format(ILLEGAL_RETURN_MSG_FORMAT, this.lineNumber));
+                }
+                this.returnSeen = false;
+                this.endLine(i - 1);
+                this.lineStart = i + 1;
+                this.lineNumber++;
+                if (this.complete) {
+                    this.scanOffset = i + 1;
+                    return;
+                }
+            } else if (b == '\r') {
+                this.returnSeen = true;
+            } else if (b == '\n') {
+                throw new CannotParseRequestException(String.format(ILLEGAL_NEW_LINE_MSG_FORMAT, this.lineNumber));
+            }
+        }
+        this.scanOffset = this.length;
+    }
+
+    /**
+     * @param lineEnd - index of the CR ending the line.
+     */
+    private void endLine(int lineEnd) {
+        if (lineEnd == this.lineStart) {
+            // Empty lines before the request line are ignored, as RFC 7230 recommends.
+            this.complete = this.requestLineParsed;
+        } else if (this.requestLineParsed) {
+            this.parseHeader(this.lineStart, lineEnd);
+        } else {
+            this.parseRequestLine(this.lineStart, lineEnd);
+        }
+    }
+
+    /**
+     * A client closing the connection within the headers sent everything it had, the lines read so far are used.
+     */
+    private void finishTruncated() {
+        final int lineEnd = this.returnSeen ? this.length - 1 : this.length;
+        if (lineEnd > this.lineStart) {
+            this.endLine(lineEnd);
+        }
+        if (!this.requestLineParsed) {
+            throw new CannotParseRequestException(REQUEST_EMPTY_MSG);
+        }
+        this.complete = true;
+    }
+
+    private void parseRequestLine(int start, int end) {
+        final byte[] buffer = this.buffer;
+        int i = start;
+        while (i < end && buffer[i] != ' ') {
+            i++;
+        }
+        if (i == start || i == end) {
+            throw new CannotParseRequestException(MALFORMED_REQUEST_LINE_MSG);
+        }
+        this.methodStart = start;
+        this.methodEnd = i;
+        while (i < end && buffer[i] == ' ') {
+            i++;
+        }
+        this.targetStart = i;
+        this.queryStart = -1;
+        while (i < end && buffer[i] != ' ') {
+            if (buffer[i] == '?' && this.queryStart < 0) {
+                this.queryStart = i;
+            }
+            i++;
+        }
+        this.targetEnd = i;
+        if (this.targetEnd == this.targetStart) {
+            throw new CannotParseRequestException(MALFORMED_REQUEST_LINE_MSG);
+        }
+        while (i < end && buffer[i] == ' ') {
+            i++;
+        }
+        int protocolEnd = end;
+        while (protocolEnd > i && isWhitespace(buffer[protocolEnd - 1])) {
+            protocolEnd--;
+        }
+        this.protocolStart = i;
+        this.protocolEnd = protocolEnd;
+        this.requestLineParsed = true;
+    }
+
+    private void parseHeader(int start, int end) {
+        final byte[] buffer = this.buffer;
+        if (isWhitespace(buffer[start])) {
+            // Obsolete line folding is not supported, RFC 7230 allows rejecting it.
+            throw new CannotParseRequestException(String.format(MALFORMED_HEADER_MSG_FORMAT, this.lineNumber));
+        }
+        int colon = start;
+        while (colon < end && buffer[colon] != ':') {
+            colon++;
+        }
+        if (colon == end || isWhitespace(buffer[colon - 1])) {
+            throw new CannotParseRequestException(String.format(MALFORMED_HEADER_MSG_FORMAT, this.lineNumber));
+        }
+        int valueStart = colon + 1;
+        while (valueStart < end && isWhitespace(buffer[valueStart])) {
+            valueStart++;
+        }
+        int valueEnd = end;
+        while (valueEnd > valueStart && isWhitespace(buffer[valueEnd - 1])) {
+            valueEnd--;
+        }
+        if (this.headerCount == MAX_HEADER_COUNT) {
+            throw new RequestTooBigException(TOO_MANY_HEADERS_MSG, this.length);
+        }
+        if ((this.headerCount + 1) * 4 > this.headerOffsets.length) {
+            this.headerOffsets = Arrays.copyOf(this.headerOffsets, this.headerOffsets.length * 2);
+        }
+        final int offset = this.headerCount * 4;
+        this.headerOffsets[offset] = start;
+        this.headerOffsets[offset + 1] = colon;
+        this.headerOffsets[offset + 2] = valueStart;
+        this.headerOffsets[offset + 3] = valueEnd;
+        this.headerCount++;
+    }
+
+    private void growBuffer() {
+        if (this.buffer.length >= MAX_HEAD_SIZE) {
+            throw new RequestTooBigException(HEADERS_TOO_BIG_MSG, this.length);
+        }
+        final int newSize = Math.min(this.buffer.length * 2, MAX_HEAD_SIZE);
+        if (this.bufferPool == null) {
+            this.buffer = Arrays.copyOf(this.buffer, newSize);
+            return;
+        }
+        final byte[] grown = this.bufferPool.lease(newSize);
+        System.arraycopy(this.buffer, 0, grown, 0, this.length);
+        this.bufferPool.release(this.buffer);
+        this.buffer = grown;
+    }
+
+    /**
+     * @return - the string of the range, taken from the table of known tokens if it is one of them.
+     */
+    private String token(int start, int end) {
+        final int tokenLength = end - start;
+        for (String knownToken : KNOWN_TOKENS) {
+            if (knownToken.length() == tokenLength && this.matches(knownToken, start)) {
+                return knownToken;
+            }
+        }
+        return this.string(start, end);
+    }
+
+    private boolean matches(String knownToken, int start) {
+        for (int i = 0; i < knownToken.length(); i++) {
+            if (this.buffer[start + i] != knownToken.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int start, int end) {
+        return new String(this.buffer, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static void skipFully(InputStream inputStream, long count) throws IOException {
+        while (count > 0) {
+            final long skipped = inputStream.skip(count);
+            if (skipped <= 0) {
+                throw new IOException("Cannot push back the bytes after the request headers.");
+            }
+            count -= skipped;
+        }
+    }
+}
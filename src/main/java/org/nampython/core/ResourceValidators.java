@@ -0,0 +1,140 @@
+package org.nampython.core;
+
+import org.nampython.base.api.BaseHttpRequest;
+import org.nampython.base.api.ContentEncoding;
+import org.nampython.base.api.HttpDateClock;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Validators of static resources and the evaluation of conditional GET requests against them.
+ * The strong ETag is derived from the modification time and size of the file, so it is known without reading the
+ * file, and from the content encoding, since every encoded variant is a representation of its own.
+ */
+public final class ResourceValidators {
+    public static final String ETAG_HEADER_NAME;
+    public static final String LAST_MODIFIED_HEADER_NAME;
+    public static final String IF_NONE_MATCH_HEADER_NAME;
+    public static final String IF_MODIFIED_SINCE_HEADER_NAME;
+    public static final String IF_RANGE_HEADER_NAME;
+    private static final String METHOD_GET;
+    private static final String METHOD_HEAD;
+    private static final String WEAK_PREFIX;
+
+    static {
+        ETAG_HEADER_NAME = "ETag";
+        LAST_MODIFIED_HEADER_NAME = "Last-Modified";
+        IF_NONE_MATCH_HEADER_NAME = "If-None-Match";
+        IF_MODIFIED_SINCE_HEADER_NAME = "If-Modified-Since";
+        IF_RANGE_HEADER_NAME = "If-Range";
+        METHOD_GET = "GET";
+        METHOD_HEAD = "HEAD";
+        WEAK_PREFIX = "W/";
+    }
+
+    private ResourceValidators() {
+    }
+
+    /**
+     * @param lastModified    - modification time of the file in milliseconds.
+     * @param length          - size of the file.
+     * @param contentEncoding - encoding of the representation or null.
+     * @return - a quoted strong entity tag.
+     */
+    public static String strongETag(long lastModified, long length, ContentEncoding contentEncoding) {
+        final StringBuilder etag = new StringBuilder(32)
+                .append('"')
+                .append(Long.toHexString(lastModified))
+                .append('-')
+                .append(Long.toHexString(length));
+        if (contentEncoding != null) {
+            etag.append('-').append(contentEncoding.getToken());
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * @param millis - a time in milliseconds.
+     * @return - the time as an IMF-fixdate, the format of HTTP date headers.
+     */
+    public static String formatHttpDate(long millis) {
+        return HttpDateClock.format(millis);
+    }
+
+    /**
+     * @param value - value of a date header.
+     * @return - the time in milliseconds or -1 if the value is not a valid date.
+     */
+    public static long parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * If-None-Match takes precedence over If-Modified-Since and is compared weakly, as RFC 7232 requires.
+     * Only GET and HEAD requests are answered with 304.
+     *
+     * @param request      - current request.
+     * @param etag         - entity tag of the selected representation.
+     * @param lastModified - modification time of the file in milliseconds.
+     * @return - true if the client already holds the representation.
+     */
+    public static boolean isNotModified(BaseHttpRequest request, String etag, long lastModified) {
+        final String method = request.getMethod();
+        if (!METHOD_GET.equals(method) && !METHOD_HEAD.equals(method)) {
+            return false;
+        }
+        final String ifNoneMatch = request.getHeader(IF_NONE_MATCH_HEADER_NAME);
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        final String ifModifiedSince = request.getHeader(IF_MODIFIED_SINCE_HEADER_NAME);
+        if (ifModifiedSince == null) {
+            return false;
+        }
+        final long since = parseHttpDate(ifModifiedSince);
+        return since >= 0 && lastModified / 1000 <= since / 1000;
+    }
+
+    /**
+     * A Range header only applies while the If-Range validator, if any, still matches the file.
+     * An entity tag is compared strongly, a date has to be the exact modification time.
+     *
+     * @param request      - current request.
+     * @param etag         - strong entity tag of the whole file.
+     * @param lastModified - modification time of the file in milliseconds.
+     * @return - true if the ranges may be served, false if the whole file has to be sent.
+     */
+    public static boolean isRangeApplicable(BaseHttpRequest request, String etag, long lastModified) {
+        final String ifRange = request.getHeader(IF_RANGE_HEADER_NAME);
+        if (ifRange == null) {
+            return true;
+        }
+        final String validator = ifRange.trim();
+        if (validator.startsWith("\"") || validator.startsWith(WEAK_PREFIX)) {
+            return validator.equals(etag);
+        }
+        final long date = parseHttpDate(validator);
+        return date >= 0 && date / 1000 == lastModified / 1000;
+    }
+
+    private static boolean matchesAny(String ifNoneMatch, String etag) {
+        final String opaqueTag = opaqueTag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if ("*".equals(candidate) || opaqueTag.equals(opaqueTag(candidate))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+    }
+}
@@ -0,0 +1,40 @@
+package org.nampython.core;
+
+import org.nampython.base.api.BaseHttpResponse;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a generated response to the response stream without joining headers and body into one array first.
+ * A body from {@link #GATHERING_WRITE_MIN_BYTES} up is handed to a {@link ByteBufferOutput} together with the
+ * headers, so both go out in one gathering write and the body is not copied. Smaller bodies are cheaper to copy
+ * into the buffer of the stream, where they can share a write with the responses of pipelined requests.
+ */
+public final class ResponseWriter {
+    private static final int GATHERING_WRITE_MIN_BYTES;
+
+    static {
+        GATHERING_WRITE_MIN_BYTES = 8192;
+    }
+
+    private ResponseWriter() {
+    }
+
+    /**
+     * @param response     - the response, serialized now.
+     * @param outputStream - response stream.
+     * @throws IOException - if the response cannot be written.
+     */
+    public static void write(BaseHttpResponse response, OutputStream outputStream) throws IOException {
+        final byte[] headers = response.getHeaderBytes();
+        final byte[] content = response.getContent();
+        if (content.length >= GATHERING_WRITE_MIN_BYTES && outputStream instanceof ByteBufferOutput
+                && ((ByteBufferOutput) outputStream).writeBuffers(ByteBuffer.wrap(headers), ByteBuffer.wrap(content))) {
+            return;
+        }
+        outputStream.write(headers);
+        outputStream.write(content);
+    }
+}
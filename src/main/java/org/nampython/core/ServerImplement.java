@@ -1,54 +1,257 @@
 package org.nampython.core;
 
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+import org.nampython.core.http2.Http2Config;
+import org.nampython.core.http2.Http2Protocol;
+import org.nampython.core.tls.TlsContext;
+import org.nampython.support.Logger;
+
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
 
 /**
  *
  */
 public class ServerImplement extends BaseServer {
-    private static final int SOCKET_TIMEOUT_MILLISECONDS;
+    private static final int ACCEPT_TIMEOUT_MILLISECONDS;
     private static final String LISTENING_MESSAGE_FORMAT;
+    private static final String ACCEPTOR_THREAD_NAME_FORMAT;
+    private static final String REUSE_PORT_NOT_SUPPORTED_MESSAGE;
 
     static {
-        SOCKET_TIMEOUT_MILLISECONDS = 60000;
-        LISTENING_MESSAGE_FORMAT = "http://localhost:%d";
+        ACCEPT_TIMEOUT_MILLISECONDS = 60000;
+        LISTENING_MESSAGE_FORMAT = "%s://localhost:%d";
+        ACCEPTOR_THREAD_NAME_FORMAT = "acceptor-%d";
+        REUSE_PORT_NOT_SUPPORTED_MESSAGE = "SO_REUSEPORT is not supported on this platform, using a single listening socket.";
     }
 
-    private final InitLoadingRequest initLoadingRequest;
+    private final RequestHandlerChain requestHandlerChain;
+    private final KeepAlivePolicy keepAlivePolicy;
     private final int port;
+    private final int backlog;
+    private final int acceptorThreads;
+    private final boolean reusePort;
+    private final ConnectionGovernor connectionGovernor;
+    private final ConnectionTimeouts connectionTimeouts;
+    private final ConnectionTracker connectionTracker;
+    private final ExecutorService workerPool;
+    private final List<ServerSocket> serverSockets;
+    private final boolean tlsEnabled;
+    private final ConfigCenter configCenter;
+    private final ExecutorService streamPool;
+    private final Http2Protocol http2Protocol;
+    private final Logger logger;
+    private TlsContext tlsContext;
+    private ShutdownReport shutdownReport;
 
-    public ServerImplement(InitLoadingRequest initLoadingRequest, int port) {
-        this.initLoadingRequest = initLoadingRequest;
-        this.port = port;
+    public ServerImplement(InitLoadingRequest initLoadingRequest, ConfigCenter configCenter, Logger logger) {
+        this.requestHandlerChain = new RequestHandlerChain(initLoadingRequest);
+        this.keepAlivePolicy = new KeepAlivePolicy(configCenter);
+        this.port = configCenter.getConfigValue(ConfigValue.SERVER_PORT, int.class);
+        this.backlog = configCenter.getConfigValue(ConfigValue.ACCEPT_BACKLOG, int.class);
+        this.acceptorThreads = Math.max(1, configCenter.getConfigValue(ConfigValue.ACCEPTOR_THREADS, int.class));
+        this.reusePort = configCenter.getConfigValue(ConfigValue.ENABLE_REUSE_PORT, boolean.class);
+        this.connectionGovernor = new ConnectionGovernor(configCenter);
+        this.connectionTimeouts = new ConnectionTimeouts(configCenter);
+        this.connectionTracker = new ConnectionTracker();
+        this.workerPool = new ConnectionExecutorFactory(configCenter, this.connectionGovernor, logger).createExecutor();
+        this.serverSockets = new CopyOnWriteArrayList<>();
+        this.tlsEnabled = TlsContext.isEnabled(configCenter);
+        this.configCenter = configCenter;
+        this.logger = logger;
+        final Http2Config http2Config = new Http2Config(configCenter);
+        this.streamPool = http2Config.isEnabled()
+                ? new ConnectionExecutorFactory(configCenter, this.connectionGovernor, logger).createExecutor()
+                : null;
+        this.http2Protocol = http2Config.isEnabled()
+                ? new Http2Protocol(http2Config, this.requestHandlerChain, this.streamPool, this.connectionTracker)
+                : null;
     }
 
     /**
-     * Socket is opening for listening the connections from the client and with each the new request need to open
-     * a new thread where the connection is handled.
+     * Socket is opening for listening the connections from the client and each connection is handed to the worker pool.
+     * Connections over the limits of the {@link ConnectionGovernor} or rejected by the saturated pool are answered
+     * with 503 right away.
+     * Connections are accepted by {@link ConfigValue#ACCEPTOR_THREADS} threads, either all on one listening socket or,
+     * with {@link ConfigValue#ENABLE_REUSE_PORT}, each on its own socket bound to the same port.
+     * Blocks until all acceptor threads stop, which happens when {@link #shutdown(long)} closes the listening sockets.
+     *
+     * With {@link ConfigValue#TLS_ENABLED} every connection speaks TLS, the keystore is loaded before listening.
+     * With {@link ConfigValue#HTTP2_ENABLED} HTTP/2 is offered through ALPN and accepted with prior knowledge.
+     * The streams run on their own pool, a worker reading the frames of a connection must not wait for a free
+     * worker of the same pool.
      *
-     * @throws IOException
+     * @throws IOException if a listening socket cannot be opened or the keystore cannot be loaded.
      */
     @Override
     public void run() throws IOException {
-        final ServerSocket serverSocket = new ServerSocket(this.port);
-        serverSocket.setSoTimeout(SOCKET_TIMEOUT_MILLISECONDS);
-        System.out.println(String.format(LISTENING_MESSAGE_FORMAT, this.port));
-        while (true) {
+        if (this.tlsEnabled) {
+            this.tlsContext = new TlsContext(this.configCenter);
+            if (this.http2Protocol != null) {
+                this.tlsContext.addApplicationProtocol(Http2Config.ALPN_PROTOCOL);
+            }
+        }
+        this.serverSockets.addAll(this.openServerSockets());
+        System.out.println(String.format(LISTENING_MESSAGE_FORMAT, this.tlsEnabled ? "https" : "http", this.port));
+        final List<Thread> acceptors = new ArrayList<>();
+        for (int i = 0; i < this.acceptorThreads; i++) {
+            final ServerSocket serverSocket = this.serverSockets.get(i % this.serverSockets.size());
+            final Thread acceptor = new Thread(() -> this.acceptConnections(serverSocket), String.format(ACCEPTOR_THREAD_NAME_FORMAT, i + 1));
+            acceptor.start();
+            acceptors.add(acceptor);
+        }
+        for (Thread acceptor : acceptors) {
+            try {
+                acceptor.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Closes the listening sockets so the acceptor threads stop, then drains the connections.
+     *
+     * @param timeoutMilliseconds - max time to wait for the requests being handled.
+     * @return - how many requests were drained and how many were aborted.
+     */
+    @Override
+    public synchronized ShutdownReport shutdown(long timeoutMilliseconds) {
+        if (this.shutdownReport != null) {
+            return this.shutdownReport;
+        }
+        final long startNanos = System.nanoTime();
+        this.keepAlivePolicy.disable();
+        this.connectionTracker.startDraining();
+        for (ServerSocket serverSocket : this.serverSockets) {
+            try {
+                serverSocket.close();
+            } catch (IOException ignored) {
+            }
+        }
+        this.shutdownReport = this.drain(startNanos, timeoutMilliseconds, this.connectionTracker, this.connectionGovernor, this.workerPool);
+        if (this.streamPool != null) {
+            this.streamPool.shutdownNow();
+        }
+        this.connectionTimeouts.stop();
+        return this.shutdownReport;
+    }
+
+    /**
+     * @return - one socket per acceptor thread if SO_REUSEPORT is enabled and supported, otherwise a single socket.
+     * @throws IOException if a socket cannot be bound.
+     */
+    private List<ServerSocket> openServerSockets() throws IOException {
+        final List<ServerSocket> serverSockets = new ArrayList<>();
+        final ServerSocket first = this.openServerSocket(this.reusePort);
+        serverSockets.add(first);
+        if (this.reusePort && first.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            for (int i = 1; i < this.acceptorThreads; i++) {
+                serverSockets.add(this.openServerSocket(true));
+            }
+        }
+        return serverSockets;
+    }
+
+    /**
+     * The socket is backed by a channel, so the accepted connections have a channel files can be transferred to.
+     *
+     * @param reusePort - true to set SO_REUSEPORT before binding.
+     * @return - bound socket.
+     * @throws IOException if the socket cannot be bound.
+     */
+    private ServerSocket openServerSocket(boolean reusePort) throws IOException {
+        final ServerSocket serverSocket = ServerSocketChannel.open().socket();
+        if (reusePort) {
+            if (serverSocket.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                serverSocket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            } else {
+                this.logger.warning(REUSE_PORT_NOT_SUPPORTED_MESSAGE);
+            }
+        }
+        serverSocket.bind(new InetSocketAddress(this.port), this.backlog);
+        serverSocket.setSoTimeout(ACCEPT_TIMEOUT_MILLISECONDS);
+        return serverSocket;
+    }
+
+    /**
+     * Accept loop of one acceptor thread, runs until the socket is closed.
+     *
+     * @param serverSocket - the listening socket.
+     */
+    private void acceptConnections(ServerSocket serverSocket) {
+        while (!serverSocket.isClosed()) {
             try {
                 final Socket client = serverSocket.accept();
-                client.setSoTimeout(SOCKET_TIMEOUT_MILLISECONDS);
-                final Thread thread = new Thread(new ConnectionHandler(
+                if (!this.connectionGovernor.tryAcquire()) {
+                    this.refuse(client);
+                    continue;
+                }
+                this.workerPool.execute(new ConnectionHandler(
                         client,
-                        this.initLoadingRequest.getRequestHandlers(),
-                        this.initLoadingRequest.getRequestDestroyHandlers()
+                        this.requestHandlerChain,
+                        this.keepAlivePolicy,
+                        this.connectionGovernor,
+                        this.connectionTimeouts,
+                        this.connectionTracker,
+                        this.tlsContext,
+                        this.http2Protocol
                 ));
-                thread.start();
             } catch (SocketTimeoutException ignored) {
+            } catch (IOException ex) {
+                if (!serverSocket.isClosed() && !this.backOff(ex)) {
+                    return;
+                }
             }
         }
     }
+
+    /**
+     * Logs a failed accept. When the process is out of file descriptors accept fails again right away,
+     * the acceptor waits {@link #ACCEPT_BACKOFF_MILLISECONDS} instead of spinning until a descriptor is freed.
+     *
+     * @param ex - failure of accept.
+     * @return - false if the acceptor was interrupted while waiting.
+     */
+    private boolean backOff(IOException ex) {
+        this.logger.warning(ACCEPT_FAILED_MESSAGE_FORMAT, ex.getMessage());
+        if (!isOutOfFileDescriptors(ex)) {
+            return true;
+        }
+        try {
+            Thread.sleep(ACCEPT_BACKOFF_MILLISECONDS);
+            return true;
+        } catch (InterruptedException interrupted) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Answers a connection over the limits with 503. A TLS connection is closed without an answer,
+     * the handshake would cost the acceptor thread more than the connection is worth.
+     *
+     * @param client - accepted connection.
+     */
+    private void refuse(Socket client) {
+        if (this.tlsContext == null) {
+            ConnectionHandler.writeAndClose(client, this.connectionGovernor.getServiceUnavailableResponse());
+            return;
+        }
+        try {
+            client.close();
+        } catch (IOException ignored) {
+        }
+    }
 }
@@ -0,0 +1,32 @@
+package org.nampython.core;
+
+/**
+ * The way client connections are accepted and read.
+ */
+public enum ServerTransport {
+    /**
+     * {@link java.net.ServerSocket} loop, every connection is read and written by one worker with blocking streams.
+     */
+    BLOCKING,
+
+    /**
+     * {@link java.nio.channels.Selector} event loop, the request bytes are read without blocking and only complete
+     * requests are handed to a worker.
+     */
+    NIO;
+
+    /**
+     * @param value - the configured value, case-insensitive.
+     * @return - the matching transport, {@link #BLOCKING} if the value is empty or unknown.
+     */
+    public static ServerTransport fromValue(String value) {
+        if (value != null) {
+            for (ServerTransport transport : values()) {
+                if (transport.name().equalsIgnoreCase(value.trim())) {
+                    return transport;
+                }
+            }
+        }
+        return BLOCKING;
+    }
+}
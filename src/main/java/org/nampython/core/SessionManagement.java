@@ -4,14 +4,14 @@ import org.ioc.stereotype.Service;
 import org.nampython.base.*;
 import org.nampython.base.api.*;
 
-import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class SessionManagement {
     public static final String CONTENT_LENGTH_HEADER = "Content-Length";
     private static final String SESSION_COOKIE_NAME = "JAVACHE_SESSION_ID";
+    private static final long SESSION_COOKIE_MAX_AGE_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final String EXPIRED_DATE = HttpDateClock.format(0L);
     private final HttpSessionStorage sessionStorage;
 
     public SessionManagement() {
@@ -54,12 +54,10 @@ public class SessionManagement {
             }
             if (request.getSession().isValid()) {
                 HttpCookie cookie = new HttpCookieImpl(this.getSessionCookieName(request), request.getSession().getId());
-                String expires = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now().plusDays(1L));
-                cookie.setPath("/; expires=" + expires);
+                cookie.setPath("/; expires=" + HttpDateClock.getDateAfter(SESSION_COOKIE_MAX_AGE_SECONDS));
                 response.addCookie(cookie);
             } else {
-                Date var10002 = new Date(0L);
-                response.addCookie(SESSION_COOKIE_NAME, "removed; expires=" + var10002.toString());
+                response.addCookie(SESSION_COOKIE_NAME, "removed; expires=" + EXPIRED_DATE);
             }
         }
     }
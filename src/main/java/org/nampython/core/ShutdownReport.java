@@ -0,0 +1,74 @@
+package org.nampython.core;
+
+/**
+ * Outcome of {@link BaseServer#shutdown(long)}.
+ */
+public class ShutdownReport {
+    private static final String REPORT_FORMAT = "Server stopped in %d ms: %d requests drained, %d requests aborted, "
+            + "%d idle connections closed, %d open connections aborted, %d queued connections refused. %s";
+
+    private final long elapsedMilliseconds;
+    private final long drainedRequests;
+    private final int abortedRequests;
+    private final int closedIdleConnections;
+    private final int abortedConnections;
+    private final int refusedQueuedConnections;
+    private final ConnectionGovernor connectionGovernor;
+
+    /**
+     * @param elapsedMilliseconds      - duration of the shutdown.
+     * @param drainedRequests          - requests that finished after the shutdown started.
+     * @param abortedRequests          - requests still running when the deadline was reached.
+     * @param closedIdleConnections    - persistent connections closed while waiting for their next request.
+     * @param abortedConnections       - connections still open when the deadline was reached.
+     * @param refusedQueuedConnections - work still waiting for a worker, answered with 503.
+     * @param connectionGovernor       - counters of the server since it started.
+     */
+    public ShutdownReport(long elapsedMilliseconds, long drainedRequests, int abortedRequests, int closedIdleConnections,
+                          int abortedConnections, int refusedQueuedConnections, ConnectionGovernor connectionGovernor) {
+        this.elapsedMilliseconds = elapsedMilliseconds;
+        this.drainedRequests = drainedRequests;
+        this.abortedRequests = abortedRequests;
+        this.closedIdleConnections = closedIdleConnections;
+        this.abortedConnections = abortedConnections;
+        this.refusedQueuedConnections = refusedQueuedConnections;
+        this.connectionGovernor = connectionGovernor;
+    }
+
+    public long getElapsedMilliseconds() {
+        return this.elapsedMilliseconds;
+    }
+
+    public long getDrainedRequests() {
+        return this.drainedRequests;
+    }
+
+    public int getAbortedRequests() {
+        return this.abortedRequests;
+    }
+
+    public int getClosedIdleConnections() {
+        return this.closedIdleConnections;
+    }
+
+    public int getAbortedConnections() {
+        return this.abortedConnections;
+    }
+
+    public int getRefusedQueuedConnections() {
+        return this.refusedQueuedConnections;
+    }
+
+    /**
+     * @return - true if nothing was cut off.
+     */
+    public boolean isClean() {
+        return this.abortedRequests == 0 && this.abortedConnections == 0 && this.refusedQueuedConnections == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(REPORT_FORMAT, this.elapsedMilliseconds, this.drainedRequests, this.abortedRequests,
+                this.closedIdleConnections, this.abortedConnections, this.refusedQueuedConnections, this.connectionGovernor);
+    }
+}
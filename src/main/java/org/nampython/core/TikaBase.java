@@ -6,10 +6,29 @@ import org.ioc.stereotype.Service;
 import java.io.File;
 import java.io.IOException;
 
+/**
+ * Content sniffing for files whose extension says nothing about their type.
+ * Tika loads its type database when it is constructed, so it is created on the first detection instead of at startup.
+ */
 @Service
-public class TikaBase extends Tika {
-    @Override
+public class TikaBase {
+    private volatile Tika tika;
+
     public String detect(File file) throws IOException {
-        return super.detect(file);
+        return this.getTika().detect(file);
+    }
+
+    private Tika getTika() {
+        Tika tika = this.tika;
+        if (tika == null) {
+            synchronized (this) {
+                tika = this.tika;
+                if (tika == null) {
+                    tika = new Tika();
+                    this.tika = tika;
+                }
+            }
+        }
+        return tika;
     }
 }
@@ -0,0 +1,10 @@
+package org.nampython.core;
+
+/**
+ * Thrown for a request using Transfer-Encoding, it is answered with 501 instead of 400.
+ */
+public class TransferEncodingNotSupportedException extends CannotParseRequestException {
+    public TransferEncodingNotSupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,78 @@
+package org.nampython.core.cache;
+
+/**
+ * Snapshot of the counters of the {@link StaticResourceCache}.
+ */
+public class CacheStats {
+    private static final String FORMAT = "Static resource cache: %d hits, %d misses (%.1f%% hit rate), %d evictions, "
+            + "%d invalidations, %d entries, %d of %d bytes.";
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long invalidations;
+    private final int entries;
+    private final long weightedSize;
+    private final long maximumSize;
+
+    CacheStats(long hits, long misses, long evictions, long invalidations, int entries, long weightedSize, long maximumSize) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.invalidations = invalidations;
+        this.entries = entries;
+        this.weightedSize = weightedSize;
+        this.maximumSize = maximumSize;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return - lookups that had to read the file, including the ones that found a stale entry.
+     */
+    public long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return - entries evicted to make room, or not admitted because they were less popular than the entries in place.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * @return - entries dropped because their file changed.
+     */
+    public long getInvalidations() {
+        return this.invalidations;
+    }
+
+    public int getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * @return - bytes held by the entries.
+     */
+    public long getWeightedSize() {
+        return this.weightedSize;
+    }
+
+    public long getMaximumSize() {
+        return this.maximumSize;
+    }
+
+    public double getHitRate() {
+        final long requests = this.hits + this.misses;
+        return requests == 0 ? 0 : (double) this.hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(FORMAT, this.hits, this.misses, this.getHitRate() * 100, this.evictions,
+                this.invalidations, this.entries, this.weightedSize, this.maximumSize);
+    }
+}
@@ -0,0 +1,116 @@
+package org.nampython.core.cache;
+
+import org.nampython.base.api.ContentEncoding;
+import org.nampython.base.api.HttpDateClock;
+import org.nampython.core.ResourceValidators;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * A static file held in memory with the response ready to write: the content in a direct buffer and the header
+ * section serialized once for keep-alive and once for closing connections.
+ * The content is either the file itself or an encoded variant of it, read from a precompressed file or compressed
+ * when it was cached. The source is the file the entry is revalidated against.
+ * The buffers are read-only and shared, every writer gets its own duplicates.
+ */
+public class CachedResource {
+    private final File source;
+    private final String mediaType;
+    private final ContentEncoding contentEncoding;
+    private final long lastModified;
+    private final long sourceLength;
+    private final String etag;
+    private final ByteBuffer keepAliveHeaders;
+    private final ByteBuffer closeHeaders;
+    private final ByteBuffer content;
+    private volatile long validatedNanos;
+
+    /**
+     * @param source           - the file the content was read from.
+     * @param mediaType        - detected media type of the requested file.
+     * @param contentEncoding  - encoding of the content or null.
+     * @param lastModified     - modification time of the source when it was read.
+     * @param sourceLength     - size of the source when it was read.
+     * @param keepAliveHeaders - header section of a response on a persistent connection, without Date and the empty line.
+     * @param closeHeaders     - header section of a response closing the connection, without Date and the empty line.
+     * @param content          - the body of the response.
+     */
+    public CachedResource(File source, String mediaType, ContentEncoding contentEncoding, long lastModified, long sourceLength,
+                          byte[] keepAliveHeaders, byte[] closeHeaders, ByteBuffer content) {
+        this.source = source;
+        this.mediaType = mediaType;
+        this.contentEncoding = contentEncoding;
+        this.lastModified = lastModified;
+        this.sourceLength = sourceLength;
+        this.etag = ResourceValidators.strongETag(lastModified, sourceLength, contentEncoding);
+        this.keepAliveHeaders = toDirect(keepAliveHeaders);
+        this.closeHeaders = toDirect(closeHeaders);
+        this.content = content.asReadOnlyBuffer();
+        this.validatedNanos = System.nanoTime();
+    }
+
+    public File getSource() {
+        return this.source;
+    }
+
+    public String getMediaType() {
+        return this.mediaType;
+    }
+
+    public ContentEncoding getContentEncoding() {
+        return this.contentEncoding;
+    }
+
+    public long getLastModified() {
+        return this.lastModified;
+    }
+
+    public long getSourceLength() {
+        return this.sourceLength;
+    }
+
+    /**
+     * @return - the strong entity tag of this version of the source, also part of the cached headers.
+     */
+    public String getETag() {
+        return this.etag;
+    }
+
+    /**
+     * @return - size of the body, which differs from the size of the source for an encoded variant.
+     */
+    public long getLength() {
+        return this.content.capacity();
+    }
+
+    /**
+     * @param keepAlive - true if the connection stays open after the response.
+     * @return - the header section to write before the content, completed by {@link HttpDateClock#getDateLineAndEnd()}.
+     */
+    public ByteBuffer getHeaders(boolean keepAlive) {
+        return (keepAlive ? this.keepAliveHeaders : this.closeHeaders).duplicate();
+    }
+
+    public ByteBuffer getContent() {
+        return this.content.duplicate();
+    }
+
+    long getValidatedNanos() {
+        return this.validatedNanos;
+    }
+
+    void setValidatedNanos(long validatedNanos) {
+        this.validatedNanos = validatedNanos;
+    }
+
+    int weight() {
+        return this.keepAliveHeaders.capacity() + this.closeHeaders.capacity() + this.content.capacity();
+    }
+
+    private static ByteBuffer toDirect(byte[] bytes) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes).flip();
+        return buffer.asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,26 @@
+package org.nampython.core.cache;
+
+import java.io.File;
+
+/**
+ * A cache holding data derived from static files, kept consistent by {@link ResourceWatcher}.
+ */
+public interface FileDerivedCache {
+
+    /**
+     * @param file - a file that was created, modified or deleted.
+     */
+    void invalidate(File file);
+
+    /**
+     * Called when changes may have been missed, such as a replaced directory or lost watch events.
+     */
+    void invalidateAll();
+
+    /**
+     * While watched, the cache can trust its entries for longer instead of checking the files itself.
+     *
+     * @param watched - true if changes are reported by {@link ResourceWatcher}.
+     */
+    void setWatched(boolean watched);
+}
@@ -0,0 +1,91 @@
+package org.nampython.core.cache;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often keys were accessed recently, the admission filter
+ * of {@link WTinyLfuCache}. Every key has 4 counters spread over a table of longs holding 16 counters each,
+ * its frequency is the smallest of them. Once the number of increments reaches 10 times the table size all
+ * counters are halved, so keys popular a long time ago lose against the ones popular now.
+ */
+final class FrequencySketch {
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAXIMUM_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param expectedEntries - number of keys the cache is expected to hold.
+     */
+    FrequencySketch(int expectedEntries) {
+        final int length = Integer.highestOneBit(Math.max(16, Math.min(expectedEntries, 1 << 24) - 1) << 1);
+        this.table = new long[length];
+        this.tableMask = length - 1;
+        this.sampleSize = 10 * length;
+    }
+
+    /**
+     * @param key - the accessed key.
+     */
+    void increment(Object key) {
+        final int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            added |= this.incrementAt(this.indexOf(hash, i), counterOf(hash, i));
+        }
+        if (added && ++this.additions == this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    /**
+     * @param key - the key.
+     * @return - the estimated number of recent accesses, at most 15.
+     */
+    int frequency(Object key) {
+        final int hash = spread(key.hashCode());
+        int frequency = MAXIMUM_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            final int shift = counterOf(hash, i) << 2;
+            frequency = Math.min(frequency, (int) ((this.table[this.indexOf(hash, i)] >>> shift) & 0xfL));
+        }
+        return frequency;
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        final int shift = counter << 2;
+        final long mask = 0xfL << shift;
+        if ((this.table[index] & mask) == mask) {
+            return false;
+        }
+        this.table[index] += 1L << shift;
+        return true;
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+        }
+        this.additions /= 2;
+    }
+
+    private int indexOf(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h & this.tableMask;
+    }
+
+    private static int counterOf(int hash, int row) {
+        return (hash >>> (row << 3)) & 0xf;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,95 @@
+package org.nampython.core.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Lossy buffer of the reads of {@link WTinyLfuCache}, replayed against the policy by whichever thread holds the
+ * lock of the cache. Readers add to one of several small ring buffers picked by their thread, so they rarely
+ * contend on the same counter. A read is dropped when its ring is full or another reader won the race for the
+ * slot, the policy only needs a sample of the accesses.
+ *
+ * @param <E> - type of the recorded reads.
+ */
+final class ReadBuffer<E> {
+    private static final int RING_SIZE = 16;
+    private static final int RING_MASK = RING_SIZE - 1;
+    /**
+     * Number of reads waiting in a ring from which the reader asks for a drain.
+     */
+    private static final int DRAIN_THRESHOLD = RING_SIZE / 2;
+
+    private final Ring<E>[] rings;
+    private final int ringMask;
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer() {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final int count = Integer.highestOneBit(Math.max(1, processors - 1) << 1);
+        this.rings = new Ring[count];
+        for (int i = 0; i < count; i++) {
+            this.rings[i] = new Ring<>();
+        }
+        this.ringMask = count - 1;
+    }
+
+    /**
+     * Never blocks.
+     *
+     * @param read - the read.
+     * @return - true if the ring of the thread fills up and should be drained.
+     */
+    boolean offer(E read) {
+        final Ring<E> ring = this.rings[ringIndex() & this.ringMask];
+        final long tail = ring.writeCounter.get();
+        final long size = tail - ring.readCounter;
+        if (size >= RING_SIZE) {
+            return true;
+        }
+        if (!ring.writeCounter.compareAndSet(tail, tail + 1)) {
+            return false;
+        }
+        ring.slots.lazySet((int) (tail & RING_MASK), read);
+        return size + 1 >= DRAIN_THRESHOLD;
+    }
+
+    /**
+     * Hands the buffered reads to the consumer, must be called by one thread at a time.
+     * A read whose slot was claimed but not written yet stays for the next drain.
+     *
+     * @param consumer - applies a read.
+     */
+    void drainTo(Consumer<E> consumer) {
+        for (Ring<E> ring : this.rings) {
+            long head = ring.readCounter;
+            final long tail = ring.writeCounter.get();
+            while (head < tail) {
+                final int index = (int) (head & RING_MASK);
+                final E read = ring.slots.get(index);
+                if (read == null) {
+                    break;
+                }
+                ring.slots.lazySet(index, null);
+                consumer.accept(read);
+                head++;
+            }
+            ring.readCounter = head;
+        }
+    }
+
+    private static int ringIndex() {
+        return Long.hashCode(Thread.currentThread().getId() * 0x9e3779b97f4a7c15L);
+    }
+
+    private static final class Ring<E> {
+        private final AtomicReferenceArray<E> slots;
+        private final AtomicLong writeCounter;
+        private volatile long readCounter;
+
+        private Ring() {
+            this.slots = new AtomicReferenceArray<>(RING_SIZE);
+            this.writeCounter = new AtomicLong();
+        }
+    }
+}
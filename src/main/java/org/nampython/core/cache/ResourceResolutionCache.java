@@ -0,0 +1,132 @@
+package org.nampython.core.cache;
+
+import org.ioc.stereotype.Autowired;
+import org.ioc.stereotype.Service;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which file a request URL resolved to, so a static request does not rebuild the candidate paths and stat
+ * them every time. URLs that resolved to no file are remembered too, for a shorter time, since most of them are
+ * controller routes which would otherwise stat the webapps and assets directories on every request.
+ * Entries expire after {@link ConfigValue#RESOURCE_RESOLUTION_CACHE_MILLISECONDS} and
+ * {@link ConfigValue#RESOURCE_NEGATIVE_CACHE_MILLISECONDS}, a new file is picked up at most that late.
+ * While {@link ResourceWatcher} reports the changes, both kinds live for {@link ConfigValue#WATCHED_CACHE_REVALIDATE_MILLISECONDS}.
+ */
+@Service
+public class ResourceResolutionCache implements FileDerivedCache {
+    /**
+     * The map is cleared when it grows past this, requests for random missing URLs cannot make it grow unbounded.
+     */
+    private static final int MAX_ENTRIES = 16384;
+
+    private final long unwatchedPositiveTtlNanos;
+    private final long unwatchedNegativeTtlNanos;
+    private final long watchedTtlNanos;
+    private volatile long positiveTtlNanos;
+    private volatile long negativeTtlNanos;
+    private final Map<String, Resolution> resolutions;
+
+    @Autowired
+    public ResourceResolutionCache(ConfigCenter configCenter) {
+        this.unwatchedPositiveTtlNanos = TimeUnit.MILLISECONDS.toNanos(
+                configCenter.getConfigValue(ConfigValue.RESOURCE_RESOLUTION_CACHE_MILLISECONDS, int.class));
+        this.unwatchedNegativeTtlNanos = TimeUnit.MILLISECONDS.toNanos(
+                configCenter.getConfigValue(ConfigValue.RESOURCE_NEGATIVE_CACHE_MILLISECONDS, int.class));
+        this.watchedTtlNanos = TimeUnit.MILLISECONDS.toNanos(
+                configCenter.getConfigValue(ConfigValue.WATCHED_CACHE_REVALIDATE_MILLISECONDS, int.class));
+        this.positiveTtlNanos = this.unwatchedPositiveTtlNanos;
+        this.negativeTtlNanos = this.unwatchedNegativeTtlNanos;
+        this.resolutions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param requestURL - the request URL.
+     * @return - the remembered resolution or null if the URL has to be resolved.
+     */
+    public Resolution get(String requestURL) {
+        final Resolution resolution = this.resolutions.get(requestURL);
+        if (resolution == null) {
+            return null;
+        }
+        if (System.nanoTime() - resolution.expiresAtNanos >= 0) {
+            this.resolutions.remove(requestURL, resolution);
+            return null;
+        }
+        return resolution;
+    }
+
+    /**
+     * @param requestURL - the request URL.
+     * @param file       - the file it resolved to or null if there is none.
+     */
+    public void put(String requestURL, File file) {
+        final long ttlNanos = file == null ? this.negativeTtlNanos : this.positiveTtlNanos;
+        if (ttlNanos <= 0) {
+            return;
+        }
+        if (this.resolutions.size() >= MAX_ENTRIES) {
+            this.resolutions.clear();
+        }
+        this.resolutions.put(requestURL, new Resolution(file, System.nanoTime() + ttlNanos));
+    }
+
+    /**
+     * @param requestURL - a URL whose file turned out to be gone.
+     */
+    public void invalidate(String requestURL) {
+        this.resolutions.remove(requestURL);
+    }
+
+    /**
+     * Drops the urls resolved to the file and the ones resolved to nothing, which the file may satisfy now.
+     * Urls resolved to a file of the same name are dropped too, a new file in the webapps directory takes
+     * precedence over the one with the same path in the assets directory.
+     *
+     * @param file - a file that was created, modified or deleted.
+     */
+    @Override
+    public void invalidate(File file) {
+        final String name = file.getName();
+        this.resolutions.values().removeIf(resolution -> resolution.file == null || resolution.file.getName().equals(name));
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.resolutions.clear();
+    }
+
+    @Override
+    public void setWatched(boolean watched) {
+        if (!watched) {
+            this.resolutions.clear();
+        }
+        this.positiveTtlNanos = watched && this.unwatchedPositiveTtlNanos > 0 ? this.watchedTtlNanos : this.unwatchedPositiveTtlNanos;
+        this.negativeTtlNanos = watched && this.unwatchedNegativeTtlNanos > 0 ? this.watchedTtlNanos : this.unwatchedNegativeTtlNanos;
+    }
+
+    /**
+     * The outcome of resolving a URL, a missing file is a resolution without file rather than an exception.
+     */
+    public static final class Resolution {
+        private final File file;
+        private final long expiresAtNanos;
+
+        private Resolution(File file, long expiresAtNanos) {
+            this.file = file;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        /**
+         * @return - the resolved file or null if the URL names no file.
+         */
+        public File getFile() {
+            return this.file;
+        }
+    }
+}
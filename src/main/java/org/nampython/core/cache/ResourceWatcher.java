@@ -0,0 +1,190 @@
+package org.nampython.core.cache;
+
+import org.ioc.stereotype.Autowired;
+import org.ioc.stereotype.Service;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+import org.nampython.core.MediaTypeRegistry;
+import org.nampython.support.Logger;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Watches the webapps and assets directories and pushes every change into the caches derived from static files,
+ * so they do not have to stat the files to notice it. Changes the watch service cannot report precisely, a lost
+ * event, a new or removed directory, clear the caches. A root which does not exist yet is waited for in its parent.
+ * The caches still check their entries every {@link ConfigValue#WATCHED_CACHE_REVALIDATE_MILLISECONDS} in case an
+ * event never arrives, e.g. on network file systems.
+ */
+@Service
+public class ResourceWatcher {
+    private static final String WATCHER_THREAD_NAME;
+    private static final String WATCH_FAILED_MESSAGE_FORMAT;
+
+    static {
+        WATCHER_THREAD_NAME = "resource-watcher";
+        WATCH_FAILED_MESSAGE_FORMAT = "Cannot watch static resources, caches revalidate on their own: %s";
+    }
+
+    private final boolean enabled;
+    private final List<FileDerivedCache> caches;
+    private final Map<WatchKey, Path> directories;
+    /**
+     * Roots which do not exist yet by their absolute path, the parents they are waited for in are watched for creation only.
+     */
+    private final Map<Path, Path> pendingRoots;
+    private final Set<WatchKey> pendingRootParents;
+    private final Logger logger;
+    private WatchService watchService;
+
+    @Autowired
+    public ResourceWatcher(ConfigCenter configCenter, StaticResourceCache staticResourceCache,
+                           ResourceResolutionCache resourceResolutionCache, MediaTypeRegistry mediaTypeRegistry, Logger logger) {
+        this.enabled = configCenter.getConfigValue(ConfigValue.ENABLE_RESOURCE_WATCHER, boolean.class);
+        this.caches = List.of(staticResourceCache, resourceResolutionCache, mediaTypeRegistry);
+        this.directories = new ConcurrentHashMap<>();
+        this.pendingRoots = new ConcurrentHashMap<>();
+        this.pendingRootParents = ConcurrentHashMap.newKeySet();
+        this.logger = logger;
+    }
+
+    /**
+     * Registers the directory trees and starts the watcher thread.
+     * If watching is not possible the caches keep revalidating on their own.
+     *
+     * @param roots - directories holding static files.
+     */
+    public synchronized void watch(Path... roots) {
+        if (!this.enabled || this.watchService != null) {
+            return;
+        }
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+            for (Path root : roots) {
+                final Path parent = root.toAbsolutePath().getParent();
+                if (Files.isDirectory(root)) {
+                    this.registerTree(root);
+                } else if (parent != null && Files.isDirectory(parent)) {
+                    final WatchKey key = parent.register(this.watchService, ENTRY_CREATE);
+                    this.pendingRoots.put(root.toAbsolutePath(), root);
+                    this.pendingRootParents.add(key);
+                    this.directories.put(key, parent);
+                } else {
+                    throw new IOException(root + " does not exist");
+                }
+            }
+        } catch (IOException e) {
+            this.logger.warning(WATCH_FAILED_MESSAGE_FORMAT, e.getMessage());
+            this.stop();
+            return;
+        }
+        final Thread watcherThread = new Thread(this::processEvents, WATCHER_THREAD_NAME);
+        watcherThread.setDaemon(true);
+        this.caches.forEach(cache -> cache.setWatched(true));
+        watcherThread.start();
+    }
+
+    /**
+     * Stops watching for good, the caches fall back to revalidating on their own.
+     */
+    public synchronized void stop() {
+        if (this.watchService == null) {
+            return;
+        }
+        try {
+            this.watchService.close();
+        } catch (IOException ignored) {
+        }
+        this.directories.clear();
+        this.pendingRoots.clear();
+        this.pendingRootParents.clear();
+    }
+
+    private void processEvents() {
+        final WatchService watchService = this.watchService;
+        try {
+            while (true) {
+                final WatchKey key = watchService.take();
+                final Path directory = this.directories.get(key);
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (this.pendingRootParents.contains(key)) {
+                        this.processPendingRootEvent(directory, event);
+                    } else {
+                        this.processEvent(directory, event);
+                    }
+                }
+                if (!key.reset()) {
+                    this.directories.remove(key);
+                    this.invalidateAll();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        } finally {
+            this.caches.forEach(cache -> cache.setWatched(false));
+        }
+    }
+
+    private void processEvent(Path directory, WatchEvent<?> event) {
+        if (directory == null || event.kind() == OVERFLOW) {
+            this.invalidateAll();
+            return;
+        }
+        final Path child = directory.resolve((Path) event.context());
+        if (event.kind() == ENTRY_CREATE && Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+            this.registerCreatedTree(child);
+            return;
+        }
+        for (FileDerivedCache cache : this.caches) {
+            cache.invalidate(child.toFile());
+        }
+    }
+
+    /**
+     * Only the creation of a pending root matters in its parent, other files there are no static resources.
+     */
+    private void processPendingRootEvent(Path directory, WatchEvent<?> event) {
+        if (directory != null && event.kind() != OVERFLOW
+                && !this.pendingRoots.containsKey(directory.resolve((Path) event.context()))) {
+            return;
+        }
+        for (Map.Entry<Path, Path> pendingRoot : this.pendingRoots.entrySet()) {
+            if (Files.isDirectory(pendingRoot.getValue()) && this.pendingRoots.remove(pendingRoot.getKey()) != null) {
+                this.registerCreatedTree(pendingRoot.getValue());
+            }
+        }
+    }
+
+    private void registerCreatedTree(Path directory) {
+        try {
+            this.registerTree(directory);
+        } catch (IOException e) {
+            this.logger.warning(WATCH_FAILED_MESSAGE_FORMAT, e.getMessage());
+        }
+        // Files may have been created before the directory was registered.
+        this.invalidateAll();
+    }
+
+    private void invalidateAll() {
+        this.caches.forEach(FileDerivedCache::invalidateAll);
+    }
+
+    private void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path directory, BasicFileAttributes attributes) throws IOException {
+                final WatchKey key = directory.register(ResourceWatcher.this.watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+                ResourceWatcher.this.directories.put(key, directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,176 @@
+package org.nampython.core.cache;
+
+import org.ioc.stereotype.Autowired;
+import org.ioc.stereotype.Service;
+import org.nampython.base.api.ContentEncoding;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the responses of the popular static files in memory, keyed by the resolved path of the file and the
+ * content encoding of the variant.
+ * The size is bounded by {@link ConfigValue#STATIC_RESOURCE_CACHE_MAX_BYTES}, which files stay is decided by
+ * {@link WTinyLfuCache}. An entry is checked against the modification time and size of its file at most once per
+ * {@link ConfigValue#STATIC_RESOURCE_CACHE_REVALIDATE_MILLISECONDS}, so a hit does not even stat the file in between.
+ * While {@link ResourceWatcher} reports the changes, the check runs only every
+ * {@link ConfigValue#WATCHED_CACHE_REVALIDATE_MILLISECONDS}.
+ */
+@Service
+public class StaticResourceCache implements FileDerivedCache {
+    private static final int AVERAGE_ENTRY_BYTES = 16 * 1024;
+    private static final String PRECOMPRESSED_SUFFIX = ".gz";
+
+    private final boolean enabled;
+    private final long maxFileBytes;
+    private final long unwatchedRevalidateNanos;
+    private final long watchedRevalidateNanos;
+    private volatile long revalidateNanos;
+    private final WTinyLfuCache<String, CachedResource> cache;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder invalidations;
+
+    @Autowired
+    public StaticResourceCache(ConfigCenter configCenter) {
+        final long maxBytes = configCenter.getConfigValue(ConfigValue.STATIC_RESOURCE_CACHE_MAX_BYTES, int.class);
+        this.enabled = configCenter.getConfigValue(ConfigValue.ENABLE_STATIC_RESOURCE_CACHE, boolean.class) && maxBytes > 0;
+        this.maxFileBytes = configCenter.getConfigValue(ConfigValue.STATIC_RESOURCE_CACHE_MAX_FILE_BYTES, int.class);
+        this.unwatchedRevalidateNanos = TimeUnit.MILLISECONDS.toNanos(
+                configCenter.getConfigValue(ConfigValue.STATIC_RESOURCE_CACHE_REVALIDATE_MILLISECONDS, int.class));
+        this.watchedRevalidateNanos = TimeUnit.MILLISECONDS.toNanos(
+                configCenter.getConfigValue(ConfigValue.WATCHED_CACHE_REVALIDATE_MILLISECONDS, int.class));
+        this.revalidateNanos = this.unwatchedRevalidateNanos;
+        this.cache = new WTinyLfuCache<>(Math.max(1, maxBytes), (int) Math.max(1, maxBytes / AVERAGE_ENTRY_BYTES), CachedResource::weight);
+        this.hits = new LongAdder();
+        this.misses = new LongAdder();
+        this.invalidations = new LongAdder();
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param length - size of a file.
+     * @return - true if a file of this size is held in memory, larger ones are sent from the disk.
+     */
+    public boolean isCacheable(long length) {
+        return this.enabled && length <= this.maxFileBytes;
+    }
+
+    /**
+     * @param file - the resolved file.
+     * @return - the cached response of the file or null.
+     */
+    public CachedResource get(File file) {
+        return this.get(file, null);
+    }
+
+    /**
+     * An entry whose source changed is dropped and the lookup counts as a miss.
+     *
+     * @param file            - the resolved file.
+     * @param contentEncoding - encoding of the variant or null for the file as it is.
+     * @return - the cached response or null.
+     */
+    public CachedResource get(File file, ContentEncoding contentEncoding) {
+        final String key = key(file, contentEncoding);
+        CachedResource resource = this.cache.get(key);
+        if (resource != null && !this.isFresh(resource)) {
+            this.cache.remove(key);
+            this.invalidations.increment();
+            resource = null;
+        }
+        if (resource == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return resource;
+    }
+
+    /**
+     * Offers the response of a file that was just read, it is kept only if the policy admits it.
+     *
+     * @param file     - the resolved file.
+     * @param resource - its response.
+     */
+    public void put(File file, CachedResource resource) {
+        this.put(file, null, resource);
+    }
+
+    /**
+     * @param file            - the resolved file.
+     * @param contentEncoding - encoding of the variant or null for the file as it is.
+     * @param resource        - the response.
+     */
+    public void put(File file, ContentEncoding contentEncoding, CachedResource resource) {
+        this.cache.put(key(file, contentEncoding), resource);
+    }
+
+    /**
+     * Drops the file with all its variants, a changed precompressed file drops the variant it was serving.
+     *
+     * @param file - a file that changed or was removed.
+     */
+    @Override
+    public void invalidate(File file) {
+        this.invalidate(key(file, null));
+        for (ContentEncoding contentEncoding : ContentEncoding.values()) {
+            this.invalidate(key(file, contentEncoding));
+        }
+        final String path = file.getPath();
+        if (path.endsWith(PRECOMPRESSED_SUFFIX)) {
+            this.invalidate(key(new File(path.substring(0, path.length() - PRECOMPRESSED_SUFFIX.length())), ContentEncoding.GZIP));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.cache.clear();
+    }
+
+    @Override
+    public void setWatched(boolean watched) {
+        this.revalidateNanos = watched ? this.watchedRevalidateNanos : this.unwatchedRevalidateNanos;
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(
+                this.hits.sum(),
+                this.misses.sum(),
+                this.cache.getEvictions(),
+                this.invalidations.sum(),
+                this.cache.size(),
+                this.cache.weightedSize(),
+                this.cache.getMaximumWeight()
+        );
+    }
+
+    private void invalidate(String key) {
+        if (this.cache.remove(key) != null) {
+            this.invalidations.increment();
+        }
+    }
+
+    private boolean isFresh(CachedResource resource) {
+        final long now = System.nanoTime();
+        if (now - resource.getValidatedNanos() < this.revalidateNanos) {
+            return true;
+        }
+        final File source = resource.getSource();
+        if (source.lastModified() != resource.getLastModified() || source.length() != resource.getSourceLength()) {
+            return false;
+        }
+        resource.setValidatedNanos(now);
+        return true;
+    }
+
+    private static String key(File file, ContentEncoding contentEncoding) {
+        return contentEncoding == null ? file.getPath() : file.getPath() + '\0' + contentEncoding.getToken();
+    }
+}
@@ -0,0 +1,297 @@
+package org.nampython.core.cache;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/**
+ * Size bounded cache with the W-TinyLFU policy: new entries go into a small LRU window, an entry leaving the
+ * window is admitted into the main space only if the {@link FrequencySketch} estimates it more popular than the
+ * entry it would evict. The main space is a segmented LRU, entries hit while on probation move to the protected
+ * segment. A burst of one-off keys therefore only churns the window, while the popular entries stay.
+ * The size is a weight, e.g. bytes, given by the weigher.
+ * Reads take no lock: the value is looked up in a concurrent map and the access is recorded in a {@link ReadBuffer},
+ * which is replayed against the sketch and the LRU order under the lock when it fills up or the cache is written.
+ * Every other operation takes the lock.
+ *
+ * @param <K> - type of the keys.
+ * @param <V> - type of the values.
+ */
+class WTinyLfuCache<K, V> {
+    private static final int WINDOW_PERCENT = 1;
+    private static final int PROTECTED_PERCENT = 80;
+
+    private final Map<K, Node<K, V>> data;
+    private final ToIntFunction<V> weigher;
+    private final ReentrantLock lock;
+    /**
+     * Holds the node of a hit, or the key of a miss.
+     */
+    private final ReadBuffer<Object> readBuffer;
+    private final FrequencySketch sketch;
+    private final long maximumWeight;
+    private final long windowMaximum;
+    private final long protectedMaximum;
+    private final Node<K, V> window;
+    private final Node<K, V> probation;
+    private final Node<K, V> protectedSegment;
+    private long windowWeight;
+    private long probationWeight;
+    private long protectedWeight;
+    private long evictions;
+
+    /**
+     * @param maximumWeight   - the total weight the entries may have.
+     * @param expectedEntries - sizes the frequency sketch.
+     * @param weigher         - weight of a value, must not change while it is cached.
+     */
+    WTinyLfuCache(long maximumWeight, int expectedEntries, ToIntFunction<V> weigher) {
+        this.data = new ConcurrentHashMap<>();
+        this.weigher = weigher;
+        this.lock = new ReentrantLock();
+        this.readBuffer = new ReadBuffer<>();
+        this.sketch = new FrequencySketch(expectedEntries);
+        this.maximumWeight = maximumWeight;
+        this.windowMaximum = Math.max(1, maximumWeight * WINDOW_PERCENT / 100);
+        this.protectedMaximum = (maximumWeight - this.windowMaximum) * PROTECTED_PERCENT / 100;
+        this.window = Node.sentinel();
+        this.probation = Node.sentinel();
+        this.protectedSegment = Node.sentinel();
+    }
+
+    /**
+     * Records the access for the frequency sketch, hit or miss.
+     *
+     * @param key - the key.
+     * @return - the cached value or null.
+     */
+    V get(K key) {
+        final Node<K, V> node = this.data.get(key);
+        if (this.readBuffer.offer(node != null ? node : key) && this.lock.tryLock()) {
+            try {
+                this.drainReadBuffer();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Adds or replaces a value. A value heavier than the whole cache is not added.
+     *
+     * @param key   - the key.
+     * @param value - the value.
+     */
+    void put(K key, V value) {
+        final int weight = this.weigher.applyAsInt(value);
+        this.lock.lock();
+        try {
+            this.drainReadBuffer();
+            final Node<K, V> existing = this.data.remove(key);
+            if (existing != null) {
+                this.unlink(existing);
+            }
+            if (weight > this.maximumWeight) {
+                return;
+            }
+            final Node<K, V> node = new Node<>(key, value, weight);
+            this.data.put(key, node);
+            node.segment = this.window;
+            node.linkFirst(this.window);
+            this.windowWeight += weight;
+            this.evict();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @param key - the key.
+     * @return - the removed value or null.
+     */
+    V remove(K key) {
+        this.lock.lock();
+        try {
+            this.drainReadBuffer();
+            final Node<K, V> node = this.data.remove(key);
+            if (node == null) {
+                return null;
+            }
+            this.unlink(node);
+            return node.value;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    void clear() {
+        this.lock.lock();
+        try {
+            this.drainReadBuffer();
+            for (Node<K, V> node : this.data.values()) {
+                node.unlink();
+            }
+            this.data.clear();
+            this.windowWeight = 0;
+            this.probationWeight = 0;
+            this.protectedWeight = 0;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    int size() {
+        return this.data.size();
+    }
+
+    long weightedSize() {
+        this.lock.lock();
+        try {
+            return this.windowWeight + this.probationWeight + this.protectedWeight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    long getMaximumWeight() {
+        return this.maximumWeight;
+    }
+
+    /**
+     * @return - the number of entries evicted or refused admission so far.
+     */
+    long getEvictions() {
+        this.lock.lock();
+        try {
+            return this.evictions;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void drainReadBuffer() {
+        this.readBuffer.drainTo(this::onAccess);
+    }
+
+    /**
+     * Replays a read, a node evicted or replaced since then is no longer linked and only counts in the sketch.
+     */
+    @SuppressWarnings("unchecked")
+    private void onAccess(Object read) {
+        if (!(read instanceof Node)) {
+            this.sketch.increment(read);
+            return;
+        }
+        final Node<K, V> node = (Node<K, V>) read;
+        this.sketch.increment(node.key);
+        if (node.prev != null) {
+            this.onHit(node);
+        }
+    }
+
+    private void onHit(Node<K, V> node) {
+        if (node.segment == this.probation) {
+            node.unlink();
+            this.probationWeight -= node.weight;
+            node.segment = this.protectedSegment;
+            node.linkFirst(this.protectedSegment);
+            this.protectedWeight += node.weight;
+            while (this.protectedWeight > this.protectedMaximum) {
+                final Node<K, V> demoted = this.protectedSegment.prev;
+                demoted.unlink();
+                this.protectedWeight -= demoted.weight;
+                demoted.segment = this.probation;
+                demoted.linkFirst(this.probation);
+                this.probationWeight += demoted.weight;
+            }
+        } else {
+            node.unlink();
+            node.linkFirst(node.segment);
+        }
+    }
+
+    /**
+     * Moves the least recently used entries out of the window, each one is admitted against the victims of the
+     * main space.
+     */
+    private void evict() {
+        while (this.windowWeight > this.windowMaximum) {
+            final Node<K, V> candidate = this.window.prev;
+            candidate.unlink();
+            this.windowWeight -= candidate.weight;
+            this.admit(candidate);
+        }
+    }
+
+    private void admit(Node<K, V> candidate) {
+        final long mainMaximum = this.maximumWeight - this.windowMaximum;
+        while (this.probationWeight + this.protectedWeight + candidate.weight > mainMaximum) {
+            final Node<K, V> victim = this.probation.prev != this.probation ? this.probation.prev : this.protectedSegment.prev;
+            if (victim == this.protectedSegment || this.sketch.frequency(candidate.key) <= this.sketch.frequency(victim.key)) {
+                this.data.remove(candidate.key);
+                this.evictions++;
+                return;
+            }
+            this.data.remove(victim.key);
+            this.unlink(victim);
+            this.evictions++;
+        }
+        candidate.segment = this.probation;
+        candidate.linkFirst(this.probation);
+        this.probationWeight += candidate.weight;
+    }
+
+    private void unlink(Node<K, V> node) {
+        node.unlink();
+        if (node.segment == this.window) {
+            this.windowWeight -= node.weight;
+        } else if (node.segment == this.probation) {
+            this.probationWeight -= node.weight;
+        } else {
+            this.protectedWeight -= node.weight;
+        }
+    }
+
+    /**
+     * Entry of a circular doubly linked list, each segment has a sentinel whose next is the most recently used entry.
+     */
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        private final int weight;
+        private Node<K, V> segment;
+        private Node<K, V> prev;
+        private Node<K, V> next;
+
+        private Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+
+        private static <K, V> Node<K, V> sentinel() {
+            final Node<K, V> sentinel = new Node<>(null, null, 0);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void linkFirst(Node<K, V> sentinel) {
+            this.prev = sentinel;
+            this.next = sentinel.next;
+            sentinel.next.prev = this;
+            sentinel.next = this;
+        }
+
+        private void unlink() {
+            if (this.prev != null) {
+                this.prev.next = this.next;
+                this.next.prev = this.prev;
+                this.prev = null;
+                this.next = null;
+            }
+        }
+    }
+}
@@ -8,8 +8,10 @@ import org.nampython.base.api.BaseHttpResponse;
 import org.nampython.base.api.HttpStatus;
 import org.nampython.config.ConfigCenter;
 import org.nampython.config.ConfigValue;
+import org.nampython.core.CompressionPolicy;
 import org.nampython.core.RequestHandler;
 import org.nampython.core.RequestHandlerShareData;
+import org.nampython.core.ResponseWriter;
 import org.nampython.core.SessionManagement;
 import org.nampython.support.IocCenter;
 import org.nampython.support.PathUtil;
@@ -53,6 +55,7 @@ public class ServletContainer implements RequestHandler {
     private final String webappsDir;
     private final ConfigCenter configCenter;
     private final SessionManagement sessionManagement;
+    private final CompressionPolicy compressionPolicy;
     private DispatcherConfig<String> dispatcherConfig;
     private final boolean trackResources;
     private final String rootAppName;
@@ -61,9 +64,10 @@ public class ServletContainer implements RequestHandler {
     private List<String> applicationNames;
 
     @Autowired
-    public ServletContainer(ConfigCenter configCenter, SessionManagement sessionManagement) {
+    public ServletContainer(ConfigCenter configCenter, SessionManagement sessionManagement, CompressionPolicy compressionPolicy) {
         this.configCenter = configCenter;
         this.sessionManagement = sessionManagement;
+        this.compressionPolicy = compressionPolicy;
         this.assetsDir = this.getAssetsDir();
         this.webappsDir = this.getWebappsDir();
         this.rootAppName = configCenter.getConfigValue(ConfigValue.MAIN_APP_JAR_NAME);
@@ -91,7 +95,8 @@ public class ServletContainer implements RequestHandler {
             }
             this.sessionManagement.sendSessionIfExistent(request, response);
             this.sessionManagement.clearInvalidSessions();
-            outputStream.write(response.getBytes());
+            this.compressionPolicy.applyTo(request, response);
+            ResponseWriter.write(response, outputStream);
             return true;
         }
     }
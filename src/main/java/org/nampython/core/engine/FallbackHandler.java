@@ -5,6 +5,7 @@ import org.nampython.base.api.BaseHttpResponse;
 import org.nampython.base.api.HttpStatus;
 import org.nampython.core.RequestHandler;
 import org.nampython.core.RequestHandlerShareData;
+import org.nampython.core.ResponseWriter;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -23,7 +24,7 @@ public class FallbackHandler implements RequestHandler {
         final BaseHttpResponse response = sharedData.getObject(RequestHandlerShareData.HTTP_RESPONSE, BaseHttpResponse.class);
         response.setStatusCode(HttpStatus.NOT_FOUND);
         response.setContent("The resource you are looking for could not be found!");
-        outputStream.write(response.getBytes());
+        ResponseWriter.write(response, outputStream);
         return true;
     }
 
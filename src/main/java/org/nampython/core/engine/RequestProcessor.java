@@ -2,18 +2,15 @@ package org.nampython.core.engine;
 
 import org.ioc.stereotype.Autowired;
 import org.ioc.stereotype.Service;
-import org.jetbrains.annotations.NotNull;
 import org.nampython.base.api.*;
 import org.nampython.config.ConfigCenter;
 import org.nampython.config.ConfigValue;
 import org.nampython.core.*;
+import org.nampython.support.UrlDecoding;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.net.URLDecoder;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -37,18 +34,32 @@ public class RequestProcessor implements RequestHandler {
     public static final String CONTENT_LENGTH;
     public static final String CACHE_CONTROL_HEADER_NAME;
     public static final String COOKIE_HEADER_NAME;
+    public static final String CONNECTION_HEADER_NAME;
+    public static final String CONNECTION_KEEP_ALIVE;
+    public static final String CONNECTION_CLOSE;
+    public static final String HTTP_1_0;
+    public static final String HTTP_1_1;
     public static final String TEXT_PLAIN;
     public static final String MULTIPART_FORM_DATA;
     public static final String RAW_BODY_PARAM_NAME;
     private static final String REQUEST_TOO_BIG_MSG = "Request too big.";
+    private static final byte[] BAD_REQUEST_RESPONSE;
+    private static final byte[] NOT_IMPLEMENTED_RESPONSE;
 
     static {
         CONTENT_LENGTH = "Content-Length";
         CACHE_CONTROL_HEADER_NAME = "Cache-Control";
         COOKIE_HEADER_NAME = "Cookie";
+        CONNECTION_HEADER_NAME = "Connection";
+        CONNECTION_KEEP_ALIVE = "keep-alive";
+        CONNECTION_CLOSE = "close";
+        HTTP_1_0 = "HTTP/1.0";
+        HTTP_1_1 = "HTTP/1.1";
         TEXT_PLAIN = "text/plain";
         MULTIPART_FORM_DATA = "multipart/form-data";
         RAW_BODY_PARAM_NAME = "rawBodyText";
+        BAD_REQUEST_RESPONSE = PrecomputedResponses.create(HttpStatus.BAD_REQUEST, "Bad request.");
+        NOT_IMPLEMENTED_RESPONSE = PrecomputedResponses.create(HttpStatus.NOT_IMPLEMENTED, "Transfer-Encoding is not supported.");
     }
 
     private final Map<FormDataParserProvider, FormDataParser> instanceProviderMap = new HashMap<>();
@@ -57,14 +68,19 @@ public class RequestProcessor implements RequestHandler {
     private final FormDataParser defaultFormDataParser;
     private final FormDataParser multipartFormDataParser;
     private final int maxRequestSize;
+    /**
+     * The buffer of the head parser is leased for each request, so it shows in the pool stats and leak detection.
+     */
+    private final BufferPool bufferPool;
 
     @Autowired
-    public RequestProcessor(List<FormDataParser> formDataParsers, ConfigCenter configCenter, ErrorHandling errorHandling, FormDataParserDefault defaultFormDataParser, FormDataParserMultipart multipartFormDataParser) {
+    public RequestProcessor(List<FormDataParser> formDataParsers, ConfigCenter configCenter, ErrorHandling errorHandling, FormDataParserDefault defaultFormDataParser, FormDataParserMultipart multipartFormDataParser, BufferPool bufferPool) {
         this.configCenter = configCenter;
         this.maxRequestSize = configCenter.getConfigValue(ConfigValue.MAX_REQUEST_SIZE, int.class);
         this.errorHandling = errorHandling;
         this.defaultFormDataParser = defaultFormDataParser;
         this.multipartFormDataParser = multipartFormDataParser;
+        this.bufferPool = bufferPool;
     }
 
     @Override
@@ -81,59 +97,105 @@ public class RequestProcessor implements RequestHandler {
     @Override
     public boolean handleRequest(InputStream inputStream, OutputStream outputStream, RequestHandlerShareData sharedData) throws IOException {
         try {
-            final BaseHttpRequest baseHttpRequest = this.parseHttpRequest(inputStream);
+            final ConnectionDeadline deadline = sharedData.getObject(RequestHandlerShareData.CONNECTION_DEADLINE, ConnectionDeadline.class);
+            final BaseHttpRequest baseHttpRequest = this.parseHttpRequest(inputStream, deadline);
             final BaseHttpResponse baseHttpResponse = new BaseHttpResponseImpl();
+            final boolean keepAlive = this.isKeepAlive(baseHttpRequest, sharedData);
+            baseHttpResponse.addHeader(CONNECTION_HEADER_NAME, keepAlive ? CONNECTION_KEEP_ALIVE : CONNECTION_CLOSE);
+            sharedData.addObject(RequestHandlerShareData.KEEP_ALIVE, keepAlive);
             sharedData.addObject(RequestHandlerShareData.HTTP_REQUEST, baseHttpRequest);
             sharedData.addObject(RequestHandlerShareData.HTTP_RESPONSE, baseHttpResponse);
         } catch (RequestTooBigException ex) {
             this.disposeInputStream(ex.getContentLength(), inputStream);
             return this.errorHandling.handleRequestTooBig(outputStream, ex, new BaseHttpResponseImpl());
+        } catch (TransferEncodingNotSupportedException ex) {
+            outputStream.write(NOT_IMPLEMENTED_RESPONSE);
+            return true;
+        } catch (CannotParseRequestException ex) {
+            outputStream.write(BAD_REQUEST_RESPONSE);
+            return true;
         } catch (Exception e) {
             return this.errorHandling.handleException(outputStream, e, new BaseHttpResponseImpl(), HttpStatus.BAD_REQUEST);
         }
         return false;
     }
 
+    /**
+     * Decides if the connection stays open after the response.
+     * The transport has to allow it (see {@link RequestHandlerShareData#KEEP_ALIVE_ALLOWED}), then the Connection header
+     * of the request is honoured and without it HTTP/1.1 connections are persistent while HTTP/1.0 connections are not.
+     *
+     * @param request    - parsed request.
+     * @param sharedData - data of the current request.
+     * @return - true if the connection is kept alive.
+     */
+    private boolean isKeepAlive(BaseHttpRequest request, RequestHandlerShareData sharedData) {
+        if (!Boolean.TRUE.equals(sharedData.getObject(RequestHandlerShareData.KEEP_ALIVE_ALLOWED))) {
+            return false;
+        }
+        final String connection = request.getHeader(CONNECTION_HEADER_NAME);
+        if (connection != null) {
+            for (String token : connection.split(",")) {
+                if (CONNECTION_CLOSE.equalsIgnoreCase(token.trim())) {
+                    return false;
+                }
+                if (CONNECTION_KEEP_ALIVE.equalsIgnoreCase(token.trim())) {
+                    return true;
+                }
+            }
+        }
+        return HTTP_1_1.equals(request.getProtocol());
+    }
+
     /**
      * The purpose of this method is to read the input stream before closing it
      * otherwise the TCP connection will not be closed properly.
+     * Only the bytes of the rejected body that already arrived are read, never more than its length,
+     * so the bytes of a following request are not consumed.
      */
     private void disposeInputStream(int length, InputStream inputStream) throws IOException {
-        byte[] buffer = new byte[0];
         int leftToRead = length;
-        int bytesRead = Math.min(2048, inputStream.available());
-        while (leftToRead > 0) {
-            buffer = inputStream.readNBytes(bytesRead);
-            leftToRead -= bytesRead;
-            bytesRead = Math.min(2048, inputStream.available());
+        int bytesRead = Math.min(2048, Math.min(leftToRead, inputStream.available()));
+        while (leftToRead > 0 && bytesRead > 0) {
+            leftToRead -= inputStream.skip(bytesRead);
+            bytesRead = Math.min(2048, Math.min(leftToRead, inputStream.available()));
         }
-        buffer = null;
     }
 
     /**
      * Parses the HTTP request produced by the given stream.
      *
      * @param inputStream producing a HTTP request
+     * @param deadline    deadline of the connection moved along the phases of the request, null if the transport has none
      * @return HttpRequest
      */
-    private BaseHttpRequest parseHttpRequest(InputStream inputStream) {
+    private BaseHttpRequest parseHttpRequest(InputStream inputStream, ConnectionDeadline deadline) {
         try {
-            final BaseHttpRequest baseHttpRequest = new BaseHttpRequestImpl();
-            final List<String> requestMetadata = this.parseMetadataLines(inputStream, false);
-            this.handlerMethodAndURL(requestMetadata.get(0), baseHttpRequest);
-            this.handlerParamQuery(requestMetadata.get(0), baseHttpRequest);
-            this.handlerHeader(requestMetadata, baseHttpRequest);
-            this.handlerCookies(baseHttpRequest);
-            this.handlerContentLength(inputStream, baseHttpRequest);
+            final RequestHeadParser headParser = new RequestHeadParser(this.bufferPool);
+            final BaseHttpRequest baseHttpRequest;
+            try {
+                headParser.parse(inputStream);
+                baseHttpRequest = new BaseHttpRequestImpl(headParser.getHeaderCount());
+                this.handlerMethodAndURL(headParser, baseHttpRequest);
+                baseHttpRequest.setQueryString(headParser.getQuery());
+                this.handlerHeader(headParser, baseHttpRequest);
+                this.handlerContentLength(headParser, baseHttpRequest);
+            } finally {
+                headParser.release();
+            }
+            this.enterPhase(deadline, ConnectionPhase.BODY_READ);
             if (baseHttpRequest.getContentLength() > this.maxRequestSize) {
                 throw new RequestTooBigException(REQUEST_TOO_BIG_MSG, baseHttpRequest.getContentLength());
             } else {
                 final String contentType = baseHttpRequest.getContentType();
+                final RequestBodyInputStream bodyInputStream = new RequestBodyInputStream(inputStream, baseHttpRequest.getContentLength());
                 if (contentType != null && contentType.startsWith(MULTIPART_FORM_DATA)) {
-                    this.multipartFormDataParser.parseBodyParams(inputStream, baseHttpRequest);
+                    this.multipartFormDataParser.parseBodyParams(bodyInputStream, baseHttpRequest);
                 } else {
-                    this.defaultFormDataParser.parseBodyParams(inputStream, baseHttpRequest);
+                    this.defaultFormDataParser.parseBodyParams(bodyInputStream, baseHttpRequest);
                 }
+                bodyInputStream.drain();
+                this.enterPhase(deadline, ConnectionPhase.HANDLER);
                 this.trimRequestPath(baseHttpRequest);
                 return baseHttpRequest;
             }
@@ -142,6 +204,16 @@ public class RequestProcessor implements RequestHandler {
         }
     }
 
+    /**
+     * @param deadline - deadline of the connection or null.
+     * @param phase    - phase the request enters.
+     */
+    private void enterPhase(ConnectionDeadline deadline, ConnectionPhase phase) {
+        if (deadline != null) {
+            deadline.enter(phase);
+        }
+    }
+
     /**
      * @param request
      */
@@ -156,37 +228,23 @@ public class RequestProcessor implements RequestHandler {
      * The HTTP body begins immediately after the first blank line, after the initial line and headers.
      * The actual length of the content sent over the network may differ from the size of the data in the body
      * because servers can compress the data before sending it.
+     * A request without Content-Length has no body, the bytes available after its headers belong to the next
+     * pipelined request.
+     * Every header sent is checked, not only the one kept by the header map, through the same
+     * {@link RequestFraming} rule the NIO framer used to find the end of the request.
      *
-     * @param inputStream {@link InputStream}
-     * @param request {@link BaseHttpRequest}
-     * @throws IOException – if an I/O error occurs.
+     * @param headParser {@link RequestHeadParser} holding the parsed headers
+     * @param request    {@link BaseHttpRequest}
      */
-    private void handlerContentLength(InputStream inputStream, BaseHttpRequest request) throws IOException {
-        if (request.getHeaders().get(CONTENT_LENGTH) != null) {
-            request.setContentLength(Integer.parseInt(request.getHeaders().get(CONTENT_LENGTH)));
-        } else {
-            request.setContentLength(inputStream.available());
-        }
-    }
-
-    /**
-     * An HTTP cookie (web cookie, browser cookie) is a small piece of data that a server sends to a user's web browser.
-     * The browser may store the cookie and send it back to the same server with later requests. Typically, an HTTP cookie is used to tell if
-     * two requests come from the same browser—keeping a user logged in, for example.
-     * It remembers stateful information for the stateless HTTP protocol.
-     *
-     * @param baseHttpRequest {@link BaseHttpRequest}
-     */
-    private void handlerCookies(BaseHttpRequest baseHttpRequest) {
-        if (baseHttpRequest.getHeaders().get(COOKIE_HEADER_NAME) != null) {
-            String[] allCookies = baseHttpRequest.getHeaders().get(COOKIE_HEADER_NAME).split(";\\s");
-            for (String cookieStr : allCookies) {
-                final String[] cookieKeyValuePair = cookieStr.split("=");
-                final String keyName = decode(cookieKeyValuePair[0]);
-                final String value = cookieKeyValuePair.length > 1 ? decode(cookieKeyValuePair[1]) : null;
-                baseHttpRequest.getCookies().put(keyName, new HttpCookieImpl(keyName, value));
+    private void handlerContentLength(RequestHeadParser headParser, BaseHttpRequest request) {
+        int contentLength = RequestFraming.NO_CONTENT_LENGTH;
+        for (int i = 0; i < headParser.getHeaderCount(); i++) {
+            final String name = headParser.getHeaderName(i);
+            if (RequestFraming.isFramingHeader(name)) {
+                contentLength = RequestFraming.applyHeader(name, headParser.getHeaderValue(i), contentLength);
             }
         }
+        request.setContentLength(RequestFraming.bodyLength(contentLength));
     }
 
     /**
@@ -197,140 +255,26 @@ public class RequestProcessor implements RequestHandler {
      * thereof (VPN or proxy masking, user-agent spoofing), how the server should handle data (as in Do-Not-Track),
      * the age (the time it has resided in a shared cache) of the document being downloaded, amongst others.
      *
-     * @param requestMetadata List of String metadata
+     * @param headParser      {@link RequestHeadParser} holding the parsed headers
      * @param baseHttpRequest {@link BaseHttpRequest}
      */
-    private void handlerHeader(List<String> requestMetadata, BaseHttpRequest baseHttpRequest) {
-        for (int i = 1; i < requestMetadata.size(); i++) {
-            final String[] headerKeyValuePair = requestMetadata.get(i).split(":\\s+");
-            final String key = headerKeyValuePair[0];
-            final String value = headerKeyValuePair[1];
-            baseHttpRequest.addHeader(key, value);
+    private void handlerHeader(RequestHeadParser headParser, BaseHttpRequest baseHttpRequest) {
+        for (int i = 0; i < headParser.getHeaderCount(); i++) {
+            baseHttpRequest.addHeader(headParser.getHeaderName(i), headParser.getHeaderValue(i));
         }
     }
 
     /**
-     * @param requestFirstLine {@link String}
-     * @param baseHttpRequest {@link BaseHttpRequest}est
-     */
-    private void handlerMethodAndURL(String requestFirstLine, BaseHttpRequest baseHttpRequest) {
-        baseHttpRequest.setMethod(requestFirstLine.split("\\s")[0]);
-        baseHttpRequest.setRequestURL(URLDecoder.decode(
-                requestFirstLine.split("[\\s\\?]")[1],
-                StandardCharsets.UTF_8
-        ));
-    }
-
-    /**
-     * GET parameters (also called URL parameters or query strings) are used when a client, such as a browser,
-     * requests a particular resource from a web server using the HTTP protocol.These parameters are usually name-value pairs, separated by an equals sign =.
-     * For Example: <a href="http://localhost:8080/index.html?name=A&age=2">http://localhost:8080/index.html?name=A&age=2</a> we can see that requestURL is index.html?name=1&age=2
-     * with the query parameter pair name = 1 and age = 2. We have to detach key-value of parameters and set them to request object.
-     *
-     * @param requestFirstLine {@link String}
+     * @param headParser      {@link RequestHeadParser} holding the parsed request line
      * @param baseHttpRequest {@link BaseHttpRequest}
      */
-    private void handlerParamQuery(@NotNull String requestFirstLine, BaseHttpRequest baseHttpRequest) {
-        String fullRequestURL = requestFirstLine.split("\\s")[1];
-        String[] urlQueryParamPair = fullRequestURL.split("\\?");
-        if (urlQueryParamPair.length >= 2) {
-            for (int i = 1; i < urlQueryParamPair.length; i++) {
-                String[] queryParamPairs = urlQueryParamPair[i].split("&");
-                for (String paramPair : queryParamPairs) {
-                    final String[] queryParamPair = paramPair.split("=");
-                    final String key = decode(queryParamPair[0]);
-                    final String value = queryParamPair.length > 1 ? decode(queryParamPair[1]) : null;
-                    baseHttpRequest.getQueryParameters().put(key, value);
-                }
-            }
-        }
-    }
-
-    /**
-     * @param str {@link String}
-     * @return - the newly decoded String
-     */
-    private static String decode(String str) {
-        return URLDecoder.decode(str, StandardCharsets.UTF_8);
-    }
-
-
-    /**
-     * @param inputStream {@link InputStream}
-     * @param allowNewLineWithoutReturn - True if allow new line or else
-     * @return all meta data
-     * @throws CannotParseRequestException - If cannot parse the request
-     */
-    private List<String> parseMetadataLines(InputStream inputStream, boolean allowNewLineWithoutReturn)
-            throws CannotParseRequestException {
-        try {
-            final List<String> metadataLines = new ArrayList<>();
-
-            StringBuilder metadataBuilder = new StringBuilder();
-            boolean wasNewLine = true;
-            int lineNumber = 1;
-            int readBytesCount = 0;
-            int b;
-
-            while ((b = inputStream.read()) >= 0) {
-                readBytesCount++;
-                if (b == '\r') {
-                    // expect new-line
-                    int next = inputStream.read();
-                    if (next < 0 || next == '\n') {
-                        lineNumber++;
-                        if (wasNewLine) {
-                            break;
-                        }
-                        metadataLines.add(metadataBuilder.toString());
-                        if (next < 0) break;
-                        metadataBuilder = new StringBuilder();
-                        wasNewLine = true;
-                    } else {
-                        inputStream.close();
-                        throw new CannotParseRequestException(
-                                String.format("Illegal character after return on line %d.", lineNumber)
-                        );
-                    }
-                } else if (b == '\n') {
-                    if (!allowNewLineWithoutReturn) {
-                        throw new CannotParseRequestException(
-                                String.format("Illegal new-line character without preceding return on line %d.", lineNumber)
-                        );
-                    }
-
-                    // unexpected, but let's accept new-line without returns
-                    lineNumber++;
-                    if (wasNewLine) {
-                        break;
-                    }
-                    metadataLines.add(metadataBuilder.toString());
-                    metadataBuilder = new StringBuilder();
-                    wasNewLine = true;
-                } else {
-                    metadataBuilder.append((char) b);
-                    wasNewLine = false;
-                }
-            }
-
-            if (metadataBuilder.length() > 0) {
-                metadataLines.add(metadataBuilder.toString());
-            }
-
-            if (readBytesCount < 2) {
-                throw new CannotParseRequestException("Request is empty");
-            }
-
-//            if (this.showRequestLog) {
-//                this.loggingService.info(String.join("\n", metadataLines));
-//            }
-            return metadataLines;
-        } catch (IOException ex) {
-            throw new CannotParseRequestException(ex.getMessage(), ex);
-        }
+    private void handlerMethodAndURL(RequestHeadParser headParser, BaseHttpRequest baseHttpRequest) {
+        baseHttpRequest.setMethod(headParser.getMethod());
+        baseHttpRequest.setRequestURL(UrlDecoding.decode(headParser.getPath()));
+        final String protocol = headParser.getProtocol();
+        baseHttpRequest.setProtocol(protocol != null ? protocol : HTTP_1_0);
     }
 
-
     /**
      * Run {@link RequestProcessor} first
      * @return - The order of {@link RequestProcessor} in {@link RequestHandler} implements
@@ -5,39 +5,71 @@ import org.ioc.stereotype.PostConstruct;
 import org.ioc.stereotype.Service;
 import org.nampython.base.api.BaseHttpRequest;
 import org.nampython.base.api.BaseHttpResponse;
+import org.nampython.base.api.BaseHttpResponseImpl;
+import org.nampython.base.api.ContentEncoding;
+import org.nampython.base.api.HttpDateClock;
 import org.nampython.base.api.HttpStatus;
 import org.nampython.config.ConfigCenter;
 import org.nampython.config.ConfigValue;
 import org.nampython.core.*;
+import org.nampython.core.cache.CachedResource;
+import org.nampython.core.cache.ResourceResolutionCache;
+import org.nampython.core.cache.ResourceWatcher;
+import org.nampython.core.cache.StaticResourceCache;
 import org.nampython.support.PathUtil;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.Deflater;
 
 /**
  *  This class is a part of {@link RequestHandler}. The responsible for this class is to find suitable resource to back client.
  */
 @Service
 public class ResourceHandler implements RequestHandler {
-    private static final String RESOURCE_NOT_FOUND_FORMAT = "Resource \"%s\" not found!";
+    private static final int COPY_BUFFER_SIZE = 8192;
+    private static final String PRECOMPRESSED_SUFFIX = ".gz";
+    private static final String METHOD_GET = "GET";
+    private static final String METHOD_HEAD = "HEAD";
+    private static final String MULTIPART_BYTERANGES = "multipart/byteranges; boundary=";
     private final ConfigCenter configCenter;
-    private final TikaBase tikaBase;
+    private final MediaTypeRegistry mediaTypeRegistry;
+    private final StaticResourceCache staticResourceCache;
+    private final CompressionPolicy compressionPolicy;
+    private final ResourceResolutionCache resourceResolutionCache;
+    private final ResourceWatcher resourceWatcher;
+    private final BufferPool bufferPool;
     private Map<String, String> mediaTypeCacheMap;
     private String pathToAssetsFormat;
     private String pathToWebappsFormat;
-    private final List<String> appNames;
+    private final Set<String> appNames;
+    private String mainAppName;
+    private long fileTransferThreshold;
 
     @Autowired
-    public ResourceHandler(ConfigCenter configCenter, TikaBase tikaBase) {
+    public ResourceHandler(ConfigCenter configCenter, MediaTypeRegistry mediaTypeRegistry, StaticResourceCache staticResourceCache,
+                           CompressionPolicy compressionPolicy, ResourceResolutionCache resourceResolutionCache,
+                           ResourceWatcher resourceWatcher, BufferPool bufferPool) {
         this.configCenter = configCenter;
-        this.tikaBase = tikaBase;
-        this.appNames = new ArrayList<>();
+        this.mediaTypeRegistry = mediaTypeRegistry;
+        this.staticResourceCache = staticResourceCache;
+        this.compressionPolicy = compressionPolicy;
+        this.resourceResolutionCache = resourceResolutionCache;
+        this.resourceWatcher = resourceWatcher;
+        this.bufferPool = bufferPool;
+        this.appNames = new HashSet<>();
     }
 
     @PostConstruct
     public void initialize() {
-        this.appNames.addAll(List.of(this.configCenter.getConfigParamString(ConfigValue.MAIN_APP_JAR_NAME)));
+        this.mainAppName = this.configCenter.getConfigParamString(ConfigValue.MAIN_APP_JAR_NAME);
+        this.appNames.add(this.mainAppName);
         this.initDirectories();
     }
 
@@ -47,6 +79,7 @@ public class ResourceHandler implements RequestHandler {
     @Override
     public void init() {
         this.mediaTypeCacheMap = CachingExpressingParser.parseExpression(this.configCenter.getConfigValue(ConfigValue.RESOURCE_CACHING_EXPRESSION));
+        this.fileTransferThreshold = this.configCenter.getConfigValue(ConfigValue.FILE_TRANSFER_THRESHOLD_BYTES, int.class);
     }
 
     /**
@@ -60,36 +93,406 @@ public class ResourceHandler implements RequestHandler {
     public boolean handleRequest(InputStream inputStream, OutputStream outputStream, RequestHandlerShareData sharedData) throws IOException {
         final BaseHttpRequest baseHttpRequest = sharedData.getObject(RequestHandlerShareData.HTTP_REQUEST, BaseHttpRequest.class);
         final BaseHttpResponse baseHttpResponse = sharedData.getObject(RequestHandlerShareData.HTTP_RESPONSE, BaseHttpResponse.class);
+        final File resource = this.locateResource(baseHttpRequest.getRequestURL());
+        if (resource == null) {
+            return false;
+        }
         try {
-            final File resource = this.locateResource(baseHttpRequest.getRequestURL());
-            try (final FileInputStream fileInputStream = new FileInputStream(resource)) {
-                this.handleResourceFoundResponse(baseHttpRequest, baseHttpResponse, resource, fileInputStream.available());
-                outputStream.write(baseHttpResponse.getBytes());
-                this.transferStream(fileInputStream, outputStream);
+            final ContentEncoding contentEncoding = this.compressionPolicy.negotiate(
+                    baseHttpRequest.getHeader(CompressionPolicy.ACCEPT_ENCODING_HEADER_NAME));
+            if (this.staticResourceCache.isEnabled()
+                    && this.handleCachedResource(resource, contentEncoding, baseHttpRequest, baseHttpResponse, outputStream, sharedData)) {
+                return true;
+            }
+            final String mediaType = this.mediaTypeRegistry.detect(resource);
+            final long resourceLength = resource.length();
+            final long resourceLastModified = resource.lastModified();
+            final List<ByteRange> ranges = this.selectRanges(baseHttpRequest, resourceLength,
+                    ResourceValidators.strongETag(resourceLastModified, resourceLength, null), resourceLastModified);
+            File body = resource;
+            ContentEncoding bodyEncoding = null;
+            if (ranges == null && contentEncoding == ContentEncoding.GZIP && this.compressionPolicy.isCompressible(mediaType, resourceLength)) {
+                final File precompressed = this.findPrecompressed(resource);
+                if (precompressed != null) {
+                    body = precompressed;
+                    bodyEncoding = ContentEncoding.GZIP;
+                }
+            }
+            final long lastModified = body.lastModified();
+            final String etag = ResourceValidators.strongETag(lastModified, body.length(), bodyEncoding);
+            if (ResourceValidators.isNotModified(baseHttpRequest, etag, lastModified)) {
+                this.writeNotModified(baseHttpRequest, baseHttpResponse, outputStream, mediaType, bodyEncoding, resourceLength, etag, lastModified);
+                return true;
+            }
+            if (ranges != null) {
+                try (FileChannel fileChannel = FileChannel.open(resource.toPath(), StandardOpenOption.READ)) {
+                    this.writePartialContent(baseHttpRequest, baseHttpResponse, outputStream, mediaType, resourceLength, etag, lastModified,
+                            ranges, range -> this.writeFileRange(resource, fileChannel, range, outputStream));
+                }
+                return true;
+            }
+            try (final FileInputStream fileInputStream = new FileInputStream(body)) {
+                final long fileSize = fileInputStream.getChannel().size();
+                this.handleResourceFoundResponse(baseHttpRequest, baseHttpResponse, mediaType, bodyEncoding, fileSize, etag, lastModified);
+                outputStream.write(baseHttpResponse.getHeaderBytes());
+                if (METHOD_HEAD.equals(baseHttpRequest.getMethod())) {
+                    return true;
+                }
+                if (!this.transferFile(body, 0, fileSize, outputStream)) {
+                    this.transferStream(fileInputStream, outputStream);
+                }
             }
             return true;
-        } catch (ResourceNotFoundException ignored) {
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            this.resourceResolutionCache.invalidate(baseHttpRequest.getRequestURL());
             return false;
         }
     }
 
     /**
-     * Looks for a resource in the webapps or in the assets directory.
+     * Serves the file from memory, a file missing from the cache is read into it if it is small enough.
+     * The header section prepared with the entry is written as it is unless the request or an earlier handler
+     * changed the headers of the response. A HEAD request gets the same headers, Content-Length included, without the body.
+     *
+     * @param resource        - the resolved file.
+     * @param contentEncoding - encoding accepted by the client or null.
+     * @param request         - current request.
+     * @param response        - current response, holding the Connection header.
+     * @param outputStream    - response stream.
+     * @param sharedData      - data of the current request.
+     * @return - false if the file is too big to be cached.
+     * @throws IOException - if the file cannot be read or the response cannot be written.
+     */
+    private boolean handleCachedResource(File resource, ContentEncoding contentEncoding, BaseHttpRequest request, BaseHttpResponse response,
+                                         OutputStream outputStream, RequestHandlerShareData sharedData) throws IOException {
+        CachedResource cachedResource = this.staticResourceCache.get(resource);
+        if (cachedResource == null) {
+            cachedResource = this.loadResource(resource, this.mediaTypeRegistry.detect(resource), null);
+            if (cachedResource == null) {
+                return false;
+            }
+            this.staticResourceCache.put(resource, cachedResource);
+        }
+        final List<ByteRange> ranges = this.selectRanges(request, cachedResource.getLength(), cachedResource.getETag(),
+                cachedResource.getLastModified());
+        if (ranges == null && contentEncoding != null
+                && this.compressionPolicy.isCompressible(cachedResource.getMediaType(), cachedResource.getLength())) {
+            cachedResource = this.findEncodedResource(resource, cachedResource, contentEncoding);
+        }
+        if (ResourceValidators.isNotModified(request, cachedResource.getETag(), cachedResource.getLastModified())) {
+            this.writeNotModified(request, response, outputStream, cachedResource.getMediaType(), cachedResource.getContentEncoding(),
+                    cachedResource.getLength(), cachedResource.getETag(), cachedResource.getLastModified());
+            return true;
+        }
+        if (ranges != null) {
+            final ByteBuffer content = cachedResource.getContent();
+            this.writePartialContent(request, response, outputStream, cachedResource.getMediaType(), cachedResource.getLength(),
+                    cachedResource.getETag(), cachedResource.getLastModified(), ranges,
+                    range -> this.writeBuffers(outputStream, content.duplicate()
+                            .limit((int) range.getEnd() + 1)
+                            .position((int) range.getStart())));
+            return true;
+        }
+        final boolean headersOnly = METHOD_HEAD.equals(request.getMethod());
+        if (request.getHeader(RequestProcessor.CACHE_CONTROL_HEADER_NAME) == null
+                && response.getHeaders().size() == 1 && response.getHeaders().containsKey(RequestProcessor.CONNECTION_HEADER_NAME)) {
+            final boolean keepAlive = Boolean.TRUE.equals(sharedData.getObject(RequestHandlerShareData.KEEP_ALIVE));
+            final ByteBuffer headers = cachedResource.getHeaders(keepAlive);
+            final ByteBuffer dateLine = ByteBuffer.wrap(HttpDateClock.getDateLineAndEnd());
+            if (headersOnly) {
+                this.writeBuffers(outputStream, headers, dateLine);
+            } else {
+                this.writeBuffers(outputStream, headers, dateLine, cachedResource.getContent());
+            }
+        } else {
+            this.populateResponse(request.getHeader(RequestProcessor.CACHE_CONTROL_HEADER_NAME), response, cachedResource.getMediaType(),
+                    cachedResource.getContentEncoding(), cachedResource.getLength(), cachedResource.getETag(), cachedResource.getLastModified());
+            outputStream.write(response.getHeaderBytes());
+            if (!headersOnly) {
+                this.writeBuffers(outputStream, cachedResource.getContent());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks up the variant of the file in the requested encoding, building it on a miss: a gzip request is served
+     * from the precompressed file next to the resource when there is one, otherwise the cached content is compressed
+     * once with the best compression. When compressing does not make the body smaller the plain resource is kept
+     * as the variant, so it is not tried again on every request.
+     *
+     * @param resource        - the resolved file.
+     * @param identity        - the cached plain response of the file.
+     * @param contentEncoding - encoding accepted by the client.
+     * @return - the response to write.
+     * @throws IOException - if the precompressed file cannot be read.
+     */
+    private CachedResource findEncodedResource(File resource, CachedResource identity, ContentEncoding contentEncoding) throws IOException {
+        CachedResource encoded = this.staticResourceCache.get(resource, contentEncoding);
+        if (encoded != null) {
+            return encoded;
+        }
+        final File precompressed = contentEncoding == ContentEncoding.GZIP ? this.findPrecompressed(resource) : null;
+        if (precompressed != null) {
+            encoded = this.loadResource(precompressed, identity.getMediaType(), ContentEncoding.GZIP);
+        }
+        if (encoded == null) {
+            final ByteBuffer content = ByteBuffer.wrap(contentEncoding.encode(identity.getContent(), Deflater.BEST_COMPRESSION));
+            encoded = content.remaining() >= identity.getLength()
+                    ? identity
+                    : this.createResource(resource, identity.getMediaType(), contentEncoding, identity.getLastModified(),
+                    identity.getSourceLength(), content);
+        }
+        this.staticResourceCache.put(resource, contentEncoding, encoded);
+        return encoded;
+    }
+
+    /**
+     * @param source          - the file to read.
+     * @param mediaType       - media type of the requested file.
+     * @param contentEncoding - encoding of the content of the source or null.
+     * @return - the file with its responses ready to write, null if it is too big for the cache.
+     * @throws IOException - if the file cannot be read.
+     */
+    private CachedResource loadResource(File source, String mediaType, ContentEncoding contentEncoding) throws IOException {
+        final long lastModified = source.lastModified();
+        try (FileChannel fileChannel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            final long length = fileChannel.size();
+            if (!this.staticResourceCache.isCacheable(length)) {
+                return null;
+            }
+            final ByteBuffer content = ByteBuffer.allocateDirect((int) length);
+            while (content.hasRemaining() && fileChannel.read(content) >= 0) {
+            }
+            if (content.hasRemaining()) {
+                return null;
+            }
+            content.flip();
+            return this.createResource(source, mediaType, contentEncoding, lastModified, length, content);
+        }
+    }
+
+    private CachedResource createResource(File source, String mediaType, ContentEncoding contentEncoding, long lastModified,
+                                          long sourceLength, ByteBuffer content) {
+        final long length = content.remaining();
+        final String etag = ResourceValidators.strongETag(lastModified, sourceLength, contentEncoding);
+        return new CachedResource(source, mediaType, contentEncoding, lastModified, sourceLength,
+                this.serializeHeaders(mediaType, contentEncoding, length, etag, lastModified, true),
+                this.serializeHeaders(mediaType, contentEncoding, length, etag, lastModified, false),
+                content);
+    }
+
+    /**
+     * @return - the header section of a response for a request without Cache-Control header, without the Date
+     * header and the empty line which are added when it is sent.
+     */
+    private byte[] serializeHeaders(String mediaType, ContentEncoding contentEncoding, long length, String etag, long lastModified,
+                                    boolean keepAlive) {
+        final BaseHttpResponseImpl response = new BaseHttpResponseImpl();
+        response.addHeader(RequestProcessor.CONNECTION_HEADER_NAME, keepAlive ? RequestProcessor.CONNECTION_KEEP_ALIVE : RequestProcessor.CONNECTION_CLOSE);
+        this.populateResponse(null, response, mediaType, contentEncoding, length, etag, lastModified);
+        return response.getHeaderBytesWithoutDate();
+    }
+
+    /**
+     * Answers a conditional request whose representation the client already holds, without reading the file.
+     * The 304 carries the validators and the headers a cache would update, but neither body nor Content-Length.
+     *
+     * @param request         - current request.
+     * @param response        - current response, holding the Connection header.
+     * @param outputStream    - response stream.
+     * @param mediaType       - media type of the file.
+     * @param contentEncoding - encoding of the selected representation or null.
+     * @param length          - size of the selected representation.
+     * @param etag            - entity tag of the selected representation.
+     * @param lastModified    - modification time of the file.
+     * @throws IOException - if the response cannot be written.
+     */
+    private void writeNotModified(BaseHttpRequest request, BaseHttpResponse response, OutputStream outputStream, String mediaType,
+                                  ContentEncoding contentEncoding, long length, String etag, long lastModified) throws IOException {
+        response.setStatusCode(HttpStatus.NOT_MODIFIED);
+        this.addValidators(response, etag, lastModified);
+        this.addVary(response, mediaType, contentEncoding, length);
+        this.addCachingHeader(request, response, mediaType);
+        outputStream.write(response.getHeaderBytes());
+    }
+
+    /**
+     * Ranges are served only for GET requests, from the plain file, so a Range header takes precedence over
+     * content encoding.
+     *
+     * @param request      - current request.
+     * @param length       - size of the file.
+     * @param etag         - entity tag of the plain file.
+     * @param lastModified - modification time of the file.
+     * @return - the requested ranges, empty if none can be satisfied, or null if the whole file is sent.
+     */
+    private List<ByteRange> selectRanges(BaseHttpRequest request, long length, String etag, long lastModified) {
+        final String rangeHeader = request.getHeader(ByteRange.RANGE_HEADER_NAME);
+        if (rangeHeader == null || !METHOD_GET.equals(request.getMethod())) {
+            return null;
+        }
+        final List<ByteRange> ranges = ByteRange.parse(rangeHeader, length);
+        if (ranges == null || !ResourceValidators.isRangeApplicable(request, etag, lastModified)) {
+            return null;
+        }
+        return ranges;
+    }
+
+    /**
+     * Writes a 206 response, a single range as the body itself and several ranges as a multipart/byteranges body.
+     * A request none of whose ranges overlap the file gets a 416.
+     *
+     * @param request      - current request.
+     * @param response     - current response, holding the Connection header.
+     * @param outputStream - response stream.
+     * @param mediaType    - media type of the file.
+     * @param totalLength  - size of the file.
+     * @param etag         - entity tag of the file.
+     * @param lastModified - modification time of the file.
+     * @param ranges       - the ranges to send, in ascending order.
+     * @param rangeWriter  - writes the bytes of a range.
+     * @throws IOException - if the file cannot be read or the response cannot be written.
+     */
+    private void writePartialContent(BaseHttpRequest request, BaseHttpResponse response, OutputStream outputStream, String mediaType,
+                                     long totalLength, String etag, long lastModified, List<ByteRange> ranges,
+                                     RangeWriter rangeWriter) throws IOException {
+        if (ranges.isEmpty()) {
+            response.setStatusCode(HttpStatus.RANGE_NOT_SATISFIABLE);
+            response.addHeader(ByteRange.CONTENT_RANGE_HEADER_NAME, ByteRange.unsatisfiedContentRange(totalLength));
+            outputStream.write(response.getHeaderBytes());
+            return;
+        }
+        response.setStatusCode(HttpStatus.PARTIAL_CONTENT);
+        response.addHeader(ByteRange.ACCEPT_RANGES_HEADER_NAME, ByteRange.BYTES_UNIT);
+        this.addVary(response, mediaType, null, totalLength);
+        this.addValidators(response, etag, lastModified);
+        this.addCachingHeader(request, response, mediaType);
+        if (ranges.size() == 1) {
+            final ByteRange range = ranges.get(0);
+            response.addHeader("Content-Type", mediaType);
+            response.addHeader("Content-Length", range.getLength() + "");
+            response.addHeader(ByteRange.CONTENT_RANGE_HEADER_NAME, range.toContentRange(totalLength));
+            outputStream.write(response.getHeaderBytes());
+            rangeWriter.write(range);
+            return;
+        }
+        final String boundary = Long.toHexString(ThreadLocalRandom.current().nextLong() | Long.MIN_VALUE);
+        final byte[][] partHeaders = new byte[ranges.size()][];
+        final byte[] closeDelimiter = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        long contentLength = closeDelimiter.length;
+        for (int i = 0; i < ranges.size(); i++) {
+            partHeaders[i] = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: " + mediaType + "\r\n"
+                    + ByteRange.CONTENT_RANGE_HEADER_NAME + ": " + ranges.get(i).toContentRange(totalLength) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            contentLength += partHeaders[i].length + ranges.get(i).getLength();
+        }
+        response.addHeader("Content-Type", MULTIPART_BYTERANGES + boundary);
+        response.addHeader("Content-Length", contentLength + "");
+        outputStream.write(response.getHeaderBytes());
+        for (int i = 0; i < ranges.size(); i++) {
+            outputStream.write(partHeaders[i]);
+            rangeWriter.write(ranges.get(i));
+        }
+        outputStream.write(closeDelimiter);
+    }
+
+    /**
+     * Sends a range of a file with a positional transfer, or with positional reads when the stream cannot
+     * transfer it, the file is never read from its start.
+     */
+    private void writeFileRange(File resource, FileChannel fileChannel, ByteRange range, OutputStream outputStream) throws IOException {
+        if (this.transferFile(resource, range.getStart(), range.getLength(), outputStream)) {
+            return;
+        }
+        final byte[] chunk = this.bufferPool.lease((int) Math.min(COPY_BUFFER_SIZE, range.getLength()));
+        try {
+            final ByteBuffer buffer = ByteBuffer.wrap(chunk);
+            long position = range.getStart();
+            long remaining = range.getLength();
+            while (remaining > 0) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), remaining));
+                final int read = fileChannel.read(buffer, position);
+                if (read < 0) {
+                    throw new EOFException(String.format("File %s was truncated while it was sent.", resource));
+                }
+                outputStream.write(chunk, 0, read);
+                position += read;
+                remaining -= read;
+            }
+        } finally {
+            this.bufferPool.release(chunk);
+        }
+    }
+
+    /**
+     * A precompressed file is used only while it is at least as new as the resource, so a stale one left behind
+     * after the resource was edited is not served.
+     *
+     * @param resource - the resolved file.
+     * @return - the gzip file next to the resource or null.
+     */
+    private File findPrecompressed(File resource) {
+        final File precompressed = new File(resource.getPath() + PRECOMPRESSED_SUFFIX);
+        if (precompressed.isFile() && precompressed.lastModified() >= resource.lastModified()) {
+            return precompressed;
+        }
+        return null;
+    }
+
+    /**
+     * Copies the buffers through the stream if it cannot send them itself.
+     */
+    private void writeBuffers(OutputStream outputStream, ByteBuffer... buffers) throws IOException {
+        if (outputStream instanceof ByteBufferOutput && ((ByteBufferOutput) outputStream).writeBuffers(buffers)) {
+            return;
+        }
+        final byte[] chunk = this.bufferPool.lease(COPY_BUFFER_SIZE);
+        try {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    final int length = Math.min(chunk.length, buffer.remaining());
+                    buffer.get(chunk, 0, length);
+                    outputStream.write(chunk, 0, length);
+                }
+            }
+        } finally {
+            this.bufferPool.release(chunk);
+        }
+    }
+
+    /**
+     * Looks for a resource in the webapps or in the assets directory, the outcome is remembered by
+     * {@link ResourceResolutionCache} for hits and misses alike.
+     * @param requestURL - path to resource.
+     * @return - file which name matches the request url or null if there is none.
+     */
+    private File locateResource(String requestURL) {
+        final ResourceResolutionCache.Resolution resolution = this.resourceResolutionCache.get(requestURL);
+        if (resolution != null) {
+            return resolution.getFile();
+        }
+        final File file = this.resolveResource(requestURL);
+        this.resourceResolutionCache.put(requestURL, file);
+        return file;
+    }
+
+    /**
      * @param requestURL - path to resource.
-     * @return - file which name matches the request url.
-     * @throws ResourceNotFoundException if the resource file cannot be found.
+     * @return - the file in the webapps directory, else the one in the assets directory, or null.
      */
-    private File locateResource(String requestURL) throws ResourceNotFoundException {
-        final String currentRequestAppName = this.getAppNameForRequest(requestURL);
-        requestURL = requestURL.replaceFirst(Pattern.quote("/" + currentRequestAppName), "");
+    private File resolveResource(String requestURL) {
+        final String firstSegment = getFirstSegment(requestURL);
+        final String currentRequestAppName = this.getAppNameForRequest(firstSegment);
+        if (currentRequestAppName.equals(firstSegment)) {
+            requestURL = requestURL.substring(firstSegment.length() + 1);
+        }
         File file = new File(this.createWebappsResourceDir(requestURL, currentRequestAppName));
-        if (!file.exists() || file.isDirectory()) {
+        if (!file.isFile()) {
             file = new File(this.createAssetsResourceDir(requestURL, currentRequestAppName));
         }
-        if (file.exists() && !file.isDirectory()) {
-            return file;
-        }
-        throw new ResourceNotFoundException(String.format(RESOURCE_NOT_FOUND_FORMAT, requestURL));
+        return file.isFile() ? file : null;
     }
 
     /**
@@ -118,25 +521,22 @@ public class ResourceHandler implements RequestHandler {
     }
 
     /**
-     * @param requestURL
-     * @return
+     * The application is named by the first segment of the url, a url of no known application belongs to the
+     * main one.
+     *
+     * @param firstSegment - first segment of the url.
+     * @return - the application name.
      */
-    private String getAppNameForRequest(String requestURL) {
-        Iterator<String> appNames = this.appNames.iterator();
-        String appName;
-        do {
-            if (!appNames.hasNext()) {
-                return this.configCenter.getConfigValue(ConfigValue.MAIN_APP_JAR_NAME);
-            }
-            appName = appNames.next();
-        } while (!requestURL.startsWith("/" + appName));
-        return appName;
-//        for (String appName : this.appNames) {
-//            if (requestURL.startsWith("/" + appName)) {
-//                return appName;
-//            }
-//        }
-//        return this.configCenter.getConfigValue(ConfigValue.MAIN_APP_JAR_NAME);
+    private String getAppNameForRequest(String firstSegment) {
+        return this.appNames.contains(firstSegment) ? firstSegment : this.mainAppName;
+    }
+
+    private static String getFirstSegment(String requestURL) {
+        if (!requestURL.startsWith("/")) {
+            return "";
+        }
+        final int segmentEnd = requestURL.indexOf('/', 1);
+        return requestURL.substring(1, segmentEnd < 0 ? requestURL.length() : segmentEnd);
     }
 
     /**
@@ -146,6 +546,9 @@ public class ResourceHandler implements RequestHandler {
         final String workingDir = this.configCenter.getConfigValue(ConfigValue.JAVACHE_WORKING_DIRECTORY);
         this.getPathToAssets(workingDir);
         this.getPathToWebApps(workingDir);
+        this.resourceWatcher.watch(
+                new File(PathUtil.appendPath(workingDir, this.configCenter.getConfigValue(ConfigValue.ASSETS_DIR_NAME))).toPath(),
+                new File(PathUtil.appendPath(workingDir, this.configCenter.getConfigValue(ConfigValue.WEB_APPS_DIR_NAME))).toPath());
     }
 
     /**
@@ -175,15 +578,39 @@ public class ResourceHandler implements RequestHandler {
     }
 
     /**
+     * Files from {@link ConfigValue#FILE_TRANSFER_THRESHOLD_BYTES} up are handed to the transport when its stream
+     * supports it, smaller ones are cheaper to copy than to set up a transfer for.
+     *
+     * @param resource     - the file.
+     * @param position     - position of the first byte to send.
+     * @param count        - number of bytes to send, announced in the Content-Length header.
+     * @param outputStream - response stream, the headers are already written to it.
+     * @return - false if the file has to be copied through the stream.
+     * @throws IOException - if the transfer failed.
+     */
+    private boolean transferFile(File resource, long position, long count, OutputStream outputStream) throws IOException {
+        if (this.fileTransferThreshold < 0 || count < this.fileTransferThreshold || !(outputStream instanceof FileTransferOutput)) {
+            return false;
+        }
+        return ((FileTransferOutput) outputStream).transferFile(resource.toPath(), position, count);
+    }
+
+    /**
+     * Copies the stream through a pooled buffer instead of the one {@link InputStream#transferTo} allocates.
+     *
      * @param inputStream
      * @param outputStream
      * @throws IOException
      */
     private void transferStream(InputStream inputStream, OutputStream outputStream) throws IOException {
-        final byte[] buffer = new byte[2048];
-        int read;
-        while ((read = inputStream.read(buffer)) != -1) {
-            outputStream.write(buffer, 0, read);
+        final byte[] chunk = this.bufferPool.lease(COPY_BUFFER_SIZE);
+        try {
+            int read;
+            while ((read = inputStream.read(chunk, 0, chunk.length)) >= 0) {
+                outputStream.write(chunk, 0, read);
+            }
+        } finally {
+            this.bufferPool.release(chunk);
         }
     }
 
@@ -199,17 +626,53 @@ public class ResourceHandler implements RequestHandler {
     /**
      * Populates {@link BaseHttpResponse} with found resource.
      * Adds necessary headers that are required in order to transfer a resource using the HTTP protocol.
-     * In this case I use Tika library that is used for document type detection and content extraction from various file formats.
-     * To know more about Tika library, accesses via link <a href="https://tika.apache.org/">https://tika.apache.org/</a>
-     * to research and know more about this library
+     * The media type comes from {@link MediaTypeRegistry}, which knows the common extensions and falls back to
+     * the Tika library (<a href="https://tika.apache.org/">https://tika.apache.org/</a>) for the others.
+     */
+    private void handleResourceFoundResponse(BaseHttpRequest request, BaseHttpResponse response, String mediaType,
+                                             ContentEncoding contentEncoding, long fileSize, String etag, long lastModified) {
+        this.populateResponse(request.getHeader(RequestProcessor.CACHE_CONTROL_HEADER_NAME), response, mediaType, contentEncoding,
+                fileSize, etag, lastModified);
+    }
+
+    /**
+     * Vary is sent for every compressible body, also when it goes out as it is, so shared caches keep the
+     * encodings apart.
+     *
+     * @param requestCacheControl - Cache-Control header of the request or null.
+     * @param response            - response to populate.
+     * @param mediaType           - media type of the file.
+     * @param contentEncoding     - encoding of the body or null.
+     * @param fileSize            - size of the body.
+     * @param etag                - entity tag of the body.
+     * @param lastModified        - modification time of the file.
      */
-    private void handleResourceFoundResponse(BaseHttpRequest request, BaseHttpResponse response, File resourceFile, long fileSize) throws IOException {
-        final String mediaType = this.tikaBase.detect(resourceFile);
+    private void populateResponse(String requestCacheControl, BaseHttpResponse response, String mediaType,
+                                  ContentEncoding contentEncoding, long fileSize, String etag, long lastModified) {
         response.setStatusCode(HttpStatus.OK);
         response.addHeader("Content-Type", mediaType);
         response.addHeader("Content-Length", fileSize + "");
         response.addHeader("Content-Disposition", "inline");
-        this.addCachingHeader(request, response, mediaType);
+        response.addHeader(ByteRange.ACCEPT_RANGES_HEADER_NAME, ByteRange.BYTES_UNIT);
+        if (contentEncoding != null) {
+            response.addHeader(CompressionPolicy.CONTENT_ENCODING_HEADER_NAME, contentEncoding.getToken());
+        }
+        this.addVary(response, mediaType, contentEncoding, fileSize);
+        this.addValidators(response, etag, lastModified);
+        this.addCachingHeader(requestCacheControl, response, mediaType);
+    }
+
+    private void addVary(BaseHttpResponse response, String mediaType, ContentEncoding contentEncoding, long length) {
+        if (contentEncoding != null || this.compressionPolicy.isCompressible(mediaType, length)) {
+            CompressionPolicy.varyOnAcceptEncoding(response);
+        }
+    }
+
+    private void addValidators(BaseHttpResponse response, String etag, long lastModified) {
+        response.addHeader(ResourceValidators.ETAG_HEADER_NAME, etag);
+        if (lastModified > 0) {
+            response.addHeader(ResourceValidators.LAST_MODIFIED_HEADER_NAME, ResourceValidators.formatHttpDate(lastModified));
+        }
     }
 
     /**
@@ -226,10 +689,19 @@ public class ResourceHandler implements RequestHandler {
      * @param fileMediaType - current file media type.
      */
     public void addCachingHeader(BaseHttpRequest request, BaseHttpResponse response, String fileMediaType) {
+        this.addCachingHeader(request.getHeader(RequestProcessor.CACHE_CONTROL_HEADER_NAME), response, fileMediaType);
+    }
+
+    /**
+     * @param requestCacheControl - Cache-Control header of the request or null.
+     * @param response            - current response.
+     * @param fileMediaType       - current file media type.
+     */
+    private void addCachingHeader(String requestCacheControl, BaseHttpResponse response, String fileMediaType) {
         if (!this.isCachingEnabled() || this.hasCacheHeader(response)) {
             return;
         }
-        String responseCacheControl = request.getHeader(RequestProcessor.CACHE_CONTROL_HEADER_NAME);
+        String responseCacheControl = requestCacheControl;
         if (responseCacheControl == null && this.mediaTypeCacheMap.containsKey(fileMediaType)) {
             responseCacheControl = this.mediaTypeCacheMap.get(fileMediaType);
         }
@@ -254,6 +726,14 @@ public class ResourceHandler implements RequestHandler {
     }
 
 
+    /**
+     * Writes the bytes of one range of a partial response.
+     */
+    @FunctionalInterface
+    private interface RangeWriter {
+        void write(ByteRange range) throws IOException;
+    }
+
     /**
      * "image/png, image/gif, image/jpeg @ max-age=120 & text/css @ max-age=84600, public & application/javascript @ max-age=7200";
      * Cache-control is an HTTP header used to specify browser caching policies in both client requests and server responses.
@@ -0,0 +1,36 @@
+package org.nampython.core.http2;
+
+/**
+ * One header of an HTTP/2 header block, the name is lower case.
+ */
+public class HeaderField {
+    /**
+     * Overhead of an entry in the dynamic table (RFC 7541, section 4.1).
+     */
+    static final int ENTRY_OVERHEAD = 32;
+
+    private final String name;
+    private final String value;
+
+    public HeaderField(String name, String value) {
+        this.name = name;
+        this.value = value;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    public String getValue() {
+        return this.value;
+    }
+
+    int size() {
+        return this.name.length() + this.value.length() + ENTRY_OVERHEAD;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + ": " + this.value;
+    }
+}
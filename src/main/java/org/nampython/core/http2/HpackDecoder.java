@@ -0,0 +1,172 @@
+package org.nampython.core.http2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the header blocks of one connection (RFC 7541). The dynamic table is shared by all header blocks
+ * of the connection, so the blocks have to be decoded in the order they arrive, on the thread reading the frames.
+ * Strings are decoded as ISO-8859-1, so every octet is kept as one char.
+ */
+class HpackDecoder {
+    private final int maxTableSize;
+    private final int maxHeaderListSize;
+    private HeaderField[] dynamicTable;
+    private int head;
+    private int count;
+    private int tableSize;
+    private int currentMaxTableSize;
+    private byte[] data;
+    private int position;
+    private int end;
+
+    /**
+     * @param maxTableSize      - SETTINGS_HEADER_TABLE_SIZE announced to the client.
+     * @param maxHeaderListSize - max decoded size of one header block.
+     */
+    HpackDecoder(int maxTableSize, int maxHeaderListSize) {
+        this.maxTableSize = maxTableSize;
+        this.maxHeaderListSize = maxHeaderListSize;
+        this.currentMaxTableSize = maxTableSize;
+        this.dynamicTable = new HeaderField[16];
+    }
+
+    /**
+     * @param block  - complete header block.
+     * @param length - length of the block.
+     * @return - the headers in order.
+     * @throws HpackException - if the block is not valid.
+     */
+    List<HeaderField> decode(byte[] block, int length) throws HpackException {
+        this.data = block;
+        this.position = 0;
+        this.end = length;
+        final List<HeaderField> fields = new ArrayList<>();
+        int headerListSize = 0;
+        boolean fieldSeen = false;
+        while (this.position < this.end) {
+            final int first = this.data[this.position] & 0xff;
+            final HeaderField field;
+            if ((first & 0x80) != 0) {
+                field = this.getField(this.readInteger(7));
+            } else if ((first & 0xc0) == 0x40) {
+                field = this.readLiteral(6);
+                this.add(field);
+            } else if ((first & 0xe0) == 0x20) {
+                if (fieldSeen) {
+                    throw new HpackException("Dynamic table size update after a header.");
+                }
+                this.resize(this.readInteger(5));
+                continue;
+            } else {
+                field = this.readLiteral(4);
+            }
+            fieldSeen = true;
+            headerListSize += field.size();
+            if (headerListSize > this.maxHeaderListSize) {
+                throw new HpackException("Header list too big.");
+            }
+            fields.add(field);
+        }
+        this.data = null;
+        return fields;
+    }
+
+    private HeaderField readLiteral(int prefixBits) throws HpackException {
+        final int nameIndex = this.readInteger(prefixBits);
+        final String name = nameIndex == 0 ? this.readString() : this.getField(nameIndex).getName();
+        return new HeaderField(name, this.readString());
+    }
+
+    private int readInteger(int prefixBits) throws HpackException {
+        final int mask = (1 << prefixBits) - 1;
+        int value = this.data[this.position++] & mask;
+        if (value < mask) {
+            return value;
+        }
+        int shift = 0;
+        int next;
+        do {
+            if (this.position >= this.end || shift > 21) {
+                throw new HpackException("Invalid integer.");
+            }
+            next = this.data[this.position++] & 0xff;
+            value += (next & 0x7f) << shift;
+            shift += 7;
+        } while ((next & 0x80) != 0);
+        if (value < 0) {
+            throw new HpackException("Invalid integer.");
+        }
+        return value;
+    }
+
+    private String readString() throws HpackException {
+        if (this.position >= this.end) {
+            throw new HpackException("Missing string.");
+        }
+        final boolean huffman = (this.data[this.position] & 0x80) != 0;
+        final int length = this.readInteger(7);
+        if (length > this.end - this.position) {
+            throw new HpackException("String longer than the header block.");
+        }
+        final String value = huffman
+                ? new String(HpackHuffman.decode(this.data, this.position, length), StandardCharsets.ISO_8859_1)
+                : new String(this.data, this.position, length, StandardCharsets.ISO_8859_1);
+        this.position += length;
+        return value;
+    }
+
+    private HeaderField getField(int index) throws HpackException {
+        if (index <= 0) {
+            throw new HpackException("Invalid index " + index + ".");
+        }
+        if (index <= HpackStaticTable.length()) {
+            return HpackStaticTable.ENTRIES[index];
+        }
+        final int dynamicIndex = index - HpackStaticTable.length() - 1;
+        if (dynamicIndex >= this.count) {
+            throw new HpackException("Invalid index " + index + ".");
+        }
+        return this.dynamicTable[Math.floorMod(this.head - 1 - dynamicIndex, this.dynamicTable.length)];
+    }
+
+    private void add(HeaderField field) {
+        this.evict(this.currentMaxTableSize - field.size());
+        if (field.size() > this.currentMaxTableSize) {
+            return;
+        }
+        if (this.count == this.dynamicTable.length) {
+            final HeaderField[] grown = new HeaderField[this.dynamicTable.length * 2];
+            for (int i = 0; i < this.count; i++) {
+                grown[this.count - 1 - i] = this.dynamicTable[Math.floorMod(this.head - 1 - i, this.dynamicTable.length)];
+            }
+            this.dynamicTable = grown;
+            this.head = this.count;
+        }
+        this.dynamicTable[this.head] = field;
+        this.head = (this.head + 1) % this.dynamicTable.length;
+        this.count++;
+        this.tableSize += field.size();
+    }
+
+    private void resize(int newMaxTableSize) throws HpackException {
+        if (newMaxTableSize > this.maxTableSize) {
+            throw new HpackException("Dynamic table size over the announced limit.");
+        }
+        this.currentMaxTableSize = newMaxTableSize;
+        this.evict(newMaxTableSize);
+    }
+
+    /**
+     * Removes the oldest entries until the table is not bigger than maxSize.
+     */
+    private void evict(int maxSize) {
+        while (this.count > 0 && this.tableSize > maxSize) {
+            final int oldest = Math.floorMod(this.head - this.count, this.dynamicTable.length);
+            this.tableSize -= this.dynamicTable[oldest].size();
+            this.dynamicTable[oldest] = null;
+            this.count--;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.nampython.core.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes response header blocks. Headers are never added to the dynamic table, so the encoder has no state
+ * and blocks of different streams can be encoded on any thread in any order; the static table and Huffman coding
+ * already compress the common response headers.
+ */
+final class HpackEncoder {
+    private HpackEncoder() {
+    }
+
+    /**
+     * @param fields - headers with lower case names, pseudo headers first.
+     * @return - the header block.
+     */
+    static byte[] encode(List<HeaderField> fields) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(fields.size() * 16);
+        for (HeaderField field : fields) {
+            final int index = HpackStaticTable.indexOf(field.getName(), field.getValue());
+            if (index > 0) {
+                writeInteger(out, 0x80, 7, index);
+                continue;
+            }
+            final int nameIndex = HpackStaticTable.indexOfName(field.getName());
+            writeInteger(out, 0x00, 4, nameIndex);
+            if (nameIndex == 0) {
+                writeString(out, field.getName());
+            }
+            writeString(out, field.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeInteger(ByteArrayOutputStream out, int firstByte, int prefixBits, int value) {
+        final int mask = (1 << prefixBits) - 1;
+        if (value < mask) {
+            out.write(firstByte | value);
+            return;
+        }
+        out.write(firstByte | mask);
+        value -= mask;
+        while (value >= 0x80) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        final int huffmanLength = HpackHuffman.encodedLength(bytes);
+        if (huffmanLength < bytes.length) {
+            writeInteger(out, 0x80, 7, huffmanLength);
+            HpackHuffman.encode(bytes, out);
+        } else {
+            writeInteger(out, 0x00, 7, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+}
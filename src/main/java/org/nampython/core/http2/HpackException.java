@@ -0,0 +1,12 @@
+package org.nampython.core.http2;
+
+import java.io.IOException;
+
+/**
+ * A header block that cannot be decoded, the connection is closed with COMPRESSION_ERROR.
+ */
+public class HpackException extends IOException {
+    public HpackException(String message) {
+        super(message);
+    }
+}
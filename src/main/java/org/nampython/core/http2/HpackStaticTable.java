@@ -0,0 +1,114 @@
+package org.nampython.core.http2;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Static table of HPACK (RFC 7541, Appendix A), indexes start at 1.
+ */
+final class HpackStaticTable {
+    static final HeaderField[] ENTRIES = {
+            null,
+            new HeaderField(":authority", ""),
+            new HeaderField(":method", "GET"),
+            new HeaderField(":method", "POST"),
+            new HeaderField(":path", "/"),
+            new HeaderField(":path", "/index.html"),
+            new HeaderField(":scheme", "http"),
+            new HeaderField(":scheme", "https"),
+            new HeaderField(":status", "200"),
+            new HeaderField(":status", "204"),
+            new HeaderField(":status", "206"),
+            new HeaderField(":status", "304"),
+            new HeaderField(":status", "400"),
+            new HeaderField(":status", "404"),
+            new HeaderField(":status", "500"),
+            new HeaderField("accept-charset", ""),
+            new HeaderField("accept-encoding", "gzip, deflate"),
+            new HeaderField("accept-language", ""),
+            new HeaderField("accept-ranges", ""),
+            new HeaderField("accept", ""),
+            new HeaderField("access-control-allow-origin", ""),
+            new HeaderField("age", ""),
+            new HeaderField("allow", ""),
+            new HeaderField("authorization", ""),
+            new HeaderField("cache-control", ""),
+            new HeaderField("content-disposition", ""),
+            new HeaderField("content-encoding", ""),
+            new HeaderField("content-language", ""),
+            new HeaderField("content-length", ""),
+            new HeaderField("content-location", ""),
+            new HeaderField("content-range", ""),
+            new HeaderField("content-type", ""),
+            new HeaderField("cookie", ""),
+            new HeaderField("date", ""),
+            new HeaderField("etag", ""),
+            new HeaderField("expect", ""),
+            new HeaderField("expires", ""),
+            new HeaderField("from", ""),
+            new HeaderField("host", ""),
+            new HeaderField("if-match", ""),
+            new HeaderField("if-modified-since", ""),
+            new HeaderField("if-none-match", ""),
+            new HeaderField("if-range", ""),
+            new HeaderField("if-unmodified-since", ""),
+            new HeaderField("last-modified", ""),
+            new HeaderField("link", ""),
+            new HeaderField("location", ""),
+            new HeaderField("max-forwards", ""),
+            new HeaderField("proxy-authenticate", ""),
+            new HeaderField("proxy-authorization", ""),
+            new HeaderField("range", ""),
+            new HeaderField("referer", ""),
+            new HeaderField("refresh", ""),
+            new HeaderField("retry-after", ""),
+            new HeaderField("server", ""),
+            new HeaderField("set-cookie", ""),
+            new HeaderField("strict-transport-security", ""),
+            new HeaderField("transfer-encoding", ""),
+            new HeaderField("user-agent", ""),
+            new HeaderField("vary", ""),
+            new HeaderField("via", ""),
+            new HeaderField("www-authenticate", "")
+    };
+
+    /**
+     * First index of every name.
+     */
+    private static final Map<String, Integer> NAME_INDEXES;
+
+    /**
+     * Index of every name and value pair.
+     */
+    private static final Map<String, Integer> FIELD_INDEXES;
+
+    static {
+        NAME_INDEXES = new HashMap<>();
+        FIELD_INDEXES = new HashMap<>();
+        for (int i = ENTRIES.length - 1; i > 0; i--) {
+            NAME_INDEXES.put(ENTRIES[i].getName(), i);
+            FIELD_INDEXES.put(ENTRIES[i].getName() + '\0' + ENTRIES[i].getValue(), i);
+        }
+    }
+
+    private HpackStaticTable() {
+    }
+
+    static int length() {
+        return ENTRIES.length - 1;
+    }
+
+    /**
+     * @return - the index of the name and value or 0.
+     */
+    static int indexOf(String name, String value) {
+        return FIELD_INDEXES.getOrDefault(name + '\0' + value, 0);
+    }
+
+    /**
+     * @return - the lowest index of the name or 0.
+     */
+    static int indexOfName(String name) {
+        return NAME_INDEXES.getOrDefault(name, 0);
+    }
+}
@@ -0,0 +1,42 @@
+package org.nampython.core.http2;
+
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+/**
+ * HTTP/2 settings of the server, see {@link ConfigValue#HTTP2_ENABLED}.
+ */
+public class Http2Config {
+    /**
+     * ALPN id of HTTP/2 over TLS.
+     */
+    public static final String ALPN_PROTOCOL = "h2";
+
+    private final boolean enabled;
+    private final int maxConcurrentStreams;
+    private final int initialWindowSize;
+    private final int maxRequestSize;
+
+    public Http2Config(ConfigCenter configCenter) {
+        this.enabled = configCenter.getConfigValue(ConfigValue.HTTP2_ENABLED, boolean.class);
+        this.maxConcurrentStreams = configCenter.getConfigValue(ConfigValue.HTTP2_MAX_CONCURRENT_STREAMS, int.class);
+        this.initialWindowSize = Math.max(Http2Frames.DEFAULT_WINDOW_SIZE, configCenter.getConfigValue(ConfigValue.HTTP2_INITIAL_WINDOW_SIZE, int.class));
+        this.maxRequestSize = configCenter.getConfigValue(ConfigValue.MAX_REQUEST_SIZE, int.class);
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public int getMaxConcurrentStreams() {
+        return this.maxConcurrentStreams;
+    }
+
+    public int getInitialWindowSize() {
+        return this.initialWindowSize;
+    }
+
+    public int getMaxRequestSize() {
+        return this.maxRequestSize;
+    }
+}
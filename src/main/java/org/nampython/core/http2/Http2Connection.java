@@ -0,0 +1,775 @@
+package org.nampython.core.http2;
+
+import org.nampython.core.ConnectionDeadline;
+import org.nampython.core.ConnectionPhase;
+import org.nampython.core.ConnectionTracker;
+import org.nampython.core.RequestHandlerChain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Server side of one HTTP/2 connection (RFC 7540).
+ * The frames are read on one thread, pushed by the transport through {@link #onData(byte[], int, int)}: it decodes
+ * the header blocks, collects the request bodies and hands every complete request to the executor as an
+ * {@link Http2Exchange}, so the streams of the connection are handled concurrently.
+ * Responses are sent by the exchanges within the flow control windows of the client, an exchange waits
+ * while a window is exhausted.
+ * An exchange counts against the concurrent streams of the connection until it has finished, even if the client
+ * reset its stream, so resetting streams does not let a client run more exchanges at once. Exchanges of reset
+ * streams still waiting for a worker are dropped, and a client resetting far more streams than it lets complete
+ * gets GOAWAY with ENHANCE_YOUR_CALM (CVE-2023-44487).
+ */
+public class Http2Connection {
+    private static final int HEADER_TABLE_SIZE = 4096;
+    private static final int MAX_HEADER_LIST_SIZE = 64 * 1024;
+    private static final int READ_BUFFER_SIZE = 16384;
+    private static final String STATUS = ":status";
+    private static final String PAYLOAD_TOO_LARGE = "413";
+    /**
+     * Resets by the client tolerated above the number of streams completed on the connection.
+     */
+    private static final int EXCESS_RESETS_ALLOWED = 100;
+
+    private final Http2FrameSink sink;
+    private final RequestHandlerChain requestHandlerChain;
+    private final Executor executor;
+    private final ConnectionTracker connectionTracker;
+    private final ConnectionDeadline deadline;
+    private final Http2Config config;
+    private final HpackDecoder hpackDecoder;
+    private final Map<Integer, Http2Stream> streams;
+    private final ReentrantLock windowLock;
+    private final Condition windowAvailable;
+    private final ByteArrayOutputStream headerBlock;
+    private final AtomicInteger runningExchanges;
+    private final AtomicInteger completedStreams;
+    private int clientResets;
+    private byte[] readBuffer;
+    private int readLength;
+    private boolean prefaceReceived;
+    private int lastStreamId;
+    private int headerBlockStreamId;
+    private boolean headerBlockEndStream;
+    private int connectionReceiveWindow;
+    private int connectionUnacknowledgedBytes;
+    private int connectionSendWindow;
+    private int peerInitialWindowSize;
+    private volatile int peerMaxFrameSize;
+    private volatile boolean goingAway;
+    private volatile boolean closed;
+
+    /**
+     * @param sink                - writes the frames to the client.
+     * @param requestHandlerChain - handlers the requests are run through.
+     * @param executor            - runs the exchanges.
+     * @param connectionTracker   - counts the requests of the server.
+     * @param deadline            - deadline of the connection moved between idle and handler phases, null if the transport does it.
+     * @param config              - HTTP/2 settings of the server.
+     */
+    Http2Connection(Http2FrameSink sink, RequestHandlerChain requestHandlerChain, Executor executor,
+                    ConnectionTracker connectionTracker, ConnectionDeadline deadline, Http2Config config) {
+        this.sink = sink;
+        this.requestHandlerChain = requestHandlerChain;
+        this.executor = executor;
+        this.connectionTracker = connectionTracker;
+        this.deadline = deadline;
+        this.config = config;
+        this.hpackDecoder = new HpackDecoder(HEADER_TABLE_SIZE, MAX_HEADER_LIST_SIZE);
+        this.streams = new ConcurrentHashMap<>();
+        this.windowLock = new ReentrantLock();
+        this.windowAvailable = this.windowLock.newCondition();
+        this.headerBlock = new ByteArrayOutputStream();
+        this.runningExchanges = new AtomicInteger();
+        this.completedStreams = new AtomicInteger();
+        this.readBuffer = new byte[READ_BUFFER_SIZE];
+        this.connectionReceiveWindow = Http2Frames.DEFAULT_WINDOW_SIZE;
+        this.connectionSendWindow = Http2Frames.DEFAULT_WINDOW_SIZE;
+        this.peerInitialWindowSize = Http2Frames.DEFAULT_WINDOW_SIZE;
+        this.peerMaxFrameSize = Http2Frames.DEFAULT_MAX_FRAME_SIZE;
+    }
+
+    /**
+     * Sends the settings of the server, must be the first thing sent on the connection.
+     *
+     * @throws IOException - if the connection is closed.
+     */
+    public void start() throws IOException {
+        this.sink.write(Http2Frames.settings(
+                Http2Frames.SETTINGS_MAX_CONCURRENT_STREAMS, this.config.getMaxConcurrentStreams(),
+                Http2Frames.SETTINGS_INITIAL_WINDOW_SIZE, this.config.getInitialWindowSize(),
+                Http2Frames.SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE
+        ));
+        final int connectionWindowIncrement = this.config.getInitialWindowSize() - Http2Frames.DEFAULT_WINDOW_SIZE;
+        if (connectionWindowIncrement > 0) {
+            this.sink.write(Http2Frames.windowUpdate(0, connectionWindowIncrement));
+            this.connectionReceiveWindow += connectionWindowIncrement;
+        }
+        this.updateDeadline();
+    }
+
+    /**
+     * Serves the connection on the calling thread until it is closed, used by the blocking transport.
+     *
+     * @param inputStream - plain text input of the connection, starting with the client preface.
+     * @throws IOException - if the connection failed.
+     */
+    public void serve(InputStream inputStream) throws IOException {
+        try {
+            this.start();
+            final byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read;
+            while (!this.closed && (read = inputStream.read(buffer)) >= 0) {
+                this.onData(buffer, 0, read);
+            }
+        } finally {
+            this.close();
+        }
+    }
+
+    /**
+     * Processes the bytes received from the client, a frame may be split across calls.
+     * Must be called from one thread at a time.
+     *
+     * @param data   - received bytes.
+     * @param offset - start of the bytes.
+     * @param length - number of bytes.
+     * @throws IOException - if a frame could not be sent.
+     */
+    public void onData(byte[] data, int offset, int length) throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.append(data, offset, length);
+        int position = 0;
+        try {
+            if (!this.prefaceReceived) {
+                final Http2Protocol.Preface preface = Http2Protocol.matchPreface(this.readBuffer, this.readLength);
+                if (preface == Http2Protocol.Preface.MISMATCH) {
+                    throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid connection preface.");
+                }
+                if (preface == Http2Protocol.Preface.PARTIAL) {
+                    return;
+                }
+                this.prefaceReceived = true;
+                position = Http2Protocol.PREFACE_LENGTH;
+            }
+            while (!this.closed && this.readLength - position >= Http2Frames.FRAME_HEADER_LENGTH) {
+                final int frameLength = ((this.readBuffer[position] & 0xff) << 16)
+                        | ((this.readBuffer[position + 1] & 0xff) << 8)
+                        | (this.readBuffer[position + 2] & 0xff);
+                if (frameLength > Http2Frames.DEFAULT_MAX_FRAME_SIZE) {
+                    throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "Frame too big.");
+                }
+                if (this.readLength - position < Http2Frames.FRAME_HEADER_LENGTH + frameLength) {
+                    break;
+                }
+                final int type = this.readBuffer[position + 3] & 0xff;
+                final int flags = this.readBuffer[position + 4] & 0xff;
+                final int streamId = ByteBuffer.wrap(this.readBuffer, position + 5, 4).getInt() & 0x7fffffff;
+                this.processFrame(type, flags, streamId, position + Http2Frames.FRAME_HEADER_LENGTH, frameLength);
+                position += Http2Frames.FRAME_HEADER_LENGTH + frameLength;
+            }
+        } catch (HpackException ex) {
+            this.connectionError(Http2Frames.COMPRESSION_ERROR);
+        } catch (Http2Exception ex) {
+            this.connectionError(ex.getErrorCode());
+        } finally {
+            if (position > 0) {
+                System.arraycopy(this.readBuffer, position, this.readBuffer, 0, this.readLength - position);
+                this.readLength -= position;
+            }
+        }
+    }
+
+    /**
+     * @return - the number of streams open on the connection.
+     */
+    public int getActiveStreams() {
+        return this.streams.size();
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Called when the transport closed the connection, exchanges waiting for a window give up.
+     */
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.signalWindows();
+        this.sink.close();
+    }
+
+    /**
+     * Sends the headers of the response of a stream.
+     *
+     * @param stream    - the stream.
+     * @param headers   - pseudo header :status first, lower case names.
+     * @param endStream - true if the response has no body.
+     * @throws IOException - if the stream was reset or the connection is closed.
+     */
+    void sendHeaders(Http2Stream stream, List<HeaderField> headers, boolean endStream) throws IOException {
+        this.checkSendable(stream);
+        this.sink.write(Http2Frames.headers(stream.getId(), HpackEncoder.encode(headers), endStream, this.peerMaxFrameSize));
+    }
+
+    /**
+     * Sends the remaining bytes of the buffer as DATA frames as the windows allow, waiting for them if they are exhausted.
+     *
+     * @param stream    - the stream.
+     * @param data      - part of the response body, read to its limit.
+     * @param endStream - true if it is the last part of the body.
+     * @throws IOException - if the stream was reset or the connection is closed.
+     */
+    void sendData(Http2Stream stream, ByteBuffer data, boolean endStream) throws IOException {
+        this.sendData(stream, data.remaining(), endStream, (frame, length) -> data.get(frame, Http2Frames.FRAME_HEADER_LENGTH, length));
+    }
+
+    /**
+     * Like {@link #sendData(Http2Stream, ByteBuffer, boolean)}, the file is read straight into the frames.
+     *
+     * @param stream    - the stream.
+     * @param file      - channel positioned at the first byte to send.
+     * @param count     - number of bytes to send.
+     * @param endStream - true if it is the last part of the body.
+     * @throws IOException - if the file is shorter, the stream was reset or the connection is closed.
+     */
+    void sendData(Http2Stream stream, ReadableByteChannel file, long count, boolean endStream) throws IOException {
+        this.sendData(stream, count, endStream, (frame, length) -> {
+            final ByteBuffer payload = ByteBuffer.wrap(frame, Http2Frames.FRAME_HEADER_LENGTH, length);
+            while (payload.hasRemaining()) {
+                if (file.read(payload) < 0) {
+                    throw new EOFException("File was truncated while it was sent.");
+                }
+            }
+        });
+    }
+
+    private void sendData(Http2Stream stream, long count, boolean endStream, PayloadReader payloadReader) throws IOException {
+        this.checkSendable(stream);
+        if (count == 0) {
+            if (endStream) {
+                this.sink.write(Http2Frames.dataFrame(stream.getId(), 0, true));
+            }
+            return;
+        }
+        long sent = 0;
+        while (sent < count) {
+            final int length = this.acquireSendWindow(stream, (int) Math.min(count - sent, Integer.MAX_VALUE));
+            if (length == 0) {
+                this.checkSendable(stream);
+                throw new IOException("Interrupted while waiting for the send window.");
+            }
+            sent += length;
+            final byte[] frame = Http2Frames.dataFrame(stream.getId(), length, endStream && sent == count);
+            payloadReader.read(frame, length);
+            this.sink.write(frame);
+        }
+    }
+
+    private void checkSendable(Http2Stream stream) throws IOException {
+        if (this.closed) {
+            throw new IOException("Connection closed.");
+        }
+        if (stream.isReset()) {
+            throw new IOException("Stream " + stream.getId() + " was reset.");
+        }
+    }
+
+    /**
+     * Called once the exchange of the stream is done, or was dropped before it ran.
+     */
+    void streamFinished(Http2Stream stream) {
+        this.streams.remove(stream.getId());
+        this.runningExchanges.decrementAndGet();
+        if (!stream.isReset()) {
+            this.completedStreams.incrementAndGet();
+        }
+        this.updateDeadline();
+        if (this.goingAway && this.streams.isEmpty()) {
+            this.close();
+        }
+    }
+
+    /**
+     * Ends a stream with RST_STREAM.
+     *
+     * @param stream    - the stream.
+     * @param errorCode - the reason.
+     */
+    void resetStream(Http2Stream stream, int errorCode) {
+        stream.setReset();
+        this.streams.remove(stream.getId());
+        this.signalWindows();
+        try {
+            this.sink.write(Http2Frames.rstStream(stream.getId(), errorCode));
+        } catch (IOException ignored) {
+        }
+        this.updateDeadline();
+    }
+
+    private void processFrame(int type, int flags, int streamId, int offset, int length) throws IOException {
+        if (this.headerBlockStreamId != 0 && (type != Http2Frames.TYPE_CONTINUATION || streamId != this.headerBlockStreamId)) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Expected CONTINUATION.");
+        }
+        switch (type) {
+            case Http2Frames.TYPE_DATA:
+                this.onDataFrame(flags, streamId, offset, length);
+                break;
+            case Http2Frames.TYPE_HEADERS:
+                this.onHeadersFrame(flags, streamId, offset, length);
+                break;
+            case Http2Frames.TYPE_CONTINUATION:
+                this.onContinuationFrame(flags, streamId, offset, length);
+                break;
+            case Http2Frames.TYPE_SETTINGS:
+                this.onSettingsFrame(flags, streamId, offset, length);
+                break;
+            case Http2Frames.TYPE_PING:
+                this.onPingFrame(flags, streamId, offset, length);
+                break;
+            case Http2Frames.TYPE_WINDOW_UPDATE:
+                this.onWindowUpdateFrame(streamId, offset, length);
+                break;
+            case Http2Frames.TYPE_RST_STREAM:
+                this.onRstStreamFrame(streamId, length);
+                break;
+            case Http2Frames.TYPE_PRIORITY:
+                if (streamId == 0) {
+                    throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "PRIORITY on stream 0.");
+                }
+                break;
+            case Http2Frames.TYPE_GOAWAY:
+                this.goingAway = true;
+                if (this.streams.isEmpty()) {
+                    this.close();
+                }
+                break;
+            case Http2Frames.TYPE_PUSH_PROMISE:
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "PUSH_PROMISE sent by the client.");
+            default:
+                break;
+        }
+    }
+
+    private void onHeadersFrame(int flags, int streamId, int offset, int length) throws IOException {
+        if (streamId == 0 || streamId % 2 == 0) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid stream id " + streamId + ".");
+        }
+        int start = offset;
+        int end = offset + length;
+        if ((flags & Http2Frames.FLAG_PADDED) != 0) {
+            if (length < 1) {
+                throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "HEADERS too short.");
+            }
+            end -= this.readBuffer[start++] & 0xff;
+        }
+        if ((flags & Http2Frames.FLAG_PRIORITY) != 0) {
+            start += 5;
+        }
+        if (end < start) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid HEADERS padding.");
+        }
+        this.headerBlock.reset();
+        this.headerBlock.write(this.readBuffer, start, end - start);
+        this.headerBlockStreamId = streamId;
+        this.headerBlockEndStream = (flags & Http2Frames.FLAG_END_STREAM) != 0;
+        if ((flags & Http2Frames.FLAG_END_HEADERS) != 0) {
+            this.onHeaderBlock();
+        }
+    }
+
+    private void onContinuationFrame(int flags, int streamId, int offset, int length) throws IOException {
+        if (this.headerBlockStreamId == 0 || streamId != this.headerBlockStreamId) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Unexpected CONTINUATION.");
+        }
+        if (this.headerBlock.size() + length > MAX_HEADER_LIST_SIZE) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Header block too big.");
+        }
+        this.headerBlock.write(this.readBuffer, offset, length);
+        if ((flags & Http2Frames.FLAG_END_HEADERS) != 0) {
+            this.onHeaderBlock();
+        }
+    }
+
+    /**
+     * The header block is decoded even if the stream is refused, the decoder state is shared by the connection.
+     */
+    private void onHeaderBlock() throws IOException {
+        final int streamId = this.headerBlockStreamId;
+        this.headerBlockStreamId = 0;
+        final List<HeaderField> fields = this.hpackDecoder.decode(this.headerBlock.toByteArray(), this.headerBlock.size());
+        final Http2Stream existing = this.streams.get(streamId);
+        if (existing != null) {
+            if (existing.isRequestComplete() || !this.headerBlockEndStream) {
+                this.resetStream(existing, Http2Frames.PROTOCOL_ERROR);
+            } else {
+                this.completeRequest(existing);
+            }
+            return;
+        }
+        if (streamId <= this.lastStreamId) {
+            throw new Http2Exception(Http2Frames.STREAM_CLOSED, "HEADERS on closed stream " + streamId + ".");
+        }
+        final int previousLastStreamId = this.lastStreamId;
+        this.lastStreamId = streamId;
+        if (this.connectionTracker.isDraining() && !this.goingAway) {
+            this.goingAway = true;
+            this.sink.write(Http2Frames.goAway(previousLastStreamId, Http2Frames.NO_ERROR));
+        }
+        if (this.goingAway || this.isAtStreamLimit()) {
+            this.sink.write(Http2Frames.rstStream(streamId, Http2Frames.REFUSED_STREAM));
+            if (this.goingAway && this.streams.isEmpty()) {
+                this.close();
+            }
+            return;
+        }
+        final Http2Stream stream;
+        this.windowLock.lock();
+        try {
+            stream = new Http2Stream(streamId, fields, this.peerInitialWindowSize, this.config.getInitialWindowSize());
+        } finally {
+            this.windowLock.unlock();
+        }
+        this.streams.put(streamId, stream);
+        this.updateDeadline();
+        if (!Http2Exchange.isValidRequest(fields)) {
+            this.resetStream(stream, Http2Frames.PROTOCOL_ERROR);
+            return;
+        }
+        if (this.headerBlockEndStream) {
+            this.completeRequest(stream);
+        }
+    }
+
+    private void onDataFrame(int flags, int streamId, int offset, int length) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "DATA on stream 0.");
+        }
+        if (length > this.connectionReceiveWindow) {
+            throw new Http2Exception(Http2Frames.FLOW_CONTROL_ERROR, "Connection window exceeded.");
+        }
+        this.connectionReceiveWindow -= length;
+        this.connectionUnacknowledgedBytes += length;
+        if (this.connectionUnacknowledgedBytes >= this.config.getInitialWindowSize() / 2) {
+            this.sink.write(Http2Frames.windowUpdate(0, this.connectionUnacknowledgedBytes));
+            this.connectionReceiveWindow += this.connectionUnacknowledgedBytes;
+            this.connectionUnacknowledgedBytes = 0;
+        }
+        final Http2Stream stream = this.streams.get(streamId);
+        if (stream == null || stream.isRequestComplete()) {
+            if (streamId > this.lastStreamId) {
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "DATA on idle stream " + streamId + ".");
+            }
+            this.sink.write(Http2Frames.rstStream(streamId, Http2Frames.STREAM_CLOSED));
+            return;
+        }
+        if (length > stream.getReceiveWindow()) {
+            this.resetStream(stream, Http2Frames.FLOW_CONTROL_ERROR);
+            return;
+        }
+        stream.setReceiveWindow(stream.getReceiveWindow() - length);
+        int start = offset;
+        int end = offset + length;
+        if ((flags & Http2Frames.FLAG_PADDED) != 0) {
+            if (length < 1) {
+                throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "DATA too short.");
+            }
+            end -= this.readBuffer[start++] & 0xff;
+            if (end < start) {
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid DATA padding.");
+            }
+        }
+        if (stream.getRequestBody().size() + end - start > this.config.getMaxRequestSize()) {
+            this.rejectTooLarge(stream);
+            return;
+        }
+        stream.getRequestBody().write(this.readBuffer, start, end - start);
+        if ((flags & Http2Frames.FLAG_END_STREAM) != 0) {
+            this.completeRequest(stream);
+            return;
+        }
+        stream.setUnacknowledgedBytes(stream.getUnacknowledgedBytes() + length);
+        if (stream.getUnacknowledgedBytes() >= this.config.getInitialWindowSize() / 2) {
+            this.sink.write(Http2Frames.windowUpdate(streamId, stream.getUnacknowledgedBytes()));
+            stream.setReceiveWindow(stream.getReceiveWindow() + stream.getUnacknowledgedBytes());
+            stream.setUnacknowledgedBytes(0);
+        }
+    }
+
+    /**
+     * Answers 413 without reading the rest of the body, RST_STREAM NO_ERROR tells the client to stop sending it.
+     */
+    private void rejectTooLarge(Http2Stream stream) throws IOException {
+        stream.setReset();
+        this.streams.remove(stream.getId());
+        this.sink.write(Http2Frames.headers(stream.getId(), HpackEncoder.encode(List.of(new HeaderField(STATUS, PAYLOAD_TOO_LARGE))),
+                true, this.peerMaxFrameSize));
+        this.sink.write(Http2Frames.rstStream(stream.getId(), Http2Frames.NO_ERROR));
+        this.updateDeadline();
+    }
+
+    private void onSettingsFrame(int flags, int streamId, int offset, int length) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "SETTINGS on stream " + streamId + ".");
+        }
+        if ((flags & Http2Frames.FLAG_ACK) != 0) {
+            if (length != 0) {
+                throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "SETTINGS ack with payload.");
+            }
+            return;
+        }
+        if (length % 6 != 0) {
+            throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "Invalid SETTINGS length.");
+        }
+        final ByteBuffer payload = ByteBuffer.wrap(this.readBuffer, offset, length);
+        while (payload.hasRemaining()) {
+            final int identifier = payload.getShort() & 0xffff;
+            final int value = payload.getInt();
+            switch (identifier) {
+                case Http2Frames.SETTINGS_INITIAL_WINDOW_SIZE:
+                    this.updateInitialWindowSize(value);
+                    break;
+                case Http2Frames.SETTINGS_MAX_FRAME_SIZE:
+                    if (value < Http2Frames.DEFAULT_MAX_FRAME_SIZE || value > Http2Frames.MAX_MAX_FRAME_SIZE) {
+                        throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE.");
+                    }
+                    this.peerMaxFrameSize = value;
+                    break;
+                case Http2Frames.SETTINGS_ENABLE_PUSH:
+                    if (value != 0 && value != 1) {
+                        throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH.");
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        this.sink.write(Http2Frames.settingsAck());
+    }
+
+    /**
+     * A new initial window size changes the send window of every open stream by the difference.
+     */
+    private void updateInitialWindowSize(int value) throws Http2Exception {
+        if (value < 0) {
+            throw new Http2Exception(Http2Frames.FLOW_CONTROL_ERROR, "Invalid SETTINGS_INITIAL_WINDOW_SIZE.");
+        }
+        this.windowLock.lock();
+        try {
+            final int delta = value - this.peerInitialWindowSize;
+            for (Http2Stream stream : this.streams.values()) {
+                final long window = (long) stream.getSendWindow() + delta;
+                if (window > Http2Frames.MAX_WINDOW_SIZE) {
+                    throw new Http2Exception(Http2Frames.FLOW_CONTROL_ERROR, "Stream window overflow.");
+                }
+                stream.setSendWindow((int) window);
+            }
+            this.peerInitialWindowSize = value;
+            this.windowAvailable.signalAll();
+        } finally {
+            this.windowLock.unlock();
+        }
+    }
+
+    private void onPingFrame(int flags, int streamId, int offset, int length) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "PING on stream " + streamId + ".");
+        }
+        if (length != 8) {
+            throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "Invalid PING length.");
+        }
+        if ((flags & Http2Frames.FLAG_ACK) == 0) {
+            this.sink.write(Http2Frames.pingAck(this.readBuffer, offset));
+        }
+    }
+
+    private void onWindowUpdateFrame(int streamId, int offset, int length) throws IOException {
+        if (length != 4) {
+            throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE length.");
+        }
+        final int increment = ByteBuffer.wrap(this.readBuffer, offset, 4).getInt() & 0x7fffffff;
+        final Http2Stream stream = streamId == 0 ? null : this.streams.get(streamId);
+        if (increment == 0) {
+            if (streamId == 0) {
+                throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "WINDOW_UPDATE of 0.");
+            }
+            if (stream != null) {
+                this.resetStream(stream, Http2Frames.PROTOCOL_ERROR);
+            }
+            return;
+        }
+        this.windowLock.lock();
+        try {
+            if (streamId == 0) {
+                if ((long) this.connectionSendWindow + increment > Http2Frames.MAX_WINDOW_SIZE) {
+                    throw new Http2Exception(Http2Frames.FLOW_CONTROL_ERROR, "Connection window overflow.");
+                }
+                this.connectionSendWindow += increment;
+            } else if (stream != null) {
+                if ((long) stream.getSendWindow() + increment > Http2Frames.MAX_WINDOW_SIZE) {
+                    stream.setReset();
+                } else {
+                    stream.setSendWindow(stream.getSendWindow() + increment);
+                }
+            }
+            this.windowAvailable.signalAll();
+        } finally {
+            this.windowLock.unlock();
+        }
+        if (stream != null && stream.isReset()) {
+            this.resetStream(stream, Http2Frames.FLOW_CONTROL_ERROR);
+        }
+    }
+
+    private void onRstStreamFrame(int streamId, int length) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(Http2Frames.PROTOCOL_ERROR, "RST_STREAM on stream 0.");
+        }
+        if (length != 4) {
+            throw new Http2Exception(Http2Frames.FRAME_SIZE_ERROR, "Invalid RST_STREAM length.");
+        }
+        final Http2Stream stream = this.streams.remove(streamId);
+        if (stream != null) {
+            stream.setReset();
+            this.signalWindows();
+            this.cancelExchange(stream);
+            this.updateDeadline();
+            this.clientResets++;
+            if (this.clientResets > this.completedStreams.get() + EXCESS_RESETS_ALLOWED) {
+                throw new Http2Exception(Http2Frames.ENHANCE_YOUR_CALM, "Too many streams reset.");
+            }
+        }
+    }
+
+    /**
+     * Open streams and exchanges still running for reset streams together stay within the limit.
+     */
+    private boolean isAtStreamLimit() {
+        final int maxConcurrentStreams = this.config.getMaxConcurrentStreams();
+        return this.streams.size() >= maxConcurrentStreams || this.runningExchanges.get() >= maxConcurrentStreams;
+    }
+
+    private void completeRequest(Http2Stream stream) {
+        stream.setRequestComplete();
+        final Http2Exchange exchange = new Http2Exchange(this, stream, this.requestHandlerChain, this.connectionTracker);
+        stream.setExchange(exchange);
+        this.runningExchanges.incrementAndGet();
+        try {
+            this.executor.execute(exchange);
+        } catch (RejectedExecutionException ex) {
+            this.resetStream(stream, Http2Frames.REFUSED_STREAM);
+            this.streamFinished(stream);
+        }
+    }
+
+    /**
+     * Takes the exchange of a reset stream out of the queue of the executor if no worker picked it up yet,
+     * an exchange that already started sees the reset and stops sending.
+     */
+    private void cancelExchange(Http2Stream stream) {
+        final Runnable exchange = stream.getExchange();
+        if (exchange != null && this.executor instanceof ThreadPoolExecutor
+                && ((ThreadPoolExecutor) this.executor).remove(exchange)) {
+            this.streamFinished(stream);
+        }
+    }
+
+    /**
+     * @return - the number of bytes that may be sent, 0 if the stream or the connection was closed while waiting.
+     */
+    private int acquireSendWindow(Http2Stream stream, int wanted) {
+        this.windowLock.lock();
+        try {
+            while (!this.closed && !stream.isReset() && (this.connectionSendWindow <= 0 || stream.getSendWindow() <= 0)) {
+                this.windowAvailable.await();
+            }
+            if (this.closed || stream.isReset()) {
+                return 0;
+            }
+            final int length = Math.min(Math.min(wanted, this.peerMaxFrameSize), Math.min(this.connectionSendWindow, stream.getSendWindow()));
+            this.connectionSendWindow -= length;
+            stream.setSendWindow(stream.getSendWindow() - length);
+            return length;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } finally {
+            this.windowLock.unlock();
+        }
+    }
+
+    private void signalWindows() {
+        this.windowLock.lock();
+        try {
+            this.windowAvailable.signalAll();
+        } finally {
+            this.windowLock.unlock();
+        }
+    }
+
+    private void connectionError(int errorCode) {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.sink.write(Http2Frames.goAway(this.lastStreamId, errorCode));
+        } catch (IOException ignored) {
+        }
+        this.close();
+    }
+
+    /**
+     * A connection with open streams is handling requests, without it is idle. The phase is restarted
+     * on every change, so a busy connection is never cut by the handler deadline of an earlier stream.
+     */
+    private void updateDeadline() {
+        if (this.deadline == null) {
+            return;
+        }
+        final ConnectionPhase phase = this.streams.isEmpty() ? ConnectionPhase.KEEP_ALIVE_IDLE : ConnectionPhase.HANDLER;
+        if (this.deadline.getPhase() != phase) {
+            this.deadline.restart(phase);
+        }
+    }
+
+    private void append(byte[] data, int offset, int length) {
+        if (this.readLength + length > this.readBuffer.length) {
+            final byte[] grown = new byte[Math.max(this.readBuffer.length * 2, this.readLength + length)];
+            System.arraycopy(this.readBuffer, 0, grown, 0, this.readLength);
+            this.readBuffer = grown;
+        }
+        System.arraycopy(data, offset, this.readBuffer, this.readLength, length);
+        this.readLength += length;
+    }
+
+    /**
+     * Fills the payload of a DATA frame.
+     */
+    private interface PayloadReader {
+        /**
+         * @param frame  - the frame, the payload starts after the frame header.
+         * @param length - number of bytes to put.
+         * @throws IOException - if the bytes cannot be read.
+         */
+        void read(byte[] frame, int length) throws IOException;
+    }
+}
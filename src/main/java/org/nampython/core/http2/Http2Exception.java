@@ -0,0 +1,19 @@
+package org.nampython.core.http2;
+
+import java.io.IOException;
+
+/**
+ * A connection error, the connection is closed with GOAWAY and the error code.
+ */
+class Http2Exception extends IOException {
+    private final int errorCode;
+
+    Http2Exception(int errorCode, String message) {
+        super(message);
+        this.errorCode = errorCode;
+    }
+
+    int getErrorCode() {
+        return this.errorCode;
+    }
+}
@@ -0,0 +1,256 @@
+package org.nampython.core.http2;
+
+import org.nampython.core.ConnectionTracker;
+import org.nampython.core.RejectableConnection;
+import org.nampython.core.RequestHandlerChain;
+import org.nampython.core.RequestHandlerShareData;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Handles one complete HTTP/2 request on a worker thread.
+ * The stream is handed to the {@link RequestHandlerChain} as the equivalent HTTP/1.1 message and the HTTP/1.1
+ * response written by the chain is translated back into HEADERS and DATA frames by an {@link Http2ResponseStream}
+ * as it is written, so the handlers are the same for every protocol.
+ */
+class Http2Exchange implements RejectableConnection {
+    private static final String CRLF = "\r\n";
+    private static final String PROTOCOL = "HTTP/2.0";
+    private static final String METHOD_HEAD = "HEAD";
+    private static final String METHOD_CONNECT = "CONNECT";
+    private static final String CONTENT_LENGTH = "content-length";
+    static final Set<String> CONNECTION_HEADERS = Set.of(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade"
+    );
+    private static final boolean[] TOKEN_CHARS = new boolean[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            TOKEN_CHARS[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            TOKEN_CHARS[c] = true;
+            TOKEN_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+            TOKEN_CHARS[c] = true;
+        }
+    }
+
+    private final Http2Connection connection;
+    private final Http2Stream stream;
+    private final RequestHandlerChain requestHandlerChain;
+    private final ConnectionTracker connectionTracker;
+
+    Http2Exchange(Http2Connection connection, Http2Stream stream, RequestHandlerChain requestHandlerChain,
+                  ConnectionTracker connectionTracker) {
+        this.connection = connection;
+        this.stream = stream;
+        this.requestHandlerChain = requestHandlerChain;
+        this.connectionTracker = connectionTracker;
+    }
+
+    /**
+     * Checks the rules of RFC 7540 section 8.1.2 the server relies on: lower case names, the pseudo headers
+     * first and complete, and no connection specific headers.
+     * The request is written out as an HTTP/1.1 message, so names must be tokens (RFC 9110 section 5.1), the method
+     * a token and the path and authority visible ASCII, anything else could inject lines or a request line.
+     *
+     * @param fields - decoded request headers.
+     * @return - true if the request is well formed.
+     */
+    static boolean isValidRequest(List<HeaderField> fields) {
+        String method = null;
+        String path = null;
+        boolean regularHeaderSeen = false;
+        for (HeaderField field : fields) {
+            final String name = field.getName();
+            if (name.isEmpty() || containsLineBreak(field.getValue())) {
+                return false;
+            }
+            if (name.charAt(0) == ':') {
+                if (regularHeaderSeen) {
+                    return false;
+                }
+                switch (name) {
+                    case ":method":
+                        method = field.getValue();
+                        if (!isToken(method)) {
+                            return false;
+                        }
+                        break;
+                    case ":path":
+                        path = field.getValue();
+                        if (!isVisibleAscii(path)) {
+                            return false;
+                        }
+                        break;
+                    case ":authority":
+                        if (!isVisibleAscii(field.getValue())) {
+                            return false;
+                        }
+                        break;
+                    case ":scheme":
+                        break;
+                    default:
+                        return false;
+                }
+            } else {
+                if (!isToken(name) || !name.equals(name.toLowerCase(Locale.ROOT))) {
+                    return false;
+                }
+                regularHeaderSeen = true;
+                if (CONNECTION_HEADERS.contains(name) || ("te".equals(name) && !"trailers".equals(field.getValue()))) {
+                    return false;
+                }
+            }
+        }
+        return method != null && !METHOD_CONNECT.equals(method) && path != null && !path.isEmpty();
+    }
+
+    @Override
+    public void run() {
+        if (this.stream.isReset()) {
+            this.connection.streamFinished(this.stream);
+            return;
+        }
+        this.connectionTracker.requestStarted();
+        try {
+            final Http2ResponseStream responseStream = new Http2ResponseStream(this.connection, this.stream, METHOD_HEAD.equals(this.getMethod()));
+            final RequestHandlerShareData sharedData = new RequestHandlerShareData();
+            sharedData.addObject(RequestHandlerShareData.KEEP_ALIVE_ALLOWED, false);
+            this.requestHandlerChain.process(this.toHttp1Request(), responseStream, sharedData);
+            responseStream.finish();
+        } catch (IOException | RuntimeException ex) {
+            if (!this.stream.isReset()) {
+                this.connection.resetStream(this.stream, Http2Frames.INTERNAL_ERROR);
+            }
+        } finally {
+            this.connectionTracker.requestFinished();
+            this.connection.streamFinished(this.stream);
+        }
+    }
+
+    @Override
+    public void reject(byte[] response) {
+        this.connection.resetStream(this.stream, Http2Frames.REFUSED_STREAM);
+        this.connection.streamFinished(this.stream);
+    }
+
+    /**
+     * Cookies split into several fields are joined again, the :authority becomes the Host header.
+     *
+     * @return - the request as an HTTP/1.1 message, the body is read from the stream without being copied again.
+     */
+    private InputStream toHttp1Request() {
+        String method = null;
+        String path = null;
+        String authority = null;
+        final StringBuilder headers = new StringBuilder();
+        final List<String> cookies = new ArrayList<>();
+        boolean hostSeen = false;
+        for (HeaderField field : this.stream.getRequestHeaders()) {
+            final String name = field.getName();
+            final String value = field.getValue();
+            switch (name) {
+                case ":method":
+                    method = value;
+                    break;
+                case ":path":
+                    path = value;
+                    break;
+                case ":authority":
+                    authority = value;
+                    break;
+                case ":scheme":
+                case CONTENT_LENGTH:
+                    break;
+                case "cookie":
+                    cookies.add(value);
+                    break;
+                default:
+                    if (!value.isEmpty()) {
+                        hostSeen |= "host".equals(name);
+                        headers.append(canonicalName(name)).append(": ").append(value).append(CRLF);
+                    }
+            }
+        }
+        if (!hostSeen && authority != null && !authority.isEmpty()) {
+            headers.append("Host: ").append(authority).append(CRLF);
+        }
+        if (!cookies.isEmpty()) {
+            headers.append("Cookie: ").append(String.join("; ", cookies)).append(CRLF);
+        }
+        final Http2RequestBody body = this.stream.getRequestBody();
+        if (body.size() > 0) {
+            headers.append("Content-Length: ").append(body.size()).append(CRLF);
+        }
+        final byte[] head = (method + " " + path + " " + PROTOCOL + CRLF + headers + CRLF).getBytes(StandardCharsets.ISO_8859_1);
+        return new SequenceInputStream(new ByteArrayInputStream(head), body.toInputStream());
+    }
+
+    private String getMethod() {
+        for (HeaderField field : this.stream.getRequestHeaders()) {
+            if (":method".equals(field.getName())) {
+                return field.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The request headers of the server are matched by their HTTP/1.1 spelling, e.g. content-type becomes Content-Type.
+     */
+    private static String canonicalName(String name) {
+        final char[] chars = name.toCharArray();
+        boolean upper = true;
+        for (int i = 0; i < chars.length; i++) {
+            if (upper) {
+                chars[i] = Character.toUpperCase(chars[i]);
+            }
+            upper = chars[i] == '-';
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @return - true if the string is a non-empty RFC 9110 token: ASCII letters, digits and !#$%&'*+-.^_`|~
+     */
+    private static boolean isToken(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 128 || !TOKEN_CHARS[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return - true if every character is visible ASCII, without space and control characters.
+     */
+    private static boolean isVisibleAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c <= ' ' || c >= 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsLineBreak(String value) {
+        return value.indexOf('\r') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\0') >= 0;
+    }
+}
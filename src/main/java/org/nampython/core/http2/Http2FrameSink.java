@@ -0,0 +1,22 @@
+package org.nampython.core.http2;
+
+import java.io.IOException;
+
+/**
+ * Where an {@link Http2Connection} writes its frames, implemented by each transport.
+ * Called from the thread reading the frames and from the threads handling the streams.
+ */
+public interface Http2FrameSink {
+    /**
+     * Sends the bytes as they are, after the bytes of the calls that returned before. Must be thread safe.
+     *
+     * @param frames - one or more complete frames.
+     * @throws IOException - if the connection is closed.
+     */
+    void write(byte[] frames) throws IOException;
+
+    /**
+     * Closes the connection once the frames written before are sent.
+     */
+    void close();
+}
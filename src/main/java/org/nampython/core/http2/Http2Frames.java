@@ -0,0 +1,138 @@
+package org.nampython.core.http2;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Frame types, flags, error codes and settings of HTTP/2 (RFC 7540) and the frames the server sends.
+ */
+final class Http2Frames {
+    static final int FRAME_HEADER_LENGTH = 9;
+
+    static final int TYPE_DATA = 0x0;
+    static final int TYPE_HEADERS = 0x1;
+    static final int TYPE_PRIORITY = 0x2;
+    static final int TYPE_RST_STREAM = 0x3;
+    static final int TYPE_SETTINGS = 0x4;
+    static final int TYPE_PUSH_PROMISE = 0x5;
+    static final int TYPE_PING = 0x6;
+    static final int TYPE_GOAWAY = 0x7;
+    static final int TYPE_WINDOW_UPDATE = 0x8;
+    static final int TYPE_CONTINUATION = 0x9;
+
+    static final int FLAG_END_STREAM = 0x1;
+    static final int FLAG_ACK = 0x1;
+    static final int FLAG_END_HEADERS = 0x4;
+    static final int FLAG_PADDED = 0x8;
+    static final int FLAG_PRIORITY = 0x20;
+
+    static final int NO_ERROR = 0x0;
+    static final int PROTOCOL_ERROR = 0x1;
+    static final int INTERNAL_ERROR = 0x2;
+    static final int FLOW_CONTROL_ERROR = 0x3;
+    static final int STREAM_CLOSED = 0x5;
+    static final int FRAME_SIZE_ERROR = 0x6;
+    static final int REFUSED_STREAM = 0x7;
+    static final int CANCEL = 0x8;
+    static final int COMPRESSION_ERROR = 0x9;
+    static final int ENHANCE_YOUR_CALM = 0xb;
+
+    static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+    static final int SETTINGS_ENABLE_PUSH = 0x2;
+    static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+    static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+    static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+    static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+    static final int DEFAULT_WINDOW_SIZE = 65535;
+    static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+    static final int MAX_MAX_FRAME_SIZE = 16777215;
+    static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+
+    private Http2Frames() {
+    }
+
+    static byte[] frame(int type, int flags, int streamId, byte[] payload, int offset, int length) {
+        final byte[] frame = new byte[FRAME_HEADER_LENGTH + length];
+        writeHeader(frame, 0, length, type, flags, streamId);
+        System.arraycopy(payload, offset, frame, FRAME_HEADER_LENGTH, length);
+        return frame;
+    }
+
+    /**
+     * @return - a DATA frame with room for the payload after its header, to be filled by the caller.
+     */
+    static byte[] dataFrame(int streamId, int length, boolean endStream) {
+        final byte[] frame = new byte[FRAME_HEADER_LENGTH + length];
+        writeHeader(frame, 0, length, TYPE_DATA, endStream ? FLAG_END_STREAM : 0, streamId);
+        return frame;
+    }
+
+    /**
+     * @param settings - pairs of identifier and value.
+     */
+    static byte[] settings(int... settings) {
+        final ByteBuffer payload = ByteBuffer.allocate(settings.length / 2 * 6);
+        for (int i = 0; i + 1 < settings.length; i += 2) {
+            payload.putShort((short) settings[i]);
+            payload.putInt(settings[i + 1]);
+        }
+        return frame(TYPE_SETTINGS, 0, 0, payload.array(), 0, payload.capacity());
+    }
+
+    static byte[] settingsAck() {
+        return frame(TYPE_SETTINGS, FLAG_ACK, 0, new byte[0], 0, 0);
+    }
+
+    static byte[] pingAck(byte[] payload, int offset) {
+        return frame(TYPE_PING, FLAG_ACK, 0, payload, offset, 8);
+    }
+
+    static byte[] windowUpdate(int streamId, int increment) {
+        return frame(TYPE_WINDOW_UPDATE, 0, streamId, ByteBuffer.allocate(4).putInt(increment).array(), 0, 4);
+    }
+
+    static byte[] rstStream(int streamId, int errorCode) {
+        return frame(TYPE_RST_STREAM, 0, streamId, ByteBuffer.allocate(4).putInt(errorCode).array(), 0, 4);
+    }
+
+    static byte[] goAway(int lastStreamId, int errorCode) {
+        return frame(TYPE_GOAWAY, 0, 0, ByteBuffer.allocate(8).putInt(lastStreamId).putInt(errorCode).array(), 0, 8);
+    }
+
+    /**
+     * @param block        - encoded header block, split into HEADERS and CONTINUATION frames if needed.
+     * @param endStream    - true if no DATA follows.
+     * @param maxFrameSize - max payload the client accepts.
+     * @return - the frames, they have to be sent without other frames in between.
+     */
+    static byte[] headers(int streamId, byte[] block, boolean endStream, int maxFrameSize) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(block.length + FRAME_HEADER_LENGTH);
+        int offset = 0;
+        do {
+            final int length = Math.min(maxFrameSize, block.length - offset);
+            final boolean first = offset == 0;
+            final boolean last = offset + length == block.length;
+            int flags = last ? FLAG_END_HEADERS : 0;
+            if (first && endStream) {
+                flags |= FLAG_END_STREAM;
+            }
+            final byte[] frame = frame(first ? TYPE_HEADERS : TYPE_CONTINUATION, flags, streamId, block, offset, length);
+            out.write(frame, 0, frame.length);
+            offset += length;
+        } while (offset < block.length);
+        return out.toByteArray();
+    }
+
+    private static void writeHeader(byte[] frame, int offset, int length, int type, int flags, int streamId) {
+        frame[offset] = (byte) (length >>> 16);
+        frame[offset + 1] = (byte) (length >>> 8);
+        frame[offset + 2] = (byte) length;
+        frame[offset + 3] = (byte) type;
+        frame[offset + 4] = (byte) flags;
+        frame[offset + 5] = (byte) ((streamId >>> 24) & 0x7f);
+        frame[offset + 6] = (byte) (streamId >>> 16);
+        frame[offset + 7] = (byte) (streamId >>> 8);
+        frame[offset + 8] = (byte) streamId;
+    }
+}
@@ -0,0 +1,52 @@
+package org.nampython.core.http2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link Http2FrameSink} of the blocking transport, every write is flushed so frames are not held back
+ * while the stream threads wait for a window.
+ */
+public class Http2OutputStreamSink implements Http2FrameSink {
+    private final OutputStream outputStream;
+    private final Closeable connection;
+    private final ReentrantLock lock;
+
+    /**
+     * @param outputStream - output of the connection.
+     * @param connection   - closed with the sink.
+     */
+    public Http2OutputStreamSink(OutputStream outputStream, Closeable connection) {
+        this.outputStream = outputStream;
+        this.connection = connection;
+        this.lock = new ReentrantLock();
+    }
+
+    @Override
+    public void write(byte[] frames) throws IOException {
+        this.lock.lock();
+        try {
+            this.outputStream.write(frames);
+            this.outputStream.flush();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.outputStream.flush();
+        } catch (IOException ignored) {
+        } finally {
+            this.lock.unlock();
+        }
+        try {
+            this.connection.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
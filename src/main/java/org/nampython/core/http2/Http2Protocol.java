@@ -0,0 +1,93 @@
+package org.nampython.core.http2;
+
+import org.nampython.core.ConnectionDeadline;
+import org.nampython.core.ConnectionTracker;
+import org.nampython.core.RequestHandlerChain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * Entry point of the transports into HTTP/2: recognizes the client connection preface, sent first by every
+ * HTTP/2 client whether it came through ALPN or with prior knowledge, and creates the {@link Http2Connection}.
+ */
+public class Http2Protocol {
+    static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    static final int PREFACE_LENGTH = PREFACE.length;
+
+    /**
+     * Result of comparing the first bytes of a connection with the preface.
+     */
+    public enum Preface {
+        MATCH,
+        PARTIAL,
+        MISMATCH,
+    }
+
+    private final Http2Config config;
+    private final RequestHandlerChain requestHandlerChain;
+    private final Executor executor;
+    private final ConnectionTracker connectionTracker;
+
+    /**
+     * @param config              - HTTP/2 settings of the server.
+     * @param requestHandlerChain - handlers the requests are run through.
+     * @param executor            - runs the streams, must not be the pool of the connections reading the frames.
+     * @param connectionTracker   - counts the requests of the server.
+     */
+    public Http2Protocol(Http2Config config, RequestHandlerChain requestHandlerChain, Executor executor,
+                         ConnectionTracker connectionTracker) {
+        this.config = config;
+        this.requestHandlerChain = requestHandlerChain;
+        this.executor = executor;
+        this.connectionTracker = connectionTracker;
+    }
+
+    /**
+     * @param sink     - writes the frames to the client.
+     * @param deadline - deadline of the connection, null if the transport updates it.
+     * @return - a connection that has not sent its settings yet.
+     */
+    public Http2Connection newConnection(Http2FrameSink sink, ConnectionDeadline deadline) {
+        return new Http2Connection(sink, this.requestHandlerChain, this.executor, this.connectionTracker, deadline, this.config);
+    }
+
+    /**
+     * @param data   - first bytes received on the connection.
+     * @param length - number of bytes received.
+     * @return - PARTIAL while the bytes are a prefix of the preface.
+     */
+    public static Preface matchPreface(byte[] data, int length) {
+        final int compared = Math.min(length, PREFACE_LENGTH);
+        for (int i = 0; i < compared; i++) {
+            if (data[i] != PREFACE[i]) {
+                return Preface.MISMATCH;
+            }
+        }
+        return compared == PREFACE_LENGTH ? Preface.MATCH : Preface.PARTIAL;
+    }
+
+    /**
+     * Reads ahead without consuming, stops at the first byte that differs, so an HTTP/1.1 request
+     * line never blocks waiting for 24 bytes.
+     *
+     * @param inputStream - stream supporting mark.
+     * @return - true if the stream starts with the preface.
+     * @throws IOException - if reading fails.
+     */
+    public static boolean startsWithPreface(InputStream inputStream) throws IOException {
+        inputStream.mark(PREFACE_LENGTH);
+        try {
+            for (byte expected : PREFACE) {
+                if (inputStream.read() != (expected & 0xff)) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            inputStream.reset();
+        }
+    }
+}
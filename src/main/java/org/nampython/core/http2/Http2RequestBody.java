@@ -0,0 +1,19 @@
+package org.nampython.core.http2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * Body of a request received in DATA frames. Once the request is complete it is read by the exchange straight
+ * from the buffer the frames were written to, without the copy {@link #toByteArray()} would make.
+ */
+class Http2RequestBody extends ByteArrayOutputStream {
+
+    /**
+     * @return - a stream over the bytes written so far, sharing the buffer, nothing may be written after it.
+     */
+    InputStream toInputStream() {
+        return new ByteArrayInputStream(this.buf, 0, this.count);
+    }
+}
@@ -0,0 +1,206 @@
+package org.nampython.core.http2;
+
+import org.nampython.core.ByteBufferOutput;
+import org.nampython.core.FileTransferOutput;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Response stream of {@link Http2Exchange}. Only the head of the HTTP/1.1 response written by the chain is
+ * buffered, once it is complete it is sent as a HEADERS frame and the body written after it goes out as DATA
+ * frames within the flow control windows, so a large response is never held in memory.
+ * Files and buffers are read straight into the DATA frames.
+ */
+class Http2ResponseStream extends OutputStream implements FileTransferOutput, ByteBufferOutput {
+    private static final String CRLF = "\r\n";
+    private static final String CONTENT_LENGTH = "content-length";
+    private static final int INITIAL_HEAD_SIZE = 512;
+    private static final int MAX_HEAD_SIZE = 64 * 1024;
+    private static final long UNKNOWN_LENGTH = -1;
+
+    private final Http2Connection connection;
+    private final Http2Stream stream;
+    private final boolean headersOnly;
+    private byte[] head;
+    private int headLength;
+    private boolean headersSent;
+    private boolean endStreamSent;
+    private long remaining;
+
+    /**
+     * @param connection  - connection of the stream.
+     * @param stream      - the stream the response is sent on.
+     * @param headersOnly - true for a HEAD request, the body written by the chain is dropped.
+     */
+    Http2ResponseStream(Http2Connection connection, Http2Stream stream, boolean headersOnly) {
+        this.connection = connection;
+        this.stream = stream;
+        this.headersOnly = headersOnly;
+        this.head = new byte[INITIAL_HEAD_SIZE];
+        this.remaining = UNKNOWN_LENGTH;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (this.headersSent) {
+            this.sendBody(ByteBuffer.wrap(b, off, len));
+            return;
+        }
+        final int headerEnd = this.appendHead(b, off, len);
+        if (headerEnd < 0) {
+            return;
+        }
+        final int bodyBytesInHead = this.headLength - headerEnd;
+        final int bodyOffset = off + len - bodyBytesInHead;
+        this.headLength = headerEnd;
+        this.sendHeaders();
+        this.sendBody(ByteBuffer.wrap(b, bodyOffset, bodyBytesInHead));
+    }
+
+    @Override
+    public boolean transferFile(Path file, long position, long count) throws IOException {
+        if (!this.headersSent) {
+            return false;
+        }
+        final long length = this.bodyLength(count);
+        if (length == 0) {
+            return true;
+        }
+        try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            fileChannel.position(position);
+            this.connection.sendData(this.stream, fileChannel, length, this.isLastBodyPart(length));
+        }
+        this.bodySent(length);
+        return true;
+    }
+
+    @Override
+    public boolean writeBuffers(ByteBuffer... buffers) throws IOException {
+        if (!this.headersSent) {
+            return false;
+        }
+        for (ByteBuffer buffer : buffers) {
+            this.sendBody(buffer);
+        }
+        return true;
+    }
+
+    /**
+     * Ends the stream after the chain wrote the whole response.
+     *
+     * @throws IOException - if the response has no complete head or the stream could not be ended.
+     */
+    void finish() throws IOException {
+        if (!this.headersSent) {
+            throw new IOException("Incomplete response.");
+        }
+        if (!this.endStreamSent) {
+            this.endStreamSent = true;
+            this.connection.sendData(this.stream, ByteBuffer.allocate(0), true);
+        }
+    }
+
+    /**
+     * @return - the end of the head, after its empty line, or -1 if it is not complete yet.
+     * @throws IOException - if the head is too big.
+     */
+    private int appendHead(byte[] b, int off, int len) throws IOException {
+        if (this.headLength + len > this.head.length) {
+            if (this.headLength + len > MAX_HEAD_SIZE) {
+                throw new IOException("Response headers too big.");
+            }
+            this.head = Arrays.copyOf(this.head, Math.min(MAX_HEAD_SIZE, Math.max(this.head.length * 2, this.headLength + len)));
+        }
+        final int searchFrom = Math.max(0, this.headLength - 3);
+        System.arraycopy(b, off, this.head, this.headLength, len);
+        this.headLength += len;
+        for (int i = searchFrom; i + 3 < this.headLength; i++) {
+            if (this.head[i] == '\r' && this.head[i + 1] == '\n' && this.head[i + 2] == '\r' && this.head[i + 3] == '\n') {
+                return i + 4;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Translates the buffered head to the header fields of the response.
+     */
+    private void sendHeaders() throws IOException {
+        final String[] lines = new String(this.head, 0, this.headLength - CRLF.length() * 2, StandardCharsets.ISO_8859_1).split(CRLF);
+        final String[] statusLine = lines[0].split(" ", 3);
+        if (statusLine.length < 2) {
+            throw new IOException("Invalid status line.");
+        }
+        final List<HeaderField> headers = new ArrayList<>();
+        headers.add(new HeaderField(":status", statusLine[1]));
+        for (int i = 1; i < lines.length; i++) {
+            final int colon = lines[i].indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            final String name = lines[i].substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            final String value = lines[i].substring(colon + 1).trim();
+            if (Http2Exchange.CONNECTION_HEADERS.contains(name)) {
+                continue;
+            }
+            if (CONTENT_LENGTH.equals(name)) {
+                try {
+                    this.remaining = Math.max(UNKNOWN_LENGTH, Long.parseLong(value));
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+            }
+            headers.add(new HeaderField(name, value));
+        }
+        this.head = null;
+        this.headersSent = true;
+        this.endStreamSent = this.headersOnly || this.remaining == 0;
+        this.connection.sendHeaders(this.stream, headers, this.endStreamSent);
+    }
+
+    /**
+     * Sends the bytes of the buffer, dropping what goes past the Content-Length of the response.
+     */
+    private void sendBody(ByteBuffer buffer) throws IOException {
+        final int length = (int) this.bodyLength(buffer.remaining());
+        if (length == 0) {
+            return;
+        }
+        final ByteBuffer body = length == buffer.remaining() ? buffer : buffer.duplicate().limit(buffer.position() + length);
+        this.connection.sendData(this.stream, body, this.isLastBodyPart(length));
+        this.bodySent(length);
+    }
+
+    private long bodyLength(long wanted) {
+        if (this.endStreamSent) {
+            return 0;
+        }
+        return this.remaining == UNKNOWN_LENGTH ? wanted : Math.min(wanted, this.remaining);
+    }
+
+    private boolean isLastBodyPart(long length) {
+        return this.remaining == length;
+    }
+
+    private void bodySent(long length) {
+        if (this.remaining != UNKNOWN_LENGTH) {
+            this.remaining -= length;
+            this.endStreamSent = this.remaining == 0;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.nampython.core.http2;
+
+import java.util.List;
+
+/**
+ * One request and response exchanged on an {@link Http2Connection}.
+ * The request side is filled by the thread reading the frames, the send window is guarded by the connection.
+ */
+class Http2Stream {
+    private final int id;
+    private final List<HeaderField> requestHeaders;
+    private final Http2RequestBody requestBody;
+    private int sendWindow;
+    private int receiveWindow;
+    private int unacknowledgedBytes;
+    private boolean requestComplete;
+    private volatile boolean reset;
+    private Runnable exchange;
+
+    Http2Stream(int id, List<HeaderField> requestHeaders, int sendWindow, int receiveWindow) {
+        this.id = id;
+        this.requestHeaders = requestHeaders;
+        this.requestBody = new Http2RequestBody();
+        this.sendWindow = sendWindow;
+        this.receiveWindow = receiveWindow;
+    }
+
+    int getId() {
+        return this.id;
+    }
+
+    List<HeaderField> getRequestHeaders() {
+        return this.requestHeaders;
+    }
+
+    Http2RequestBody getRequestBody() {
+        return this.requestBody;
+    }
+
+    int getSendWindow() {
+        return this.sendWindow;
+    }
+
+    void setSendWindow(int sendWindow) {
+        this.sendWindow = sendWindow;
+    }
+
+    int getReceiveWindow() {
+        return this.receiveWindow;
+    }
+
+    void setReceiveWindow(int receiveWindow) {
+        this.receiveWindow = receiveWindow;
+    }
+
+    int getUnacknowledgedBytes() {
+        return this.unacknowledgedBytes;
+    }
+
+    void setUnacknowledgedBytes(int unacknowledgedBytes) {
+        this.unacknowledgedBytes = unacknowledgedBytes;
+    }
+
+    boolean isRequestComplete() {
+        return this.requestComplete;
+    }
+
+    void setRequestComplete() {
+        this.requestComplete = true;
+    }
+
+    boolean isReset() {
+        return this.reset;
+    }
+
+    void setReset() {
+        this.reset = true;
+    }
+
+    /**
+     * @return - the exchange handed to the executor for the stream, null until the request is complete.
+     */
+    Runnable getExchange() {
+        return this.exchange;
+    }
+
+    void setExchange(Runnable exchange) {
+        this.exchange = exchange;
+    }
+}
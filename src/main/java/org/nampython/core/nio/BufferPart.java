@@ -0,0 +1,37 @@
+package org.nampython.core.nio;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Bytes of a response already in memory, either written by the handler or a buffer shared with a cache.
+ */
+class BufferPart implements ResponsePart {
+    private final ByteBuffer buffer;
+
+    BufferPart(byte[] bytes) {
+        this(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * @param buffer - the bytes between position and limit, not shared with other writers.
+     */
+    BufferPart(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        return channel.write(this.buffer);
+    }
+
+    @Override
+    public boolean isComplete() {
+        return !this.buffer.hasRemaining();
+    }
+
+    @Override
+    public void release() {
+    }
+}
@@ -0,0 +1,56 @@
+package org.nampython.core.nio;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A region of a file sent with {@link FileChannel#transferTo(long, long, WritableByteChannel)}, sendfile on a plain
+ * socket. The file is opened by the event loop when the region is reached, so a worker never holds it open.
+ * Through TLS the JDK reads the region in small chunks as the channel accepts them, the file is not buffered whole.
+ */
+class FilePart implements ResponsePart {
+    private final Path file;
+    private long position;
+    private long remaining;
+    private FileChannel fileChannel;
+
+    FilePart(Path file, long position, long count) {
+        this.file = file;
+        this.position = position;
+        this.remaining = count;
+    }
+
+    @Override
+    public long writeTo(WritableByteChannel channel) throws IOException {
+        if (this.fileChannel == null) {
+            this.fileChannel = FileChannel.open(this.file, StandardOpenOption.READ);
+        }
+        final long sent = this.fileChannel.transferTo(this.position, this.remaining, channel);
+        if (sent == 0 && this.position >= this.fileChannel.size()) {
+            throw new EOFException("File " + this.file + " was truncated while it was sent.");
+        }
+        this.position += sent;
+        this.remaining -= sent;
+        return sent;
+    }
+
+    @Override
+    public boolean isComplete() {
+        return this.remaining == 0;
+    }
+
+    @Override
+    public void release() {
+        if (this.fileChannel != null) {
+            try {
+                this.fileChannel.close();
+            } catch (IOException ignored) {
+            }
+            this.fileChannel = null;
+        }
+    }
+}
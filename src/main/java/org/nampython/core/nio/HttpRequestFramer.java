@@ -0,0 +1,164 @@
+package org.nampython.core.nio;
+
+import org.nampython.core.CannotParseRequestException;
+import org.nampython.core.RequestFraming;
+import org.nampython.core.RequestTooBigException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds where a HTTP request ends in the bytes read so far, without parsing the request itself.
+ * The end of the header section is searched incrementally, so a client sending its request byte by byte
+ * does not cause the same bytes to be scanned again on every read. Empty lines before the request line are skipped
+ * first, as the request processor ignores them.
+ * Once the headers are complete, the request is complete after Content-Length more bytes, as decided by
+ * {@link RequestFraming}.
+ */
+class HttpRequestFramer {
+    private static final int CONTENT_LENGTH_LENGTH = RequestFraming.CONTENT_LENGTH.length();
+    private static final int TRANSFER_ENCODING_LENGTH = RequestFraming.TRANSFER_ENCODING.length();
+    private static final String HEADERS_TOO_BIG_MSG = "Request headers too big.";
+    private static final String REQUEST_TOO_BIG_MSG = "Request too big.";
+
+    private final int maxHeaderSize;
+    private final int maxRequestSize;
+    private int headStart;
+    private int scanOffset;
+    private int headerEnd;
+    private int contentLength;
+
+    HttpRequestFramer(int maxHeaderSize, int maxRequestSize) {
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxRequestSize = maxRequestSize;
+        this.reset();
+    }
+
+    /**
+     * @param data   - the bytes read from the connection, starting with the first byte of the request.
+     * @param length - number of valid bytes in data.
+     * @return - the length of the request in bytes if it is complete, -1 otherwise.
+     * @throws RequestTooBigException      - if the headers or the body are over the limit.
+     * @throws CannotParseRequestException - if the Content-Length header is not a number or is repeated,
+     *                                     {@link org.nampython.core.TransferEncodingNotSupportedException}
+     *                                     if the request uses Transfer-Encoding.
+     */
+    int frame(byte[] data, int length) {
+        if (this.headerEnd < 0) {
+            this.headerEnd = this.findHeaderEnd(data, length);
+            if (this.headerEnd < 0) {
+                if (length > this.maxHeaderSize) {
+                    throw new RequestTooBigException(HEADERS_TOO_BIG_MSG, length);
+                }
+                return -1;
+            }
+            this.contentLength = this.findContentLength(data, this.headerEnd);
+            if (this.contentLength > this.maxRequestSize) {
+                throw new RequestTooBigException(REQUEST_TOO_BIG_MSG, this.contentLength);
+            }
+        }
+        final long requestLength = (long) this.headerEnd + this.contentLength;
+        if (requestLength > Integer.MAX_VALUE) {
+            throw new RequestTooBigException(REQUEST_TOO_BIG_MSG, this.contentLength);
+        }
+        return length >= requestLength ? (int) requestLength : -1;
+    }
+
+    /**
+     * @return - the number of body bytes of the request being framed, known once the headers are complete.
+     */
+    int getContentLength() {
+        return this.contentLength;
+    }
+
+    /**
+     * @return - the length of the header section including the empty line or -1 if the headers are not complete.
+     */
+    int getHeaderEnd() {
+        return this.headerEnd;
+    }
+
+    /**
+     * Prepares the framer for the next request on the same connection.
+     */
+    void reset() {
+        this.headStart = 0;
+        this.scanOffset = 0;
+        this.headerEnd = -1;
+        this.contentLength = 0;
+    }
+
+    /**
+     * @return - the index right after the CRLF CRLF sequence or -1.
+     */
+    private int findHeaderEnd(byte[] data, int length) {
+        if (this.scanOffset == this.headStart) {
+            this.headStart = this.skipEmptyLines(data, this.headStart, length);
+            if (this.headStart + 1 >= length) {
+                // Nothing but empty lines yet, a last CR may still start another one.
+                this.scanOffset = this.headStart;
+                return -1;
+            }
+        }
+        int i = Math.max(this.headStart, this.scanOffset - 3);
+        for (; i + 3 < length; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n') {
+                return i + 4;
+            }
+        }
+        this.scanOffset = length;
+        return -1;
+    }
+
+    /**
+     * Gives the Content-Length and Transfer-Encoding headers to {@link RequestFraming}, the same rule the
+     * request processor applies, so the request is framed the way it will be parsed.
+     *
+     * @return - the body length declared by the headers, 0 if there is none.
+     */
+    private int findContentLength(byte[] data, int headerEnd) {
+        int contentLength = RequestFraming.NO_CONTENT_LENGTH;
+        int lineStart = this.nextLine(data, this.headStart, headerEnd);
+        while (lineStart >= 0 && lineStart < headerEnd) {
+            final int lineEnd = this.nextLine(data, lineStart, headerEnd) - 2;
+            final int colon = this.indexOf(data, lineStart, lineEnd, (byte) ':');
+            if (colon >= 0 && (colon - lineStart == CONTENT_LENGTH_LENGTH || colon - lineStart == TRANSFER_ENCODING_LENGTH)) {
+                final String name = new String(data, lineStart, colon - lineStart, StandardCharsets.ISO_8859_1);
+                if (RequestFraming.isFramingHeader(name)) {
+                    final String value = new String(data, colon + 1, lineEnd - colon - 1, StandardCharsets.ISO_8859_1);
+                    contentLength = RequestFraming.applyHeader(name, value, contentLength);
+                }
+            }
+            lineStart = lineEnd + 2;
+        }
+        return RequestFraming.bodyLength(contentLength);
+    }
+
+    /**
+     * @return - the index of the first byte after the CRLF pairs starting at from.
+     */
+    private int skipEmptyLines(byte[] data, int from, int length) {
+        int i = from;
+        while (i + 1 < length && data[i] == '\r' && data[i + 1] == '\n') {
+            i += 2;
+        }
+        return i;
+    }
+
+    private int nextLine(byte[] data, int from, int end) {
+        for (int i = from; i + 1 < end; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i + 2;
+            }
+        }
+        return -1;
+    }
+
+    private int indexOf(byte[] data, int from, int end, byte b) {
+        for (int i = from; i < end; i++) {
+            if (data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,403 @@
+package org.nampython.core.nio;
+
+import org.nampython.core.ConnectionDeadline;
+import org.nampython.core.ConnectionPhase;
+import org.nampython.core.ConnectionTimeouts;
+import org.nampython.core.ConnectionTracker;
+import org.nampython.core.http2.Http2Connection;
+import org.nampython.core.http2.Http2FrameSink;
+import org.nampython.core.http2.Http2Protocol;
+import org.nampython.core.tls.TlsChannel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * State of one client connection of {@link NioServerImplement}.
+ * The read buffer, the selection key and the framer are used only from the event loop thread.
+ * Complete requests are queued for {@link NioRequestTask} and responses are queued for the event loop,
+ * both queues keep the order of the requests so pipelined responses are written back in order.
+ * The {@link ConnectionDeadline} is moved along with the state of the connection by the event loop and closes
+ * the connection through it when a phase takes too long.
+ * With TLS the bytes go through a {@link TlsChannel}: the read buffer and the write queue hold plain text,
+ * the handshake runs on the event loop as the records arrive, its delegated tasks run on the worker pool and
+ * the connection is neither read nor written until they finished.
+ * A connection that starts with the HTTP/2 preface hands the read bytes to its {@link Http2Connection} instead
+ * of the framer, the frames it sends go through the write queue like the HTTP/1.1 responses.
+ */
+class NioConnection {
+    private static final int INITIAL_READ_BUFFER_SIZE = 4096;
+    private static final int MAX_PIPELINED_REQUESTS = 16;
+
+    private final SocketChannel socketChannel;
+    private final ByteChannel channel;
+    private final TlsChannel tlsChannel;
+    private final NioServerImplement server;
+    private final HttpRequestFramer framer;
+    private final Queue<byte[]> pendingRequests;
+    private final Queue<ResponsePart> writeQueue;
+    private final AtomicBoolean processing;
+    private final ConnectionDeadline deadline;
+    private final ConnectionTracker connectionTracker;
+    private SelectionKey selectionKey;
+    private ByteBuffer readBuffer;
+    private volatile boolean closeAfterWrite;
+    private int handledRequests;
+    private int framedRequests;
+    private boolean requestFramed;
+    private Http2Connection http2Connection;
+
+    /**
+     * @param socketChannel      - accepted non-blocking connection.
+     * @param tlsChannel         - TLS view of the socketChannel or null for plain HTTP.
+     * @param server             - event loop the connection is registered with.
+     * @param framer             - cuts the requests from the read buffer.
+     * @param connectionTimeouts - creates the deadline of the connection.
+     * @param connectionTracker  - open connections of the server.
+     */
+    NioConnection(SocketChannel socketChannel, TlsChannel tlsChannel, NioServerImplement server, HttpRequestFramer framer,
+                  ConnectionTimeouts connectionTimeouts, ConnectionTracker connectionTracker) {
+        this.socketChannel = socketChannel;
+        this.tlsChannel = tlsChannel;
+        this.channel = tlsChannel != null ? tlsChannel : socketChannel;
+        this.server = server;
+        this.framer = framer;
+        this.pendingRequests = new ConcurrentLinkedQueue<>();
+        this.writeQueue = new ConcurrentLinkedQueue<>();
+        this.processing = new AtomicBoolean();
+        this.readBuffer = ByteBuffer.allocate(INITIAL_READ_BUFFER_SIZE);
+        this.deadline = connectionTimeouts.newDeadline(() -> server.scheduleClose(this));
+        this.deadline.startRequest(ConnectionPhase.HEADER_READ);
+        this.connectionTracker = connectionTracker;
+        this.connectionTracker.register(this.deadline);
+    }
+
+    void setSelectionKey(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+    }
+
+    /**
+     * Reads what is available on the channel without blocking.
+     * Decrypted bytes that did not fit are read too, the selector would not report them.
+     *
+     * @throws IOException - if the client closed the connection or the read failed.
+     */
+    void read() throws IOException {
+        do {
+            if (!this.readBuffer.hasRemaining()) {
+                this.readBuffer = this.grow(this.readBuffer);
+            }
+            final int read = this.channel.read(this.readBuffer);
+            if (read < 0) {
+                throw new IOException("Connection closed by the client.");
+            }
+        } while (this.tlsChannel != null && this.tlsChannel.hasBufferedInput());
+    }
+
+    /**
+     * Cuts a complete request from the start of the read buffer, the bytes after it stay in the buffer.
+     * Nothing is cut while the pipeline is full or the connection is about to be closed.
+     *
+     * @return - the request bytes or null if there is no complete request to take.
+     */
+    byte[] pollRequest() {
+        if (this.closeAfterWrite || this.pendingRequests.size() >= MAX_PIPELINED_REQUESTS) {
+            return null;
+        }
+        final int requestLength = this.framer.frame(this.readBuffer.array(), this.readBuffer.position());
+        if (requestLength < 0) {
+            return null;
+        }
+        final byte[] request = Arrays.copyOfRange(this.readBuffer.array(), 0, requestLength);
+        this.readBuffer.flip();
+        this.readBuffer.position(requestLength);
+        this.readBuffer.compact();
+        this.framer.reset();
+        this.framedRequests++;
+        this.requestFramed = true;
+        return request;
+    }
+
+    /**
+     * @return - PARTIAL while the bytes read so far may still become the HTTP/2 preface,
+     * MISMATCH once the connection carried an HTTP/1.1 request.
+     */
+    Http2Protocol.Preface matchHttp2Preface() {
+        if (this.framedRequests > 0) {
+            return Http2Protocol.Preface.MISMATCH;
+        }
+        return Http2Protocol.matchPreface(this.readBuffer.array(), this.readBuffer.position());
+    }
+
+    /**
+     * Switches the connection to HTTP/2 and sends the settings of the server.
+     *
+     * @param http2Protocol - creates the HTTP/2 connection.
+     * @throws IOException - if the settings could not be queued.
+     */
+    void startHttp2(Http2Protocol http2Protocol) throws IOException {
+        this.http2Connection = http2Protocol.newConnection(new FrameSink(), this.deadline);
+        this.http2Connection.start();
+    }
+
+    boolean isHttp2() {
+        return this.http2Connection != null;
+    }
+
+    /**
+     * Hands the bytes of the read buffer to the HTTP/2 connection, they are all consumed.
+     *
+     * @throws IOException - if a frame could not be queued.
+     */
+    void readHttp2() throws IOException {
+        this.http2Connection.onData(this.readBuffer.array(), 0, this.readBuffer.position());
+        this.readBuffer.clear();
+    }
+
+    /**
+     * Queues a complete request behind the ones already waiting on this connection.
+     *
+     * @return - true if no worker is processing this connection and the caller has to start one.
+     */
+    boolean offerRequest(byte[] request) {
+        this.pendingRequests.add(request);
+        return this.processing.compareAndSet(false, true);
+    }
+
+    /**
+     * Called from the worker processing this connection.
+     *
+     * @return - the next request in order or null.
+     */
+    byte[] nextRequest() {
+        if (this.closeAfterWrite) {
+            return null;
+        }
+        return this.pendingRequests.poll();
+    }
+
+    /**
+     * Called from the worker processing this connection once it found no more requests.
+     *
+     * @return - true if a request was queued in the meantime and the worker has to continue.
+     */
+    boolean finishProcessing() {
+        this.processing.set(false);
+        return !this.closeAfterWrite && !this.pendingRequests.isEmpty() && this.processing.compareAndSet(false, true);
+    }
+
+    /**
+     * @return - the number of requests handled on this connection, including the one being started.
+     */
+    int startRequest() {
+        return ++this.handledRequests;
+    }
+
+    /**
+     * Adds a response to the write queue and asks the event loop to flush it.
+     * Safe to call from any thread.
+     *
+     * @param response        - raw response bytes.
+     * @param closeAfterWrite - true if the connection must be closed once the response is written.
+     */
+    void queueResponse(byte[] response, boolean closeAfterWrite) {
+        this.queueResponse(List.of(new BufferPart(response)), closeAfterWrite);
+    }
+
+    /**
+     * @param response        - the parts of the response in order.
+     * @param closeAfterWrite - true if the connection must be closed once the response is written.
+     */
+    void queueResponse(List<ResponsePart> response, boolean closeAfterWrite) {
+        if (closeAfterWrite) {
+            this.closeAfterWrite = true;
+            this.pendingRequests.clear();
+        }
+        this.writeQueue.addAll(response);
+        this.server.scheduleWrite(this);
+    }
+
+    /**
+     * Writes as much of the queued responses as the socket accepts, files are sent without passing through the heap.
+     * If the client reads slowly, the rest is written once the selector reports the channel as writable.
+     *
+     * @return - true if the write queue was drained.
+     * @throws IOException - if the write failed.
+     */
+    boolean write() throws IOException {
+        if (this.tlsChannel != null) {
+            if (!this.tlsChannel.flush()) {
+                return false;
+            }
+            if (this.tlsChannel.isHandshaking()) {
+                this.read();
+            }
+        }
+        ResponsePart part;
+        while ((part = this.writeQueue.peek()) != null) {
+            if (part.writeTo(this.channel) > 0) {
+                this.deadline.restart(ConnectionPhase.RESPONSE_WRITE);
+            }
+            if (!part.isComplete()) {
+                return false;
+            }
+            this.writeQueue.poll();
+            part.release();
+        }
+        if (this.hasPendingTlsOutput()) {
+            return false;
+        }
+        if (this.closeAfterWrite) {
+            this.close();
+        }
+        return true;
+    }
+
+    /**
+     * Writes have priority over reads: while a response is pending the client is not read, which applies
+     * back-pressure to a client that pipelines requests without reading the responses.
+     * The deadline follows the new state of the connection.
+     */
+    void updateInterest() {
+        this.updateDeadline();
+        if (this.tlsChannel != null && this.tlsChannel.isRunningTasks()) {
+            this.interestOps(0);
+        } else if (!this.writeQueue.isEmpty() || this.hasPendingTlsOutput()) {
+            this.interestOps(SelectionKey.OP_WRITE);
+        } else if (!this.closeAfterWrite && this.pendingRequests.size() < MAX_PIPELINED_REQUESTS) {
+            this.interestOps(SelectionKey.OP_READ);
+        } else {
+            this.interestOps(0);
+        }
+    }
+
+    /**
+     * Stops reading, used when the connection is answered with an error and closed.
+     */
+    void suspendReading() {
+        this.interestOps(0);
+    }
+
+    boolean isOpen() {
+        return this.socketChannel.isOpen();
+    }
+
+    private boolean hasPendingTlsOutput() {
+        return this.tlsChannel != null && this.tlsChannel.hasPendingOutput();
+    }
+
+    boolean isReading() {
+        return this.selectionKey != null && this.selectionKey.isValid()
+                && (this.selectionKey.interestOps() & SelectionKey.OP_READ) != 0;
+    }
+
+    void close() {
+        if (this.http2Connection != null) {
+            this.http2Connection.close();
+        }
+        this.deadline.cancel();
+        this.connectionTracker.unregister(this.deadline);
+        if (this.selectionKey != null) {
+            this.selectionKey.cancel();
+        }
+        try {
+            this.channel.close();
+        } catch (IOException ignored) {
+        }
+        ResponsePart part;
+        while ((part = this.writeQueue.poll()) != null) {
+            part.release();
+        }
+    }
+
+    /**
+     * Phases are measured per request: once a request was cut from the read buffer, its handling starts
+     * a new set of deadlines, the idle and header phases that follow belong to the next request.
+     */
+    private void updateDeadline() {
+        if (this.http2Connection != null) {
+            this.updateHttp2Deadline();
+            return;
+        }
+        final ConnectionPhase phase = this.currentPhase();
+        if (this.requestFramed) {
+            this.requestFramed = false;
+            this.deadline.startRequest(phase);
+        } else {
+            this.deadline.enter(phase);
+        }
+    }
+
+    /**
+     * Streams of an HTTP/2 connection overlap, there is no request to measure the phases by:
+     * the phase restarts whenever the connection changes between writing, handling streams and idle.
+     * The {@link Http2Connection} moves it too when a stream finishes on a worker.
+     */
+    private void updateHttp2Deadline() {
+        final ConnectionPhase phase;
+        if (!this.writeQueue.isEmpty() || this.hasPendingTlsOutput()) {
+            phase = ConnectionPhase.RESPONSE_WRITE;
+        } else if (this.http2Connection.getActiveStreams() > 0) {
+            phase = ConnectionPhase.HANDLER;
+        } else {
+            phase = ConnectionPhase.KEEP_ALIVE_IDLE;
+        }
+        if (this.deadline.getPhase() != phase) {
+            this.deadline.restart(phase);
+        }
+    }
+
+    private ConnectionPhase currentPhase() {
+        if (!this.writeQueue.isEmpty() || (this.hasPendingTlsOutput() && this.framedRequests > 0)) {
+            return ConnectionPhase.RESPONSE_WRITE;
+        }
+        if (this.processing.get() || !this.pendingRequests.isEmpty()) {
+            return ConnectionPhase.HANDLER;
+        }
+        if (this.readBuffer.position() == 0) {
+            return this.framedRequests > 0 ? ConnectionPhase.KEEP_ALIVE_IDLE : ConnectionPhase.HEADER_READ;
+        }
+        return this.framer.getHeaderEnd() < 0 ? ConnectionPhase.HEADER_READ : ConnectionPhase.BODY_READ;
+    }
+
+    private void interestOps(int ops) {
+        if (this.selectionKey != null && this.selectionKey.isValid()) {
+            this.selectionKey.interestOps(ops);
+        }
+    }
+
+    private ByteBuffer grow(ByteBuffer buffer) {
+        final ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+
+    /**
+     * Frames are queued as responses, from the event loop and from the workers handling the streams.
+     */
+    private class FrameSink implements Http2FrameSink {
+        @Override
+        public void write(byte[] frames) throws IOException {
+            if (!NioConnection.this.isOpen()) {
+                throw new IOException("Connection closed.");
+            }
+            NioConnection.this.queueResponse(frames, false);
+        }
+
+        @Override
+        public void close() {
+            if (NioConnection.this.isOpen()) {
+                NioConnection.this.queueResponse(new byte[0], true);
+            }
+        }
+    }
+}
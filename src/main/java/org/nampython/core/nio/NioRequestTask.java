@@ -0,0 +1,99 @@
+package org.nampython.core.nio;
+
+import org.nampython.base.api.HttpStatus;
+import org.nampython.core.ConnectionGovernor;
+import org.nampython.core.ConnectionTracker;
+import org.nampython.core.KeepAlivePolicy;
+import org.nampython.core.PrecomputedResponses;
+import org.nampython.core.RejectableConnection;
+import org.nampython.core.RequestHandlerChain;
+import org.nampython.core.RequestHandlerShareData;
+import org.nampython.support.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * Runs the complete requests read by {@link NioServerImplement} for one connection through the {@link RequestHandlerChain}.
+ * Requests of the same connection are handled one after another, so pipelined responses come out in request order.
+ * Each response is buffered in memory and handed back to the event loop, so the worker never waits for a slow client.
+ * Files transferred by the handlers are not buffered, only their region is handed over and sent by the event loop.
+ * A handler failing is logged and the connection is closed, with a 500 if no part of the response was written.
+ */
+class NioRequestTask implements RejectableConnection {
+    private static final String HANDLER_FAILED_MESSAGE_FORMAT;
+    private static final byte[] INTERNAL_SERVER_ERROR_RESPONSE;
+
+    static {
+        HANDLER_FAILED_MESSAGE_FORMAT = "Request handling failed: %s";
+        INTERNAL_SERVER_ERROR_RESPONSE = PrecomputedResponses.create(HttpStatus.INTERNAL_SERVER_ERROR, "Internal server error.");
+    }
+
+    private final NioConnection connection;
+    private final RequestHandlerChain requestHandlerChain;
+    private final KeepAlivePolicy keepAlivePolicy;
+    private final ConnectionGovernor connectionGovernor;
+    private final ConnectionTracker connectionTracker;
+    private final Logger logger;
+    private final long enqueuedNanos;
+
+    NioRequestTask(NioConnection connection, RequestHandlerChain requestHandlerChain, KeepAlivePolicy keepAlivePolicy,
+                   ConnectionGovernor connectionGovernor, ConnectionTracker connectionTracker, Logger logger) {
+        this.connection = connection;
+        this.requestHandlerChain = requestHandlerChain;
+        this.keepAlivePolicy = keepAlivePolicy;
+        this.connectionGovernor = connectionGovernor;
+        this.connectionTracker = connectionTracker;
+        this.logger = logger;
+        this.enqueuedNanos = System.nanoTime();
+    }
+
+    @Override
+    public void run() {
+        if (!this.connectionGovernor.onStart(this.enqueuedNanos)) {
+            this.connection.queueResponse(this.connectionGovernor.getServiceUnavailableResponse(), true);
+            this.connection.finishProcessing();
+            return;
+        }
+        try {
+            do {
+                byte[] request;
+                while ((request = this.connection.nextRequest()) != null) {
+                    this.handle(request);
+                }
+            } while (this.connection.finishProcessing());
+        } finally {
+            this.connectionGovernor.onFinish();
+        }
+    }
+
+    @Override
+    public void reject(byte[] response) {
+        this.connectionGovernor.onRejected();
+        this.connection.queueResponse(response, true);
+        this.connection.finishProcessing();
+    }
+
+    /**
+     * @param request - bytes of one complete request.
+     */
+    private void handle(byte[] request) {
+        final NioResponseStream responseStream = new NioResponseStream();
+        final RequestHandlerShareData sharedData = this.keepAlivePolicy.createSharedData(this.connection.startRequest());
+        boolean keepAlive = false;
+        this.connectionTracker.requestStarted();
+        try {
+            this.requestHandlerChain.process(new ByteArrayInputStream(request), responseStream, sharedData);
+            keepAlive = KeepAlivePolicy.isKeepAlive(sharedData);
+        } catch (IOException | RuntimeException ex) {
+            this.logger.error(HANDLER_FAILED_MESSAGE_FORMAT, ex);
+            if (responseStream.isEmpty()) {
+                this.connection.queueResponse(INTERNAL_SERVER_ERROR_RESPONSE, true);
+                return;
+            }
+        } finally {
+            this.connectionTracker.requestFinished();
+        }
+        this.connection.queueResponse(responseStream.toParts(), !keepAlive);
+    }
+}
@@ -0,0 +1,61 @@
+package org.nampython.core.nio;
+
+import org.nampython.core.ByteBufferOutput;
+import org.nampython.core.FileTransferOutput;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response stream of {@link NioRequestTask}. Written bytes are buffered, a transferred file is recorded
+ * as a {@link FilePart} between them and read by the event loop only when it is written to the client.
+ * Buffers handed over are queued as they are, without copying.
+ */
+class NioResponseStream extends ByteArrayOutputStream implements FileTransferOutput, ByteBufferOutput {
+    private final List<ResponsePart> parts;
+
+    NioResponseStream() {
+        this.parts = new ArrayList<>();
+    }
+
+    @Override
+    public boolean transferFile(Path file, long position, long count) {
+        this.flushBuffer();
+        this.parts.add(new FilePart(file, position, count));
+        return true;
+    }
+
+    @Override
+    public boolean writeBuffers(ByteBuffer... buffers) {
+        this.flushBuffer();
+        for (ByteBuffer buffer : buffers) {
+            this.parts.add(new BufferPart(buffer));
+        }
+        return true;
+    }
+
+    /**
+     * @return - true if nothing of the response was written yet.
+     */
+    boolean isEmpty() {
+        return this.parts.isEmpty() && this.size() == 0;
+    }
+
+    /**
+     * @return - the response in order.
+     */
+    List<ResponsePart> toParts() {
+        this.flushBuffer();
+        return this.parts;
+    }
+
+    private void flushBuffer() {
+        if (this.size() > 0) {
+            this.parts.add(new BufferPart(this.toByteArray()));
+            this.reset();
+        }
+    }
+}
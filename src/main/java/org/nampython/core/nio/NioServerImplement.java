@@ -0,0 +1,411 @@
+package org.nampython.core.nio;
+
+import org.nampython.base.api.HttpStatus;
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+import org.nampython.core.BaseServer;
+import org.nampython.core.CannotParseRequestException;
+import org.nampython.core.ConnectionExecutorFactory;
+import org.nampython.core.ConnectionGovernor;
+import org.nampython.core.ConnectionTimeouts;
+import org.nampython.core.ConnectionTracker;
+import org.nampython.core.InitLoadingRequest;
+import org.nampython.core.KeepAlivePolicy;
+import org.nampython.core.PrecomputedResponses;
+import org.nampython.core.RequestHandlerChain;
+import org.nampython.core.RequestTooBigException;
+import org.nampython.core.ShutdownReport;
+import org.nampython.core.TransferEncodingNotSupportedException;
+import org.nampython.core.http2.Http2Config;
+import org.nampython.core.http2.Http2Protocol;
+import org.nampython.core.tls.TlsChannel;
+import org.nampython.core.tls.TlsContext;
+import org.nampython.support.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking alternative to {@link org.nampython.core.ServerImplement}.
+ * A single event loop thread accepts the connections and reads the request bytes as they arrive,
+ * only a complete request is dispatched to the {@link RequestHandlerChain} on the worker pool.
+ * Clients may pipeline requests: they are read ahead while earlier ones are handled and answered in order.
+ * Responses are written back by the event loop when the socket is writable, so neither a client
+ * that sends its request slowly nor one that reads its response slowly holds a worker.
+ * Slow clients are closed by the deadline of their connection on the shared timer wheel, instead of
+ * scanning all connections from the loop.
+ * HTTP/2 connections are recognized by their preface, their frames are read on the event loop and every
+ * stream is handled on the worker pool on its own.
+ */
+public class NioServerImplement extends BaseServer {
+    private static final int MAX_HEADER_SIZE;
+    private static final String LISTENING_MESSAGE_FORMAT;
+    private static final byte[] BAD_REQUEST_RESPONSE;
+    private static final byte[] PAYLOAD_TOO_LARGE_RESPONSE;
+    private static final byte[] NOT_IMPLEMENTED_RESPONSE;
+
+    static {
+        MAX_HEADER_SIZE = 64 * 1024;
+        LISTENING_MESSAGE_FORMAT = "%s://localhost:%d";
+        BAD_REQUEST_RESPONSE = PrecomputedResponses.create(HttpStatus.BAD_REQUEST, "Bad request.");
+        PAYLOAD_TOO_LARGE_RESPONSE = PrecomputedResponses.create(HttpStatus.PAYLOAD_TOO_LARGE, "Request too big.");
+        NOT_IMPLEMENTED_RESPONSE = PrecomputedResponses.create(HttpStatus.NOT_IMPLEMENTED, "Transfer-Encoding is not supported.");
+    }
+
+    private final RequestHandlerChain requestHandlerChain;
+    private final KeepAlivePolicy keepAlivePolicy;
+    private final int port;
+    private final int backlog;
+    private final int maxRequestSize;
+    private final ConnectionGovernor connectionGovernor;
+    private final ConnectionTimeouts connectionTimeouts;
+    private final ConnectionTracker connectionTracker;
+    private final ExecutorService workerPool;
+    private final Queue<NioConnection> pendingWrites;
+    private final Queue<NioConnection> pendingCloses;
+    private final Queue<NioConnection> pendingResumes;
+    private final ConfigCenter configCenter;
+    private final boolean tlsEnabled;
+    private final Http2Protocol http2Protocol;
+    private final Logger logger;
+    private TlsContext tlsContext;
+    /**
+     * Until when accepting is paused after the process ran out of file descriptors, 0 if it is not.
+     */
+    private long acceptPausedUntilNanos;
+    private volatile Selector selector;
+    private volatile boolean running;
+    private ShutdownReport shutdownReport;
+
+    public NioServerImplement(InitLoadingRequest initLoadingRequest, ConfigCenter configCenter, Logger logger) {
+        this.requestHandlerChain = new RequestHandlerChain(initLoadingRequest);
+        this.keepAlivePolicy = new KeepAlivePolicy(configCenter);
+        this.port = configCenter.getConfigValue(ConfigValue.SERVER_PORT, int.class);
+        this.backlog = configCenter.getConfigValue(ConfigValue.ACCEPT_BACKLOG, int.class);
+        this.maxRequestSize = configCenter.getConfigValue(ConfigValue.MAX_REQUEST_SIZE, int.class);
+        this.connectionGovernor = new ConnectionGovernor(configCenter);
+        this.connectionTimeouts = new ConnectionTimeouts(configCenter);
+        this.connectionTracker = new ConnectionTracker();
+        this.workerPool = new ConnectionExecutorFactory(configCenter, this.connectionGovernor, logger).createExecutor();
+        this.pendingWrites = new ConcurrentLinkedQueue<>();
+        this.pendingCloses = new ConcurrentLinkedQueue<>();
+        this.pendingResumes = new ConcurrentLinkedQueue<>();
+        this.configCenter = configCenter;
+        this.tlsEnabled = TlsContext.isEnabled(configCenter);
+        this.logger = logger;
+        final Http2Config http2Config = new Http2Config(configCenter);
+        this.http2Protocol = http2Config.isEnabled()
+                ? new Http2Protocol(http2Config, this.requestHandlerChain, this.workerPool, this.connectionTracker)
+                : null;
+    }
+
+    /**
+     * Runs the event loop on the calling thread until {@link #shutdown(long)} finished.
+     * Once the server is stopping the listening socket is closed, the loop keeps running to write
+     * the responses of the requests being drained.
+     * With {@link ConfigValue#TLS_ENABLED} every connection speaks TLS, the keystore is loaded before listening.
+     * With {@link ConfigValue#HTTP2_ENABLED} HTTP/2 is offered through ALPN and accepted with prior knowledge.
+     *
+     * @throws IOException - if the server socket cannot be opened or the keystore cannot be loaded.
+     */
+    @Override
+    public void run() throws IOException {
+        if (this.tlsEnabled) {
+            this.tlsContext = new TlsContext(this.configCenter);
+            if (this.http2Protocol != null) {
+                this.tlsContext.addApplicationProtocol(Http2Config.ALPN_PROTOCOL);
+            }
+        }
+        this.selector = Selector.open();
+        this.running = true;
+        final ServerSocketChannel serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(this.port), this.backlog);
+        serverChannel.configureBlocking(false);
+        final SelectionKey serverKey = serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+        System.out.println(String.format(LISTENING_MESSAGE_FORMAT, this.tlsEnabled ? "https" : "http", this.port));
+        while (this.running) {
+            this.selector.select(this.acceptPauseRemainingMillis());
+            if (this.connectionTracker.isDraining() && serverKey.isValid()) {
+                serverKey.cancel();
+                serverChannel.close();
+            }
+            this.resumeAccepting(serverKey);
+            this.closeExpiredConnections();
+            this.flushPendingWrites();
+            this.resumeConnections();
+            final Iterator<SelectionKey> selectedKeys = this.selector.selectedKeys().iterator();
+            while (selectedKeys.hasNext()) {
+                final SelectionKey key = selectedKeys.next();
+                selectedKeys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key == serverKey) {
+                    this.accept(serverChannel, serverKey);
+                } else {
+                    this.handleReadyConnection(key, (NioConnection) key.attachment());
+                }
+            }
+        }
+        this.closeExpiredConnections();
+        for (SelectionKey key : this.selector.keys()) {
+            if (key.attachment() instanceof NioConnection) {
+                ((NioConnection) key.attachment()).close();
+            }
+        }
+        serverChannel.close();
+        this.selector.close();
+    }
+
+    /**
+     * Stops accepting, drains the connections while the event loop keeps writing their responses,
+     * then stops the event loop.
+     *
+     * @param timeoutMilliseconds - max time to wait for the requests being handled.
+     * @return - how many requests were drained and how many were aborted.
+     */
+    @Override
+    public synchronized ShutdownReport shutdown(long timeoutMilliseconds) {
+        if (this.shutdownReport != null) {
+            return this.shutdownReport;
+        }
+        final long startNanos = System.nanoTime();
+        this.keepAlivePolicy.disable();
+        this.connectionTracker.startDraining();
+        this.wakeup();
+        this.shutdownReport = this.drain(startNanos, timeoutMilliseconds, this.connectionTracker, this.connectionGovernor, this.workerPool);
+        this.connectionTimeouts.stop();
+        this.running = false;
+        this.wakeup();
+        return this.shutdownReport;
+    }
+
+    /**
+     * Called by {@link NioConnection} when a response was queued, possibly from a worker thread.
+     */
+    void scheduleWrite(NioConnection connection) {
+        this.pendingWrites.add(connection);
+        this.wakeup();
+    }
+
+    /**
+     * Called from the timer wheel when the deadline of a connection expired.
+     */
+    void scheduleClose(NioConnection connection) {
+        this.pendingCloses.add(connection);
+        this.wakeup();
+    }
+
+    /**
+     * Called from a worker when the TLS handshake tasks of a connection finished.
+     */
+    void scheduleResume(NioConnection connection) {
+        this.pendingResumes.add(connection);
+        this.wakeup();
+    }
+
+    private void wakeup() {
+        final Selector selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * A failing accept must not end the event loop. When the process is out of file descriptors the listening
+     * socket stays readable, so accepting is paused for {@link #ACCEPT_BACKOFF_MILLISECONDS} instead of being
+     * retried on every select, the other connections are still served meanwhile.
+     */
+    private void accept(ServerSocketChannel serverChannel, SelectionKey serverKey) {
+        try {
+            SocketChannel client;
+            while ((client = serverChannel.accept()) != null) {
+                this.register(client);
+            }
+        } catch (IOException ex) {
+            this.logger.warning(ACCEPT_FAILED_MESSAGE_FORMAT, ex.getMessage());
+            if (isOutOfFileDescriptors(ex)) {
+                serverKey.interestOps(0);
+                this.acceptPausedUntilNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ACCEPT_BACKOFF_MILLISECONDS);
+            }
+        }
+    }
+
+    private void register(SocketChannel client) throws IOException {
+        try {
+            client.configureBlocking(false);
+            final TlsChannel tlsChannel = this.tlsContext != null ? this.tlsContext.wrap(client) : null;
+            final NioConnection connection = new NioConnection(
+                    client,
+                    tlsChannel,
+                    this,
+                    new HttpRequestFramer(MAX_HEADER_SIZE, this.maxRequestSize),
+                    this.connectionTimeouts,
+                    this.connectionTracker
+            );
+            if (tlsChannel != null) {
+                tlsChannel.runTasksOn(this.workerPool, () -> this.scheduleResume(connection));
+            }
+            connection.setSelectionKey(client.register(this.selector, SelectionKey.OP_READ, connection));
+        } catch (IOException ex) {
+            client.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * @return - how long the event loop may block in select, 0 for no limit.
+     */
+    private long acceptPauseRemainingMillis() {
+        if (this.acceptPausedUntilNanos == 0) {
+            return 0;
+        }
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(this.acceptPausedUntilNanos - System.nanoTime()));
+    }
+
+    private void resumeAccepting(SelectionKey serverKey) {
+        if (this.acceptPausedUntilNanos == 0 || System.nanoTime() - this.acceptPausedUntilNanos < 0) {
+            return;
+        }
+        this.acceptPausedUntilNanos = 0;
+        if (serverKey.isValid()) {
+            serverKey.interestOps(SelectionKey.OP_ACCEPT);
+        }
+    }
+
+    private void handleReadyConnection(SelectionKey key, NioConnection connection) {
+        try {
+            if (key.isWritable()) {
+                this.write(connection);
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+                this.dispatch(connection);
+                connection.updateInterest();
+            }
+        } catch (RequestTooBigException ex) {
+            this.fail(connection, PAYLOAD_TOO_LARGE_RESPONSE);
+        } catch (TransferEncodingNotSupportedException ex) {
+            this.fail(connection, NOT_IMPLEMENTED_RESPONSE);
+        } catch (CannotParseRequestException ex) {
+            this.fail(connection, BAD_REQUEST_RESPONSE);
+        } catch (IOException ex) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Queues every complete request found in the read buffer and starts a worker for the connection
+     * if none is processing it yet. Starting a worker is subject to the {@link ConnectionGovernor},
+     * over its limits the connection is answered with 503.
+     * The first bytes decide whether the connection speaks HTTP/2, until they do nothing is dispatched.
+     */
+    private void dispatch(NioConnection connection) throws IOException {
+        if (this.http2Protocol != null && !connection.isHttp2()) {
+            final Http2Protocol.Preface preface = connection.matchHttp2Preface();
+            if (preface == Http2Protocol.Preface.PARTIAL) {
+                return;
+            }
+            if (preface == Http2Protocol.Preface.MATCH) {
+                connection.startHttp2(this.http2Protocol);
+            }
+        }
+        if (connection.isHttp2()) {
+            connection.readHttp2();
+            return;
+        }
+        byte[] request;
+        while ((request = connection.pollRequest()) != null) {
+            if (!connection.offerRequest(request)) {
+                continue;
+            }
+            if (this.connectionGovernor.tryAcquire()) {
+                this.workerPool.execute(new NioRequestTask(
+                        connection,
+                        this.requestHandlerChain,
+                        this.keepAlivePolicy,
+                        this.connectionGovernor,
+                        this.connectionTracker,
+                        this.logger
+                ));
+            } else {
+                this.fail(connection, this.connectionGovernor.getServiceUnavailableResponse());
+            }
+        }
+    }
+
+    /**
+     * Writes the queued responses. Requests that were left in the read buffer because the pipeline was full
+     * are dispatched once there is room again.
+     */
+    private void write(NioConnection connection) throws IOException {
+        connection.write();
+        if (connection.isOpen()) {
+            this.dispatch(connection);
+            connection.updateInterest();
+        }
+    }
+
+    private void fail(NioConnection connection, byte[] response) {
+        connection.suspendReading();
+        connection.queueResponse(response, true);
+    }
+
+    private void flushPendingWrites() {
+        NioConnection connection;
+        while ((connection = this.pendingWrites.poll()) != null) {
+            try {
+                this.write(connection);
+            } catch (RequestTooBigException ex) {
+                this.fail(connection, PAYLOAD_TOO_LARGE_RESPONSE);
+            } catch (TransferEncodingNotSupportedException ex) {
+                this.fail(connection, NOT_IMPLEMENTED_RESPONSE);
+            } catch (CannotParseRequestException ex) {
+                this.fail(connection, BAD_REQUEST_RESPONSE);
+            } catch (IOException ex) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Goes on with the connections whose TLS handshake tasks finished on a worker. The records they were waiting
+     * for are already read, the selector would not report the connection again.
+     */
+    private void resumeConnections() {
+        NioConnection connection;
+        while ((connection = this.pendingResumes.poll()) != null) {
+            if (!connection.isOpen()) {
+                continue;
+            }
+            try {
+                connection.read();
+                this.write(connection);
+            } catch (RequestTooBigException ex) {
+                this.fail(connection, PAYLOAD_TOO_LARGE_RESPONSE);
+            } catch (TransferEncodingNotSupportedException ex) {
+                this.fail(connection, NOT_IMPLEMENTED_RESPONSE);
+            } catch (CannotParseRequestException ex) {
+                this.fail(connection, BAD_REQUEST_RESPONSE);
+            } catch (IOException ex) {
+                connection.close();
+            }
+        }
+    }
+
+    private void closeExpiredConnections() {
+        NioConnection connection;
+        while ((connection = this.pendingCloses.poll()) != null) {
+            connection.close();
+        }
+    }
+}
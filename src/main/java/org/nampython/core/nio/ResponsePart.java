@@ -0,0 +1,25 @@
+package org.nampython.core.nio;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A piece of a response waiting in the write queue of a {@link NioConnection}.
+ */
+interface ResponsePart {
+    /**
+     * Writes what the channel accepts without blocking.
+     *
+     * @param channel - the connection.
+     * @return - number of bytes written.
+     * @throws IOException - if the write failed.
+     */
+    long writeTo(WritableByteChannel channel) throws IOException;
+
+    boolean isComplete();
+
+    /**
+     * Frees what the part holds, called once it is written or the connection is closed.
+     */
+    void release();
+}
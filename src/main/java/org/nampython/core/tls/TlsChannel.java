@@ -0,0 +1,387 @@
+package org.nampython.core.tls;
+
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Plain text view of a TLS connection driven by an {@link SSLEngine}.
+ * The handshake is run by {@link #read(ByteBuffer)} as the records of the client arrive, so the same class works
+ * on a non-blocking {@link java.nio.channels.SocketChannel}, where a call returns 0 when it cannot progress,
+ * and on the streams of a blocking socket, where every call blocks until it can.
+ * Delegated tasks of the engine, the expensive key exchange and certificate work of the handshake, run on the calling
+ * thread unless {@link #runTasksOn(Executor, Runnable)} moves them to an executor, as the NIO event loop does: a call
+ * needing them then starts them and returns as if the channel could not progress.
+ * One thread may read while others write: the outgoing records are guarded by a lock, since reads send records
+ * of the handshake too. Reads must not run concurrently.
+ */
+public class TlsChannel implements ByteChannel {
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SSLEngine engine;
+    private final ReadableByteChannel source;
+    private final WritableByteChannel sink;
+    /**
+     * Records received from the client, in write mode.
+     */
+    private ByteBuffer netIn;
+    /**
+     * Decrypted bytes not read yet, in write mode.
+     */
+    private ByteBuffer appIn;
+    /**
+     * Records not sent to the client yet, in read mode.
+     */
+    private ByteBuffer netOut;
+    private final ReentrantLock outboundLock;
+    private volatile boolean closed;
+    private Executor taskExecutor;
+    private Runnable onTasksDone;
+    private final AtomicBoolean runningTasks;
+
+    /**
+     * @param engine - server mode engine, the handshake did not start.
+     * @param source - channel the records are read from.
+     * @param sink   - channel the records are written to.
+     */
+    public TlsChannel(SSLEngine engine, ReadableByteChannel source, WritableByteChannel sink) {
+        this.engine = engine;
+        this.source = source;
+        this.sink = sink;
+        this.netIn = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+        this.appIn = ByteBuffer.allocate(engine.getSession().getApplicationBufferSize());
+        this.netOut = ByteBuffer.allocate(engine.getSession().getPacketBufferSize());
+        this.netOut.flip();
+        this.outboundLock = new ReentrantLock();
+        this.runningTasks = new AtomicBoolean();
+    }
+
+    /**
+     * Runs the delegated tasks of the engine on the executor from now on, instead of on the thread calling
+     * {@link #read(ByteBuffer)} or {@link #write(ByteBuffer)}.
+     *
+     * @param taskExecutor - executor the tasks run on.
+     * @param onTasksDone  - called on the executor once the tasks finished, the caller has to read or write again.
+     */
+    public void runTasksOn(Executor taskExecutor, Runnable onTasksDone) {
+        this.taskExecutor = taskExecutor;
+        this.onTasksDone = onTasksDone;
+    }
+
+    /**
+     * @return - true while delegated tasks run on the executor, the channel cannot progress until they finished.
+     */
+    public boolean isRunningTasks() {
+        return this.runningTasks.get();
+    }
+
+    /**
+     * Reads decrypted bytes. All complete records already received are decrypted, what does not fit into dst stays
+     * buffered, see {@link #hasBufferedInput()}.
+     *
+     * @param dst - buffer to read into.
+     * @return - the number of bytes read, 0 if a non-blocking channel has nothing more, -1 at the end of the stream.
+     * @throws IOException - if the records are not valid TLS or the channel failed.
+     */
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        while (true) {
+            if (this.appIn.position() > 0) {
+                return this.transferAppIn(dst);
+            }
+            if (!this.flush()) {
+                return 0;
+            }
+            final SSLEngineResult.HandshakeStatus handshakeStatus = this.engine.getHandshakeStatus();
+            if (handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                this.wrap(EMPTY);
+                continue;
+            }
+            if (handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                if (!this.runDelegatedTasks()) {
+                    return 0;
+                }
+                continue;
+            }
+            if (this.engine.isInboundDone()) {
+                return -1;
+            }
+            if (this.unwrap()) {
+                continue;
+            }
+            if (!this.netIn.hasRemaining()) {
+                this.netIn = this.grow(this.netIn, this.engine.getSession().getPacketBufferSize());
+            }
+            final int read = this.source.read(this.netIn);
+            if (read < 0) {
+                return -1;
+            }
+            if (read == 0) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Encrypts and sends bytes.
+     *
+     * @param src - bytes to send.
+     * @return - the number of bytes taken from src, less than remaining if a non-blocking channel is full.
+     * @throws IOException - if the connection is closed or the channel failed.
+     */
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        this.outboundLock.lock();
+        try {
+            return this.writeLocked(src);
+        } finally {
+            this.outboundLock.unlock();
+        }
+    }
+
+    private int writeLocked(ByteBuffer src) throws IOException {
+        int consumed = 0;
+        while (src.hasRemaining()) {
+            if (!this.flush()) {
+                break;
+            }
+            final SSLEngineResult.HandshakeStatus handshakeStatus = this.engine.getHandshakeStatus();
+            if (handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+                if (!this.runDelegatedTasks()) {
+                    break;
+                }
+                continue;
+            }
+            if (handshakeStatus == SSLEngineResult.HandshakeStatus.NEED_UNWRAP) {
+                break;
+            }
+            final int wrapped = this.wrap(src);
+            consumed += wrapped;
+            if (wrapped == 0 && this.engine.getHandshakeStatus() != SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                break;
+            }
+        }
+        return consumed;
+    }
+
+    /**
+     * Sends the records that did not fit into the channel before.
+     *
+     * @return - true if nothing is left to send.
+     * @throws IOException - if the channel failed.
+     */
+    public boolean flush() throws IOException {
+        this.outboundLock.lock();
+        try {
+            while (this.netOut.hasRemaining()) {
+                if (this.sink.write(this.netOut) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            this.outboundLock.unlock();
+        }
+    }
+
+    /**
+     * @return - true if records wait for the channel to become writable.
+     */
+    public boolean hasPendingOutput() {
+        this.outboundLock.lock();
+        try {
+            return this.netOut.hasRemaining();
+        } finally {
+            this.outboundLock.unlock();
+        }
+    }
+
+    /**
+     * @return - true if decrypted bytes did not fit into the buffer of the last read, the channel will not report them as readable.
+     */
+    public boolean hasBufferedInput() {
+        return this.appIn.position() > 0;
+    }
+
+    /**
+     * @return - true until the initial handshake finished.
+     */
+    public boolean isHandshaking() {
+        final SSLEngineResult.HandshakeStatus handshakeStatus = this.engine.getHandshakeStatus();
+        return handshakeStatus != SSLEngineResult.HandshakeStatus.NOT_HANDSHAKING
+                && handshakeStatus != SSLEngineResult.HandshakeStatus.FINISHED;
+    }
+
+    /**
+     * @return - the protocol negotiated with ALPN, null or empty if none was, see {@link TlsContext#addApplicationProtocol(String)}.
+     */
+    public String getApplicationProtocol() {
+        return this.engine.getApplicationProtocol();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !this.closed && this.source.isOpen();
+    }
+
+    /**
+     * Sends close_notify if the channel accepts it right away and closes the underlying channels.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        try {
+            this.engine.closeOutbound();
+            this.wrap(EMPTY);
+        } catch (IOException ignored) {
+        } finally {
+            this.source.close();
+            this.sink.close();
+        }
+    }
+
+    /**
+     * Decrypts the complete records in netIn.
+     *
+     * @return - true if something was decrypted or the handshake can go on without more records.
+     */
+    private boolean unwrap() throws SSLException {
+        boolean progress = false;
+        this.netIn.flip();
+        try {
+            while (this.netIn.hasRemaining()) {
+                final SSLEngineResult result = this.engine.unwrap(this.netIn, this.appIn);
+                switch (result.getStatus()) {
+                    case BUFFER_OVERFLOW:
+                        this.appIn = this.grow(this.appIn, this.engine.getSession().getApplicationBufferSize());
+                        continue;
+                    case BUFFER_UNDERFLOW:
+                        return progress;
+                    case CLOSED:
+                        return true;
+                    default:
+                        break;
+                }
+                progress |= result.bytesConsumed() > 0 || result.bytesProduced() > 0;
+                if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK
+                        || result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_WRAP) {
+                    return true;
+                }
+                if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+                    return progress;
+                }
+            }
+            return progress;
+        } finally {
+            this.netIn.compact();
+        }
+    }
+
+    /**
+     * Encrypts src into netOut and sends what the channel accepts.
+     *
+     * @return - the number of bytes taken from src.
+     */
+    private int wrap(ByteBuffer src) throws IOException {
+        this.outboundLock.lock();
+        try {
+            return this.wrapLocked(src);
+        } finally {
+            this.outboundLock.unlock();
+        }
+    }
+
+    private int wrapLocked(ByteBuffer src) throws IOException {
+        SSLEngineResult result;
+        this.netOut.compact();
+        try {
+            while (true) {
+                result = this.engine.wrap(src, this.netOut);
+                if (result.getStatus() != SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                    break;
+                }
+                this.netOut = this.grow(this.netOut, this.engine.getSession().getPacketBufferSize());
+            }
+        } finally {
+            this.netOut.flip();
+        }
+        if (result.getStatus() == SSLEngineResult.Status.CLOSED && src.hasRemaining()) {
+            throw new SSLException("The TLS connection is closed.");
+        }
+        if (result.getHandshakeStatus() == SSLEngineResult.HandshakeStatus.NEED_TASK) {
+            this.runDelegatedTasks();
+        }
+        this.flush();
+        return result.bytesConsumed();
+    }
+
+    /**
+     * @return - true if the tasks ran on the calling thread, false if they run on the executor.
+     * @throws IOException - if the executor does not take the tasks.
+     */
+    private boolean runDelegatedTasks() throws IOException {
+        if (this.taskExecutor == null) {
+            this.runTasks();
+            return true;
+        }
+        if (!this.runningTasks.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            this.taskExecutor.execute(() -> {
+                try {
+                    this.runTasks();
+                } finally {
+                    this.runningTasks.set(false);
+                    this.onTasksDone.run();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.runningTasks.set(false);
+            throw new SSLException("No worker to run the handshake tasks.", e);
+        }
+        return false;
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = this.engine.getDelegatedTask()) != null) {
+            task.run();
+        }
+    }
+
+    private int transferAppIn(ByteBuffer dst) {
+        this.appIn.flip();
+        final int length = Math.min(this.appIn.remaining(), dst.remaining());
+        final int limit = this.appIn.limit();
+        this.appIn.limit(this.appIn.position() + length);
+        dst.put(this.appIn);
+        this.appIn.limit(limit);
+        this.appIn.compact();
+        return length;
+    }
+
+    /**
+     * @param buffer - buffer in write mode.
+     * @param minimumFree - free space needed.
+     * @return - a larger buffer in write mode with the same content.
+     */
+    private ByteBuffer grow(ByteBuffer buffer, int minimumFree) {
+        final ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + minimumFree));
+        buffer.flip();
+        grown.put(buffer);
+        return grown;
+    }
+}
@@ -0,0 +1,164 @@
+package org.nampython.core.tls;
+
+import org.nampython.config.ConfigCenter;
+import org.nampython.config.ConfigValue;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLSessionContext;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Server side TLS configuration shared by all connections, see {@link ConfigValue#TLS_ENABLED}.
+ * Returning clients resume their session instead of doing a full handshake: the server keeps a session cache and,
+ * when {@link ConfigValue#TLS_SESSION_TICKETS} is set, hands out stateless session tickets.
+ * The protocol spoken over the connection is negotiated with ALPN from {@link #getApplicationProtocols()}.
+ */
+public class TlsContext {
+    private static final String SESSION_TICKET_PROPERTY = "jdk.tls.server.enableSessionTicketExtension";
+    private static final String PROTOCOL_SEPARATOR = ",";
+
+    private final SSLContext sslContext;
+    private final String[] protocols;
+    private final List<String> applicationProtocols;
+
+    /**
+     * @param configCenter - server configuration.
+     * @throws IOException - if the keystore cannot be loaded or TLS cannot be set up with it.
+     */
+    public TlsContext(ConfigCenter configCenter) throws IOException {
+        if (configCenter.getConfigValue(ConfigValue.TLS_SESSION_TICKETS, boolean.class)
+                && System.getProperty(SESSION_TICKET_PROPERTY) == null) {
+            System.setProperty(SESSION_TICKET_PROPERTY, Boolean.TRUE.toString());
+        }
+        this.protocols = this.split(configCenter.getConfigParamString(ConfigValue.TLS_PROTOCOLS)).toArray(new String[0]);
+        this.applicationProtocols = new CopyOnWriteArrayList<>(this.split(configCenter.getConfigParamString(ConfigValue.TLS_APPLICATION_PROTOCOLS)));
+        try {
+            this.sslContext = SSLContext.getInstance("TLS");
+            this.sslContext.init(this.loadKeyManagerFactory(configCenter).getKeyManagers(), null, null);
+        } catch (GeneralSecurityException ex) {
+            throw new IOException("Cannot set up TLS with the configured keystore.", ex);
+        }
+        final SSLSessionContext sessionContext = this.sslContext.getServerSessionContext();
+        sessionContext.setSessionCacheSize(configCenter.getConfigValue(ConfigValue.TLS_SESSION_CACHE_SIZE, int.class));
+        sessionContext.setSessionTimeout(configCenter.getConfigValue(ConfigValue.TLS_SESSION_TIMEOUT_SECONDS, int.class));
+    }
+
+    /**
+     * @param configCenter - server configuration.
+     * @return - true if the server speaks TLS.
+     */
+    public static boolean isEnabled(ConfigCenter configCenter) {
+        return configCenter.getConfigValue(ConfigValue.TLS_ENABLED, boolean.class);
+    }
+
+    /**
+     * @return - a server mode engine for a new connection.
+     */
+    public SSLEngine createEngine() {
+        final SSLEngine engine = this.sslContext.createSSLEngine();
+        engine.setUseClientMode(false);
+        if (this.protocols.length > 0) {
+            engine.setEnabledProtocols(this.protocols);
+        }
+        engine.setHandshakeApplicationProtocolSelector(this::selectApplicationProtocol);
+        return engine;
+    }
+
+    /**
+     * @param channel - accepted non-blocking connection.
+     * @return - TLS view of the connection.
+     */
+    public TlsChannel wrap(SocketChannel channel) {
+        return new TlsChannel(this.createEngine(), channel, channel);
+    }
+
+    /**
+     * @param socket - accepted blocking connection.
+     * @return - TLS view of the connection.
+     * @throws IOException - if the socket streams cannot be opened.
+     */
+    public TlsChannel wrap(Socket socket) throws IOException {
+        return new TlsChannel(
+                this.createEngine(),
+                Channels.newChannel(socket.getInputStream()),
+                Channels.newChannel(socket.getOutputStream())
+        );
+    }
+
+    /**
+     * ALPN hook: a protocol layer registers the protocol it handles, it is preferred over the ones registered before.
+     *
+     * @param protocol - ALPN protocol id, e.g. h2.
+     */
+    public void addApplicationProtocol(String protocol) {
+        this.applicationProtocols.remove(protocol);
+        this.applicationProtocols.add(0, protocol);
+    }
+
+    /**
+     * @return - the ALPN protocol ids the server speaks, most preferred first.
+     */
+    public List<String> getApplicationProtocols() {
+        return this.applicationProtocols;
+    }
+
+    /**
+     * @param engine          - engine doing the handshake.
+     * @param offeredProtocols - protocols offered by the client.
+     * @return - the first protocol of the server the client offered, null to not use ALPN.
+     */
+    private String selectApplicationProtocol(SSLEngine engine, List<String> offeredProtocols) {
+        for (String protocol : this.applicationProtocols) {
+            if (offeredProtocols.contains(protocol)) {
+                return protocol;
+            }
+        }
+        return null;
+    }
+
+    private KeyManagerFactory loadKeyManagerFactory(ConfigCenter configCenter) throws IOException, GeneralSecurityException {
+        final char[] password = configCenter.getConfigParamString(ConfigValue.TLS_KEYSTORE_PASSWORD).toCharArray();
+        final KeyStore keyStore = KeyStore.getInstance(configCenter.getConfigParamString(ConfigValue.TLS_KEYSTORE_TYPE));
+        try (InputStream inputStream = new FileInputStream(this.resolveKeystore(configCenter))) {
+            keyStore.load(inputStream, password);
+        }
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, password);
+        return keyManagerFactory;
+    }
+
+    /**
+     * @return - the keystore file, a relative path is resolved against the working directory.
+     */
+    private File resolveKeystore(ConfigCenter configCenter) {
+        final File keystore = new File(configCenter.getConfigParamString(ConfigValue.TLS_KEYSTORE_PATH));
+        if (keystore.isAbsolute()) {
+            return keystore;
+        }
+        return new File(configCenter.getConfigParamString(ConfigValue.JAVACHE_WORKING_DIRECTORY), keystore.getPath());
+    }
+
+    private List<String> split(String values) {
+        final List<String> result = new ArrayList<>();
+        for (String value : Arrays.asList(values.split(PROTOCOL_SEPARATOR))) {
+            if (!value.trim().isEmpty()) {
+                result.add(value.trim());
+            }
+        }
+        return result;
+    }
+}
@@ -7,6 +7,7 @@ import org.nampython.config.ConfigValue;
 
 import java.io.*;
 import java.util.Date;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class Logger {
@@ -18,6 +19,12 @@ public class Logger {
 
     private String filePath;
 
+    /**
+     * Guards the log file. A lock is used instead of synchronized since writing to the file inside a synchronized
+     * block pins the virtual thread to its carrier for the whole write.
+     */
+    private final ReentrantLock printLock = new ReentrantLock();
+
     @Autowired
     public Logger(ConfigCenter configService) {
         this.configService = configService;
@@ -50,10 +57,28 @@ public class Logger {
         this.error(new String(outputStream.toByteArray()));
     }
 
-    private synchronized void print(String type, Object msg, Object... params) {
+    /**
+     * Waits for the message being printed and flushes the console, used before the JVM exits.
+     * Every message is written to the log file as it is printed.
+     */
+    public void flush() {
+        this.printLock.lock();
+        try {
+            System.out.flush();
+        } finally {
+            this.printLock.unlock();
+        }
+    }
+
+    private void print(String type, Object msg, Object... params) {
         final String formattedMsg = String.format("[%s][%s] %s", this.getDate(), type, String.format(msg + "", params));
-        System.out.println(formattedMsg);
-        this.writeToFile(formattedMsg);
+        this.printLock.lock();
+        try {
+            System.out.println(formattedMsg);
+            this.writeToFile(formattedMsg);
+        } finally {
+            this.printLock.unlock();
+        }
     }
 
     private String getDate() {
@@ -63,6 +88,8 @@ public class Logger {
     /**
      * Appends a given text to the log file.
      * Creates the log file if it doesn't exist.
+     * A message that cannot be appended was already printed to the console, the failure is not passed to the caller:
+     * the server logs while it is out of file descriptors and logging must not stop it.
      *
      * @param msg - given text.
      */
@@ -77,8 +104,7 @@ public class Logger {
                 printer.println(msg);
             }
 
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+        } catch (IOException ignored) {
         }
     }
 
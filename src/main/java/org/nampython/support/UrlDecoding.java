@@ -0,0 +1,23 @@
+package org.nampython.support;
+
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+public final class UrlDecoding {
+    private UrlDecoding() {
+    }
+
+    /**
+     * Most paths, parameter names and values contain nothing encoded, those are returned as they are
+     * without going through {@link URLDecoder}.
+     *
+     * @param str - application/x-www-form-urlencoded string.
+     * @return - the decoded string.
+     */
+    public static String decode(String str) {
+        if (str.indexOf('%') < 0 && str.indexOf('+') < 0) {
+            return str;
+        }
+        return URLDecoder.decode(str, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+package org.nampython.base.api;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills the headers of a browser request and looks up the ones the server reads, with {@link HttpHeaders} against
+ * the case sensitive HashMap used before and a TreeMap ignoring case. The lower case spelling is the one of HTTP/2
+ * clients, a HashMap misses those lookups.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HttpHeadersBenchmark {
+    private static final String[][] REQUEST_HEADERS = {
+            {"Host", "www.example.com"},
+            {"Connection", "keep-alive"},
+            {"sec-ch-ua", "\"Chromium\";v=\"124\""},
+            {"User-Agent", "Mozilla/5.0 (X11; Linux x86_64)"},
+            {"Accept", "*/*"},
+            {"Sec-Fetch-Site", "same-origin"},
+            {"Sec-Fetch-Mode", "no-cors"},
+            {"Referer", "https://www.example.com/"},
+            {"Accept-Encoding", "gzip, deflate, br"},
+            {"Accept-Language", "en-US,en;q=0.9"},
+            {"Cookie", "session=4f1c2a9e7b"},
+            {"If-None-Match", "\"5d8c72a5edda8\""},
+    };
+    private static final String[] LOOKUPS = {
+            "Content-Length", "Connection", "Cookie", "If-None-Match", "If-Modified-Since", "Range", "Accept-Encoding", "Host",
+    };
+
+    @Param({"canonical", "lowercase"})
+    public String spelling;
+
+    private String[] names;
+    private String[] values;
+
+    @Setup
+    public void setUp() {
+        final boolean lowerCase = "lowercase".equals(this.spelling);
+        this.names = new String[REQUEST_HEADERS.length];
+        this.values = new String[REQUEST_HEADERS.length];
+        for (int i = 0; i < REQUEST_HEADERS.length; i++) {
+            this.names[i] = lowerCase ? REQUEST_HEADERS[i][0].toLowerCase(Locale.ROOT) : REQUEST_HEADERS[i][0];
+            this.values[i] = REQUEST_HEADERS[i][1];
+        }
+    }
+
+    @Benchmark
+    public void httpHeaders(Blackhole blackhole) {
+        this.fillAndLookUp(new HttpHeaders(this.names.length), blackhole);
+    }
+
+    @Benchmark
+    public void hashMap(Blackhole blackhole) {
+        this.fillAndLookUp(new HashMap<>(), blackhole);
+    }
+
+    @Benchmark
+    public void treeMapIgnoringCase(Blackhole blackhole) {
+        this.fillAndLookUp(new TreeMap<>(String.CASE_INSENSITIVE_ORDER), blackhole);
+    }
+
+    private void fillAndLookUp(Map<String, String> headers, Blackhole blackhole) {
+        for (int i = 0; i < this.names.length; i++) {
+            headers.put(this.names[i], this.values[i]);
+        }
+        for (String name : LOOKUPS) {
+            blackhole.consume(headers.get(name));
+        }
+    }
+}
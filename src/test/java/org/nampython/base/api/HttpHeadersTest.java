@@ -0,0 +1,163 @@
+package org.nampython.base.api;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpHeadersTest {
+    @Test
+    void findsKnownHeadersWhateverTheCase() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("content-length", "5");
+
+        assertEquals("5", headers.get("Content-Length"));
+        assertEquals("5", headers.get("CONTENT-LENGTH"));
+        assertEquals("5", headers.get(KnownHeader.CONTENT_LENGTH));
+        assertEquals("5", headers.put("Content-Length", "6"));
+        assertEquals(1, headers.size());
+    }
+
+    @Test
+    void findsOtherHeadersWhateverTheCase() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("X-Custom-Header", "a");
+
+        assertEquals("a", headers.get("x-custom-header"));
+        assertTrue(headers.containsKey("X-CUSTOM-HEADER"));
+        assertEquals("a", headers.put("x-custom-header", "b"));
+        assertEquals(1, headers.size());
+        assertEquals("X-Custom-Header", headers.keySet().iterator().next());
+    }
+
+    @Test
+    void listsKnownHeadersUnderCanonicalNameFirst() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("X-Other", "1");
+        headers.put("host", "localhost");
+        headers.put("accept", "*/*");
+
+        assertEquals(List.of("Accept", "Host", "X-Other"), new ArrayList<>(headers.keySet()));
+    }
+
+    @Test
+    void removesHeaders() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Host", "localhost");
+        headers.put("X-A", "a");
+
+        assertEquals("localhost", headers.remove("HOST"));
+        assertEquals("a", headers.remove("x-a"));
+        assertNull(headers.remove("x-a"));
+        assertNull(headers.remove(KnownHeader.HOST));
+        assertTrue(headers.isEmpty());
+    }
+
+    @Test
+    void keepsHeadersAcrossRehashAndRemovals() {
+        final HttpHeaders headers = new HttpHeaders(2);
+        for (int i = 0; i < 200; i++) {
+            headers.put("X-Header-" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < 200; i += 2) {
+            headers.remove("x-header-" + i);
+        }
+        for (int i = 0; i < 200; i++) {
+            headers.put("X-Late-" + i, "late");
+        }
+
+        assertEquals(300, headers.size());
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 2 == 0 ? null : String.valueOf(i), headers.get("X-HEADER-" + i));
+            assertEquals("late", headers.get("x-late-" + i));
+        }
+    }
+
+    @Test
+    void iteratorRemovesAndEntriesWriteThrough() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Host", "localhost");
+        headers.put("X-A", "a");
+        headers.put("X-B", "b");
+
+        final Iterator<Map.Entry<String, String>> iterator = headers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<String, String> entry = iterator.next();
+            if ("X-A".equals(entry.getKey())) {
+                iterator.remove();
+            } else {
+                entry.setValue(entry.getValue() + "!");
+            }
+        }
+
+        assertEquals(2, headers.size());
+        assertEquals("localhost!", headers.get("host"));
+        assertEquals("b!", headers.get("x-b"));
+        assertFalse(headers.containsKey("X-A"));
+    }
+
+    @Test
+    void clearKeepsMapUsable() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Host", "localhost");
+        headers.put("X-A", "a");
+        headers.clear();
+
+        assertTrue(headers.isEmpty());
+        assertNull(headers.get("x-a"));
+        headers.put("X-A", "again");
+        assertEquals("again", headers.get("X-A"));
+    }
+
+    @Test
+    void equalsOtherMapsWithSameEntries() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Host", "localhost");
+        headers.put("X-A", "a");
+
+        assertEquals(Map.of("Host", "localhost", "X-A", "a"), headers);
+    }
+
+    @Test
+    void rejectsNullValues() {
+        final HttpHeaders headers = new HttpHeaders();
+
+        assertThrows(NullPointerException.class, () -> headers.put("X-A", null));
+        assertThrows(NullPointerException.class, () -> headers.put(KnownHeader.HOST, null));
+    }
+
+    @Test
+    void ignoresKeysThatAreNotStrings() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Host", "localhost");
+
+        assertNull(headers.get(1));
+        assertNull(headers.remove(1));
+    }
+
+    @Test
+    void looksUpKnownHeaders() {
+        for (KnownHeader header : KnownHeader.values()) {
+            assertEquals(header, KnownHeader.lookup(header.getName()));
+            assertEquals(header, KnownHeader.lookup(header.getName().toLowerCase()));
+            assertEquals(header, KnownHeader.lookup(header.getName().toUpperCase()));
+        }
+        assertNull(KnownHeader.lookup("X-Unknown"));
+        assertNull(KnownHeader.lookup(""));
+    }
+
+    @Test
+    void hashIgnoresCase() {
+        assertEquals(HttpHeaders.hashIgnoreCase("X-Forwarded-For"), HttpHeaders.hashIgnoreCase("x-forwarded-for"));
+        assertTrue(HttpHeaders.equalsIgnoreCase("Sec-CH-UA", "sec-ch-ua"));
+        assertFalse(HttpHeaders.equalsIgnoreCase("X-A", "X-B"));
+    }
+}
@@ -0,0 +1,89 @@
+package org.nampython.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ByteRangeTest {
+    private static final long LENGTH = 10_000;
+
+    @Test
+    void parsesClosedRange() {
+        final List<ByteRange> ranges = ByteRange.parse("bytes=0-499", LENGTH);
+
+        assertEquals(1, ranges.size());
+        assertRange(ranges.get(0), 0, 499);
+        assertEquals(500, ranges.get(0).getLength());
+        assertEquals("bytes 0-499/10000", ranges.get(0).toContentRange(LENGTH));
+    }
+
+    @Test
+    void resolvesOpenAndSuffixRanges() {
+        assertRange(ByteRange.parse("bytes=9500-", LENGTH).get(0), 9500, 9999);
+        assertRange(ByteRange.parse("bytes=-500", LENGTH).get(0), 9500, 9999);
+        assertRange(ByteRange.parse("bytes=-20000", LENGTH).get(0), 0, 9999);
+    }
+
+    @Test
+    void cutsRangesPastTheEnd() {
+        assertRange(ByteRange.parse("bytes=9000-20000", LENGTH).get(0), 9000, 9999);
+    }
+
+    @Test
+    void mergesOverlappingAndAdjacentRangesInOrder() {
+        final List<ByteRange> ranges = ByteRange.parse("bytes=500-599, 0-99,100-199, 550-700", LENGTH);
+
+        assertEquals(2, ranges.size());
+        assertRange(ranges.get(0), 0, 199);
+        assertRange(ranges.get(1), 500, 700);
+    }
+
+    @Test
+    void acceptsUnitInAnyCaseAndEmptySpecs() {
+        assertRange(ByteRange.parse("Bytes = 1-2,,", LENGTH).get(0), 1, 2);
+    }
+
+    @Test
+    void returnsEmptyListWhenNothingOverlaps() {
+        assertTrue(ByteRange.parse("bytes=10000-", LENGTH).isEmpty());
+        assertTrue(ByteRange.parse("bytes=-0", LENGTH).isEmpty());
+        assertTrue(ByteRange.parse("bytes=-5", 0).isEmpty());
+    }
+
+    @Test
+    void ignoresMalformedHeaders() {
+        assertNull(ByteRange.parse("items=0-1", LENGTH));
+        assertNull(ByteRange.parse("0-1", LENGTH));
+        assertNull(ByteRange.parse("bytes=5", LENGTH));
+        assertNull(ByteRange.parse("bytes=5-1", LENGTH));
+        assertNull(ByteRange.parse("bytes=a-b", LENGTH));
+        assertNull(ByteRange.parse("bytes=-", LENGTH));
+        assertNull(ByteRange.parse("bytes=+1-2", LENGTH));
+        assertNull(ByteRange.parse("bytes=0-99999999999999999999", LENGTH));
+    }
+
+    @Test
+    void ignoresTooManyRanges() {
+        final StringBuilder header = new StringBuilder("bytes=");
+        for (int i = 0; i < 33; i++) {
+            header.append(i * 10).append('-').append(i * 10 + 1).append(',');
+        }
+
+        assertNull(ByteRange.parse(header.toString(), LENGTH));
+        assertEquals(1, ByteRange.parse(header.toString().replace(",", ",0-1000,"), LENGTH).size());
+    }
+
+    @Test
+    void formatsUnsatisfiedContentRange() {
+        assertEquals("bytes */10000", ByteRange.unsatisfiedContentRange(LENGTH));
+    }
+
+    private static void assertRange(ByteRange range, long start, long end) {
+        assertEquals(start, range.getStart());
+        assertEquals(end, range.getEnd());
+    }
+}
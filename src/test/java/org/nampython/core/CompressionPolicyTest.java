@@ -0,0 +1,79 @@
+package org.nampython.core;
+
+import org.junit.jupiter.api.Test;
+import org.nampython.base.api.BaseHttpRequest;
+import org.nampython.base.api.BaseHttpRequestImpl;
+import org.nampython.base.api.BaseHttpResponse;
+import org.nampython.base.api.BaseHttpResponseImpl;
+import org.nampython.base.api.ContentEncoding;
+import org.nampython.config.AdditionalConfig;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressionPolicyTest {
+    private final CompressionPolicy compressionPolicy = new CompressionPolicy(new AdditionalConfig(new HashMap<>()));
+
+    @Test
+    void compressesListedMediaTypesIgnoringCaseAndParameters() {
+        assertTrue(this.compressionPolicy.isCompressible("TEXT/HTML; charset=UTF-8", 2048));
+        assertTrue(this.compressionPolicy.isCompressible("Application/JSON", 2048));
+        assertFalse(this.compressionPolicy.isCompressible("image/png", 2048));
+        assertFalse(this.compressionPolicy.isCompressible("text/html", 10));
+    }
+
+    @Test
+    void negotiatesEncodingByQuality() {
+        assertEquals(ContentEncoding.GZIP, this.compressionPolicy.negotiate("gzip, deflate"));
+        assertEquals(ContentEncoding.DEFLATE, this.compressionPolicy.negotiate("gzip;q=0.5, deflate"));
+        assertNull(this.compressionPolicy.negotiate("identity"));
+    }
+
+    @Test
+    void addsAcceptEncodingToVary() {
+        final BaseHttpResponse response = compressibleResponse();
+
+        this.compressionPolicy.applyTo(request(), response);
+
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+    }
+
+    @Test
+    void keepsVaryOfHandler() {
+        final BaseHttpResponse response = compressibleResponse();
+        response.addHeader("Vary", "Origin");
+
+        this.compressionPolicy.applyTo(request(), response);
+
+        assertEquals("Origin, Accept-Encoding", response.getHeaders().get("Vary"));
+    }
+
+    @Test
+    void doesNotRepeatVaryField() {
+        final BaseHttpResponse response = new BaseHttpResponseImpl();
+        response.addHeader("Vary", "Origin, accept-encoding");
+        CompressionPolicy.varyOnAcceptEncoding(response);
+        assertEquals("Origin, accept-encoding", response.getHeaders().get("Vary"));
+
+        response.addHeader("Vary", "*");
+        CompressionPolicy.varyOnAcceptEncoding(response);
+        assertEquals("*", response.getHeaders().get("Vary"));
+    }
+
+    private static BaseHttpRequest request() {
+        final BaseHttpRequest request = new BaseHttpRequestImpl();
+        request.addHeader("Accept-Encoding", "gzip");
+        return request;
+    }
+
+    private static BaseHttpResponse compressibleResponse() {
+        final BaseHttpResponse response = new BaseHttpResponseImpl();
+        response.addHeader("Content-Type", "text/html");
+        response.setContent("x".repeat(2048));
+        return response;
+    }
+}
@@ -0,0 +1,124 @@
+package org.nampython.core;
+
+import org.nampython.config.AdditionalConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends a static file of 1 KB to 1 GB over a loopback connection through the {@link ChannelOutputStream} of the
+ * blocking transport, with {@link java.nio.channels.FileChannel#transferTo} against copying it through a 2 KB heap
+ * buffer as the resource handler did before. The other end of the connection is drained by a thread of its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FileTransferBenchmark {
+    private static final int COPY_BUFFER_SIZE = 2048;
+    private static final int DRAIN_BUFFER_SIZE = 256 * 1024;
+    /**
+     * The file is written in chunks of this size, so a 1 GB file does not have to fit in the heap.
+     */
+    private static final int WRITE_CHUNK_SIZE = 1024 * 1024;
+
+    @Param({"1024", "65536", "1048576", "67108864", "1073741824"})
+    public long fileSize;
+
+    private Path file;
+    private ServerSocketChannel serverChannel;
+    private SocketChannel clientChannel;
+    private Thread drainer;
+    private ConnectionTimeouts connectionTimeouts;
+    private ConnectionDeadline deadline;
+    private ChannelOutputStream outputStream;
+    private byte[] copyBuffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("transfer", ".bin");
+        final Random random = new Random(42);
+        final byte[] chunk = new byte[(int) Math.min(WRITE_CHUNK_SIZE, this.fileSize)];
+        try (OutputStream fileStream = Files.newOutputStream(this.file)) {
+            for (long written = 0; written < this.fileSize; written += chunk.length) {
+                random.nextBytes(chunk);
+                fileStream.write(chunk, 0, (int) Math.min(chunk.length, this.fileSize - written));
+            }
+        }
+
+        this.serverChannel = ServerSocketChannel.open();
+        this.serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        this.clientChannel = SocketChannel.open(this.serverChannel.getLocalAddress());
+        final SocketChannel receiver = this.serverChannel.accept();
+        this.drainer = new Thread(() -> drain(receiver), "transfer-drainer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+
+        this.connectionTimeouts = new ConnectionTimeouts(new AdditionalConfig(new HashMap<>()));
+        this.deadline = this.connectionTimeouts.newDeadline(() -> {
+        });
+        this.outputStream = new ChannelOutputStream(this.clientChannel.socket().getOutputStream(), this.clientChannel, this.deadline);
+        this.copyBuffer = new byte[COPY_BUFFER_SIZE];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, InterruptedException {
+        this.deadline.cancel();
+        this.connectionTimeouts.stop();
+        this.clientChannel.close();
+        this.drainer.join();
+        this.serverChannel.close();
+        Files.delete(this.file);
+    }
+
+    @Benchmark
+    public void transferTo() throws IOException {
+        this.outputStream.transferFile(this.file, 0, this.fileSize);
+    }
+
+    @Benchmark
+    public void copyThroughHeap() throws IOException {
+        try (InputStream inputStream = Files.newInputStream(this.file)) {
+            int read;
+            while ((read = inputStream.read(this.copyBuffer)) != -1) {
+                this.outputStream.write(this.copyBuffer, 0, read);
+            }
+        }
+        this.outputStream.flush();
+    }
+
+    private static void drain(SocketChannel receiver) {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(DRAIN_BUFFER_SIZE);
+        try (receiver) {
+            while (receiver.read(buffer) >= 0) {
+                buffer.clear();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+}
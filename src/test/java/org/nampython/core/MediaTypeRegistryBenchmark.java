@@ -0,0 +1,74 @@
+package org.nampython.core;
+
+import org.nampython.config.AdditionalConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolves the media type of a static file with the {@link MediaTypeRegistry}, by extension and for a file that had
+ * to be sniffed once, against sniffing it with Tika on every request as the resource handler did before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MediaTypeRegistryBenchmark {
+    private Path directory;
+    private File script;
+    private File unknownExtension;
+    private TikaBase tikaBase;
+    private MediaTypeRegistry mediaTypeRegistry;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("media-types");
+        this.script = Files.write(this.directory.resolve("app.js"),
+                "export function main() { return 42; }\n".getBytes(StandardCharsets.UTF_8)).toFile();
+        this.unknownExtension = Files.write(this.directory.resolve("page.unknown"),
+                "<!DOCTYPE html><html><head><title>x</title></head><body></body></html>\n".getBytes(StandardCharsets.UTF_8)).toFile();
+        this.tikaBase = new TikaBase();
+        this.mediaTypeRegistry = new MediaTypeRegistry(new AdditionalConfig(new HashMap<>()), this.tikaBase);
+        this.mediaTypeRegistry.detect(this.unknownExtension);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(this.script.toPath());
+        Files.delete(this.unknownExtension.toPath());
+        Files.delete(this.directory);
+    }
+
+    @Benchmark
+    public String registryByExtension() throws IOException {
+        return this.mediaTypeRegistry.detect(this.script);
+    }
+
+    @Benchmark
+    public String registrySniffedOnce() throws IOException {
+        return this.mediaTypeRegistry.detect(this.unknownExtension);
+    }
+
+    @Benchmark
+    public String tikaEveryRequest() throws IOException {
+        return this.tikaBase.detect(this.script);
+    }
+}
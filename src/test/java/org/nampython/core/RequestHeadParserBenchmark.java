@@ -0,0 +1,92 @@
+package org.nampython.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parses the head of a request as {@link RequestHeadParser} does, against reading it line by line and splitting
+ * the lines with regular expressions as the request processor did before.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestHeadParserBenchmark {
+    private static final String MINIMAL_REQUEST = "GET / HTTP/1.1\r\nHost: localhost\r\n\r\n";
+    private static final String BROWSER_REQUEST = "GET /assets/app.js?v=42 HTTP/1.1\r\n"
+            + "Host: www.example.com\r\n"
+            + "Connection: keep-alive\r\n"
+            + "sec-ch-ua: \"Chromium\";v=\"124\", \"Google Chrome\";v=\"124\"\r\n"
+            + "sec-ch-ua-mobile: ?0\r\n"
+            + "User-Agent: Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/124.0 Safari/537.36\r\n"
+            + "sec-ch-ua-platform: \"Linux\"\r\n"
+            + "Accept: */*\r\n"
+            + "Sec-Fetch-Site: same-origin\r\n"
+            + "Sec-Fetch-Mode: no-cors\r\n"
+            + "Sec-Fetch-Dest: script\r\n"
+            + "Referer: https://www.example.com/\r\n"
+            + "Accept-Encoding: gzip, deflate, br\r\n"
+            + "Accept-Language: en-US,en;q=0.9\r\n"
+            + "Cookie: session=4f1c2a9e7b; theme=dark\r\n"
+            + "If-None-Match: \"5d8c72a5edda8\"\r\n"
+            + "\r\n";
+
+    @Param({"minimal", "browser"})
+    public String request;
+
+    private byte[] bytes;
+    private RequestHeadParser parser;
+
+    @Setup
+    public void setUp() {
+        this.bytes = ("minimal".equals(this.request) ? MINIMAL_REQUEST : BROWSER_REQUEST).getBytes(StandardCharsets.ISO_8859_1);
+        this.parser = new RequestHeadParser();
+    }
+
+    @Benchmark
+    public void headParser(Blackhole blackhole) throws IOException {
+        this.parser.parse(new ByteArrayInputStream(this.bytes));
+        blackhole.consume(this.parser.getMethod());
+        blackhole.consume(this.parser.getPath());
+        for (int i = 0; i < this.parser.getHeaderCount(); i++) {
+            blackhole.consume(this.parser.getHeaderName(i));
+            blackhole.consume(this.parser.getHeaderValue(i));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> readLinesAndSplit(Blackhole blackhole) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(this.bytes), StandardCharsets.ISO_8859_1));
+        final String[] requestLine = reader.readLine().split("\\s");
+        blackhole.consume(requestLine[0]);
+        blackhole.consume(requestLine[1].split("\\?")[0]);
+        final Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            final String[] pair = line.split(":\\s+", 2);
+            headers.put(pair[0], pair.length > 1 ? pair[1] : "");
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,194 @@
+package org.nampython.core;
+
+import org.junit.jupiter.api.Test;
+import org.nampython.config.AdditionalConfig;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RequestHeadParserTest {
+    private final RequestHeadParser parser = new RequestHeadParser();
+
+    @Test
+    void parsesRequestLineAndHeaders() throws IOException {
+        this.parser.parse(stream("GET /index.html?a=1&b=2 HTTP/1.1\r\nHost: localhost\r\nAccept:  text/html \r\n\r\n"));
+
+        assertEquals("GET", this.parser.getMethod());
+        assertEquals("/index.html", this.parser.getPath());
+        assertEquals("a=1&b=2", this.parser.getQuery());
+        assertEquals("HTTP/1.1", this.parser.getProtocol());
+        assertEquals(2, this.parser.getHeaderCount());
+        assertEquals("Host", this.parser.getHeaderName(0));
+        assertEquals("localhost", this.parser.getHeaderValue(0));
+        assertEquals("Accept", this.parser.getHeaderName(1));
+        assertEquals("text/html", this.parser.getHeaderValue(1));
+    }
+
+    @Test
+    void sharesKnownTokens() throws IOException {
+        this.parser.parse(stream("POST / HTTP/1.1\r\nContent-Length: 0\r\n\r\n"));
+
+        assertSame("POST", this.parser.getMethod());
+        assertSame("HTTP/1.1", this.parser.getProtocol());
+        assertSame("Content-Length", this.parser.getHeaderName(0));
+    }
+
+    @Test
+    void keepsHeaderNamesAsSent() throws IOException {
+        this.parser.parse(stream("GET / HTTP/1.1\r\ncontent-length: 5\r\nX-Custom: a:b\r\n\r\n"));
+
+        assertEquals("content-length", this.parser.getHeaderName(0));
+        assertEquals("X-Custom", this.parser.getHeaderName(1));
+        assertEquals("a:b", this.parser.getHeaderValue(1));
+    }
+
+    @Test
+    void requestWithoutQueryOrProtocol() throws IOException {
+        this.parser.parse(stream("GET /\r\n\r\n"));
+
+        assertEquals("/", this.parser.getPath());
+        assertNull(this.parser.getQuery());
+        assertNull(this.parser.getProtocol());
+        assertEquals(0, this.parser.getHeaderCount());
+    }
+
+    @Test
+    void ignoresEmptyLinesBeforeRequestLine() throws IOException {
+        this.parser.parse(stream("\r\n\r\nGET / HTTP/1.1\r\n\r\n"));
+
+        assertEquals("GET", this.parser.getMethod());
+    }
+
+    @Test
+    void leavesBodyAndPipelinedRequestInStream() throws IOException {
+        final InputStream inputStream = new BufferedInputStream(stream(
+                "POST /a HTTP/1.1\r\nContent-Length: 4\r\n\r\nbodyGET /b HTTP/1.1\r\n\r\n"));
+
+        this.parser.parse(inputStream);
+        assertEquals("/a", this.parser.getPath());
+        assertEquals("body", new String(inputStream.readNBytes(4), StandardCharsets.ISO_8859_1));
+
+        this.parser.parse(inputStream);
+        assertEquals("/b", this.parser.getPath());
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    void readsByteByByteWithoutMarkSupport() throws IOException {
+        final InputStream inputStream = new InputStream() {
+            private final InputStream delegate = stream("GET /x HTTP/1.1\r\nHost: h\r\n\r\nrest");
+
+            @Override
+            public int read() throws IOException {
+                return this.delegate.read();
+            }
+        };
+
+        this.parser.parse(inputStream);
+
+        assertEquals("/x", this.parser.getPath());
+        assertEquals("rest", new String(inputStream.readAllBytes(), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    void usesLinesOfTruncatedHead() throws IOException {
+        this.parser.parse(stream("GET / HTTP/1.1\r\nHost: localhost"));
+
+        assertEquals(1, this.parser.getHeaderCount());
+        assertEquals("localhost", this.parser.getHeaderValue(0));
+    }
+
+    @Test
+    void reusesParserForLongerRequest() throws IOException {
+        this.parser.parse(stream("GET / HTTP/1.1\r\n\r\n"));
+        final String longValue = "v".repeat(10_000);
+        this.parser.parse(stream("GET /long HTTP/1.1\r\nX-Long: " + longValue + "\r\n\r\n"));
+
+        assertEquals("/long", this.parser.getPath());
+        assertEquals(longValue, this.parser.getHeaderValue(0));
+    }
+
+    @Test
+    void leasesBufferFromPoolForEachParse() throws IOException {
+        final BufferPool bufferPool = new BufferPool(new AdditionalConfig(new HashMap<>()), null);
+        final RequestHeadParser pooledParser = new RequestHeadParser(bufferPool);
+        final String longValue = "v".repeat(10_000);
+
+        pooledParser.parse(stream("GET /long HTTP/1.1\r\nX-Long: " + longValue + "\r\n\r\n"));
+        assertEquals(longValue, pooledParser.getHeaderValue(0));
+        pooledParser.release();
+        pooledParser.parse(stream("GET / HTTP/1.1\r\n\r\n"));
+        pooledParser.release();
+
+        final BufferPoolStats stats = bufferPool.getStats();
+        assertEquals(4, stats.getLeases());
+        assertEquals(3, stats.getAllocations());
+        assertEquals(3, stats.getFreeBuffers());
+    }
+
+    @Test
+    void releasesPooledBufferOfRejectedRequest() {
+        final BufferPool bufferPool = new BufferPool(new AdditionalConfig(new HashMap<>()), null);
+        final RequestHeadParser pooledParser = new RequestHeadParser(bufferPool);
+
+        assertThrows(CannotParseRequestException.class, () -> pooledParser.parse(stream("GET\r\n\r\n")));
+        pooledParser.release();
+
+        assertEquals(1, bufferPool.getStats().getFreeBuffers());
+    }
+
+    @Test
+    void rejectsEmptyRequest() {
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("")));
+    }
+
+    @Test
+    void rejectsMalformedRequestLine() {
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("GET\r\n\r\n")));
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream(" / HTTP/1.1\r\n\r\n")));
+    }
+
+    @Test
+    void rejectsMalformedHeaders() {
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("GET / HTTP/1.1\r\nNoColon\r\n\r\n")));
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("GET / HTTP/1.1\r\nName : v\r\n\r\n")));
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("GET / HTTP/1.1\r\nA: b\r\n folded\r\n\r\n")));
+    }
+
+    @Test
+    void rejectsBareLineBreaks() {
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("GET / HTTP/1.1\nHost: h\r\n\r\n")));
+        assertThrows(CannotParseRequestException.class, () -> this.parser.parse(stream("GET / HTTP/1.1\rHost: h\r\n\r\n")));
+    }
+
+    @Test
+    void rejectsTooManyHeaders() {
+        final StringBuilder request = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i <= 100; i++) {
+            request.append("X-").append(i).append(": v\r\n");
+        }
+        request.append("\r\n");
+
+        assertThrows(RequestTooBigException.class, () -> this.parser.parse(stream(request.toString())));
+    }
+
+    @Test
+    void rejectsHeadOver64Kilobytes() {
+        final String request = "GET / HTTP/1.1\r\nX-Long: " + "v".repeat(64 * 1024) + "\r\n\r\n";
+
+        assertThrows(RequestTooBigException.class, () -> this.parser.parse(stream(request)));
+    }
+
+    private static InputStream stream(String request) {
+        return new ByteArrayInputStream(request.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
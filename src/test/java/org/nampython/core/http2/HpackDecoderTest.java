@@ -0,0 +1,121 @@
+package org.nampython.core.http2;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The request examples of RFC 7541 appendix C decoded in sequence, since each block refers to the dynamic table
+ * left by the previous one.
+ */
+class HpackDecoderTest {
+    private static final int TABLE_SIZE = 4096;
+    private static final int HEADER_LIST_SIZE = 64 * 1024;
+
+    @Test
+    void decodesRequestsWithoutHuffmanCoding() throws HpackException {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertFields(decoder, "828684410f7777772e6578616d706c652e636f6d",
+                ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+        assertFields(decoder, "828684be58086e6f2d6361636865",
+                ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+                "cache-control", "no-cache");
+        assertFields(decoder, "828785bf400a637573746f6d2d6b65790c637573746f6d2d76616c7565",
+                ":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com",
+                "custom-key", "custom-value");
+    }
+
+    @Test
+    void decodesRequestsWithHuffmanCoding() throws HpackException {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertFields(decoder, "828684418cf1e3c2e5f23a6ba0ab90f4ff",
+                ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com");
+        assertFields(decoder, "828684be5886a8eb10649cbf",
+                ":method", "GET", ":scheme", "http", ":path", "/", ":authority", "www.example.com",
+                "cache-control", "no-cache");
+        assertFields(decoder, "828785bf408825a849e95ba97d7f8925a849e95bb8e8b4bf",
+                ":method", "GET", ":scheme", "https", ":path", "/index.html", ":authority", "www.example.com",
+                "custom-key", "custom-value");
+    }
+
+    @Test
+    void decodesLiteralsNeverIndexed() throws HpackException {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertFields(decoder, "100870617373776f726406736563726574", "password", "secret");
+        assertThrows(HpackException.class, () -> decode(decoder, "be"));
+    }
+
+    @Test
+    void evictsEntriesOnTableSizeUpdate() throws HpackException {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+        decode(decoder, "828684410f7777772e6578616d706c652e636f6d");
+
+        assertFields(decoder, "20");
+        assertThrows(HpackException.class, () -> decode(decoder, "be"));
+    }
+
+    @Test
+    void rejectsTableSizeOverAnnouncedLimit() {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertThrows(HpackException.class, () -> decode(decoder, "3fe13f"));
+    }
+
+    @Test
+    void rejectsTableSizeUpdateAfterHeader() {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertThrows(HpackException.class, () -> decode(decoder, "8220"));
+    }
+
+    @Test
+    void rejectsInvalidIndexes() {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertThrows(HpackException.class, () -> decode(decoder, "80"));
+        assertThrows(HpackException.class, () -> decode(decoder, "be"));
+        assertThrows(HpackException.class, () -> decode(decoder, "ffffffffff0f"));
+    }
+
+    @Test
+    void rejectsTruncatedStrings() {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, HEADER_LIST_SIZE);
+
+        assertThrows(HpackException.class, () -> decode(decoder, "410f77"));
+        assertThrows(HpackException.class, () -> decode(decoder, "40"));
+    }
+
+    @Test
+    void rejectsHeaderListOverLimit() {
+        final HpackDecoder decoder = new HpackDecoder(TABLE_SIZE, 50);
+
+        assertThrows(HpackException.class, () -> decode(decoder, "828684410f7777772e6578616d706c652e636f6d"));
+    }
+
+    private static void assertFields(HpackDecoder decoder, String hex, String... namesAndValues) throws HpackException {
+        final List<String> expected = new ArrayList<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            expected.add(namesAndValues[i] + ": " + namesAndValues[i + 1]);
+        }
+        final List<String> actual = new ArrayList<>();
+        for (HeaderField field : decode(decoder, hex)) {
+            actual.add(field.toString());
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static List<HeaderField> decode(HpackDecoder decoder, String hex) throws HpackException {
+        final byte[] block = new byte[hex.length() / 2];
+        for (int i = 0; i < block.length; i++) {
+            block[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return decoder.decode(block, block.length);
+    }
+}
@@ -0,0 +1,108 @@
+package org.nampython.core.nio;
+
+import org.junit.jupiter.api.Test;
+import org.nampython.core.CannotParseRequestException;
+import org.nampython.core.RequestTooBigException;
+import org.nampython.core.TransferEncodingNotSupportedException;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HttpRequestFramerTest {
+    private static final int MAX_HEADER_SIZE = 1024;
+    private static final int MAX_REQUEST_SIZE = 4096;
+
+    private final HttpRequestFramer framer = new HttpRequestFramer(MAX_HEADER_SIZE, MAX_REQUEST_SIZE);
+
+    @Test
+    void framesRequestWithoutBody() {
+        final byte[] data = bytes("GET / HTTP/1.1\r\nHost: localhost\r\n\r\nGET /next");
+
+        assertEquals(35, this.framer.frame(data, data.length));
+        assertEquals(0, this.framer.getContentLength());
+    }
+
+    @Test
+    void framesRequestWithBody() {
+        final byte[] data = bytes("POST / HTTP/1.1\r\nContent-Length: 5\r\n\r\nhello");
+
+        assertEquals(-1, this.framer.frame(data, data.length - 1));
+        assertEquals(data.length, this.framer.frame(data, data.length));
+        assertEquals(5, this.framer.getContentLength());
+    }
+
+    @Test
+    void framesRequestReadByteByByte() {
+        final byte[] data = bytes("POST / HTTP/1.1\r\nContent-Length: 2\r\n\r\nok");
+
+        for (int length = 1; length < data.length; length++) {
+            assertEquals(-1, this.framer.frame(data, length));
+        }
+        assertEquals(data.length, this.framer.frame(data, data.length));
+    }
+
+    @Test
+    void skipsEmptyLinesBeforeRequestLine() {
+        final byte[] data = bytes("\r\n\r\n\r\nPOST / HTTP/1.1\r\nContent-Length: 2\r\n\r\nok");
+
+        assertEquals(data.length, this.framer.frame(data, data.length));
+        assertEquals(2, this.framer.getContentLength());
+    }
+
+    @Test
+    void skipsEmptyLinesReadByteByByte() {
+        final byte[] data = bytes("\r\n\r\nGET / HTTP/1.1\r\n\r\n");
+
+        for (int length = 1; length < data.length; length++) {
+            assertEquals(-1, this.framer.frame(data, length));
+        }
+        assertEquals(data.length, this.framer.frame(data, data.length));
+    }
+
+    @Test
+    void framesNextRequestAfterReset() {
+        final byte[] data = bytes("GET / HTTP/1.1\r\n\r\n");
+        this.framer.frame(bytes("POST / HTTP/1.1\r\nContent-Length: 9\r\n\r\n"), 38);
+        this.framer.reset();
+
+        assertEquals(data.length, this.framer.frame(data, data.length));
+        assertEquals(0, this.framer.getContentLength());
+    }
+
+    @Test
+    void rejectsHeadersOverLimit() {
+        final byte[] data = new byte[MAX_HEADER_SIZE + 1];
+
+        assertThrows(RequestTooBigException.class, () -> this.framer.frame(data, data.length));
+    }
+
+    @Test
+    void rejectsEmptyLinesOverLimit() {
+        final byte[] data = bytes("\r\n".repeat(MAX_HEADER_SIZE));
+
+        assertThrows(RequestTooBigException.class, () -> this.framer.frame(data, data.length));
+    }
+
+    @Test
+    void rejectsBodyOverLimit() {
+        final byte[] data = bytes("POST / HTTP/1.1\r\nContent-Length: 5000\r\n\r\n");
+
+        assertThrows(RequestTooBigException.class, () -> this.framer.frame(data, data.length));
+    }
+
+    @Test
+    void rejectsInvalidFramingHeaders() {
+        final byte[] invalid = bytes("POST / HTTP/1.1\r\nContent-Length: five\r\n\r\n");
+        final byte[] chunked = bytes("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\n");
+
+        assertThrows(CannotParseRequestException.class, () -> this.framer.frame(invalid, invalid.length));
+        this.framer.reset();
+        assertThrows(TransferEncodingNotSupportedException.class, () -> this.framer.frame(chunked, chunked.length));
+    }
+
+    private static byte[] bytes(String request) {
+        return request.getBytes(StandardCharsets.ISO_8859_1);
+    }
+}